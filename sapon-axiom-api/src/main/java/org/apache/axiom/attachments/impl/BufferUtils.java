@@ -49,11 +49,9 @@ public class BufferUtils {
     static boolean ENABLE_FILE_CHANNEL = true;       // Enable file channel optimization
     static boolean ENABLE_BAAOS_OPT = true;          // Enable BAAOutputStream opt
 
-    private static byte[] _cacheBuffer = new byte[BUFFER_LEN];
-    private static boolean _cacheBufferInUse = false;
-
-    private static ByteBuffer _cacheByteBuffer = ByteBuffer.allocate(BUFFER_LEN);
-    private static boolean _cacheByteBufferInUse = false;
+    // Per thread cached buffers; a thread's slot is empty while its buffer is in use
+    private static final ThreadLocal<byte[]> _cacheBuffer = new ThreadLocal<byte[]>();
+    private static final ThreadLocal<ByteBuffer> _cacheByteBuffer = new ThreadLocal<ByteBuffer>();
 
     /**
      * Private utility to write the InputStream contents to the OutputStream.
@@ -314,13 +312,12 @@ public class BufferUtils {
         }
     }
 
-    private static synchronized byte[] getTempBuffer() {
+    private static byte[] getTempBuffer() {
         // Try using cached buffer
-        synchronized(_cacheBuffer) {
-            if (!_cacheBufferInUse) {
-                _cacheBufferInUse = true;
-                return _cacheBuffer;
-            }
+        byte[] buffer = _cacheBuffer.get();
+        if (buffer != null) {
+            _cacheBuffer.set(null);
+            return buffer;
         }
 
         // Cache buffer in use, create new buffer
@@ -328,21 +325,15 @@ public class BufferUtils {
     }
 
     private static void releaseTempBuffer(byte[] buffer) {
-        // Try using cached buffer
-        synchronized(_cacheBuffer) {
-            if (buffer == _cacheBuffer) {
-                _cacheBufferInUse = false;
-            }
-        }
+        _cacheBuffer.set(buffer);
     }
 
-    private static synchronized ByteBuffer getTempByteBuffer() {
+    private static ByteBuffer getTempByteBuffer() {
         // Try using cached buffer
-        synchronized(_cacheByteBuffer) {
-            if (!_cacheByteBufferInUse) {
-                _cacheByteBufferInUse = true;
-                return _cacheByteBuffer;
-            }
+        ByteBuffer buffer = _cacheByteBuffer.get();
+        if (buffer != null) {
+            _cacheByteBuffer.set(null);
+            return buffer;
         }
 
         // Cache buffer in use, create new buffer
@@ -350,11 +341,6 @@ public class BufferUtils {
     }
 
     private static void releaseTempByteBuffer(ByteBuffer buffer) {
-        // Try using cached buffer
-        synchronized(_cacheByteBuffer) {
-            if (buffer == _cacheByteBuffer) {
-                _cacheByteBufferInUse = false;
-            }
-        }
+        _cacheByteBuffer.set(buffer);
     }
 }
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.attachments.impl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * DirectSlabPool hands out fixed size direct (off-heap) ByteBuffers, called slabs,
+ * in which attachments are stored.  The total size of the slabs is limited
+ * by a memory budget; once the budget is used up, {@link #acquire()} returns
+ * null and the caller has to store the data elsewhere.
+ *
+ * Slabs are reused rather than freed.  They are handed back either explicitly
+ * through {@link SlabBuffer#release()}, or once the SlabBuffer holding them
+ * has been garbage collected.  Neither path takes a lock: the budget is an
+ * atomic counter and free slabs are kept in a concurrent queue.
+ *
+ * The default pool is configured with the system properties
+ * {@value #BUDGET_PROPERTY} (bytes, default 32 MB; 0 disables the pool) and
+ * {@value #SLAB_SIZE_PROPERTY} (bytes, default 64 KB).
+ */
+public class DirectSlabPool {
+
+    private static Log log = LogFactory.getLog(DirectSlabPool.class);
+
+    public static final String BUDGET_PROPERTY =
+        "org.apache.axiom.attachments.directMemoryBudget";
+    public static final String SLAB_SIZE_PROPERTY =
+        "org.apache.axiom.attachments.directMemorySlabSize";
+
+    private static final long DEFAULT_BUDGET = 32 * 1024 * 1024;
+    private static final int DEFAULT_SLAB_SIZE = 64 * 1024;
+
+    private static DirectSlabPool defaultPool;
+
+    private final int slabSize;
+    private final int maxSlabs;
+    private final AtomicInteger allocatedSlabs = new AtomicInteger();
+    private final ConcurrentLinkedQueue<ByteBuffer> freeSlabs =
+        new ConcurrentLinkedQueue<ByteBuffer>();
+
+    // SlabReferences must stay reachable themselves to be enqueued
+    private final Set<SlabReference> references =
+        Collections.newSetFromMap(new ConcurrentHashMap<SlabReference, Boolean>());
+    private final ReferenceQueue<SlabBuffer> collected = new ReferenceQueue<SlabBuffer>();
+
+    /**
+     * @param budget maximum number of bytes allocated for slabs
+     * @param slabSize size of a single slab in bytes
+     */
+    public DirectSlabPool(long budget, int slabSize) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("budget must not be negative");
+        }
+        if (slabSize <= 0) {
+            throw new IllegalArgumentException("slabSize must be positive");
+        }
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, budget / slabSize);
+    }
+
+    /**
+     * @return the pool configured through the system properties
+     */
+    public static synchronized DirectSlabPool getDefault() {
+        if (defaultPool == null) {
+            long budget = getLongProperty(BUDGET_PROPERTY, DEFAULT_BUDGET);
+            int slabSize = (int) getLongProperty(SLAB_SIZE_PROPERTY, DEFAULT_SLAB_SIZE);
+            if (log.isDebugEnabled()) {
+                log.debug("Attachment memory budget = " + budget + ", slab size = " + slabSize);
+            }
+            defaultPool = new DirectSlabPool(budget, slabSize);
+        }
+        return defaultPool;
+    }
+
+    private static long getLongProperty(String name, long defaultValue) {
+        String value = System.getProperty(name);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid value " + value + " for " + name);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @return a cleared slab, or null if the memory budget is used up
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer slab = freeSlabs.poll();
+        if (slab == null) {
+            reclaimCollected();
+            slab = freeSlabs.poll();
+        }
+        if (slab == null) {
+            int allocated;
+            do {
+                allocated = allocatedSlabs.get();
+                if (allocated >= maxSlabs) {
+                    return null;
+                }
+            } while (!allocatedSlabs.compareAndSet(allocated, allocated + 1));
+            slab = ByteBuffer.allocateDirect(slabSize);
+        }
+        slab.clear();
+        return slab;
+    }
+
+    private void reclaimCollected() {
+        SlabReference ref;
+        while ((ref = (SlabReference) collected.poll()) != null) {
+            ref.recycle();
+        }
+    }
+
+    /**
+     * @return size of a single slab in bytes
+     */
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * @return number of slabs that are not currently in the free list
+     */
+    public int getSlabsInUse() {
+        return allocatedSlabs.get() - freeSlabs.size();
+    }
+
+    /**
+     * Start tracking the slabs of the given buffer, so that they are
+     * recycled once the buffer is no longer reachable.
+     */
+    SlabReference register(SlabBuffer buffer, List<ByteBuffer> slabs) {
+        SlabReference ref = new SlabReference(buffer, slabs);
+        references.add(ref);
+        return ref;
+    }
+
+    /**
+     * Tracks the slabs of a SlabBuffer.  The list of slabs is referenced
+     * from here as well, so that the slabs can be recycled after the
+     * SlabBuffer itself has been collected.
+     */
+    final class SlabReference extends WeakReference<SlabBuffer> {
+        private final List<ByteBuffer> slabs;
+        private final AtomicBoolean recycled = new AtomicBoolean();
+
+        SlabReference(SlabBuffer buffer, List<ByteBuffer> slabs) {
+            super(buffer, collected);
+            this.slabs = slabs;
+        }
+
+        void recycle() {
+            if (recycled.compareAndSet(false, true)) {
+                references.remove(this);
+                List<ByteBuffer> copy;
+                synchronized (slabs) {
+                    copy = new ArrayList<ByteBuffer>(slabs);
+                    slabs.clear();
+                }
+                freeSlabs.addAll(copy);
+            }
+        }
+    }
+}
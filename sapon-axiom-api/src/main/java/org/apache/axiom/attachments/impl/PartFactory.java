@@ -23,6 +23,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.Hashtable;
 import java.util.Map;
 
@@ -31,7 +32,6 @@ import javax.mail.Header;
 import org.apache.axiom.attachments.MIMEBodyPartInputStream;
 import org.apache.axiom.attachments.Part;
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
-import org.apache.axiom.attachments.utils.BAAInputStream;
 import org.apache.axiom.attachments.utils.BAAOutputStream;
 import org.apache.axiom.om.OMException;
 import org.apache.commons.logging.Log;
@@ -47,18 +47,8 @@ import org.apache.commons.logging.LogFactory;
  */
 public class PartFactory {
 
-    private static int inflight = 0;  // How many attachments are currently being built.
-    private static String semifore = "PartFactory.semifore";
-
     private static Log log = LogFactory.getLog(PartFactory.class);
 
-    // Maximum number of threads allowed through createPart
-    private static int INFLIGHT_MAX = 4;
-
-    // Constants for dynamic threshold
-    // Dynamic Threshold = availMemory / THRESHOLD_FACTOR
-    private static final int THRESHOLD_FACTOR = 5;
-
     /**
      * Creates a part from the input stream.
      * The remaining parameters are used to determine if the
@@ -95,74 +85,44 @@ public class PartFactory {
             InputStream dross = readHeaders(in, headers);
 
             Part part;
-            try {
-
-                // Message throughput is increased if the number of threads in this
-                // section is limited to INFLIGHT_MAX.  Allowing more threads tends to cause
-                // thrashing while reading from the HTTP InputStream.
-                // Allowing fewer threads reduces the thrashing.  And when the remaining threads
-                // are notified their input (chunked) data is available.
-                //
-                // Note: SOAPParts are at the beginning of the message and much smaller than attachments,
-                // so don't wait on soap parts.
-                if (!isSOAPPart) {
-                    synchronized(semifore) {
-                        if (inflight >= INFLIGHT_MAX) {
-                            semifore.wait();
-                        }
-                        inflight++;
-                    }
-                }
-                // Get new threshold based on the current available memory in the runtime.
-                // We only use the thresholds for non-soap parts.
-                if (!isSOAPPart && thresholdSize > 0) {
-                    thresholdSize = getRuntimeThreshold(thresholdSize, inflight);
-                }
-
-
-                if (isSOAPPart ||
-                        thresholdSize <= 0 ||
-                        (messageContentLength > 0 &&
-                                messageContentLength < thresholdSize)) {
-                    // If the entire message is less than the threshold size,
-                    // keep it in memory.
-                    // If this is a SOAPPart, keep it in memory.
-
-                    // Get the bytes of the data without a lot
-                    // of resizing and GC.  The BAAOutputStream
-                    // keeps the data in non-contiguous byte buffers.
-                    BAAOutputStream baaos = new BAAOutputStream();
-                    BufferUtils.inputStream2OutputStream(dross, baaos);
-                    BufferUtils.inputStream2OutputStream(in, baaos);
-                    part = new PartOnMemoryEnhanced(headers, baaos.buffers(), baaos.length());
+            if (isSOAPPart ||
+                    (thresholdSize > 0 &&
+                            messageContentLength > 0 &&
+                            messageContentLength < thresholdSize)) {
+                // If the entire message is less than the threshold size,
+                // keep it in memory.
+                // If this is a SOAPPart, keep it in memory.
+
+                // Get the bytes of the data without a lot
+                // of resizing and GC.  The BAAOutputStream
+                // keeps the data in non-contiguous byte buffers.
+                BAAOutputStream baaos = new BAAOutputStream();
+                BufferUtils.inputStream2OutputStream(dross, baaos);
+                BufferUtils.inputStream2OutputStream(in, baaos);
+                part = new PartOnMemoryEnhanced(headers, baaos.buffers(), baaos.length());
+            } else {
+                // Keep the attachment off-heap, in slabs of the shared pool, as long
+                // as it is smaller than the threshold and the memory budget allows it.
+                // Otherwise it goes to a file or, if file caching is disabled, to the heap.
+                InputStream data = new SequenceInputStream(dross, in);
+                long limit = (thresholdSize > 0) ? thresholdSize : Long.MAX_VALUE;
+                SlabBuffer slabs = new SlabBuffer(DirectSlabPool.getDefault());
+                boolean complete = slabs.readFrom(data, limit);
+
+                if (complete) {
+                    part = new PartOnDirectMemory(headers, slabs);
+                } else if (thresholdSize > 0) {
+                    part = new PartOnFile(manager, headers,
+                                          slabs.getInputStream(),
+                                          data,
+                                          attachmentDir);
+                    slabs.release();
                 } else {
-                    // We need to read the input stream to determine whether
-                    // the size is bigger or smaller than the threshold.
                     BAAOutputStream baaos = new BAAOutputStream();
-                    int t1 = BufferUtils.inputStream2OutputStream(dross, baaos, thresholdSize);
-                    int t2 =  BufferUtils.inputStream2OutputStream(in, baaos, thresholdSize - t1);
-                    int total = t1 + t2;
-
-                    if (total < thresholdSize) {
-                        return new PartOnMemoryEnhanced(headers, baaos.buffers(), baaos.length());
-                    } else {
-                        // A BAAInputStream is an input stream over a list of non-contiguous 4K buffers.
-                        BAAInputStream baais =
-                            new BAAInputStream(baaos.buffers(), baaos.length());
-
-                        part = new PartOnFile(manager, headers,
-                                              baais,
-                                              in,
-                                              attachmentDir);
-                    }
-
-                }
-            } finally {
-                if (!isSOAPPart) {
-                    synchronized(semifore) {
-                        semifore.notify();
-                        inflight--;
-                    }
+                    BufferUtils.inputStream2OutputStream(slabs.getInputStream(), baaos);
+                    slabs.release();
+                    BufferUtils.inputStream2OutputStream(data, baaos);
+                    part = new PartOnMemoryEnhanced(headers, baaos.buffers(), baaos.length());
                 }
             }
 
@@ -292,63 +252,6 @@ public class PartFactory {
         headers.put(key, headerObj);
     }
 
-    /**
-     * This method checks the configured threshold and
-     * the current runtime information.  If it appears that we could
-     * run out of memory, the threshold is reduced.
-     *
-     * This method allows the user to request a much larger threshold without
-     * fear of running out of memory.  Using a larger in memory threshold generally
-     * results in better throughput.
-     *
-     * @param configThreshold
-     * @param inflight
-     * @return threshold
-     */
-    private static int getRuntimeThreshold(int configThreshold, int inflight) {
-
-        // Determine how much free memory is available
-        Runtime r = Runtime.getRuntime();
-        long totalmem = r.totalMemory();
-        long maxmem = r.maxMemory();
-        long freemem = r.freeMemory();
-
-        // @REVIEW
-        // If maximum is not defined...limit to 1G
-        if (maxmem == java.lang.Long.MAX_VALUE) {
-            maxmem = 1024*1024*1024;
-        }
-
-        long availmem = maxmem - (totalmem - freemem);
-
-
-        // Now determine the dynamic threshold
-        int dynamicThreshold = (int) availmem / (THRESHOLD_FACTOR * inflight);
-
-        // If it appears that we might run out of memory with this
-        // threshold, reduce the threshold size.
-        if (dynamicThreshold < configThreshold) {
-            if (log.isDebugEnabled()) {
-                log.debug("Using Runtime Attachment File Threshold " + dynamicThreshold);
-                log.debug("maxmem   = " + maxmem);
-                log.debug("totalmem = " + totalmem);
-                log.debug("freemem  = " + freemem);
-                log.debug("availmem = " + availmem);
-            }
-
-        } else {
-            dynamicThreshold = configThreshold;
-            if (log.isDebugEnabled()) {
-                log.debug("Using Configured Attachment File Threshold " + configThreshold);
-                log.debug("maxmem   = " + maxmem);
-                log.debug("totalmem = " + totalmem);
-                log.debug("freemem  = " + freemem);
-                log.debug("availmem = " + availmem);
-            }
-        }
-        return dynamicThreshold;
-    }
-
     /**
      * A normal ByteArrayOutputStream, except that it returns the buffer
      * directly instead of returning a copy of the buffer.
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.attachments.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Hashtable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.mail.Header;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeUtility;
+
+import org.apache.axiom.attachments.lifecycle.DataHandlerExt;
+import org.apache.axiom.om.OMException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * PartOnDirectMemory stores the attachment off-heap, in slabs of a
+ * DirectSlabPool.  Large attachments stored this way do not add to the
+ * pressure on the garbage collector.  The data handlers of the part are
+ * {@link DataHandlerExt}s; the slabs go back to the pool once a data handler
+ * is closed and the streams still reading the data are done.  If that never
+ * happens, they are recycled after the part has been garbage collected.
+ *
+ * The PartOnDirectMemory object is created by the PartFactory
+ * @see org.apache.axiom.attachments.impl.PartFactory.
+ */
+public class PartOnDirectMemory extends AbstractPart {
+
+    private static Log log = LogFactory.getLog(PartOnDirectMemory.class);
+    private final SlabBuffer data;
+    private final AtomicBoolean readOnce = new AtomicBoolean();
+    private volatile boolean read;
+
+    /**
+     * Construct a PartOnDirectMemory
+     * @param headers
+     * @param data completely filled SlabBuffer
+     */
+    PartOnDirectMemory(Hashtable<String, Header> headers, SlabBuffer data) {
+        super(headers);
+        this.data = data;
+    }
+
+    @Override
+	public DataHandler getDataHandler() throws MessagingException {
+        return new SlabDataHandler(new SlabDataSource());
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.axiom.attachments.impl.AbstractPart#getFileName()
+     */
+    @Override
+	public String getFileName() throws MessagingException {
+        return null;
+    }
+
+    @Override
+	public InputStream getInputStream() throws IOException, MessagingException {
+        return openStream();
+    }
+
+    private InputStream openStream() throws IOException {
+        InputStream is = data.getInputStream();
+        read = true;
+        if (readOnce.get()) {
+            data.release();
+        }
+        return is;
+    }
+
+    @Override
+	public long getSize() throws MessagingException {
+        return data.getLength();
+    }
+
+    class SlabDataHandler extends DataHandler implements DataHandlerExt {
+
+        public SlabDataHandler(DataSource ds) {
+            super(ds);
+        }
+
+        public void purgeDataSource() {
+            data.release();
+        }
+
+        public void deleteWhenReadOnce() {
+            readOnce.set(true);
+            if (read) {
+                data.release();
+            }
+        }
+
+        public void close() {
+            data.release();
+        }
+
+        @Override
+		public void writeTo(OutputStream os) throws IOException {
+            InputStream is = getDataSource().getInputStream();
+            try {
+                BufferUtils.inputStream2OutputStream(is, os);
+            } finally {
+                is.close();
+            }
+        }
+    }
+
+    private String getContentTransferEncodingQuietly() {
+        try {
+            return getContentTransferEncoding();
+        } catch (MessagingException e) {
+            throw new OMException(e);
+        }
+    }
+
+    /**
+     * A DataSource that is backed by the slabs and
+     * headers map.
+     */
+    class SlabDataSource implements DataSource {
+
+        public String getContentType() {
+            String ct = getHeader("content-type");
+            return (ct == null) ?
+                    "application/octet-stream" :
+                    ct;
+        }
+
+        public InputStream getInputStream() throws IOException {
+            InputStream is = openStream();
+            String cte = getContentTransferEncodingQuietly();
+            if (cte != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Start Decoding stream");
+                }
+                try {
+                    return MimeUtility.decode(is, cte);
+                } catch (MessagingException e) {
+                    throw new OMException(e);
+                }
+            }
+            return is;
+        }
+
+        public String getName() {
+            return "SlabDataSource";
+        }
+
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("Not Supported");
+        }
+    }
+}
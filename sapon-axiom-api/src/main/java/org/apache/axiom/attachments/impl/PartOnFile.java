@@ -19,9 +19,13 @@
 
 package org.apache.axiom.attachments.impl;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Hashtable;
 
 import javax.activation.DataHandler;
@@ -30,11 +34,13 @@ import javax.mail.MessagingException;
 
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
 import org.apache.axiom.attachments.lifecycle.impl.FileAccessor;
+import org.apache.axiom.attachments.utils.ByteBufferInputStream;
 
 /**
  * PartOnFile stores that attachment in a file.
  * This implementation is used for very large attachments to reduce
- * the in-memory footprint.
+ * the in-memory footprint.  The file is memory mapped once, on the first
+ * read, and every stream reads from that mapping.
  *
  * The PartOnFile object is created by the PartFactory
  * @see org.apache.axiom.attachments.impl.PartFactory.
@@ -43,6 +49,9 @@ public class PartOnFile extends AbstractPart {
 
     private FileAccessor fileAccessor;
 
+    /** The mapping of the backing file, created on the first read */
+    private MappedByteBuffer mapping;
+
     /**
      * Create a PartOnFile from the specified InputStream
      * @param headers Hashtable of javax.mail.Headers
@@ -84,7 +93,36 @@ public class PartOnFile extends AbstractPart {
      */
     @Override
 	public InputStream getInputStream() throws IOException, MessagingException {
-        return fileAccessor.getInputStream();
+        MappedByteBuffer buffer = getMapping();
+        if (buffer == null) {
+            return fileAccessor.getInputStream();
+        }
+        // Each stream has its own position over the shared mapping
+        return new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    /**
+     * Map the backing file, so that its content is paged in by the OS without
+     * copying it through heap buffers.
+     *
+     * @return the mapping, or null if the file is too large to be mapped at once
+     */
+    private synchronized MappedByteBuffer getMapping() throws IOException {
+        if (mapping == null) {
+            File file = fileAccessor.getFile();
+            long size = file.length();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            FileInputStream fis = new FileInputStream(file);
+            try {
+                mapping = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } finally {
+                // The mapping stays valid after the channel is closed
+                fis.close();
+            }
+        }
+        return mapping;
     }
 
     /* (non-Javadoc)
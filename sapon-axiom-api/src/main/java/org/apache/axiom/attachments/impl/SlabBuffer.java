@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.attachments.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axiom.attachments.utils.ByteBufferInputStream;
+
+/**
+ * SlabBuffer stores data in slabs obtained from a DirectSlabPool.
+ * The buffer is filled once with {@link #readFrom(InputStream, long)} and
+ * can then be read any number of times, concurrently, through
+ * {@link #getInputStream()}.
+ *
+ * The slabs go back to the pool once the buffer has been released and every
+ * stream returned by getInputStream has been closed or read to the end.
+ * Streams that are dropped unread keep the SlabBuffer reachable, so their
+ * slabs are only recycled after the stream has been garbage collected.
+ */
+final class SlabBuffer {
+
+    private final DirectSlabPool pool;
+    private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+    private final DirectSlabPool.SlabReference ref;
+    private long length;
+
+    // One reference for the buffer itself, plus one for every open stream
+    private final AtomicInteger references = new AtomicInteger(1);
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    SlabBuffer(DirectSlabPool pool) {
+        this.pool = pool;
+        this.ref = pool.register(this, slabs);
+    }
+
+    /**
+     * Read from the stream into the slabs.
+     *
+     * @param in InputStream
+     * @param limit maximum total number of bytes stored in this buffer
+     * @return true if the end of the stream was reached; false if the limit or
+     *         the memory budget was reached first (no data is lost in that case,
+     *         the remaining data is still in the stream)
+     * @throws IOException
+     */
+    boolean readFrom(InputStream in, long limit) throws IOException {
+        byte[] buffer = new byte[BufferUtils.BUFFER_LEN];
+        ByteBuffer current = slabs.isEmpty() ? null : slabs.get(slabs.size() - 1);
+        while (length < limit) {
+            if (current == null || !current.hasRemaining()) {
+                current = pool.acquire();
+                if (current == null) {
+                    return false;
+                }
+                synchronized (slabs) {
+                    slabs.add(current);
+                }
+            }
+            int len = (int) Math.min(Math.min(current.remaining(), buffer.length), limit - length);
+            int bytesRead = in.read(buffer, 0, len);
+            if (bytesRead < 0) {
+                return true;
+            }
+            current.put(buffer, 0, bytesRead);
+            length += bytesRead;
+        }
+        return false;
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * @return a new stream over the content of the buffer
+     * @throws IOException if the buffer has already been released
+     */
+    InputStream getInputStream() throws IOException {
+        int count;
+        do {
+            count = references.get();
+            if (count <= 0 || released.get()) {
+                throw new IOException("The attachment data has been released");
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        List<ByteBuffer> views = new ArrayList<ByteBuffer>(slabs.size());
+        long remaining = length;
+        for (ByteBuffer slab : slabs) {
+            ByteBuffer view = slab.duplicate();
+            view.position(0);
+            view.limit((int) Math.min(remaining, slab.capacity()));
+            remaining -= view.limit();
+            views.add(view);
+        }
+        return new SlabInputStream(views);
+    }
+
+    void writeTo(OutputStream os) throws IOException {
+        byte[] buffer = new byte[BufferUtils.BUFFER_LEN];
+        InputStream is = getInputStream();
+        try {
+            int bytesRead;
+            while ((bytesRead = is.read(buffer)) > 0) {
+                os.write(buffer, 0, bytesRead);
+            }
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Hand the slabs back to the pool as soon as the streams still reading
+     * them are done.  No new streams can be obtained afterwards.
+     */
+    void release() {
+        if (released.compareAndSet(false, true)) {
+            unreference();
+        }
+    }
+
+    private void unreference() {
+        if (references.decrementAndGet() == 0) {
+            ref.recycle();
+        }
+    }
+
+    /**
+     * Gives up its reference on the slabs when it is closed, or when it
+     * reaches the end and no mark has been set.
+     */
+    private final class SlabInputStream extends ByteBufferInputStream {
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile boolean closed;
+        private boolean marked;
+
+        SlabInputStream(List<ByteBuffer> views) {
+            super(views, SlabBuffer.this);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (checkDone()) {
+                return -1;
+            }
+            int b = super.read();
+            if (b < 0 && !marked) {
+                finish();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (checkDone()) {
+                return -1;
+            }
+            int bytesRead = super.read(b, off, len);
+            if (bytesRead < 0 && !marked) {
+                finish();
+            }
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return checkDone() ? 0 : super.skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return checkDone() ? 0 : super.available();
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            if (!done.get()) {
+                marked = true;
+                super.mark(readlimit);
+            }
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            if (checkDone()) {
+                throw new IOException("Resetting to invalid mark");
+            }
+            super.reset();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            finish();
+        }
+
+        // The slabs may already be reused once the reference is given up
+        private boolean checkDone() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            return done.get();
+        }
+
+        private void finish() {
+            if (done.compareAndSet(false, true)) {
+                unreference();
+            }
+        }
+    }
+}
@@ -47,4 +47,11 @@ public interface DataHandlerExt {
 	 */
 	
 	public void deleteWhenReadOnce() throws IOException;
+
+	/**
+	 * Releases the temporary attachment file backing this DataHandler.
+	 * The file is deleted once every DataHandler handed out for it has
+	 * been closed. The DataHandler must not be read after it is closed.
+	 */
+	public void close() throws IOException;
 }
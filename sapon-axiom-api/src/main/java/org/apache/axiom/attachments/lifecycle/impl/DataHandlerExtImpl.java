@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
@@ -41,12 +42,30 @@ public class DataHandlerExtImpl extends DataHandler implements
 	private LifecycleManager manager = null;
 	private static int READ_COUNT = 1;
 	private boolean deleteOnreadOnce = false;
+	private FileAccessor fileAccessor = null;
+	private final AtomicBoolean closed = new AtomicBoolean();
+
 	public DataHandlerExtImpl(DataHandler dataHandler, LifecycleManager manager){		
 		super(dataHandler.getDataSource());
 		this.dataHandler = dataHandler;
 		this.manager = manager;
 	}
 
+	DataHandlerExtImpl(DataHandler dataHandler, LifecycleManager manager,
+			FileAccessor fileAccessor){
+		this(dataHandler, manager);
+		this.fileAccessor = fileAccessor;
+	}
+
+	public void close() throws IOException {
+		if(!closed.compareAndSet(false, true)){
+			return;
+		}
+		if(fileAccessor != null){
+			fileAccessor.release();
+		}
+	}
+
 	public void deleteWhenReadOnce() throws IOException {
 		deleteOnreadOnce = true;
 		FileAccessor fa =manager.getFileAccessor(getName());
@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Observable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.activation.DataHandler;
 import javax.mail.MessagingException;
@@ -41,6 +42,9 @@ import org.apache.commons.logging.LogFactory;
  * The idea behind wrapping the file is to give runtime an ability to track
  * when the file is accessed with streams or data handler and accordingly
  * trigger events to handle the the files lifecycle.
+ * <p/>
+ * Every data handler returned by {@link #getDataHandler(String)} holds a
+ * reference on the file; the file is deleted when the last one is closed.
  */
 public class FileAccessor extends Observable{
     private static final Log log = LogFactory.getLog(FileAccessor.class);
@@ -49,6 +53,7 @@ public class FileAccessor extends Observable{
     private final LifecycleManager manager;
 
     private int accessCount = 0;
+    private final AtomicInteger references = new AtomicInteger();
 
     public FileAccessor(LifecycleManager manager, File file) {
         super();
@@ -61,13 +66,34 @@ public class FileAccessor extends Observable{
             log.debug("getDataHandler()");
             log.debug("accessCount =" +accessCount);
         }
+        int count;
+        do {
+            count = references.get();
+            if(count < 0){
+                throw new MessagingException("Attachment file " + file + " has been released");
+            }
+        } while(!references.compareAndSet(count, count + 1));
         CachedFileDataSource dataSource = new CachedFileDataSource(file);
         dataSource.setContentType(contentType);
        	accessCount++;
        	setChanged();
        	notifyObservers();
        	DataHandler dataHandler = new DataHandler(dataSource);
-       	return new DataHandlerExtImpl(dataHandler, manager);
+       	return new DataHandlerExtImpl(dataHandler, manager, this);
+    }
+
+    /**
+     * Releases a reference taken by {@link #getDataHandler(String)}. The
+     * file is deleted when no references remain.
+     */
+    void release() throws IOException {
+        if(references.decrementAndGet() == 0
+                && references.compareAndSet(0, -1)){
+            if(log.isDebugEnabled()){
+                log.debug("Last reference released, deleting " + file);
+            }
+            manager.delete(file);
+        }
     }
 
     public String getFileName() throws MessagingException {
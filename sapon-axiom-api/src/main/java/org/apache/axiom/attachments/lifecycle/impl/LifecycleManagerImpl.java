@@ -24,18 +24,45 @@ import java.io.IOException;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
-import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
 import org.apache.axiom.om.util.UUIDGenerator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+/**
+ * Default LifecycleManager. Timed deletions are run by a single shared
+ * daemon thread. The number of queued deletions is bounded by the
+ * {@value #MAX_PENDING_PROPERTY} system property (default 10000); files
+ * beyond that are left to the VM shutdown hook. Temp files are also deleted as soon as the last
+ * DataHandlerExt handed out for them is closed, which TransportUtils.deleteAttachments does
+ * once a request has been served. A FileAccessor can be looked up until its file is deleted
+ * or handed to the shutdown hook with {@link #deleteOnExit(File)}.
+ */
 public class LifecycleManagerImpl implements LifecycleManager {
     private static final Log log = LogFactory.getLog(LifecycleManagerImpl.class);
 
-    private static Hashtable<String, FileAccessor> fileAccessors
-    	= new Hashtable<String, FileAccessor>();
+    public static final String MAX_PENDING_PROPERTY =
+        "org.apache.axiom.attachments.lifecycle.maxPendingDeletions";
+
+    private static final int DEFAULT_MAX_PENDING = 10000;
+
+    private static final ConcurrentHashMap<String, FileAccessor> fileAccessors
+    	= new ConcurrentHashMap<String, FileAccessor>();
+
+    private static final AtomicInteger pendingDeletions = new AtomicInteger();
+    private static final AtomicLong deletedFiles = new AtomicLong();
+    private static final AtomicLong deletedBytes = new AtomicLong();
+
+    private static ScheduledExecutorService scheduler;
+    private static int maxPending = -1;
 
     private VMShutdownHook hook = null;
     public LifecycleManagerImpl() {
@@ -73,8 +100,8 @@ public class LifecycleManagerImpl implements LifecycleManager {
         FileAccessor fa = new FileAccessor(this, file);
         //add the fileAccesor to table
         fileAccessors.put(fileString, fa);
-        //Default behaviour
-        deleteOnExit(file);
+        //Default behaviour, the file stays managed until it is deleted
+        registerForDeletionOnExit(file);
         if(log.isDebugEnabled()){
             log.debug("End Create()");
         }
@@ -89,13 +116,19 @@ public class LifecycleManagerImpl implements LifecycleManager {
             log.debug("Start delete()");
         }
 
-        if(file!=null && file.exists()){
+        if(file!=null){
             fileAccessors.remove(file.getName());
+        }
+        if(file!=null && file.exists()){
             if(log.isDebugEnabled()){
                 log.debug("invoking file.delete()");
             }
 
+            long length = file.length();
             if(file.delete()){
+                deletedFiles.incrementAndGet();
+                deletedBytes.addAndGet(length);
+                VMShutdownHook.hook().remove(file);
                 if(log.isDebugEnabled()){
                     log.debug("delete() successful");
                 }
@@ -118,15 +151,9 @@ public class LifecycleManagerImpl implements LifecycleManager {
         if(log.isDebugEnabled()){
             log.debug("Start deleteOnExit()");
         }
-        if(hook == null){
-            hook = RegisterVMShutdownHook();
-        }
-
         if(file!=null){
-            if(log.isDebugEnabled()){
-                log.debug("Invoking deleteOnExit() for file = "+file.getAbsolutePath());
-            }
-            hook.add(file);
+            registerForDeletionOnExit(file);
+            //The file is left to the shutdown hook, stop tracking it
             fileAccessors.remove(file.getName());
         }
         if(log.isDebugEnabled()){
@@ -134,6 +161,16 @@ public class LifecycleManagerImpl implements LifecycleManager {
         }
     }
 
+    private void registerForDeletionOnExit(File file) {
+        if(hook == null){
+            hook = RegisterVMShutdownHook();
+        }
+        if(log.isDebugEnabled()){
+            log.debug("Invoking deleteOnExit() for file = "+file.getAbsolutePath());
+        }
+        hook.add(file);
+    }
+
     /* (non-Javadoc)
      * @see org.apache.axiom.lifecycle.LifecycleManager#deleteOnTimeInterval(int)
      */
@@ -142,9 +179,19 @@ public class LifecycleManagerImpl implements LifecycleManager {
             log.debug("Start deleteOnTimeInterval()");
         }
 
-        Thread t = new Thread(new LifecycleManagerImpl.FileDeletor(interval, file));
-        t.setDaemon(true);
-        t.start();
+        if(file == null){
+            return;
+        }
+        if(pendingDeletions.incrementAndGet() > getMaxPending()){
+            pendingDeletions.decrementAndGet();
+            if(log.isDebugEnabled()){
+                log.debug("Too many pending deletions, file will be deleted on VM shutdown");
+            }
+            deleteOnExit(file);
+        }else{
+            getScheduler().schedule(new FileDeletor(this, interval, file),
+                    interval, TimeUnit.SECONDS);
+        }
         if(log.isDebugEnabled()){
             log.debug("End deleteOnTimeInterval()");
         }
@@ -178,28 +225,56 @@ public class LifecycleManagerImpl implements LifecycleManager {
         return hook;
     }
 
+    private static synchronized ScheduledExecutorService getScheduler() {
+        if(scheduler == null){
+            scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Axiom attachment cleanup");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        return scheduler;
+    }
+
+    private static synchronized int getMaxPending() {
+        if(maxPending < 0){
+            maxPending = DEFAULT_MAX_PENDING;
+            String value = System.getProperty(MAX_PENDING_PROPERTY);
+            if(value != null){
+                try{
+                    maxPending = Integer.parseInt(value.trim());
+                }catch(NumberFormatException e){
+                    log.warn("Ignoring invalid value " + value + " for " + MAX_PENDING_PROPERTY);
+                }
+            }
+        }
+        return maxPending;
+    }
+
+    /**
+     * Deletes a file once its time interval has elapsed. Instances are
+     * run by the shared cleanup thread.
+     */
     public static class FileDeletor implements Runnable{
+        LifecycleManager manager;
         int interval;
         File _file;
 
-        public FileDeletor(int interval, File file) {
+        public FileDeletor(LifecycleManager manager, int interval, File file) {
             super();
+            this.manager = manager;
             this.interval = interval;
             this._file = file;
         }
 
         public void run() {
+            pendingDeletions.decrementAndGet();
             try{
-                Thread.sleep(interval*1000);
-                if(_file.exists()){
-                    fileAccessors.remove(_file.getName());
-                    _file.delete();
-                }
-            }catch(InterruptedException e){
-                //Log Exception
-                if(log.isDebugEnabled()){
-                    log.warn("InterruptedException occured "+e.getMessage());
-                }
+                manager.delete(_file);
+            }catch(IOException e){
+                log.warn("Deleting attachment file " + _file + " failed: " + e.getMessage());
             }
         }
     }
@@ -208,6 +283,47 @@ public class LifecycleManagerImpl implements LifecycleManager {
 		return fileAccessors.get(fileName);
 	}
 
+    /**
+     * @return number of attachment temp files that have neither been deleted
+     *         nor been left to the VM shutdown hook
+     */
+    public int getOutstandingFileCount() {
+        return fileAccessors.size();
+    }
+
+    /**
+     * @return total size in bytes of the attachment temp files counted by
+     *         {@link #getOutstandingFileCount()}
+     */
+    public long getOutstandingBytes() {
+        long bytes = 0;
+        for(FileAccessor fa : fileAccessors.values()){
+            bytes += fa.getSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return number of timed deletions waiting to run
+     */
+    public int getPendingDeletionCount() {
+        return pendingDeletions.get();
+    }
+
+    /**
+     * @return number of attachment temp files deleted so far
+     */
+    public long getDeletedFileCount() {
+        return deletedFiles.get();
+    }
+
+    /**
+     * @return number of bytes of attachment temp files deleted so far
+     */
+    public long getDeletedBytes() {
+        return deletedBytes.get();
+    }
+
 }
 
 
@@ -38,7 +38,7 @@ public class VMShutdownHook extends Thread {
     private static Set<File> files = Collections.synchronizedSet(new HashSet<File>());
     private boolean isRegistered = false;
 
-    static VMShutdownHook hook() {
+    static synchronized VMShutdownHook hook() {
         if (instance == null){
             if(log.isDebugEnabled()){
                 log.debug("creating VMShutdownHook");
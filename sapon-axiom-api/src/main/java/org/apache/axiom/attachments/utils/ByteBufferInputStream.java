@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.attachments.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ByteBufferInputStream reads the remaining content of a list of
+ * ByteBuffers (heap, direct or memory mapped).  The buffers are consumed,
+ * so callers that share the buffers should pass in duplicates.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    private final List<ByteBuffer> buffers;
+    private int index = 0;
+    private int markIndex = 0;
+    private int[] markPositions;
+
+    // Keeps the owner of the buffers (if any) reachable while the stream is in use
+    @SuppressWarnings("unused")
+    private final Object owner;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this(Collections.singletonList(buffer), null);
+    }
+
+    /**
+     * @param buffers the buffers to read, in order
+     * @param owner an object that must stay reachable as long as the buffers are read
+     */
+    public ByteBufferInputStream(List<ByteBuffer> buffers, Object owner) {
+        this.buffers = buffers;
+        this.owner = owner;
+    }
+
+    @Override
+	public int read() throws IOException {
+        ByteBuffer buffer = current();
+        return buffer == null ? -1 : buffer.get() & 0xFF;
+    }
+
+    @Override
+	public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int total = 0;
+        ByteBuffer buffer;
+        while (total < len && (buffer = current()) != null) {
+            int copy = Math.min(len - total, buffer.remaining());
+            buffer.get(b, off + total, copy);
+            total += copy;
+        }
+        return total == 0 ? -1 : total;
+    }
+
+    @Override
+	public long skip(long n) throws IOException {
+        long total = 0;
+        ByteBuffer buffer;
+        while (total < n && (buffer = current()) != null) {
+            int skip = (int) Math.min(n - total, buffer.remaining());
+            buffer.position(buffer.position() + skip);
+            total += skip;
+        }
+        return total;
+    }
+
+    @Override
+	public int available() throws IOException {
+        long available = 0;
+        for (int i = index; i < buffers.size(); i++) {
+            available += buffers.get(i).remaining();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, available);
+    }
+
+    @Override
+	public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+	public synchronized void mark(int readlimit) {
+        markIndex = index;
+        markPositions = new int[buffers.size()];
+        for (int i = index; i < buffers.size(); i++) {
+            markPositions[i] = buffers.get(i).position();
+        }
+    }
+
+    @Override
+	public synchronized void reset() throws IOException {
+        if (markPositions == null) {
+            throw new IOException("Resetting to invalid mark");
+        }
+        index = markIndex;
+        for (int i = index; i < buffers.size(); i++) {
+            buffers.get(i).position(markPositions[i]);
+        }
+    }
+
+    private ByteBuffer current() {
+        while (index < buffers.size()) {
+            ByteBuffer buffer = buffers.get(index);
+            if (buffer.hasRemaining()) {
+                return buffer;
+            }
+            index++;
+        }
+        return null;
+    }
+}
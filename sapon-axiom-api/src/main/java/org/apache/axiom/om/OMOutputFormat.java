@@ -72,6 +72,15 @@ public class OMOutputFormat {
     public static final String USE_CTE_BASE64_FOR_NON_TEXTUAL_ATTACHMENTS =
         "org.apache.axiom.om.OMFormat.use.cteBase64.forNonTextualAttachments";
 
+    // The value of this property is a Boolean.
+    // A missing value indicates the default action, which is Boolean.FALSE
+    // If Boolean.TRUE, optimized (MTOM) messages are written to the output stream
+    // as they are serialized: the MIME headers of the SOAP part are written first,
+    // followed by the XML and, once the document is complete, the attachments.
+    // Otherwise the XML of the SOAP part is buffered until the document is complete.
+    public static final String STREAM_OPTIMIZED_SOAP_PART =
+        "org.apache.axiom.om.OMFormat.stream.optimizedSOAPPart";
+
     HashMap<String, Object> map = null;  // Map of generic properties
 
 
@@ -179,6 +179,76 @@ public class MIMEOutputUtils {
         }
     }
 
+    /**
+     * Invoked by MTOMXMLStreamWriter to start a message the SOAPPart of which is not buffered.
+     * Writes the first boundary and the headers of the SOAPPart; the caller then writes the XML
+     * of the SOAPPart directly to the stream and calls
+     * {@link #finishWritingSOAPPart(OutputStream, List, String, OMOutputFormat)} when done.
+     *
+     * @param outStream OutputStream target
+     * @param boundary Boundary String
+     * @param contentId Content-ID of SOAPPart
+     * @param charSetEncoding Character Encoding of SOAPPart
+     * @param SOAPContentType Content-Type of SOAPPart
+     * @throws IOException
+     */
+    public static void startWritingSOAPPart(OutputStream outStream,
+                                            String boundary,
+                                            String contentId,
+                                            String charSetEncoding,
+                                            String SOAPContentType) throws IOException {
+        if (isDebugEnabled) {
+            log.debug("Start: write the headers of the SOAPPart");
+        }
+        startWritingMime(outStream, boundary);
+        outStream.write(CRLF);
+        writeHeader(outStream, "Content-Type", "application/xop+xml; charset=" +
+                charSetEncoding + "; type=\"" + SOAPContentType + "\"");
+        writeHeader(outStream, "Content-Transfer-Encoding", "binary");
+        writeHeader(outStream, "Content-ID", "<" + contentId + ">");
+        outStream.write(CRLF);
+    }
+
+    /**
+     * Invoked by MTOMXMLStreamWriter to end the SOAPPart started with
+     * {@link #startWritingSOAPPart(OutputStream, String, String, String, String)} and write the
+     * attachments. The attachments are copied from their data handlers to the stream.
+     *
+     * @param outStream OutputStream target
+     * @param binaryNodeList Text nodes with the attachment Data Handlers
+     * @param boundary Boundary String
+     * @param omOutputFormat
+     */
+    public static void finishWritingSOAPPart(OutputStream outStream,
+                                             List<OMText> binaryNodeList,
+                                             String boundary,
+                                             OMOutputFormat omOutputFormat) {
+        try {
+            outStream.write(CRLF);
+            writeMimeBoundary(outStream, boundary);
+            for(OMText binaryNode: binaryNodeList) {
+                writeBodyPart(outStream, createMimeBodyPart(binaryNode
+                        .getContentID(), (DataHandler) binaryNode
+                        .getDataHandler(), omOutputFormat), boundary);
+            }
+            finishWritingMime(outStream);
+            outStream.flush();
+            if (isDebugEnabled) {
+                log.debug("End: write the SOAPPart and the attachments");
+            }
+        } catch (IOException e) {
+            throw new OMException("Error while writing to the OutputStream.", e);
+        } catch (MessagingException e) {
+            throw new OMException("Problem writing Mime Parts.", e);
+        }
+    }
+
+    private static void writeHeader(OutputStream outStream, String name, String value)
+            throws IOException {
+        outStream.write((name + ": " + value).getBytes("UTF-8"));
+        outStream.write(CRLF);
+    }
+
     /**
      * @deprecated - is anyone really using this?
      *
@@ -60,6 +60,7 @@ public class MTOMXMLStreamWriter implements XMLStreamWriter {
     private OutputStream outStream;
     private LinkedList<OMText> binaryNodeList = new LinkedList<OMText>();
     private ByteArrayOutputStream bufferedXML;  // XML for the SOAPPart
+    private boolean isStreamingSOAPPart = false; // is the SOAPPart written directly to outStream
     private OMOutputFormat format = new OMOutputFormat();
 
     // State variables
@@ -99,7 +100,23 @@ public class MTOMXMLStreamWriter implements XMLStreamWriter {
 			format.setCharSetEncoding(OMOutputFormat.DEFAULT_CHAR_SET_ENCODING);
 		}
 
-        if (format.isOptimized()) {
+        if (format.isOptimized() && Boolean.TRUE.equals(
+                format.getProperty(OMOutputFormat.STREAM_OPTIMIZED_SOAP_PART))) {
+            // Write the MIME headers of the SOAPPart now and the XML straight after them.
+            // The attachments follow when the document is complete.
+            isStreamingSOAPPart = true;
+            try {
+                MIMEOutputUtils.startWritingSOAPPart(outStream,
+                                                     format.getMimeBoundary(),
+                                                     format.getRootContentId(),
+                                                     format.getCharSetEncoding(),
+                                                     getSOAPContentType());
+            } catch (IOException e) {
+                throw new OMException(e);
+            }
+            xmlWriter = StAXUtils.createXMLStreamWriter(outStream,
+                                                        format.getCharSetEncoding());
+        } else if (format.isOptimized()) {
             // REVIEW If the buffered XML gets too big, should it be written out to a file
             bufferedXML = new ByteArrayOutputStream();
             xmlWriter = StAXUtils.createXMLStreamWriter(bufferedXML,format.getCharSetEncoding());
@@ -166,7 +183,6 @@ public class MTOMXMLStreamWriter implements XMLStreamWriter {
             log.debug("Calling MTOMXMLStreamWriter.flush");
         }
         xmlWriter.flush();
-        String SOAPContentType;
         // flush() triggers the optimized attachment writing.
         // If the optimized attachments are specified, and the xml
         // document is completed, then write out the attachments.
@@ -175,22 +191,24 @@ public class MTOMXMLStreamWriter implements XMLStreamWriter {
                 log.debug("The XML writing is completed.  Now the attachments are written");
             }
             isComplete = true;
-            if (format.isSOAP11()) {
-                SOAPContentType = SOAP11Constants.SOAP_11_CONTENT_TYPE;
-            } else {
-                SOAPContentType = SOAP12Constants.SOAP_12_CONTENT_TYPE;
-            }
             try {
-                MIMEOutputUtils.complete(outStream,
-                                         bufferedXML.toByteArray(),
-                                         binaryNodeList,
-                                         format.getMimeBoundary(),
-                                         format.getRootContentId(),
-                                         format.getCharSetEncoding(),
-                                         SOAPContentType,
-                                         format);
-                bufferedXML.close();
-                bufferedXML = null;
+                if (isStreamingSOAPPart) {
+                    MIMEOutputUtils.finishWritingSOAPPart(outStream,
+                                                          binaryNodeList,
+                                                          format.getMimeBoundary(),
+                                                          format);
+                } else {
+                    MIMEOutputUtils.complete(outStream,
+                                             bufferedXML.toByteArray(),
+                                             binaryNodeList,
+                                             format.getMimeBoundary(),
+                                             format.getRootContentId(),
+                                             format.getCharSetEncoding(),
+                                             getSOAPContentType(),
+                                             format);
+                    bufferedXML.close();
+                    bufferedXML = null;
+                }
             } catch (UnsupportedEncodingException e) {
                 throw new OMException(e);
             } catch (IOException e) {
@@ -200,6 +218,14 @@ public class MTOMXMLStreamWriter implements XMLStreamWriter {
     }
 
 
+    private String getSOAPContentType() {
+        if (format.isSOAP11()) {
+            return SOAP11Constants.SOAP_11_CONTENT_TYPE;
+        } else {
+            return SOAP12Constants.SOAP_12_CONTENT_TYPE;
+        }
+    }
+
     public void writeAttribute(String string, String string1) throws XMLStreamException {
         xmlWriter.writeAttribute(string, string1);
     }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * {@link StAXParserProvider} that uses whatever StAX implementation the
+ * <code>newInstance</code> lookup of the StAX API finds, and does not recycle readers or
+ * writers. Subclasses for a specific implementation can override the factory methods to tune
+ * its properties and the <code>reset*</code> methods to reuse its instances.
+ */
+public class DefaultStAXParserProvider implements StAXParserProvider {
+
+    public XMLInputFactory newXMLInputFactory(boolean isNetworkDetached) {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        if (isNetworkDetached) {
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                      Boolean.FALSE);
+            // Some StAX parser such as Woodstox still try to load the external DTD subset,
+            // even if IS_SUPPORTING_EXTERNAL_ENTITIES is set to false. To work around this,
+            // we add a custom XMLResolver that returns empty documents. See WSTX-117 for
+            // an interesting discussion about this.
+            factory.setXMLResolver(new XMLResolver() {
+                public Object resolveEntity(String publicID, String systemID, String baseURI,
+                        String namespace) throws XMLStreamException {
+                    return new ByteArrayInputStream(new byte[0]);
+                }
+            });
+        }
+        return factory;
+    }
+
+    public XMLOutputFactory newXMLOutputFactory() {
+        XMLOutputFactory factory = XMLOutputFactory.newInstance();
+        factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.FALSE);
+        return factory;
+    }
+
+    public boolean isRecycling() {
+        return false;
+    }
+
+    public boolean resetXMLStreamReader(XMLStreamReader reader, InputStream in, String encoding)
+            throws XMLStreamException {
+        return false;
+    }
+
+    public boolean resetXMLStreamReader(XMLStreamReader reader, Reader in)
+            throws XMLStreamException {
+        return false;
+    }
+
+    public boolean resetXMLStreamWriter(XMLStreamWriter writer, OutputStream out, String encoding)
+            throws XMLStreamException {
+        return false;
+    }
+
+    public boolean resetXMLStreamWriter(XMLStreamWriter writer, Writer out)
+            throws XMLStreamException {
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.util;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Service provider interface used by {@link StAXUtils} to create the StAX factories and,
+ * if the underlying implementation supports it, to recycle readers and writers.
+ * <p/>
+ * The provider is selected once, the first time {@link StAXUtils} needs it: the class named by
+ * the system property {@link #PROVIDER_PROPERTY} is used if set, otherwise the first provider
+ * registered in <tt>META-INF/services/org.apache.axiom.om.util.StAXParserProvider</tt>, and
+ * otherwise {@link DefaultStAXParserProvider}. It can also be replaced at runtime with
+ * {@link StAXUtils#setParserProvider(StAXParserProvider)}.
+ * <p/>
+ * The StAX API has no portable way to reset a reader or writer for a new input. Providers that
+ * know the implementation they create can do so in the <code>reset*</code> methods; when
+ * {@link #isRecycling()} returns true, {@link StAXUtils} keeps the last instance released on
+ * each thread and asks the provider to reset it before creating a new one.
+ */
+public interface StAXParserProvider {
+
+    /** System property naming the {@link StAXParserProvider} implementation class. */
+    String PROVIDER_PROPERTY = "org.apache.axiom.om.util.StAXParserProvider";
+
+    /**
+     * Create a new XMLInputFactory. This is called with the thread context classloader set to
+     * the classloader the factory is cached for.
+     *
+     * @param isNetworkDetached if true, the factory must not resolve external entities
+     * @return the new factory
+     */
+    XMLInputFactory newXMLInputFactory(boolean isNetworkDetached);
+
+    /**
+     * Create a new XMLOutputFactory. The factory must not repair namespaces.
+     *
+     * @return the new factory
+     */
+    XMLOutputFactory newXMLOutputFactory();
+
+    /**
+     * @return true if released readers and writers should be kept for the <code>reset*</code>
+     *         methods
+     */
+    boolean isRecycling();
+
+    /**
+     * Reset a closed reader so that it reads from the given stream.
+     *
+     * @param reader a reader previously created by the same factory and released
+     * @param in the new input
+     * @param encoding the character encoding of the input, or null to detect it
+     * @return false if the reader can not be reused
+     * @throws XMLStreamException
+     */
+    boolean resetXMLStreamReader(XMLStreamReader reader, InputStream in, String encoding)
+            throws XMLStreamException;
+
+    /**
+     * Reset a closed reader so that it reads from the given character stream.
+     *
+     * @param reader a reader previously created by the same factory and released
+     * @param in the new input
+     * @return false if the reader can not be reused
+     * @throws XMLStreamException
+     */
+    boolean resetXMLStreamReader(XMLStreamReader reader, Reader in) throws XMLStreamException;
+
+    /**
+     * Reset a closed writer so that it writes to the given stream.
+     *
+     * @param writer a writer previously created by the same factory and released
+     * @param out the new output
+     * @param encoding the character encoding to use
+     * @return false if the writer can not be reused
+     * @throws XMLStreamException
+     */
+    boolean resetXMLStreamWriter(XMLStreamWriter writer, OutputStream out, String encoding)
+            throws XMLStreamException;
+
+    /**
+     * Reset a closed writer so that it writes to the given character stream.
+     *
+     * @param writer a writer previously created by the same factory and released
+     * @param out the new output
+     * @return false if the writer can not be reused
+     * @throws XMLStreamException
+     */
+    boolean resetXMLStreamWriter(XMLStreamWriter writer, Writer out) throws XMLStreamException;
+}
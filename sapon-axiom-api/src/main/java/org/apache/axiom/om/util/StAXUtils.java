@@ -19,22 +19,24 @@
 
 package org.apache.axiom.om.util;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.lang.ref.WeakReference;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.WeakHashMap;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
-import javax.xml.stream.XMLResolver;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
@@ -73,6 +75,57 @@ public class StAXUtils {
     private static Map<ClassLoader, XMLOutputFactory> outputFactoryPerCL
     	= Collections.synchronizedMap(new WeakHashMap<ClassLoader, XMLOutputFactory>());
 
+    // The provider creating the factories, see getParserProvider(). The generation
+    // is incremented whenever the provider is replaced so that the per thread
+    // caches below are dropped.
+    private static volatile StAXParserProvider provider = null;
+    private static volatile int generation = 0;
+
+    // Each thread remembers the factories it last used for its context classloader, so
+    // that the synchronized maps above are only consulted when the classloader changes.
+    // When the provider recycles readers and writers, the thread also keeps the last one
+    // it created and the last one released, together with the factory they came from.
+    private static final class ThreadState {
+        int generation;
+        WeakReference<ClassLoader> classLoader;
+        XMLInputFactory inputFactory;
+        XMLInputFactory inputNDFactory;
+        XMLOutputFactory outputFactory;
+
+        XMLStreamReader lastReader;
+        XMLInputFactory lastReaderFactory;
+        XMLStreamReader recycledReader;
+        XMLInputFactory recycledReaderFactory;
+        XMLStreamWriter lastWriter;
+        XMLOutputFactory lastWriterFactory;
+        XMLStreamWriter recycledWriter;
+        XMLOutputFactory recycledWriterFactory;
+    }
+
+    private static final ThreadLocal<ThreadState> threadState = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            return new ThreadState();
+        }
+    };
+
+    // Creates a reader from one of the inputs accepted by XMLInputFactory, or resets
+    // a recycled reader to read from it.
+    private abstract static class ReaderInput {
+        abstract XMLStreamReader create(XMLInputFactory factory) throws XMLStreamException;
+
+        abstract boolean reset(StAXParserProvider provider, XMLStreamReader reader)
+                throws XMLStreamException;
+    }
+
+    // Same as ReaderInput, for the outputs accepted by XMLOutputFactory
+    private abstract static class WriterOutput {
+        abstract XMLStreamWriter create(XMLOutputFactory factory) throws XMLStreamException;
+
+        abstract boolean reset(StAXParserProvider provider, XMLStreamWriter writer)
+                throws XMLStreamException;
+    }
+
     /**
      * Gets an XMLInputFactory instance from pool.
      *
@@ -104,63 +157,44 @@ public class StAXUtils {
 
     public static XMLStreamReader createXMLStreamReader(final InputStream in, final String encoding)
             throws XMLStreamException {
-        final XMLInputFactory inputFactory = getXMLInputFactory();
-        try {
-            XMLStreamReader reader =
-                AccessController.doPrivileged(new PrivilegedExceptionAction<XMLStreamReader>() {
-			    public XMLStreamReader run() throws XMLStreamException {
-			        return inputFactory.createXMLStreamReader(in, encoding);
-			    }
-			}
-			);
-            if (isDebugEnabled) {
-                log.debug("XMLStreamReader is " + reader.getClass().getName());
-            }
-            return reader;
-        } catch (PrivilegedActionException pae) {
-            throw (XMLStreamException) pae.getException();
-        }
+        return createXMLStreamReader(getXMLInputFactory(), new ReaderInput() {
+            XMLStreamReader create(XMLInputFactory factory) throws XMLStreamException {
+                return factory.createXMLStreamReader(in, encoding);
+            }
+
+            boolean reset(StAXParserProvider provider, XMLStreamReader reader)
+                    throws XMLStreamException {
+                return provider.resetXMLStreamReader(reader, in, encoding);
+            }
+        });
     }
 
     public static XMLStreamReader createXMLStreamReader(final InputStream in)
             throws XMLStreamException {
-        final XMLInputFactory inputFactory = getXMLInputFactory();
-        try {
-            XMLStreamReader reader =
-                AccessController.doPrivileged(new PrivilegedExceptionAction<XMLStreamReader>() {
-			    public XMLStreamReader run() throws XMLStreamException {
-			        return inputFactory.createXMLStreamReader(in);
-			    }
-			}
-			);
-
-            if (isDebugEnabled) {
-                log.debug("XMLStreamReader is " + reader.getClass().getName());
-            }
-            return reader;
-        } catch (PrivilegedActionException pae) {
-            throw (XMLStreamException) pae.getException();
-        }
+        return createXMLStreamReader(getXMLInputFactory(), new ReaderInput() {
+            XMLStreamReader create(XMLInputFactory factory) throws XMLStreamException {
+                return factory.createXMLStreamReader(in);
+            }
+
+            boolean reset(StAXParserProvider provider, XMLStreamReader reader)
+                    throws XMLStreamException {
+                return provider.resetXMLStreamReader(reader, in, null);
+            }
+        });
     }
 
     public static XMLStreamReader createXMLStreamReader(final Reader in)
             throws XMLStreamException {
-        final XMLInputFactory inputFactory = getXMLInputFactory();
-        try {
-            XMLStreamReader reader =
-                AccessController.doPrivileged(new PrivilegedExceptionAction<XMLStreamReader>() {
-			    public XMLStreamReader run() throws XMLStreamException {
-			        return inputFactory.createXMLStreamReader(in);
-			    }
-			}
-			);
-            if (isDebugEnabled) {
-                log.debug("XMLStreamReader is " + reader.getClass().getName());
-            }
-            return reader;
-        } catch (PrivilegedActionException pae) {
-            throw (XMLStreamException) pae.getException();
-        }
+        return createXMLStreamReader(getXMLInputFactory(), new ReaderInput() {
+            XMLStreamReader create(XMLInputFactory factory) throws XMLStreamException {
+                return factory.createXMLStreamReader(in);
+            }
+
+            boolean reset(StAXParserProvider provider, XMLStreamReader reader)
+                    throws XMLStreamException {
+                return provider.resetXMLStreamReader(reader, in);
+            }
+        });
     }
 
     /**
@@ -202,84 +236,293 @@ public class StAXUtils {
 
     public static XMLStreamWriter createXMLStreamWriter(final OutputStream out)
             throws XMLStreamException {
-        final XMLOutputFactory outputFactory = getXMLOutputFactory();
-        try {
-            XMLStreamWriter writer =
-                AccessController.doPrivileged(new PrivilegedExceptionAction<XMLStreamWriter>() {
-			    public XMLStreamWriter run() throws XMLStreamException {
-			        return outputFactory.createXMLStreamWriter(out, OMConstants.DEFAULT_CHAR_SET_ENCODING);
-			    }
-			}
-			);
-
-            if (isDebugEnabled) {
-                log.debug("XMLStreamWriter is " + writer.getClass().getName());
-            }
-            return writer;
-        } catch (PrivilegedActionException pae) {
-            throw (XMLStreamException) pae.getException();
-        }
+        return createXMLStreamWriter(getXMLOutputFactory(), new WriterOutput() {
+            XMLStreamWriter create(XMLOutputFactory factory) throws XMLStreamException {
+                return factory.createXMLStreamWriter(out, OMConstants.DEFAULT_CHAR_SET_ENCODING);
+            }
+
+            boolean reset(StAXParserProvider provider, XMLStreamWriter writer)
+                    throws XMLStreamException {
+                return provider.resetXMLStreamWriter(writer, out, OMConstants.DEFAULT_CHAR_SET_ENCODING);
+            }
+        });
     }
 
     public static XMLStreamWriter createXMLStreamWriter(final OutputStream out, final String encoding)
             throws XMLStreamException {
-        final XMLOutputFactory outputFactory = getXMLOutputFactory();
-        try {
-            XMLStreamWriter writer =
-                AccessController.doPrivileged(new PrivilegedExceptionAction<XMLStreamWriter>() {
-			    public XMLStreamWriter run() throws XMLStreamException {
-			        return outputFactory.createXMLStreamWriter(out, encoding);
-			    }
-			}
-			);
-
-            if (isDebugEnabled) {
-                log.debug("XMLStreamWriter is " + writer.getClass().getName());
-            }
-            return writer;
-        } catch (PrivilegedActionException pae) {
-            throw (XMLStreamException) pae.getException();
-        }
+        return createXMLStreamWriter(getXMLOutputFactory(), new WriterOutput() {
+            XMLStreamWriter create(XMLOutputFactory factory) throws XMLStreamException {
+                return factory.createXMLStreamWriter(out, encoding);
+            }
+
+            boolean reset(StAXParserProvider provider, XMLStreamWriter writer)
+                    throws XMLStreamException {
+                return provider.resetXMLStreamWriter(writer, out, encoding);
+            }
+        });
     }
 
     public static XMLStreamWriter createXMLStreamWriter(final Writer out)
             throws XMLStreamException {
-        final XMLOutputFactory outputFactory = getXMLOutputFactory();
+        return createXMLStreamWriter(getXMLOutputFactory(), new WriterOutput() {
+            XMLStreamWriter create(XMLOutputFactory factory) throws XMLStreamException {
+                return factory.createXMLStreamWriter(out);
+            }
+
+            boolean reset(StAXParserProvider provider, XMLStreamWriter writer)
+                    throws XMLStreamException {
+                return provider.resetXMLStreamWriter(writer, out);
+            }
+        });
+    }
+
+    /**
+     * Release a reader created by one of the <code>create*XMLStreamReader</code> methods once
+     * it is no longer used. The reader is closed and, if the {@link StAXParserProvider} recycles
+     * readers and the reader was the last one created on the current thread, kept so that the
+     * next reader created on this thread can reuse it. The caller must not use the reader after
+     * calling this method.
+     *
+     * @param reader the reader to release
+     * @throws XMLStreamException if the reader can not be closed
+     */
+    public static void releaseXMLStreamReader(XMLStreamReader reader) throws XMLStreamException {
+        reader.close();
+        if (getParserProvider().isRecycling()) {
+            ThreadState state = threadState.get();
+            if (state.lastReader == reader) {
+                state.recycledReader = reader;
+                state.recycledReaderFactory = state.lastReaderFactory;
+                state.lastReader = null;
+                state.lastReaderFactory = null;
+            }
+        }
+    }
+
+    /**
+     * Release a writer created by one of the <code>createXMLStreamWriter</code> methods once it
+     * is no longer used. The writer is closed and, if the {@link StAXParserProvider} recycles
+     * writers and the writer was the last one created on the current thread, kept so that the
+     * next writer created on this thread can reuse it. The caller must not use the writer after
+     * calling this method.
+     *
+     * @param writer the writer to release
+     * @throws XMLStreamException if the writer can not be closed
+     */
+    public static void releaseXMLStreamWriter(XMLStreamWriter writer) throws XMLStreamException {
+        writer.close();
+        if (getParserProvider().isRecycling()) {
+            ThreadState state = threadState.get();
+            if (state.lastWriter == writer) {
+                state.recycledWriter = writer;
+                state.recycledWriterFactory = state.lastWriterFactory;
+                state.lastWriter = null;
+                state.lastWriterFactory = null;
+            }
+        }
+    }
+
+    private static XMLStreamReader createXMLStreamReader(final XMLInputFactory factory,
+                                                         final ReaderInput input)
+            throws XMLStreamException {
+        StAXParserProvider provider = getParserProvider();
+        ThreadState state = null;
+        XMLStreamReader reader = null;
+        if (provider.isRecycling()) {
+            state = threadState.get();
+            XMLStreamReader recycled = state.recycledReader;
+            if (recycled != null && state.recycledReaderFactory == factory) {
+                state.recycledReader = null;
+                state.recycledReaderFactory = null;
+                try {
+                    if (input.reset(provider, recycled)) {
+                        reader = recycled;
+                    }
+                } catch (XMLStreamException e) {
+                    if (isDebugEnabled) {
+                        log.debug("Unable to reuse XMLStreamReader " + recycled, e);
+                    }
+                }
+            }
+        }
+        if (reader == null) {
+            if (System.getSecurityManager() == null) {
+                reader = input.create(factory);
+            } else {
+                try {
+                    reader = AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<XMLStreamReader>() {
+                            public XMLStreamReader run() throws XMLStreamException {
+                                return input.create(factory);
+                            }
+                        });
+                } catch (PrivilegedActionException pae) {
+                    throw (XMLStreamException) pae.getException();
+                }
+            }
+        }
+        if (state != null) {
+            state.lastReader = reader;
+            state.lastReaderFactory = factory;
+        }
+        if (isDebugEnabled) {
+            log.debug("XMLStreamReader is " + reader.getClass().getName());
+        }
+        return reader;
+    }
+
+    private static XMLStreamWriter createXMLStreamWriter(final XMLOutputFactory factory,
+                                                         final WriterOutput output)
+            throws XMLStreamException {
+        StAXParserProvider provider = getParserProvider();
+        ThreadState state = null;
+        XMLStreamWriter writer = null;
+        if (provider.isRecycling()) {
+            state = threadState.get();
+            XMLStreamWriter recycled = state.recycledWriter;
+            if (recycled != null && state.recycledWriterFactory == factory) {
+                state.recycledWriter = null;
+                state.recycledWriterFactory = null;
+                try {
+                    if (output.reset(provider, recycled)) {
+                        writer = recycled;
+                    }
+                } catch (XMLStreamException e) {
+                    if (isDebugEnabled) {
+                        log.debug("Unable to reuse XMLStreamWriter " + recycled, e);
+                    }
+                }
+            }
+        }
+        if (writer == null) {
+            if (System.getSecurityManager() == null) {
+                writer = output.create(factory);
+            } else {
+                try {
+                    writer = AccessController.doPrivileged(
+                        new PrivilegedExceptionAction<XMLStreamWriter>() {
+                            public XMLStreamWriter run() throws XMLStreamException {
+                                return output.create(factory);
+                            }
+                        });
+                } catch (PrivilegedActionException pae) {
+                    throw (XMLStreamException) pae.getException();
+                }
+            }
+        }
+        if (state != null) {
+            state.lastWriter = writer;
+            state.lastWriterFactory = factory;
+        }
+        if (isDebugEnabled) {
+            log.debug("XMLStreamWriter is " + writer.getClass().getName());
+        }
+        return writer;
+    }
+
+    /**
+     * Get the provider used to create the StAX factories. See {@link StAXParserProvider} for
+     * how it is selected.
+     *
+     * @return the provider
+     */
+    public static StAXParserProvider getParserProvider() {
+        StAXParserProvider p = provider;
+        if (p == null) {
+            synchronized (StAXUtils.class) {
+                p = provider;
+                if (p == null) {
+                    p = loadParserProvider();
+                    provider = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Replace the provider used to create the StAX factories. The factories created by the
+     * previous provider are discarded. This is meant to be called at startup, before the
+     * factories are shared between threads.
+     *
+     * @param parserProvider the new provider, or null to select it again as described
+     *                       in {@link StAXParserProvider}
+     */
+    public static void setParserProvider(StAXParserProvider parserProvider) {
+        synchronized (StAXUtils.class) {
+            provider = parserProvider;
+            inputFactory = null;
+            inputNDFactory = null;
+            outputFactory = null;
+            inputFactoryPerCL.clear();
+            inputNDFactoryPerCL.clear();
+            outputFactoryPerCL.clear();
+            generation++;
+        }
+    }
+
+    private static StAXParserProvider loadParserProvider() {
+        String className = null;
         try {
-            XMLStreamWriter writer =
-                AccessController.doPrivileged(new PrivilegedExceptionAction<XMLStreamWriter>() {
-			    public XMLStreamWriter run() throws XMLStreamException {
-			        return outputFactory.createXMLStreamWriter(out);
-			    }
-			}
-			);
-            if (isDebugEnabled) {
-                log.debug("XMLStreamWriter is " + writer.getClass().getName());
-            }
-            return writer;
-        } catch (PrivilegedActionException pae) {
-            throw (XMLStreamException) pae.getException();
+            className = System.getProperty(StAXParserProvider.PROVIDER_PROPERTY);
+        } catch (SecurityException e) {
+            // Ignore and use the service lookup
+        }
+        if (className != null) {
+            try {
+                StAXParserProvider p = (StAXParserProvider)
+                        Class.forName(className, true, StAXUtils.class.getClassLoader())
+                                .newInstance();
+                if (log.isDebugEnabled()) {
+                    log.debug("Using StAX parser provider " + className);
+                }
+                return p;
+            } catch (Exception e) {
+                log.warn("Unable to create StAX parser provider " + className +
+                        "; using the default provider", e);
+                return new DefaultStAXParserProvider();
+            }
+        }
+        try {
+            Iterator<StAXParserProvider> it = ServiceLoader.load(StAXParserProvider.class,
+                    StAXUtils.class.getClassLoader()).iterator();
+            if (it.hasNext()) {
+                StAXParserProvider p = it.next();
+                if (log.isDebugEnabled()) {
+                    log.debug("Using StAX parser provider " + p.getClass().getName());
+                }
+                return p;
+            }
+        } catch (ServiceConfigurationError e) {
+            log.warn("Unable to load a StAX parser provider; using the default provider", e);
         }
+        return new DefaultStAXParserProvider();
+    }
+
+    // Returns the state of the current thread, after dropping its cached factories if
+    // they were looked up for another classloader or provider
+    private static ThreadState getThreadState(ClassLoader cl) {
+        ThreadState state = threadState.get();
+        int currentGeneration = generation;
+        if (state.generation != currentGeneration || state.classLoader == null
+                || state.classLoader.get() != cl) {
+            state.generation = currentGeneration;
+            state.classLoader = new WeakReference<ClassLoader>(cl);
+            state.inputFactory = null;
+            state.inputNDFactory = null;
+            state.outputFactory = null;
+        }
+        return state;
     }
 
     // This has package access since it is used from within anonymous inner classes
     static XMLInputFactory newXMLInputFactory(boolean isNetworkDetached) {
-        XMLInputFactory factory = XMLInputFactory.newInstance();
-        if (isNetworkDetached) {
-            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
-                      Boolean.FALSE);
-            // Some StAX parser such as Woodstox still try to load the external DTD subset,
-            // even if IS_SUPPORTING_EXTERNAL_ENTITIES is set to false. To work around this,
-            // we add a custom XMLResolver that returns empty documents. See WSTX-117 for
-            // an interesting discussion about this.
-            factory.setXMLResolver(new XMLResolver() {
-                public Object resolveEntity(String publicID, String systemID, String baseURI,
-                        String namespace) throws XMLStreamException {
-                    return new ByteArrayInputStream(new byte[0]);
-                }
-            });
-        }
-        return factory;
+        return getParserProvider().newXMLInputFactory(isNetworkDetached);
+    }
+
+    // This has package access since it is used from within anonymous inner classes
+    static XMLOutputFactory newXMLOutputFactory() {
+        return getParserProvider().newXMLOutputFactory();
     }
 
     /**
@@ -292,6 +535,16 @@ public class StAXUtils {
         if (cl == null) {
             factory = getXMLInputFactory_singleton(isNetworkDetached);
         } else {
+            ThreadState state = getThreadState(cl);
+            if (isNetworkDetached) {
+                factory = state.inputNDFactory;
+            } else {
+                factory = state.inputFactory;
+            }
+            if (factory != null) {
+                return factory;
+            }
+
             // Check the cache
             if (isNetworkDetached) {
                 factory = inputNDFactoryPerCL.get(cl);
@@ -360,6 +613,11 @@ public class StAXUtils {
                 }
             }
 
+            if (isNetworkDetached) {
+                state.inputNDFactory = factory;
+            } else {
+                state.inputFactory = factory;
+            }
         }
         return factory;
     }
@@ -417,6 +675,12 @@ public class StAXUtils {
         if (cl == null) {
             factory = getXMLOutputFactory_singleton();
         } else {
+            ThreadState state = getThreadState(cl);
+            factory = state.outputFactory;
+            if (factory != null) {
+                return factory;
+            }
+
             factory = outputFactoryPerCL.get(cl);
             if (factory == null) {
                 if (log.isDebugEnabled()) {
@@ -429,10 +693,7 @@ public class StAXUtils {
                     factory = AccessController.doPrivileged(
                         new PrivilegedAction<XMLOutputFactory>() {
                             public XMLOutputFactory run() {
-                                XMLOutputFactory factory = XMLOutputFactory.newInstance();
-                                factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES,
-                                                    Boolean.FALSE);
-                                return factory;
+                                return newXMLOutputFactory();
                             }
                         });
                 } catch (ClassCastException cce) {
@@ -452,9 +713,7 @@ public class StAXUtils {
                                     Thread.currentThread().
                                         setContextClassLoader(
                                            XMLOutputFactory.class.getClassLoader());
-                                    f =XMLOutputFactory.newInstance();
-                                    f.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES,
-                                                        Boolean.FALSE);
+                                    f = newXMLOutputFactory();
                                 } finally {
                                     Thread.currentThread().
                                         setContextClassLoader(saveCL);
@@ -475,6 +734,7 @@ public class StAXUtils {
                 }
             }
 
+            state.outputFactory = factory;
         }
         return factory;
     }
@@ -493,9 +753,7 @@ public class StAXUtils {
                             XMLOutputFactory factory = null;
                             try {
                                 currentThread.setContextClassLoader(StAXUtils.class.getClassLoader());
-                                factory = XMLOutputFactory.newInstance();
-                                factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES,
-                                                    Boolean.FALSE);
+                                factory = newXMLOutputFactory();
                             }
                             finally {
                                 currentThread.setContextClassLoader(savedClassLoader);
@@ -516,6 +774,9 @@ public class StAXUtils {
      * @return Trhead Context ClassLoader
      */
     private static ClassLoader getContextClassLoader() {
+        if (System.getSecurityManager() == null) {
+            return Thread.currentThread().getContextClassLoader();
+        }
         ClassLoader cl = AccessController.doPrivileged(
                     new PrivilegedAction<ClassLoader>() {
                         public ClassLoader run()  {
@@ -539,22 +800,16 @@ public class StAXUtils {
      */
     public static XMLStreamReader createNetworkDetachedXMLStreamReader(final InputStream in, final String encoding)
         throws XMLStreamException {
-        final XMLInputFactory inputFactory = getNetworkDetachedXMLInputFactory();
-        try {
-            XMLStreamReader reader =
-                AccessController.doPrivileged(new PrivilegedExceptionAction<XMLStreamReader>() {
-			    public XMLStreamReader run() throws XMLStreamException {
-			        return inputFactory.createXMLStreamReader(in, encoding);
-			    }
-			}
-			);
-            if (isDebugEnabled) {
-                log.debug("XMLStreamReader is " + reader.getClass().getName());
-            }
-            return reader;
-        } catch (PrivilegedActionException pae) {
-            throw (XMLStreamException) pae.getException();
-        }
+        return createXMLStreamReader(getNetworkDetachedXMLInputFactory(), new ReaderInput() {
+            XMLStreamReader create(XMLInputFactory factory) throws XMLStreamException {
+                return factory.createXMLStreamReader(in, encoding);
+            }
+
+            boolean reset(StAXParserProvider provider, XMLStreamReader reader)
+                    throws XMLStreamException {
+                return provider.resetXMLStreamReader(reader, in, encoding);
+            }
+        });
     }
 
     /**
@@ -582,22 +837,16 @@ public class StAXUtils {
      */
     public static XMLStreamReader createNetworkDetachedXMLStreamReader(final InputStream in)
     throws XMLStreamException {
-        final XMLInputFactory inputFactory = getNetworkDetachedXMLInputFactory();
-        try {
-            XMLStreamReader reader =
-                AccessController.doPrivileged(new PrivilegedExceptionAction<XMLStreamReader>() {
-			    public XMLStreamReader run() throws XMLStreamException {
-			        return inputFactory.createXMLStreamReader(in);
-			    }
-			});
-
-            if (isDebugEnabled) {
-                log.debug("XMLStreamReader is " + reader.getClass().getName());
-            }
-            return reader;
-        } catch (PrivilegedActionException pae) {
-            throw (XMLStreamException) pae.getException();
-        }
+        return createXMLStreamReader(getNetworkDetachedXMLInputFactory(), new ReaderInput() {
+            XMLStreamReader create(XMLInputFactory factory) throws XMLStreamException {
+                return factory.createXMLStreamReader(in);
+            }
+
+            boolean reset(StAXParserProvider provider, XMLStreamReader reader)
+                    throws XMLStreamException {
+                return provider.resetXMLStreamReader(reader, in, null);
+            }
+        });
     }
 
     /**
@@ -612,21 +861,16 @@ public class StAXUtils {
      */
     public static XMLStreamReader createNetworkDetachedXMLStreamReader(final Reader in)
     throws XMLStreamException {
-        final XMLInputFactory inputFactory = getNetworkDetachedXMLInputFactory();
-        try {
-            XMLStreamReader reader =
-                AccessController.doPrivileged(new PrivilegedExceptionAction<XMLStreamReader>() {
-			    public XMLStreamReader run() throws XMLStreamException {
-			        return inputFactory.createXMLStreamReader(in);
-			    }
-			});
-            if (isDebugEnabled) {
-                log.debug("XMLStreamReader is " + reader.getClass().getName());
-            }
-            return reader;
-        } catch (PrivilegedActionException pae) {
-            throw (XMLStreamException) pae.getException();
-        }
+        return createXMLStreamReader(getNetworkDetachedXMLInputFactory(), new ReaderInput() {
+            XMLStreamReader create(XMLInputFactory factory) throws XMLStreamException {
+                return factory.createXMLStreamReader(in);
+            }
+
+            boolean reset(StAXParserProvider provider, XMLStreamReader reader)
+                    throws XMLStreamException {
+                return provider.resetXMLStreamReader(reader, in);
+            }
+        });
     }
 
 }
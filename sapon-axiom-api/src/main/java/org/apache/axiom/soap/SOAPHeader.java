@@ -21,6 +21,8 @@ package org.apache.axiom.soap;
 
 import java.util.List;
 
+import javax.xml.namespace.QName;
+
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMNamespace;
@@ -122,6 +124,15 @@ public interface SOAPHeader extends OMElement {
      */
     List<SOAPHeaderBlock> getHeaderBlocksWithNSURI(String nsURI);
 
+    /**
+     * Return all the header blocks with the given qualified name. An empty namespace
+     * URI in the QName matches header blocks without a namespace.
+     *
+     * @param name the qualified name of the header blocks
+     * @return Returns a List, which is empty if there are no matching header blocks.
+     */
+    List<SOAPHeaderBlock> getHeaderBlocks(QName name);
+
     /**
      * Get the appropriate set of headers for a RolePlayer in a particular namespace
      * <p/>
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.attachments.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Hashtable;
+
+import javax.mail.Header;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.attachments.lifecycle.impl.LifecycleManagerImpl;
+
+public class PartOnFileTest extends TestCase {
+
+    public void testStreamsReadTheMappingIndependently() throws Exception {
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        File dir = new File(System.getProperty("java.io.tmpdir"), "partOnFileTest");
+        LifecycleManagerImpl manager = new LifecycleManagerImpl();
+        PartOnFile part = new PartOnFile(manager, new Hashtable<String, Header>(),
+                new ByteArrayInputStream(data, 0, 100),
+                new ByteArrayInputStream(data, 100, data.length - 100), dir.getAbsolutePath());
+        assertEquals(data.length, part.getSize());
+
+        InputStream first = part.getInputStream();
+        InputStream second = part.getInputStream();
+        byte[] head = new byte[10];
+        assertEquals(10, first.read(head));
+        assertEquals(data[9], head[9]);
+        assertEquals(data[0] & 0xFF, second.read());
+
+        // The first stream carries on from its own position
+        int i = 10;
+        for (int b; (b = first.read()) != -1; i++) {
+            assertEquals(data[i] & 0xFF, b);
+        }
+        assertEquals(data.length, i);
+        first.close();
+        second.close();
+        manager.delete(new File(part.getFileName()));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.attachments.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the direct memory slabs used to buffer attachments
+ */
+public class SlabBufferTest extends TestCase {
+
+    byte[] bytes;
+
+    protected void setUp() throws Exception {
+        bytes = new byte[10000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+    }
+
+    public void testRoundTrip() throws Exception {
+        DirectSlabPool pool = new DirectSlabPool(64 * 1024, 1024);
+        SlabBuffer data = new SlabBuffer(pool);
+        assertTrue(data.readFrom(new ByteArrayInputStream(bytes), Long.MAX_VALUE));
+        assertEquals(bytes.length, data.getLength());
+
+        // Each stream is an independent view of the slabs
+        for (int n = 0; n < 2; n++) {
+            InputStream in = data.getInputStream();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BufferUtils.inputStream2OutputStream(in, out);
+            assertTrue(Arrays.equals(bytes, out.toByteArray()));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        data.writeTo(out);
+        assertTrue(Arrays.equals(bytes, out.toByteArray()));
+        data.release();
+        assertEquals(0, pool.getSlabsInUse());
+    }
+
+    public void testLimit() throws Exception {
+        DirectSlabPool pool = new DirectSlabPool(64 * 1024, 1024);
+        SlabBuffer data = new SlabBuffer(pool);
+        InputStream in = new ByteArrayInputStream(bytes);
+        assertFalse(data.readFrom(in, 4096));
+
+        // Nothing read from the stream may be lost
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        data.writeTo(out);
+        BufferUtils.inputStream2OutputStream(in, out);
+        assertTrue(Arrays.equals(bytes, out.toByteArray()));
+        data.release();
+    }
+
+    public void testBudget() throws Exception {
+        DirectSlabPool pool = new DirectSlabPool(4 * 1024, 1024);
+        SlabBuffer first = new SlabBuffer(pool);
+        assertFalse(first.readFrom(new ByteArrayInputStream(bytes), Long.MAX_VALUE));
+        assertEquals(4, pool.getSlabsInUse());
+        assertNull(pool.acquire());
+
+        first.release();
+        assertEquals(0, pool.getSlabsInUse());
+        ByteBuffer slab = pool.acquire();
+        assertNotNull(slab);
+        assertTrue(slab.isDirect());
+    }
+
+    public void testReleaseWaitsForOpenStreams() throws Exception {
+        DirectSlabPool pool = new DirectSlabPool(64 * 1024, 1024);
+        SlabBuffer data = new SlabBuffer(pool);
+        assertTrue(data.readFrom(new ByteArrayInputStream(bytes), Long.MAX_VALUE));
+        InputStream unread = data.getInputStream();
+        InputStream partlyRead = data.getInputStream();
+        assertEquals(0, partlyRead.read());
+
+        data.release();
+        assertEquals(10, pool.getSlabsInUse());
+        try {
+            data.getInputStream();
+            fail("Stream obtained from a released buffer");
+        } catch (IOException expected) {
+        }
+
+        // Reading to the end gives up the reference of the stream
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferUtils.inputStream2OutputStream(partlyRead, out);
+        assertEquals(bytes.length - 1, out.size());
+        assertEquals(-1, partlyRead.read());
+        assertEquals(10, pool.getSlabsInUse());
+
+        unread.close();
+        assertEquals(0, pool.getSlabsInUse());
+        try {
+            unread.read();
+            fail("Closed stream read");
+        } catch (IOException expected) {
+        }
+    }
+
+    public void testMarkKeepsTheSlabsAtTheEnd() throws Exception {
+        DirectSlabPool pool = new DirectSlabPool(64 * 1024, 1024);
+        SlabBuffer data = new SlabBuffer(pool);
+        assertTrue(data.readFrom(new ByteArrayInputStream(bytes), Long.MAX_VALUE));
+        InputStream in = data.getInputStream();
+        data.release();
+        in.mark(Integer.MAX_VALUE);
+        BufferUtils.inputStream2OutputStream(in, new ByteArrayOutputStream());
+        in.reset();
+        assertEquals(0, in.read());
+        assertEquals(10, pool.getSlabsInUse());
+        in.close();
+        assertEquals(0, pool.getSlabsInUse());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.axiom.attachments.lifecycle.impl;
+
+import java.io.File;
+import java.io.OutputStream;
+
+import javax.mail.MessagingException;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.attachments.lifecycle.DataHandlerExt;
+
+public class LifecycleManagerImplTest extends TestCase {
+
+    private File dir;
+
+    protected void setUp() throws Exception {
+        dir = new File(System.getProperty("java.io.tmpdir"), "lifecycleTest");
+    }
+
+    private FileAccessor createFile(LifecycleManagerImpl manager, int size) throws Exception {
+        FileAccessor fa = manager.create(dir.getAbsolutePath());
+        OutputStream out = fa.getOutputStream();
+        out.write(new byte[size]);
+        out.close();
+        return fa;
+    }
+
+    public void testDeleteWhenLastDataHandlerClosed() throws Exception {
+        LifecycleManagerImpl manager = new LifecycleManagerImpl();
+        FileAccessor fa = createFile(manager, 100);
+        File file = fa.getFile();
+        assertSame(fa, manager.getFileAccessor(file.getName()));
+
+        DataHandlerExt dh1 = (DataHandlerExt) fa.getDataHandler("text/plain");
+        DataHandlerExt dh2 = (DataHandlerExt) fa.getDataHandler("text/plain");
+        dh1.close();
+        dh1.close();
+        assertTrue(file.exists());
+        dh2.close();
+        assertFalse(file.exists());
+        assertNull(manager.getFileAccessor(file.getName()));
+
+        try {
+            fa.getDataHandler("text/plain");
+            fail("Expected MessagingException");
+        } catch (MessagingException e) {
+            // Expected
+        }
+    }
+
+    public void testOutstandingBytes() throws Exception {
+        LifecycleManagerImpl manager = new LifecycleManagerImpl();
+        long bytes = manager.getOutstandingBytes();
+        long deleted = manager.getDeletedBytes();
+        FileAccessor fa = createFile(manager, 1000);
+        assertEquals(bytes + 1000, manager.getOutstandingBytes());
+        manager.delete(fa.getFile());
+        assertEquals(bytes, manager.getOutstandingBytes());
+        assertEquals(deleted + 1000, manager.getDeletedBytes());
+    }
+
+    public void testDeleteOnTimeInterval() throws Exception {
+        LifecycleManagerImpl manager = new LifecycleManagerImpl();
+        FileAccessor fa = createFile(manager, 10);
+        manager.deleteOnTimeInterval(0, fa.getFile());
+        for (int i = 0; i < 100 && fa.getFile().exists(); i++) {
+            Thread.sleep(50);
+        }
+        assertFalse(fa.getFile().exists());
+        assertEquals(0, manager.getPendingDeletionCount());
+    }
+
+    public void testEntryIsRemovedOnEveryPath() throws Exception {
+        LifecycleManagerImpl manager = new LifecycleManagerImpl();
+        int outstanding = manager.getOutstandingFileCount();
+
+        FileAccessor onExit = createFile(manager, 10);
+        manager.deleteOnExit(onExit.getFile());
+        assertNull(manager.getFileAccessor(onExit.getFile().getName()));
+        assertTrue(onExit.getFile().exists());
+        onExit.getFile().delete();
+
+        FileAccessor gone = createFile(manager, 10);
+        assertTrue(gone.getFile().delete());
+        manager.delete(gone.getFile());
+        assertNull(manager.getFileAccessor(gone.getFile().getName()));
+
+        assertEquals(outstanding, manager.getOutstandingFileCount());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import junit.framework.TestCase;
+
+public class StAXUtilsTest extends TestCase {
+
+    /** Provider that pretends to be able to reset any reader or writer. */
+    private static class RecyclingProvider extends DefaultStAXParserProvider {
+        int inputFactories;
+        int readerResets;
+        int writerResets;
+
+        @Override
+        public XMLInputFactory newXMLInputFactory(boolean isNetworkDetached) {
+            inputFactories++;
+            return super.newXMLInputFactory(isNetworkDetached);
+        }
+
+        @Override
+        public boolean isRecycling() {
+            return true;
+        }
+
+        @Override
+        public boolean resetXMLStreamReader(XMLStreamReader reader, InputStream in,
+                                            String encoding) {
+            readerResets++;
+            return true;
+        }
+
+        @Override
+        public boolean resetXMLStreamWriter(XMLStreamWriter writer, Writer out) {
+            writerResets++;
+            return true;
+        }
+    }
+
+    private static InputStream input() {
+        return new ByteArrayInputStream("<root/>".getBytes());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        StAXUtils.setParserProvider(null);
+    }
+
+    public void testFactoryIsCached() throws Exception {
+        XMLInputFactory factory = StAXUtils.getXMLInputFactory();
+        assertSame(factory, StAXUtils.getXMLInputFactory());
+        final XMLInputFactory[] other = new XMLInputFactory[1];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                other[0] = StAXUtils.getXMLInputFactory();
+            }
+        };
+        thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        thread.start();
+        thread.join();
+        assertSame(factory, other[0]);
+        assertNotSame(factory, StAXUtils.getNetworkDetachedXMLInputFactory());
+    }
+
+    public void testSetParserProvider() throws Exception {
+        XMLInputFactory factory = StAXUtils.getXMLInputFactory();
+        RecyclingProvider provider = new RecyclingProvider();
+        StAXUtils.setParserProvider(provider);
+        assertSame(provider, StAXUtils.getParserProvider());
+        XMLInputFactory newFactory = StAXUtils.getXMLInputFactory();
+        assertNotSame(factory, newFactory);
+        assertSame(newFactory, StAXUtils.getXMLInputFactory());
+        assertEquals(1, provider.inputFactories);
+    }
+
+    public void testReaderRecycling() throws Exception {
+        RecyclingProvider provider = new RecyclingProvider();
+        StAXUtils.setParserProvider(provider);
+        XMLStreamReader reader = StAXUtils.createXMLStreamReader(input());
+        reader.nextTag();
+        StAXUtils.releaseXMLStreamReader(reader);
+        assertSame(reader, StAXUtils.createXMLStreamReader(input(), "UTF-8"));
+        assertEquals(1, provider.readerResets);
+        // Not released, so a new reader is created
+        assertNotSame(reader, StAXUtils.createXMLStreamReader(input()));
+        assertEquals(1, provider.readerResets);
+    }
+
+    public void testReaderNotSharedAcrossFactories() throws Exception {
+        RecyclingProvider provider = new RecyclingProvider();
+        StAXUtils.setParserProvider(provider);
+        XMLStreamReader reader = StAXUtils.createXMLStreamReader(input());
+        StAXUtils.releaseXMLStreamReader(reader);
+        XMLStreamReader detached = StAXUtils.createNetworkDetachedXMLStreamReader(input());
+        assertNotSame(reader, detached);
+        assertEquals(0, provider.readerResets);
+    }
+
+    public void testWriterRecycling() throws Exception {
+        RecyclingProvider provider = new RecyclingProvider();
+        StAXUtils.setParserProvider(provider);
+        XMLStreamWriter writer = StAXUtils.createXMLStreamWriter(new StringWriter());
+        StAXUtils.releaseXMLStreamWriter(writer);
+        assertSame(writer, StAXUtils.createXMLStreamWriter(new StringWriter()));
+        assertEquals(1, provider.writerResets);
+    }
+
+    public void testReleaseClosesWriter() throws Exception {
+        assertFalse(StAXUtils.getParserProvider().isRecycling());
+        StringWriter out = new StringWriter();
+        XMLStreamWriter writer = StAXUtils.createXMLStreamWriter(out);
+        writer.writeEmptyElement("root");
+        StAXUtils.releaseXMLStreamWriter(writer);
+        assertTrue(out.toString().startsWith("<root"));
+    }
+}
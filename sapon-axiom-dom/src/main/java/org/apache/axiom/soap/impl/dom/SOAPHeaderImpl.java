@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import javax.xml.namespace.QName;
+
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMNamespace;
@@ -262,6 +264,16 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
 
     }
 
+    public List<SOAPHeaderBlock> getHeaderBlocks(QName name) {
+        List<SOAPHeaderBlock> headers = new ArrayList<SOAPHeaderBlock>();
+        for (OMElement elem: getChildrenWithName(name)) {
+            if (elem instanceof SOAPHeaderBlock) {
+                headers.add((SOAPHeaderBlock)elem);
+            }
+        }
+        return headers;
+    }
+
     @Override
 	protected void checkParent(OMElement parent) throws SOAPProcessingException {
         if (!(parent instanceof SOAPEnvelopeImpl)) {
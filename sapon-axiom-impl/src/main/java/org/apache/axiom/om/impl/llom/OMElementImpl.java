@@ -1054,7 +1054,7 @@ public class OMElementImpl extends OMNodeImpl
             this.serializeAndConsume(writer2);
             writer2.flush();
         } finally {
-            writer2.close();
+            StAXUtils.releaseXMLStreamWriter(writer2);
         }
         return writer.toString();
     }
@@ -1068,7 +1068,7 @@ public class OMElementImpl extends OMNodeImpl
                 this.serialize(writer2);
                 writer2.flush();
             } finally {
-                writer2.close();
+                StAXUtils.releaseXMLStreamWriter(writer2);
             }
         } catch (XMLStreamException e) {
             throw new RuntimeException("Can not serialize OM Element " + this.getLocalName(), e);
@@ -410,7 +410,7 @@ public abstract class OMNodeImpl implements OMNode, OMNodeEx {
         try {
             serialize(xmlStreamWriter);
         } finally {
-            xmlStreamWriter.close();
+            StAXUtils.releaseXMLStreamWriter(xmlStreamWriter);
         }
     }
 
@@ -419,7 +419,7 @@ public abstract class OMNodeImpl implements OMNode, OMNodeEx {
         try {
             serialize(xmlStreamWriter);
         } finally {
-            xmlStreamWriter.close();
+            StAXUtils.releaseXMLStreamWriter(xmlStreamWriter);
         }
     }
 
@@ -428,7 +428,7 @@ public abstract class OMNodeImpl implements OMNode, OMNodeEx {
         try {
             serializeAndConsume(xmlStreamWriter);
         } finally {
-            xmlStreamWriter.close();
+            StAXUtils.releaseXMLStreamWriter(xmlStreamWriter);
         }
     }
 
@@ -437,7 +437,7 @@ public abstract class OMNodeImpl implements OMNode, OMNodeEx {
         try {
             serializeAndConsume(xmlStreamWriter);
         } finally {
-            xmlStreamWriter.close();
+            StAXUtils.releaseXMLStreamWriter(xmlStreamWriter);
         }
     }
 
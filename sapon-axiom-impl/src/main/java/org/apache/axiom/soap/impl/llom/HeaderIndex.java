@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.soap.impl.llom;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axiom.soap.SOAPProcessingException;
+
+/**
+ * Index of the header blocks of a {@link SOAPHeaderImpl} by namespace, qualified
+ * name and role, plus the list of mustUnderstand blocks. The namespace and name
+ * index is built in a single pass over the header when it is first queried; it only
+ * uses the names of the header blocks, so header blocks that are not expanded (e.g.
+ * sourced header blocks) stay that way.
+ * <p/>
+ * The role index and the mustUnderstand list need the attributes of the header
+ * blocks, which may expand them or fail on an invalid mustUnderstand value. They
+ * are therefore only built when they are first queried, and a failure only affects
+ * the query that needs them.
+ * <p/>
+ * The owning header discards the index whenever a header block is added, removed,
+ * renamed or has its attributes changed.
+ */
+final class HeaderIndex {
+    private final List<SOAPHeaderBlock> all = new ArrayList<SOAPHeaderBlock>();
+    private List<SOAPHeaderBlock> mustUnderstand;
+    private final Map<String, List<SOAPHeaderBlock>> byNamespace =
+        new HashMap<String, List<SOAPHeaderBlock>>();
+    private final Map<QName, List<SOAPHeaderBlock>> byName =
+        new HashMap<QName, List<SOAPHeaderBlock>>();
+    private Map<String, List<SOAPHeaderBlock>> byRole;
+
+    HeaderIndex(SOAPHeaderImpl header) {
+        for (OMNode node = header.getFirstOMChild(); node != null;
+                node = node.getNextOMSibling()) {
+            if (node instanceof SOAPHeaderBlock) {
+                add((SOAPHeaderBlock) node);
+            }
+        }
+    }
+
+    private void add(SOAPHeaderBlock block) {
+        all.add(block);
+        OMNamespace ns = block.getNamespace();
+        String namespaceURI = ns == null ? null : ns.getNamespaceURI();
+        put(byNamespace, namespaceURI, block);
+        put(byName, new QName(namespaceURI == null ? "" : namespaceURI, block.getLocalName()),
+                block);
+    }
+
+    private static <K> void put(Map<K, List<SOAPHeaderBlock>> map, K key,
+            SOAPHeaderBlock block) {
+        List<SOAPHeaderBlock> list = map.get(key);
+        if (list == null) {
+            list = new ArrayList<SOAPHeaderBlock>(2);
+            map.put(key, list);
+        }
+        list.add(block);
+    }
+
+    private static List<SOAPHeaderBlock> get(Map<?, List<SOAPHeaderBlock>> map, Object key) {
+        List<SOAPHeaderBlock> list = map.get(key);
+        return list == null ? Collections.<SOAPHeaderBlock>emptyList() : list;
+    }
+
+    boolean isEmpty() {
+        return all.isEmpty();
+    }
+
+    List<SOAPHeaderBlock> getAll() {
+        return all;
+    }
+
+    /**
+     * @throws SOAPProcessingException if a header block has an invalid mustUnderstand value
+     */
+    List<SOAPHeaderBlock> getMustUnderstand() throws SOAPProcessingException {
+        if (mustUnderstand == null) {
+            List<SOAPHeaderBlock> list = new ArrayList<SOAPHeaderBlock>();
+            for (SOAPHeaderBlock block : all) {
+                if (block.getMustUnderstand()) {
+                    list.add(block);
+                }
+            }
+            mustUnderstand = list;
+        }
+        return mustUnderstand;
+    }
+
+    List<SOAPHeaderBlock> getByNamespace(String namespaceURI) {
+        return get(byNamespace, namespaceURI);
+    }
+
+    List<SOAPHeaderBlock> getByName(QName name) {
+        return get(byName, name);
+    }
+
+    List<SOAPHeaderBlock> getByRole(String role) {
+        if (byRole == null) {
+            Map<String, List<SOAPHeaderBlock>> map = new HashMap<String, List<SOAPHeaderBlock>>();
+            for (SOAPHeaderBlock block : all) {
+                put(map, block.getRole(), block);
+            }
+            byRole = map;
+        }
+        return get(byRole, role);
+    }
+}
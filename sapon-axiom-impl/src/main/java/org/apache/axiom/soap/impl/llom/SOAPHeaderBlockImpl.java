@@ -22,10 +22,13 @@ package org.apache.axiom.soap.impl.llom;
 import javax.xml.namespace.QName;
 
 import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMContainer;
 import org.apache.axiom.om.OMDataSource;
 import org.apache.axiom.om.OMDataSourceExt;
 import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
 import org.apache.axiom.om.OMXMLParserWrapper;
 import org.apache.axiom.om.impl.OMNamespaceImpl;
 import org.apache.axiom.om.impl.llom.OMAttributeImpl;
@@ -91,6 +94,7 @@ public abstract class SOAPHeaderBlockImpl extends OMSourcedElementImpl
                 new QName(soapEnvelopeNamespaceURI, attributeName));
         if (omAttribute != null) {
             omAttribute.setAttributeValue(attrValue);
+            invalidateHeaderIndex();
         } else {
             OMAttribute attribute = new OMAttributeImpl(attributeName,
                                                         new OMNamespaceImpl(
@@ -149,4 +153,57 @@ public abstract class SOAPHeaderBlockImpl extends OMSourcedElementImpl
         }
         return false;
     }
+
+    /**
+     * Tell the parent header that its header block index is out of date.
+     */
+    private void invalidateHeaderIndex() {
+        OMContainer parent = getParent();
+        if (parent instanceof SOAPHeaderImpl) {
+            ((SOAPHeaderImpl) parent).invalidateIndex();
+        }
+    }
+
+    @Override
+    public OMNode detach() throws OMException {
+        invalidateHeaderIndex();
+        return super.detach();
+    }
+
+    @Override
+    public void setParent(OMContainer element) {
+        invalidateHeaderIndex();
+        super.setParent(element);
+        invalidateHeaderIndex();
+    }
+
+    @Override
+    public void setLocalName(String localName) {
+        super.setLocalName(localName);
+        invalidateHeaderIndex();
+    }
+
+    @Override
+    public void setNamespace(OMNamespace namespace) {
+        super.setNamespace(namespace);
+        invalidateHeaderIndex();
+    }
+
+    @Override
+    public OMAttribute addAttribute(OMAttribute attr) {
+        invalidateHeaderIndex();
+        return super.addAttribute(attr);
+    }
+
+    @Override
+    public OMAttribute addAttribute(String attributeName, String value, OMNamespace namespace) {
+        invalidateHeaderIndex();
+        return super.addAttribute(attributeName, value, namespace);
+    }
+
+    @Override
+    public void removeAttribute(OMAttribute attr) {
+        invalidateHeaderIndex();
+        super.removeAttribute(attr);
+    }
 }
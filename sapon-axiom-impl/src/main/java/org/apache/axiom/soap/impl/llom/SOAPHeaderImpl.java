@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import javax.xml.namespace.QName;
+
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMException;
 import org.apache.axiom.om.OMNamespace;
@@ -90,9 +92,6 @@ class RoleChecker implements Checker {
 class RolePlayerChecker implements Checker {
     RolePlayer rolePlayer;
 
-    /** Optional namespace - if non-null we'll only return headers that match */
-    String namespace;
-
     /**
      * Constructor.
      *
@@ -103,20 +102,7 @@ class RolePlayerChecker implements Checker {
         this.rolePlayer = rolePlayer;
     }
 
-    public RolePlayerChecker(RolePlayer rolePlayer, String namespace) {
-        this.rolePlayer = rolePlayer;
-        this.namespace = namespace;
-    }
-
     public boolean checkHeader(SOAPHeaderBlock header) {
-        // If we're filtering on namespace, check that first since the compare is simpler.
-        if (namespace != null) {
-            OMNamespace headerNamespace = header.getNamespace();
-            if (headerNamespace == null || !namespace.equals(headerNamespace.getNamespaceURI())) {
-                return false;
-            }
-        }
-
         String role = header.getRole();
         SOAPVersion version = header.getVersion();
 
@@ -148,50 +134,37 @@ class RolePlayerChecker implements Checker {
     }
 }
 
-/** A Checker to see that we both match a given role AND are mustUnderstand=true */
-class MURoleChecker extends RoleChecker {
-    public MURoleChecker(String role) {
-        super(role);
-    }
-
-    @Override
-	public boolean checkHeader(SOAPHeaderBlock header) {
-        if (header.getMustUnderstand()) {
-			return super.checkHeader(header);
-		}
-        return false;
-    }
-}
-
 /** A class representing the SOAP Header, primarily allowing access to the contained HeaderBlocks. */
 public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
 
     static Log log = LogFactory.getLog(SOAPHeaderImpl.class);
-    /** An Iterator which walks the header list as needed, potentially filtering as we traverse. */
+    /**
+     * An Iterator over a list of header blocks taken from the {@link HeaderIndex},
+     * potentially filtering as we traverse. Blocks detached from this header in the
+     * meantime are skipped.
+     */
     class HeaderIterator implements Iterator<SOAPHeaderBlock>, Iterable<SOAPHeaderBlock> {
+        final List<SOAPHeaderBlock> candidates;
+        int index = 0;
         SOAPHeaderBlock current;
-        boolean advance = false;
         Checker checker;
 
-        public HeaderIterator() {
-            this(null);
+        public HeaderIterator(List<SOAPHeaderBlock> candidates) {
+            this(candidates, null);
         }
 
-        public HeaderIterator(Checker checker) {
+        public HeaderIterator(List<SOAPHeaderBlock> candidates, Checker checker) {
+            this.candidates = candidates;
             this.checker = checker;
-            current = (SOAPHeaderBlock) getFirstElement();
-            if (current != null) {
-                if (!checkHeader(current)) {
-                    advance = true;
-                    hasNext();
-                }
-            }
         }
 
         public void remove() {
         }
 
         public boolean checkHeader(SOAPHeaderBlock header) {
+            if (header.getParent() != SOAPHeaderImpl.this) {
+                return false;
+            }
             if (checker == null) {
 				return true;
 			}
@@ -199,34 +172,19 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
         }
 
         public boolean hasNext() {
-            if (!advance) {
-                return current != null;
-            }
-
-            advance = false;
-            OMNode sibling = current.getNextOMSibling();
-
-            while (sibling != null) {
-                if (sibling instanceof SOAPHeaderBlock) {
-                    SOAPHeaderBlock possible = (SOAPHeaderBlock) sibling;
-                    if (checkHeader(possible)) {
-                        current = (SOAPHeaderBlock) sibling;
-                        return true;
-                    }
+            while (current == null && index < candidates.size()) {
+                SOAPHeaderBlock possible = candidates.get(index++);
+                if (checkHeader(possible)) {
+                    current = possible;
                 }
-                sibling = sibling.getNextOMSibling();
             }
-
-            current = null;
-            return false;
+            return current != null;
         }
 
         public SOAPHeaderBlock next() {
+            hasNext();
             SOAPHeaderBlock ret = current;
-            if (ret != null) {
-                advance = true;
-                hasNext();
-            }
+            current = null;
             return ret;
         }
 
@@ -235,6 +193,7 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
         }
     }
 
+    private HeaderIndex index;
 
     protected SOAPHeaderImpl(OMNamespace ns, SOAPFactory factory) {
         super(SOAPConstants.HEADER_LOCAL_NAME, ns, factory);
@@ -284,7 +243,7 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
      * @return an Iterator over all the HeaderBlocks this RolePlayer should process.
      */
     public Iterable<SOAPHeaderBlock> getHeadersToProcess(RolePlayer rolePlayer) {
-        return new HeaderIterator(new RolePlayerChecker(rolePlayer));
+        return new HeaderIterator(getIndex().getAll(), new RolePlayerChecker(rolePlayer));
     }
 
     /**
@@ -300,7 +259,12 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
      * @return an Iterator over all the HeaderBlocks this RolePlayer should process.
      */
     public Iterable<SOAPHeaderBlock> getHeadersToProcess(RolePlayer rolePlayer, String namespace) {
-        return new HeaderIterator(new RolePlayerChecker(rolePlayer, namespace));
+        HeaderIndex index = getIndex();
+        if (namespace == null) {
+            return new HeaderIterator(index.getAll(), new RolePlayerChecker(rolePlayer));
+        }
+        return new HeaderIterator(index.getByNamespace(namespace),
+                new RolePlayerChecker(rolePlayer));
     }
 
     /**
@@ -317,7 +281,11 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
      * @see #extractHeaderBlocks(String) extractHeaderBlocks(java.lang.String)
      */
     public Iterable<SOAPHeaderBlock> examineHeaderBlocks(final String role) {
-        return new HeaderIterator(new RoleChecker(role));
+        HeaderIndex index = getIndex();
+        if (role == null) {
+            return new HeaderIterator(index.getAll());
+        }
+        return new HeaderIterator(index.getByRole(role));
     }
 
     /**
@@ -344,7 +312,7 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
      *         that contain the specified actor and are marked as MustUnderstand
      */
     public Iterable<SOAPHeaderBlock> examineMustUnderstandHeaderBlocks(final String actor) {
-        return new HeaderIterator(new MURoleChecker(actor));
+        return new HeaderIterator(getIndex().getMustUnderstand(), new RoleChecker(actor));
     }
 
     /**
@@ -356,13 +324,7 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
      *         contained by this <code>SOAPHeader</code>
      */
     public Iterable<SOAPHeaderBlock> examineAllHeaderBlocks() {
-        class DefaultChecker implements Checker {
-            public boolean checkHeader(SOAPHeaderBlock header) {
-                return true;
-            }
-        }
-
-        return new HeaderIterator(new DefaultChecker());
+        return new HeaderIterator(getIndex().getAll());
     }
 
     /**
@@ -377,37 +339,46 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
     }
 
     public List<SOAPHeaderBlock> getHeaderBlocksWithNSURI(String nsURI) {
-        List<SOAPHeaderBlock> headers = null;
-        OMNode node;
-        OMElement header = this.getFirstElement();
-
-        if (header != null) {
-            headers = new ArrayList<SOAPHeaderBlock>();
+        HeaderIndex index = getIndex();
+        if (index.isEmpty()) {
+            return null;
         }
+        return new ArrayList<SOAPHeaderBlock>(index.getByNamespace(nsURI));
+    }
 
-        node = header;
-
-        while (node != null) {
-            if (node.getType() == OMNode.ELEMENT_NODE) {
-                header = (OMElement) node;
-                OMNamespace namespace = header.getNamespace();
-                if (nsURI == null) {
-                    if (namespace == null) {
-                        headers.add((SOAPHeaderBlock)header);
-                    }
-                } else {
-                    if (namespace != null) {
-                        if (nsURI.equals(namespace.getNamespaceURI())) {
-                            headers.add((SOAPHeaderBlock)header);
-                        }
-                    }
-                }
-            }
-            node = node.getNextOMSibling();
+    public List<SOAPHeaderBlock> getHeaderBlocks(QName name) {
+        return new ArrayList<SOAPHeaderBlock>(getIndex().getByName(name));
+    }
 
+    /**
+     * Get the index of the header blocks, building it if the header has changed
+     * since it was last used. Building the index completes the header.
+     */
+    HeaderIndex getIndex() {
+        if (index == null) {
+            index = new HeaderIndex(this);
         }
-        return headers;
+        return index;
+    }
 
+    /**
+     * Discard the header block index. Called whenever the set of header blocks,
+     * or the name or attributes of one of them, changes.
+     */
+    void invalidateIndex() {
+        index = null;
+    }
+
+    @Override
+    public void setFirstChild(OMNode firstChild) {
+        invalidateIndex();
+        super.setFirstChild(firstChild);
+    }
+
+    @Override
+    public void setLastChild(OMNode omNode) {
+        invalidateIndex();
+        super.setLastChild(omNode);
     }
 
     @Override
@@ -435,6 +406,7 @@ public abstract class SOAPHeaderImpl extends SOAPElement implements SOAPHeader {
                 log.debug(exceptionToString(e));
             }
         }
+        invalidateIndex();
         super.addChild(child);
     }
 
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.impl.llom;
+
+import java.io.ByteArrayOutputStream;
+
+import javax.activation.DataHandler;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.attachments.ByteArrayDataSource;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.OMText;
+import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.axiom.soap.impl.llom.soap11.SOAP11Factory;
+
+public class MTOMSerializationTest extends TestCase {
+
+    private SOAPEnvelope createEnvelope() {
+        SOAPFactory factory = new SOAP11Factory();
+        SOAPEnvelope envelope = factory.getDefaultEnvelope();
+        OMElement payload = factory.createOMElement("data",
+                factory.createOMNamespace("urn:test", "t"), envelope.getBody());
+        byte[] data = new byte[4096];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte)i;
+        }
+        OMText text = factory.createOMText(
+                new DataHandler(new ByteArrayDataSource(data, "application/octet-stream")), true);
+        payload.addChild(text);
+        return envelope;
+    }
+
+    private OMOutputFormat createFormat(boolean streaming) {
+        OMOutputFormat format = new OMOutputFormat();
+        format.setDoOptimize(true);
+        format.setMimeBoundary("MIMEBoundary_test");
+        format.setRootContentId("0.root@apache.org");
+        if (streaming) {
+            format.setProperty(OMOutputFormat.STREAM_OPTIMIZED_SOAP_PART, Boolean.TRUE);
+        }
+        return format;
+    }
+
+    public void testStreamingMatchesBuffered() throws Exception {
+        SOAPEnvelope envelope = createEnvelope();
+
+        ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+        envelope.serialize(buffered, createFormat(false));
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        envelope.serialize(streamed, createFormat(true));
+
+        assertEquals(new String(buffered.toByteArray(), "ISO-8859-1"),
+                new String(streamed.toByteArray(), "ISO-8859-1"));
+    }
+
+    public void testSOAPPartWrittenBeforeDocumentIsComplete() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MTOMXMLStreamWriter writer = new MTOMXMLStreamWriter(out, createFormat(true));
+        writer.writeStartElement("t", "data", "urn:test");
+        writer.writeNamespace("t", "urn:test");
+        writer.writeCharacters("content");
+        writer.getXmlStreamWriter().flush();
+        String written = new String(out.toByteArray(), "UTF-8");
+        assertTrue(written.startsWith("--MIMEBoundary_test\r\n"));
+        assertTrue(written.endsWith(">content"));
+
+        writer.writeEndElement();
+        writer.flush();
+        assertTrue(new String(out.toByteArray(), "UTF-8").endsWith(
+                "</t:data>\r\n--MIMEBoundary_test--"));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axiom.om.impl.llom;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.om.ds.ByteArrayDataSource;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.axiom.soap.SOAPHeader;
+import org.apache.axiom.soap.SOAPHeaderBlock;
+import org.apache.axiom.soap.SOAPProcessingException;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.axiom.soap.impl.llom.soap11.SOAP11Factory;
+
+public class SOAPHeaderIndexTest extends TestCase {
+
+    private static final String WSA = "http://www.w3.org/2005/08/addressing";
+
+    private static final String MESSAGE =
+        "<soapenv:Envelope xmlns:soapenv='http://schemas.xmlsoap.org/soap/envelope/'" +
+        " xmlns:wsa='" + WSA + "' xmlns:x='urn:x'>" +
+        "<soapenv:Header>" +
+        "<wsa:To>http://example.org/</wsa:To>" +
+        "<x:Security soapenv:mustUnderstand='1' soapenv:actor='urn:actor'><x:Token/></x:Security>" +
+        "<wsa:Action>urn:action</wsa:Action>" +
+        "<wsa:MessageID soapenv:mustUnderstand='1'>urn:uuid:1</wsa:MessageID>" +
+        "</soapenv:Header>" +
+        "<soapenv:Body><x:payload/></soapenv:Body>" +
+        "</soapenv:Envelope>";
+
+    private SOAPHeader getHeader() throws Exception {
+        return getHeader(MESSAGE);
+    }
+
+    private SOAPHeader getHeader(String message) throws Exception {
+        StAXSOAPModelBuilder builder = new StAXSOAPModelBuilder(
+                StAXUtils.createXMLStreamReader(
+                        new ByteArrayInputStream(message.getBytes("UTF-8"))), null);
+        return builder.getSOAPEnvelope().getHeader();
+    }
+
+    private static List<String> names(Iterable<SOAPHeaderBlock> blocks) {
+        List<String> names = new ArrayList<String>();
+        for (SOAPHeaderBlock block : blocks) {
+            names.add(block.getLocalName());
+        }
+        return names;
+    }
+
+    public void testLookups() throws Exception {
+        SOAPHeader header = getHeader();
+        assertEquals("[To, Action, MessageID]",
+                names(header.getHeaderBlocksWithNSURI(WSA)).toString());
+        assertEquals("[Action]",
+                names(header.getHeaderBlocks(new QName(WSA, "Action"))).toString());
+        assertEquals("[Security]", names(header.examineHeaderBlocks("urn:actor")).toString());
+        assertEquals("[Security, MessageID]",
+                names(header.examineMustUnderstandHeaderBlocks(null)).toString());
+        assertEquals("[To, Action, MessageID]",
+                names(header.getHeadersToProcess(null, WSA)).toString());
+        assertEquals("[To, Action, MessageID]",
+                names(header.getHeadersToProcess(null)).toString());
+        assertTrue(header.getHeaderBlocks(new QName("urn:x", "Missing")).isEmpty());
+    }
+
+    public void testIndexFollowsChanges() throws Exception {
+        SOAPHeader header = getHeader();
+        assertEquals(3, header.getHeaderBlocksWithNSURI(WSA).size());
+
+        header.getHeaderBlocks(new QName(WSA, "Action")).get(0).detach();
+        assertEquals("[To, MessageID]", names(header.getHeaderBlocksWithNSURI(WSA)).toString());
+
+        SOAPFactory factory = (SOAPFactory) header.getOMFactory();
+        OMNamespace ns = factory.createOMNamespace(WSA, "wsa");
+        SOAPHeaderBlock relatesTo = header.addHeaderBlock("RelatesTo", ns);
+        assertEquals("[To, MessageID, RelatesTo]",
+                names(header.getHeaderBlocksWithNSURI(WSA)).toString());
+
+        relatesTo.setRole("urn:actor");
+        assertEquals("[Security, RelatesTo]",
+                names(header.examineHeaderBlocks("urn:actor")).toString());
+        relatesTo.setMustUnderstand(true);
+        assertEquals("[Security, MessageID, RelatesTo]",
+                names(header.examineMustUnderstandHeaderBlocks(null)).toString());
+    }
+
+    public void testDetachWhileIterating() throws Exception {
+        SOAPHeader header = getHeader();
+        int count = 0;
+        for (SOAPHeaderBlock block : header.getHeadersToProcess(null, WSA)) {
+            block.detach();
+            count++;
+        }
+        assertEquals(3, count);
+        assertTrue(header.getHeaderBlocksWithNSURI(WSA).isEmpty());
+    }
+
+    public void testEmptyHeader() throws Exception {
+        SOAPFactory factory = new SOAP11Factory();
+        SOAPEnvelope env = factory.getDefaultEnvelope();
+        assertNull(env.getHeader().getHeaderBlocksWithNSURI(WSA));
+        assertFalse(env.getHeader().examineAllHeaderBlocks().iterator().hasNext());
+    }
+
+    public void testInvalidMustUnderstandOnlyFailsMustUnderstandQueries() throws Exception {
+        SOAPHeader header = getHeader(MESSAGE.replace(
+                "<wsa:To>", "<x:Bad soapenv:mustUnderstand='yes'/><wsa:To>"));
+        assertEquals("[To, Action, MessageID]",
+                names(header.getHeaderBlocksWithNSURI(WSA)).toString());
+        assertEquals("[Bad, To, Security, Action, MessageID]",
+                names(header.examineAllHeaderBlocks()).toString());
+        assertEquals("[Security]", names(header.examineHeaderBlocks("urn:actor")).toString());
+        try {
+            names(header.examineMustUnderstandHeaderBlocks(null));
+            fail("Invalid mustUnderstand value accepted");
+        } catch (SOAPProcessingException expected) {
+        }
+    }
+
+    public void testSourcedBlockIsNotExpanded() throws Exception {
+        SOAPHeader header = getHeader();
+        SOAPFactory factory = (SOAPFactory) header.getOMFactory();
+        ByteArrayDataSource ds = new ByteArrayDataSource(
+                "<s:Sourced xmlns:s='urn:s'/>".getBytes("UTF-8"), "UTF-8");
+        ds.setProperty(SOAPHeaderBlock.ROLE_PROPERTY, "urn:actor");
+        SOAPHeaderBlock sourced = factory.createSOAPHeaderBlock("Sourced",
+                factory.createOMNamespace("urn:s", "s"), ds);
+        header.build();
+        header.addChild(sourced);
+
+        assertEquals("[Sourced]", names(header.getHeaderBlocksWithNSURI("urn:s")).toString());
+        assertEquals(1, header.getHeaderBlocks(new QName("urn:s", "Sourced")).size());
+        assertEquals("[Security, Sourced]",
+                names(header.examineHeaderBlocks("urn:actor")).toString());
+        assertFalse(((OMSourcedElement) sourced).isExpanded());
+    }
+}
@@ -270,8 +270,11 @@ public class Axis2Constants extends org.apache.axis2.namespace.Constants {
         //Attachment configurations
         public static final String ENABLE_MTOM = "enableMTOM";
         public static final String MTOM_THRESHOLD = "mtomThreshold";
+        public static final String STREAM_MTOM = "streamMTOM";
         public static final String CACHE_ATTACHMENTS = "cacheAttachments";
         public static final String ATTACHMENT_TEMP_DIR = "attachmentDIR";
+        /** Set on a message whose attachments are still used by other messages */
+        public static final String KEEP_ATTACHMENTS = "keepAttachments";
         public static final String FILE_SIZE_THRESHOLD = "sizeThreshold";
         public static final String ENABLE_SWA = "enableSwA";
         public static final String MIME_BOUNDARY = "mimeBoundary";
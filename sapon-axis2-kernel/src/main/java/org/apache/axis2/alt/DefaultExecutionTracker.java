@@ -1,6 +1,7 @@
 package org.apache.axis2.alt;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -8,6 +9,8 @@ import java.util.Map;
 
 import org.apache.axis2.engine.Handler;
 import org.apache.axis2.engine.Phase;
+import org.apache.axis2.engine.PhaseChain;
+import org.apache.axis2.util.CopyOnWriteOnceList;
 import org.apache.axis2.util.LoggingControl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -22,12 +25,24 @@ public class DefaultExecutionTracker implements ExecutionTracker
 	/**
      * @serial The chain of Handlers/Phases for processing this message
      */
-    private final List<Handler> executionChain = new ArrayList<Handler>();
+    private List<Handler> executionChain = Collections.emptyList();
 
     /**
-     * @serial The chain of executed Handlers/Phases from processing
+     * Is the execution chain a precomputed chain shared with other messages?
+     * If it is, it is only copied when this message modifies it.
      */
-    private LinkedList<Handler> executedPhases;
+    private boolean executionChainShared = false;
+
+    /**
+     * @serial The executed Handlers/Phases from processing, in the order
+     * they were executed
+     */
+    private Handler[] executedPhases;
+
+    /**
+     * The number of executed Handlers/Phases
+     */
+    private int executedCount;
 
     /**
      * @serial Index into the executuion chain of the currently executing handler
@@ -49,9 +64,13 @@ public class DefaultExecutionTracker implements ExecutionTracker
 	@Override
 	public void addExecutedPhase(Handler phase) {
         if (executedPhases == null) {
-            executedPhases = new LinkedList<Handler>();
+            executedPhases = new Handler[16];
+        } else if (executedCount == executedPhases.length) {
+            Handler[] grown = new Handler[executedCount * 2];
+            System.arraycopy(executedPhases, 0, grown, 0, executedCount);
+            executedPhases = grown;
         }
-        executedPhases.addFirst(phase);
+        executedPhases[executedCount++] = phase;
 	}
 
 	@Override
@@ -66,17 +85,47 @@ public class DefaultExecutionTracker implements ExecutionTracker
 
 	@Override
 	public LinkedList<Handler> getExecutedPhases() {
-        if (executedPhases == null) {
-            executedPhases = new LinkedList<Handler>();
+        LinkedList<Handler> executed = new LinkedList<Handler>();
+        for (int i = 0; i < executedCount; i++) {
+            executed.addFirst(executedPhases[i]);
         }
-        return executedPhases;
+        return executed;
+	}
+
+	@Override
+	public int getExecutedPhaseCount() {
+		return executedCount;
+	}
+
+	@Override
+	public Handler getExecutedPhase(int index) {
+		if (index < 0 || index >= executedCount) {
+			throw new IndexOutOfBoundsException("Executed phase " + index);
+		}
+		return executedPhases[executedCount - 1 - index];
 	}
 
 	@Override
 	public List<Handler> getExecutionChain() {
+		if (executionChainShared) {
+			// the caller may modify the chain, which must not affect the
+			// other messages
+			executionChain = new CopyOnWriteOnceList<Handler>(executionChain);
+			executionChainShared = false;
+		}
         return executionChain;
 	}
 
+	@Override
+	public int getExecutionChainSize() {
+		return executionChain.size();
+	}
+
+	@Override
+	public Handler getExecutionHandler(int index) {
+		return executionChain.get(index);
+	}
+
 	@Override
 	public Flows getFlow() {
 		return this.flow;
@@ -84,8 +133,10 @@ public class DefaultExecutionTracker implements ExecutionTracker
 
 	@Override
 	public Handler removeFirstExecutedPhase() {
-        if (executedPhases != null) {
-            return executedPhases.removeFirst();
+        if (executedCount > 0) {
+            Handler phase = executedPhases[--executedCount];
+            executedPhases[executedCount] = null;
+            return phase;
         }
         return null;
 	}
@@ -93,7 +144,12 @@ public class DefaultExecutionTracker implements ExecutionTracker
 	@Override
 	public void resetExecutedPhases() {
         executedPhasesReset = true;
-        executedPhases = new LinkedList<Handler>();
+        if (executedPhases != null) {
+            for (int i = 0; i < executedCount; i++) {
+                executedPhases[i] = null;
+            }
+        }
+        executedCount = 0;
     }
 
 	public boolean isExecutedPhasesReset() {
@@ -112,13 +168,28 @@ public class DefaultExecutionTracker implements ExecutionTracker
 
 	@Override
 	public void setExecutedPhasesExplicit(LinkedList<Handler> inb) {
-		this.executedPhases = inb;
+		executedCount = 0;
+		executedPhases = null;
+		if (inb != null) {
+			// the list holds the last executed phase first
+			executedPhases = new Handler[Math.max(16, inb.size())];
+			for (Handler phase : inb) {
+				executedPhases[inb.size() - 1 - executedCount++] = phase;
+			}
+		}
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	public void setExecutionChain(List<? extends Handler> executionChain) {
-        this.executionChain.clear();
-        this.executionChain.addAll(executionChain);
+		if (executionChain instanceof PhaseChain) {
+			// immutable, so it can be shared until this message modifies it
+			this.executionChain = (List<Handler>) executionChain;
+			executionChainShared = true;
+		} else {
+			this.executionChain = new ArrayList<Handler>(executionChain);
+			executionChainShared = false;
+		}
         currentHandlerIndex = -1;
         currentPhaseIndex = 0;
 	}
@@ -18,6 +18,18 @@ public interface ExecutionTracker {
 
 	List<Handler> getExecutionChain();
 
+	/**
+	 * Get the size of the execution chain without taking a modifiable
+	 * reference to it
+	 */
+	int getExecutionChainSize();
+
+	/**
+	 * Get a Handler of the execution chain without taking a modifiable
+	 * reference to the chain
+	 */
+	Handler getExecutionHandler(int index);
+
     /**
      * Set the execution chain of Handler in this ExecutionTracker. Doing this
      * causes the current handler/phase indexes to reset to 0, since we have
@@ -32,6 +44,17 @@ public interface ExecutionTracker {
 	void addExecutedPhase(Handler phase);
 	Handler removeFirstExecutedPhase();
 	LinkedList<Handler> getExecutedPhases();
+
+	/**
+	 * Get the number of executed Handlers/Phases
+	 */
+	int getExecutedPhaseCount();
+
+	/**
+	 * Get an executed Handler/Phase, counting back from the last one executed
+	 * - i.e. in the order of {@link #getExecutedPhases()}
+	 */
+	Handler getExecutedPhase(int index);
 	void setExecutedPhasesExplicit(LinkedList<Handler> inb);
 	void resetExecutedPhases();
 	boolean isExecutedPhasesReset();
@@ -367,6 +367,14 @@ public class OldMessageContext extends AbstractContext<OperationContext>
         return execTracker.getExecutionChain();
     }
 
+    public int getExecutionChainSize() {
+    	return execTracker.getExecutionChainSize();
+    }
+
+    public Handler getExecutionHandler(int index) {
+    	return execTracker.getExecutionHandler(index);
+    }
+
     /**
      * Add a Phase to the collection of executed phases for the path.
      * Phases will be inserted in a LIFO data structure.
@@ -396,6 +404,14 @@ public class OldMessageContext extends AbstractContext<OperationContext>
         return execTracker.getExecutedPhases();
     }
 
+    public int getExecutedPhaseCount() {
+    	return execTracker.getExecutedPhaseCount();
+    }
+
+    public Handler getExecutedPhase(int index) {
+    	return execTracker.getExecutedPhase(index);
+    }
+
     /**
      * Reset the list of executed phases.
      * This is needed because the OutInAxisOperation currently invokes
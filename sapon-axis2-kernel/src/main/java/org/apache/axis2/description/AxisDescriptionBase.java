@@ -348,6 +348,7 @@ public abstract class AxisDescriptionBase
 
         engagedModules.put(Utils.getModuleName(axisModule.getName(), axisModule.getVersion()),
                            axisModule);
+        invalidatePhaseChains();
     }
 
     protected void onEngage(AxisModule module, AxisDescription engager)
@@ -389,6 +390,18 @@ public abstract class AxisDescriptionBase
             onDisengage(module);
             engagedModules.remove(Utils.getModuleName(module.getName(), module
                     .getVersion()));
+            invalidatePhaseChains();
+        }
+    }
+
+    /**
+     * The handlers of the phases change when modules are engaged or
+     * disengaged, so have the precomputed execution chains rebuilt
+     */
+    private void invalidatePhaseChains() {
+        AxisConfiguration configuration = getConfiguration();
+        if (configuration != null) {
+            configuration.invalidatePhaseChains();
         }
     }
 
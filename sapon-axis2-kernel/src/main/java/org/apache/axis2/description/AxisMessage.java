@@ -204,7 +204,7 @@ public class AxisMessage extends AxisDescriptionBase
 
 	@Override
 	public AxisConfiguration getConfiguration() {
-		return parent.getConfiguration();
+		return parent == null ? null : parent.getConfiguration();
 	}
 
 	@Override
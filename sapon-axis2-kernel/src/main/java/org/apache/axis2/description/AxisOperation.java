@@ -46,6 +46,7 @@ import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.engine.AxisError;
 import org.apache.axis2.engine.MessageReceiver;
 import org.apache.axis2.engine.Phase;
+import org.apache.axis2.engine.PhaseChain;
 import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.phaseresolver.PhaseResolver;
 import org.apache.axis2.wsdl.WSDLConstants;
@@ -92,6 +93,11 @@ public abstract class AxisOperation extends AxisDescriptionBase
 
     private String soapAction;
 
+    /** The precomputed execution chains of this operation */
+    private volatile PhaseChain inFlowChain;
+    private volatile PhaseChain outFlowChain;
+    private volatile PhaseChain outFaultFlowChain;
+
     public AxisOperation() {
         mepURI = WSDL2Constants.MEP_URI_IN_OUT;
         modulerefs = new ArrayList<String>();
@@ -393,6 +399,61 @@ public abstract class AxisOperation extends AxisDescriptionBase
 
     public abstract List<Phase> getRemainingPhasesInFlow();
 
+    /**
+     * Get the execution chain of the in flow phases of this operation, run
+     * after the global in flow phases dispatched the message to it
+     *
+     * @param axisConfig the configuration the operation is deployed in
+     * @return the operation in flow chain
+     */
+    public PhaseChain getRemainingInFlowChain(AxisConfiguration axisConfig) {
+        int version = axisConfig.getPhaseChainVersion();
+        List<Phase> phases = getRemainingPhasesInFlow();
+        PhaseChain chain = inFlowChain;
+        if (!PhaseChain.isCurrent(chain, phases, null, version)) {
+            chain = PhaseChain.build(phases, version);
+            inFlowChain = chain;
+        }
+        return chain;
+    }
+
+    /**
+     * Get the execution chain of the out flow of this operation: its own out
+     * phases followed by the global out phases
+     *
+     * @param axisConfig the configuration the operation is deployed in
+     * @return the out flow chain
+     */
+    public PhaseChain getOutFlowChain(AxisConfiguration axisConfig) {
+        int version = axisConfig.getPhaseChainVersion();
+        List<Phase> phases = getPhasesOutFlow();
+        List<Phase> globalPhases = axisConfig.getOutFlowPhases();
+        PhaseChain chain = outFlowChain;
+        if (!PhaseChain.isCurrent(chain, phases, globalPhases, version)) {
+            chain = PhaseChain.build(phases, globalPhases, version);
+            outFlowChain = chain;
+        }
+        return chain;
+    }
+
+    /**
+     * Get the execution chain of the out fault phases of this operation, run
+     * before the global out fault phases
+     *
+     * @param axisConfig the configuration the operation is deployed in
+     * @return the operation out fault flow chain
+     */
+    public PhaseChain getOutFaultFlowChain(AxisConfiguration axisConfig) {
+        int version = axisConfig.getPhaseChainVersion();
+        List<Phase> phases = getPhasesOutFaultFlow();
+        PhaseChain chain = outFaultFlowChain;
+        if (!PhaseChain.isCurrent(chain, phases, null, version)) {
+            chain = PhaseChain.build(phases, version);
+            outFaultFlowChain = chain;
+        }
+        return chain;
+    }
+
     public String getStyle() {
         return style;
     }
@@ -560,7 +621,7 @@ public abstract class AxisOperation extends AxisDescriptionBase
 
 	@Override
 	public AxisConfiguration getConfiguration() {
-		return parent.getConfiguration();
+		return parent == null ? null : parent.getConfiguration();
 	}
 
 	@Override
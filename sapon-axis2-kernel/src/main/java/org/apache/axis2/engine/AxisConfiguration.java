@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.namespace.QName;
 
@@ -122,6 +123,14 @@ public class AxisConfiguration extends AxisDescriptionBase
 
     private List<Phase> outPhases;
 
+    /** Changes whenever the global phases or the engaged modules change */
+    private final AtomicInteger phaseChainVersion = new AtomicInteger();
+
+    /** The precomputed global execution chains */
+    private volatile PhaseChain inFlowChain;
+    private volatile PhaseChain inFaultFlowChain;
+    private volatile PhaseChain outFaultFlowChain;
+
     protected PhasesInfo phasesinfo;
 
     private ClassLoader serviceClassLoader;
@@ -579,6 +588,72 @@ public class AxisConfiguration extends AxisDescriptionBase
         return inPhasesUptoAndIncludingPostDispatch;
     }
 
+    /**
+     * Get the execution chain of the global in flow phases, shared by all
+     * messages
+     *
+     * @return the in flow chain
+     */
+    public PhaseChain getInFlowChain() {
+        int version = phaseChainVersion.get();
+        PhaseChain chain = inFlowChain;
+        if (!PhaseChain.isCurrent(chain, inPhasesUptoAndIncludingPostDispatch, null, version)) {
+            chain = PhaseChain.build(inPhasesUptoAndIncludingPostDispatch, version);
+            inFlowChain = chain;
+        }
+        return chain;
+    }
+
+    /**
+     * Get the execution chain of the global in fault flow phases, shared by
+     * all messages
+     *
+     * @return the in fault flow chain
+     */
+    public PhaseChain getInFaultFlowChain() {
+        int version = phaseChainVersion.get();
+        PhaseChain chain = inFaultFlowChain;
+        if (!PhaseChain.isCurrent(chain, inFaultPhases, null, version)) {
+            chain = PhaseChain.build(inFaultPhases, version);
+            inFaultFlowChain = chain;
+        }
+        return chain;
+    }
+
+    /**
+     * Get the execution chain of the global out fault flow phases, shared by
+     * all messages
+     *
+     * @return the out fault flow chain
+     */
+    public PhaseChain getOutFaultFlowChain() {
+        int version = phaseChainVersion.get();
+        PhaseChain chain = outFaultFlowChain;
+        if (!PhaseChain.isCurrent(chain, outFaultPhases, null, version)) {
+            chain = PhaseChain.build(outFaultPhases, version);
+            outFaultFlowChain = chain;
+        }
+        return chain;
+    }
+
+    /**
+     * The version the precomputed execution chains are built for.  Chains
+     * built for an older version are rebuilt on their next use.
+     *
+     * @return the current phase chain version
+     */
+    public int getPhaseChainVersion() {
+        return phaseChainVersion.get();
+    }
+
+    /**
+     * Discard the precomputed execution chains of this configuration and of
+     * its operations, e.g. because modules were engaged or disengaged
+     */
+    public void invalidatePhaseChains() {
+        phaseChainVersion.incrementAndGet();
+    }
+
     public MessageReceiver getMessageReceiver(String mepURL) {
         return messageReceivers.get(mepURL);
     }
@@ -812,15 +887,18 @@ public class AxisConfiguration extends AxisDescriptionBase
 
     public void setGlobalOutPhase(List<Phase> outPhases) {
         this.outPhases = outPhases;
+        invalidatePhaseChains();
     }
 
     public void setInFaultPhases(List<Phase> list) {
         inFaultPhases = list;
+        invalidatePhaseChains();
     }
 
     public void setInPhasesUptoAndIncludingPostDispatch(
     		List<Phase> inPhasesUptoAndIncludingPostDispatch) {
         this.inPhasesUptoAndIncludingPostDispatch = inPhasesUptoAndIncludingPostDispatch;
+        invalidatePhaseChains();
     }
 
     public void setModuleClassLoader(ClassLoader classLoader) {
@@ -829,6 +907,7 @@ public class AxisConfiguration extends AxisDescriptionBase
 
     public void setOutFaultPhases(List<Phase> list) {
         outFaultPhases = list;
+        invalidatePhaseChains();
     }
 
     public void setPhasesInfo(PhasesInfo phasesInfo) {
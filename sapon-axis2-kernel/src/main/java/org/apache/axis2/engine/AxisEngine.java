@@ -20,13 +20,9 @@
 
 package org.apache.axis2.engine;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.alt.Flows;
 import org.apache.axis2.client.async.AxisCallback;
-import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.description.AxisOperation;
@@ -36,7 +32,6 @@ import org.apache.axis2.engine.Handler.InvocationResponse;
 import org.apache.axis2.i18n.Messages;
 import org.apache.axis2.transport.TransportSender;
 import org.apache.axis2.util.CallbackReceiver;
-import org.apache.axis2.util.CopyOnWriteOnceList;
 import org.apache.axis2.util.LoggingControl;
 import org.apache.axis2.wsdl.WSDLConstants;
 import org.apache.commons.logging.Log;
@@ -139,21 +134,16 @@ public class AxisEngine {
     }
 
     private static void prepForInvoke(MessageContext msgContext) {
-        ConfigurationContext confContext = msgContext.getConfigurationContext();
-        List<Phase> preCalculatedPhases;
+        AxisConfiguration axisConfig = msgContext.getConfigurationContext().getAxisConfiguration();
+        // The precomputed chain is shared by all messages; the message context only copies
+        // it if the processing of this message changes its chain.
         if (msgContext.isFault() || msgContext.isProcessingFault()) {
-            preCalculatedPhases = confContext.getAxisConfiguration().getInFaultFlowPhases();
+            msgContext.setExecutionChain(axisConfig.getInFaultFlowChain());
             msgContext.setFlow(Flows.IN_FAULT);
         } else {
-            preCalculatedPhases = confContext.getAxisConfiguration().getInFlowPhases();
+            msgContext.setExecutionChain(axisConfig.getInFlowChain());
             msgContext.setFlow(Flows.IN);
         }
-        // Set the initial execution chain in the MessageContext to a *copy* of what
-        // we got above.  This allows individual message processing to change the chain without
-        // affecting later messages.
-        List<Phase> executionChain
-        	= new CopyOnWriteOnceList<Phase>(preCalculatedPhases);
-        msgContext.setExecutionChain(executionChain);
     }
 
     /**
@@ -175,9 +165,9 @@ public class AxisEngine {
 
         InvocationResponse pi = InvocationResponse.CONTINUE;
 
-        while (msgContext.getCurrentHandlerIndex() < msgContext.getExecutionChain().size()) {
-            Handler currentHandler = msgContext.getExecutionChain().
-                    get(msgContext.getCurrentHandlerIndex());
+        while (msgContext.getCurrentHandlerIndex() < msgContext.getExecutionChainSize()) {
+            Handler currentHandler =
+                    msgContext.getExecutionHandler(msgContext.getCurrentHandlerIndex());
 
             try {
                 if (!resuming) {
@@ -217,8 +207,8 @@ public class AxisEngine {
     }
 
     private static void flowComplete(MessageContext msgContext) {
-        for(final Handler currentHandler: msgContext.getExecutedPhases()) {
-            currentHandler.flowComplete(msgContext);
+        for (int i = 0; i < msgContext.getExecutedPhaseCount(); i++) {
+            msgContext.getExecutedPhase(i).flowComplete(msgContext);
         }
 
         /*This is needed because the OutInAxisOperation currently invokes
@@ -331,12 +321,9 @@ public class AxisEngine {
         }
         // find and invoke the Phases
         OperationContext operationContext = msgContext.getOperationContext();
-        List<Phase> executionChain = operationContext.getAxisOperation().getPhasesOutFlow();
-        //rather than having two steps added both operation and global chain together
-        List<Phase> outPhases = new ArrayList<Phase>();
-        outPhases.addAll(executionChain);
-        outPhases.addAll(msgContext.getConfigurationContext().getAxisConfiguration().getOutFlowPhases());
-        msgContext.setExecutionChain(outPhases);
+        //rather than having two steps the operation and global chains are precomputed together
+        msgContext.setExecutionChain(operationContext.getAxisOperation().getOutFlowChain(
+                msgContext.getConfigurationContext().getAxisConfiguration()));
         msgContext.setFlow(Flows.OUT);
         try {
             InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
@@ -399,14 +386,11 @@ public class AxisEngine {
         // find and execute the Fault Out Flow Handlers
         if (opContext != null) {
             AxisOperation axisOperation = opContext.getAxisOperation();
-            List<Phase> faultExecutionChain = axisOperation.getPhasesOutFaultFlow();
 
-            //adding both operation specific and global out fault flows.
+            //the operation specific out fault flow, the global one follows in finishSendFault
 
-            final List<Phase> outFaultPhases
-            	= new ArrayList<Phase>(faultExecutionChain.size());
-            outFaultPhases.addAll(faultExecutionChain);
-            msgContext.setExecutionChain(outFaultPhases);
+            msgContext.setExecutionChain(axisOperation.getOutFaultFlowChain(
+                    msgContext.getConfigurationContext().getAxisConfiguration()));
             msgContext.setFlow(Flows.OUT_FAULT);
             try {
                 InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
@@ -452,9 +436,8 @@ public class AxisEngine {
     private static void finishSendFault(MessageContext msgContext)
     	throws AxisFault
     {
-        ArrayList<Handler> executionChain = new ArrayList<Handler>(msgContext.getConfigurationContext()
-                .getAxisConfiguration().getOutFaultFlowPhases());
-        msgContext.setExecutionChain(executionChain);
+        msgContext.setExecutionChain(msgContext.getConfigurationContext()
+                .getAxisConfiguration().getOutFaultFlowChain());
         msgContext.setFlow(Flows.OUT_FAULT);
         InvocationResponse pi = invoke(msgContext, NOT_RESUMING_EXECUTION);
 
@@ -19,7 +19,6 @@
 
 package org.apache.axis2.engine;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import javax.xml.namespace.QName;
@@ -157,9 +156,8 @@ public class DispatchPhase extends Phase {
 	        }
         }
 
-        final List<Phase> operationChain
-        	= msgContext.getAxisOperation().getRemainingPhasesInFlow();
-        msgContext.setExecutionChain(new ArrayList<Phase>(operationChain));
+        msgContext.setExecutionChain(msgContext.getAxisOperation().getRemainingInFlowChain(
+                msgContext.getConfigurationContext().getAxisConfiguration()));
     }
 
     @SuppressWarnings("deprecation")
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, precomputed execution chain: the phases of one or two phase
+ * lists, flattened into a single array when the chain is first needed rather
+ * than concatenated again for every message.  A chain remembers the lists it
+ * was built from and the phase chain version of the AxisConfiguration at the
+ * time, so the owner can tell when it has to be rebuilt.
+ *
+ * <p>Message contexts share the chain; they only take a copy of it if the
+ * chain of a particular message is modified.</p>
+ */
+public final class PhaseChain extends AbstractList<Phase> implements RandomAccess {
+
+    private final Phase[] phases;
+    private final int version;
+
+    private final List<Phase> first;
+    private final int firstSize;
+    private final List<Phase> second;
+    private final int secondSize;
+
+    private PhaseChain(int version, List<Phase> first, List<Phase> second) {
+        this.version = version;
+        this.first = first;
+        this.firstSize = first == null ? 0 : first.size();
+        this.second = second;
+        this.secondSize = second == null ? 0 : second.size();
+
+        phases = new Phase[firstSize + secondSize];
+        for (int i = 0; i < firstSize; i++) {
+            phases[i] = first.get(i);
+        }
+        for (int i = 0; i < secondSize; i++) {
+            phases[firstSize + i] = second.get(i);
+        }
+    }
+
+    /**
+     * Build the chain of the phases of a single list
+     *
+     * @param phases  the phases, may be null
+     * @param version the current phase chain version
+     * @return the chain
+     */
+    public static PhaseChain build(List<Phase> phases, int version) {
+        return new PhaseChain(version, phases, null);
+    }
+
+    /**
+     * Build the chain of the phases of a list, followed by those of another
+     *
+     * @param first   the phases to run first, may be null
+     * @param second  the phases to run next, may be null
+     * @param version the current phase chain version
+     * @return the chain
+     */
+    public static PhaseChain build(List<Phase> first, List<Phase> second, int version) {
+        return new PhaseChain(version, first, second);
+    }
+
+    /**
+     * Is this chain still the one to use?  It is not if the phase chain
+     * version changed, i.e. modules were engaged or disengaged or the global
+     * phases were replaced, or if the lists it was built from were replaced
+     * or resized.
+     *
+     * @param chain   the chain to check, may be null
+     * @param first   the current first list of phases
+     * @param second  the current second list of phases
+     * @param version the current phase chain version
+     * @return true if the chain can be used as is
+     */
+    public static boolean isCurrent(PhaseChain chain, List<Phase> first, List<Phase> second,
+                                    int version) {
+        return chain != null
+                && chain.version == version
+                && chain.first == first
+                && chain.second == second
+                && (first == null ? 0 : first.size()) == chain.firstSize
+                && (second == null ? 0 : second.size()) == chain.secondSize;
+    }
+
+    @Override
+    public Phase get(int index) {
+        return phases[index];
+    }
+
+    @Override
+    public int size() {
+        return phases.length;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+
+/**
+ * Receives the outcome of a request that a non-blocking transport sender sent
+ * without waiting for the response.  A client that can accept the response on
+ * another thread puts an instance on the outgoing message context under
+ * {@link #ASYNC_RESPONSE_HANDLER}; senders that find none send blocking, as
+ * before.
+ */
+public interface AsyncResponseHandler {
+
+    /** Name of the outgoing message context property holding the handler */
+    public static final String ASYNC_RESPONSE_HANDLER = "AsyncResponseHandler";
+
+    /**
+     * Called once the response has arrived.  The sender has set the response
+     * stream as the operation context's {@link MessageContext#TRANSPORT_IN}
+     * property, and the transport headers on the request message context, as a
+     * blocking sender would have before returning.
+     *
+     * @param requestMsgCtx the message context of the request
+     */
+    public void onResponse(MessageContext requestMsgCtx) throws AxisFault;
+
+    /**
+     * Called if the request could not be sent, or no usable response was
+     * received.
+     *
+     * @param requestMsgCtx the message context of the request
+     * @param e the cause of the failure
+     */
+    public void onError(MessageContext requestMsgCtx, Exception e);
+
+}
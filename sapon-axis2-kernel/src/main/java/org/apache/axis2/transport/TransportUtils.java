@@ -25,12 +25,14 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
 
+import javax.activation.DataHandler;
 import javax.activation.DataSource;
 import javax.xml.parsers.FactoryConfigurationError;
 import javax.xml.stream.XMLStreamException;
 
 import org.apache.axiom.attachments.Attachments;
 import org.apache.axiom.attachments.CachedFileDataSource;
+import org.apache.axiom.attachments.lifecycle.DataHandlerExt;
 import org.apache.axiom.attachments.lifecycle.LifecycleManager;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMException;
@@ -519,13 +521,21 @@ public class TransportUtils {
     }
 
        /**
-        * Clean up cached attachment file
+        * Clean up cached attachment files and release the memory held by attachments.
+        * The attachments must not be read after this call.  Nothing is done if the
+        * message is marked with {@link Axis2Constants.Configuration#KEEP_ATTACHMENTS}.
         * @param msgContext
         */
        public static void deleteAttachments(MessageContext msgContext) {
        	if (log.isDebugEnabled()) {
                log.debug("Entering deleteAttachments()");
            }
+           if (msgContext.isPropertyTrue(Axis2Constants.Configuration.KEEP_ATTACHMENTS)) {
+               if (log.isDebugEnabled()) {
+                   log.debug("Attachments are still in use, leaving them in place");
+               }
+               return;
+           }
 
        	Attachments attachments = msgContext.getAttachments();
        	LifecycleManager lcm = (LifecycleManager)msgContext.getRootContext().getAxisConfiguration().getParameterValue(DeploymentConstants.ATTACHMENTS_LIFECYCLE_MANAGER);
@@ -536,11 +546,19 @@ public class TransportUtils {
                if (keys != null) {
                	String key = null;
                	File file = null;
+               	DataHandler dataHandler = null;
                	DataSource dataSource = null;
                    for (int i = 0; i < keys.size(); i++) {
+                       file = null;
                        try {
                            key = (String) keys.get(i);
-                           dataSource = attachments.getDataHandler(key).getDataSource();
+                           dataHandler = attachments.getDataHandler(key);
+                           if(dataHandler instanceof DataHandlerExt){
+                               // The data handler knows how to release its own storage
+                               ((DataHandlerExt)dataHandler).close();
+                               continue;
+                           }
+                           dataSource = dataHandler.getDataSource();
                            if(dataSource instanceof CachedFileDataSource){
                            	file = ((CachedFileDataSource)dataSource).getFile();
                            	if (log.isDebugEnabled()) {
@@ -670,6 +688,28 @@ public class TransportUtils {
         return enableMTOM;
     }
 
+    /**
+     * Checks whether the SOAP part of an MTOM message should be written as it is serialized,
+     * instead of being buffered until the message is complete. The "streamMTOM" parameter
+     * (axis2.xml, services.xml) can be overridden programatically by setting a property of the
+     * same name.
+     *
+     * @param msgContext the active MessageContext
+     * @return true if the SOAP part of MTOM messages should not be buffered
+     */
+    public static boolean doStreamMTOM(MessageContext msgContext) {
+        Object streamMTOMObject = null;
+        Parameter parameter = msgContext.getParameter(Axis2Constants.Configuration.STREAM_MTOM);
+        if (parameter != null) {
+            streamMTOMObject = parameter.getValue();
+        }
+        Object property = msgContext.getProperty(Axis2Constants.Configuration.STREAM_MTOM);
+        if (property != null) {
+            streamMTOMObject = property;
+        }
+        return JavaUtils.isTrueExplicitly(streamMTOMObject);
+    }
+
     /**
      * <p>
      * Checks whether SOAP With Attachments (SwA) needs to be enabled for the
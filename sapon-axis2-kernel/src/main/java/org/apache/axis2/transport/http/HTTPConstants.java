@@ -511,6 +511,79 @@ public class HTTPConstants {
      */
     public static final String AUTO_RELEASE_CONNECTION = "AutoReleaseConnection" ;
 
+    /**
+     * Transport sender parameter to disable the shared connection pool
+     * (<code>true</code> by default).
+     */
+    public static final String CONNECTION_POOL_ENABLED = "connectionPoolEnabled";
+
+    /**
+     * Transport sender parameter for the maximum number of pooled connections
+     * over all hosts.
+     */
+    public static final String MAX_TOTAL_CONNECTIONS = "maxTotalConnections";
+
+    /**
+     * Transport sender parameter for the maximum number of pooled connections
+     * to a single host, port and scheme.
+     */
+    public static final String MAX_CONNECTIONS_PER_HOST = "maxConnectionsPerHost";
+
+    /**
+     * Transport sender parameter overriding the per-host limit for given hosts,
+     * as a comma separated list of <code>scheme://host[:port]=limit</code>.
+     */
+    public static final String MAX_CONNECTIONS_PER_ROUTE = "maxConnectionsPerRoute";
+
+    /**
+     * Transport sender parameter for the time in milliseconds after which idle
+     * pooled connections are closed.  Zero or less disables idle eviction.
+     */
+    public static final String CONNECTION_IDLE_TIMEOUT = "connectionIdleTimeout";
+
+    /**
+     * Transport sender parameter to check pooled connections for staleness
+     * before they are used (<code>true</code> by default).
+     */
+    public static final String CONNECTION_STALE_CHECK = "connectionStaleCheck";
+
+    /**
+     * Transport sender parameter for the longest time in milliseconds a request
+     * waits for a pooled connection when the pool for its host is exhausted.
+     */
+    public static final String CONNECTION_LEASE_TIMEOUT = "connectionLeaseTimeout";
+
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 200;
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+
+    public static final int DEFAULT_CONNECTION_IDLE_TIMEOUT = 30000;
+
+    public static final int DEFAULT_CONNECTION_LEASE_TIMEOUT = 30000;
+
+    /**
+     * Transport sender parameter for the number of I/O threads of a
+     * non-blocking sender.  Defaults to the number of processors.
+     */
+    public static final String IO_THREAD_COUNT = "ioThreadCount";
+
+    /**
+     * Transport sender parameter for the number of bytes of a response a
+     * non-blocking sender buffers before it hands the response over and
+     * streams the rest.
+     */
+    public static final String RESPONSE_BUFFER_SIZE = "responseBufferSize";
+
+    /**
+     * Transport sender parameter for the largest response entity in bytes a
+     * non-blocking sender accepts.  Zero or less removes the limit.
+     */
+    public static final String MAX_RESPONSE_SIZE = "maxResponseSize";
+
+    public static final int DEFAULT_RESPONSE_BUFFER_SIZE = 1024 * 1024;
+
+    public static final int DEFAULT_MAX_RESPONSE_SIZE = 100 * 1024 * 1024;
+
     /**
      * Method getBytes.
      *
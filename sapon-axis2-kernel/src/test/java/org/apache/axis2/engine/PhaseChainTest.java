@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.axis2.alt.DefaultExecutionTracker;
+
+public class PhaseChainTest extends TestCase {
+
+    private final Phase a = new Phase("a");
+    private final Phase b = new Phase("b");
+    private final Phase c = new Phase("c");
+
+    public void testBuildConcatenatesLists() {
+        List<Phase> first = new ArrayList<Phase>();
+        first.add(a);
+        List<Phase> second = new ArrayList<Phase>();
+        second.add(b);
+        second.add(c);
+
+        PhaseChain chain = PhaseChain.build(first, second, 0);
+        assertEquals(3, chain.size());
+        assertSame(a, chain.get(0));
+        assertSame(b, chain.get(1));
+        assertSame(c, chain.get(2));
+
+        assertEquals(0, PhaseChain.build(null, 0).size());
+    }
+
+    public void testChainIsRebuiltWhenPhasesChange() {
+        List<Phase> phases = new ArrayList<Phase>();
+        phases.add(a);
+        PhaseChain chain = PhaseChain.build(phases, 1);
+
+        assertTrue(PhaseChain.isCurrent(chain, phases, null, 1));
+        assertFalse(PhaseChain.isCurrent(null, phases, null, 1));
+        assertFalse(PhaseChain.isCurrent(chain, phases, null, 2));
+        assertFalse(PhaseChain.isCurrent(chain, new ArrayList<Phase>(phases), null, 1));
+        phases.add(b);
+        assertFalse(PhaseChain.isCurrent(chain, phases, null, 1));
+    }
+
+    public void testChainIsImmutable() {
+        PhaseChain chain = PhaseChain.build(new ArrayList<Phase>(), 0);
+        try {
+            chain.add(a);
+            fail("a phase chain must not be modifiable");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
+    public void testTrackerCopiesSharedChainOnlyWhenModified() {
+        List<Phase> phases = new ArrayList<Phase>();
+        phases.add(a);
+        phases.add(b);
+        PhaseChain chain = PhaseChain.build(phases, 0);
+
+        DefaultExecutionTracker tracker = new DefaultExecutionTracker();
+        tracker.setExecutionChain(chain);
+        assertEquals(2, tracker.getExecutionChainSize());
+        assertSame(b, tracker.getExecutionHandler(1));
+
+        tracker.getExecutionChain().add(c);
+        assertEquals(3, tracker.getExecutionChainSize());
+        assertEquals(2, chain.size());
+    }
+
+    public void testTrackerKeepsExecutedPhasesLastFirst() {
+        DefaultExecutionTracker tracker = new DefaultExecutionTracker();
+        tracker.addExecutedPhase(a);
+        tracker.addExecutedPhase(b);
+        tracker.addExecutedPhase(c);
+
+        assertEquals(3, tracker.getExecutedPhaseCount());
+        assertSame(c, tracker.getExecutedPhase(0));
+        assertSame(a, tracker.getExecutedPhase(2));
+        assertSame(c, tracker.getExecutedPhases().getFirst());
+
+        assertSame(c, tracker.removeFirstExecutedPhase());
+        assertSame(b, tracker.getExecutedPhase(0));
+
+        LinkedList<Handler> restored = tracker.getExecutedPhases();
+        DefaultExecutionTracker copy = new DefaultExecutionTracker();
+        copy.setExecutedPhasesExplicit(restored);
+        assertEquals(restored, copy.getExecutedPhases());
+
+        tracker.resetExecutedPhases();
+        assertEquals(0, tracker.getExecutedPhaseCount());
+        assertTrue(tracker.getExecutedPhases().isEmpty());
+    }
+}
@@ -79,6 +79,9 @@ public abstract class AbstractHTTPSender {
 
     protected boolean isAllowedRetry = false;
 
+    /** Shared pool used unless the message asks for a particular client or manager. */
+    protected HttpConnectionManager connectionPool = null;
+
     public void setChunked(boolean chunked) {
         this.chunked = chunked;
     }
@@ -108,12 +111,27 @@ public abstract class AbstractHTTPSender {
      */
     protected void obtainHTTPHeaderInformation(HttpMethodBase method,
                                                MessageContext msgContext) throws AxisFault {
+        obtainHTTPHeaderInformation(method.getResponseHeaders(), method.getStatusCode(),
+                                    msgContext);
+    }
+
+    /**
+     * Collect the HTTP header information of a response received other than
+     * through an HttpMethodBase, and set them in the message context
+     *
+     * @param responseHeaders all headers of the response
+     * @param statusCode the status code of the response
+     * @param msgContext the MessageContext in which to place the information
+     * @throws AxisFault if problems occur
+     */
+    protected void obtainHTTPHeaderInformation(Header[] responseHeaders, int statusCode,
+                                               MessageContext msgContext) throws AxisFault {
         // Set RESPONSE properties onto the REQUEST message context.  They will need to be copied off the request context onto
         // the response context elsewhere, for example in the OutInOperationClient.
-        Map<String, Object> transportHeaders = new CommonsTransportHeaders(method.getResponseHeaders());
+        Map<String, Object> transportHeaders = new CommonsTransportHeaders(responseHeaders);
         msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, transportHeaders);
-        msgContext.setProperty(HTTPConstants.MC_HTTP_STATUS_CODE, new Integer(method.getStatusCode()));
-        Header header = method.getResponseHeader(HTTPConstants.HEADER_CONTENT_TYPE);
+        msgContext.setProperty(HTTPConstants.MC_HTTP_STATUS_CODE, new Integer(statusCode));
+        Header header = getHeader(responseHeaders, HTTPConstants.HEADER_CONTENT_TYPE);
 
         if (header != null) {
             HeaderElement[] headers = header.getElements();
@@ -152,7 +170,7 @@ public abstract class AbstractHTTPSender {
 
         String sessionCookie = null;
         // Process old style headers first
-        Header[] cookieHeaders = method.getResponseHeaders(HTTPConstants.HEADER_SET_COOKIE);
+        Header[] cookieHeaders = getHeaders(responseHeaders, HTTPConstants.HEADER_SET_COOKIE);
         String customCoookiId = (String) msgContext.getProperty(Axis2Constants.CUSTOM_COOKIE_ID);
         for (Header cookieHeader : cookieHeaders) {
             HeaderElement[] elements = cookieHeader.getElements();
@@ -167,7 +185,7 @@ public abstract class AbstractHTTPSender {
             }
         }
         // Overwrite old style cookies with new style ones if present
-        cookieHeaders = method.getResponseHeaders(HTTPConstants.HEADER_SET_COOKIE2);
+        cookieHeaders = getHeaders(responseHeaders, HTTPConstants.HEADER_SET_COOKIE2);
         for (Header cookieHeader : cookieHeaders) {
             HeaderElement[] elements = cookieHeader.getElements();
             for (HeaderElement element : elements) {
@@ -186,6 +204,25 @@ public abstract class AbstractHTTPSender {
         }
     }
 
+    private static Header getHeader(Header[] headers, String name) {
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(name)) {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    private static Header[] getHeaders(Header[] headers, String name) {
+        List<Header> matches = new ArrayList<Header>();
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(name)) {
+                matches.add(header);
+            }
+        }
+        return matches.toArray(new Header[matches.size()]);
+    }
+
     private String processCookieHeader(HeaderElement element) {
         String cookie = element.getName() + "=" + element.getValue();
         NameValuePair[] parameters =  element.getParameters();
@@ -199,14 +236,30 @@ public abstract class AbstractHTTPSender {
     protected void processResponse(HttpMethodBase httpMethod,
                                    MessageContext msgContext)
             throws AxisFault, IOException {
-        obtainHTTPHeaderInformation(httpMethod, msgContext);
+        processResponse(httpMethod.getResponseHeaders(), httpMethod.getStatusCode(),
+                        httpMethod.getResponseBodyAsStream(), msgContext);
+    }
+
+    /**
+     * Sets the header information and the entity of a response received other
+     * than through an HttpMethodBase in the message and operation contexts
+     *
+     * @param responseHeaders all headers of the response
+     * @param statusCode the status code of the response
+     * @param in the response entity
+     * @param msgContext the MessageContext of the request
+     * @throws AxisFault if problems occur
+     */
+    protected void processResponse(Header[] responseHeaders, int statusCode, InputStream in,
+                                   MessageContext msgContext)
+            throws AxisFault, IOException {
+        obtainHTTPHeaderInformation(responseHeaders, statusCode, msgContext);
 
-        InputStream in = httpMethod.getResponseBodyAsStream();
         if (in == null) {
             throw new AxisFault(Messages.getMessage("canNotBeNull", "InputStream"));
         }
         Header contentEncoding =
-                httpMethod.getResponseHeader(HTTPConstants.HEADER_CONTENT_ENCODING);
+                getHeader(responseHeaders, HTTPConstants.HEADER_CONTENT_ENCODING);
         if (contentEncoding != null) {
             if (contentEncoding.getValue().
                     equalsIgnoreCase(HTTPConstants.COMPRESSION_GZIP)) {
@@ -437,6 +490,17 @@ public abstract class AbstractHTTPSender {
                         .getProperty(HTTPConstants.CONNECTION_TIMEOUT);
         long timeout = msgContext.getOptions().getTimeOutInMilliSeconds();
 
+        if (httpClient.getHttpConnectionManager() == connectionPool) {
+            // The shared pool's connect timeout is fixed by the transport configuration;
+            // only the read timeout can vary per message, on the client's own parameters.
+            if (tempSoTimeoutProperty != null) {
+                httpClient.getParams().setSoTimeout(tempSoTimeoutProperty.intValue());
+            } else if (timeout > 0) {
+                httpClient.getParams().setSoTimeout((int) timeout);
+            }
+            return;
+        }
+
         if (tempConnTimeoutProperty != null) {
             int connectionTimeout = tempConnTimeoutProperty.intValue();
             // timeout for initial connection
@@ -466,6 +530,10 @@ public abstract class AbstractHTTPSender {
         this.format = format;
     }
 
+    public void setConnectionPool(HttpConnectionManager connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
     protected HttpClient getHttpClient(MessageContext msgContext) {
         HttpClient httpClient;
         Object reuse = msgContext.getOptions().getProperty(HTTPConstants.REUSE_HTTP_CLIENT);
@@ -492,6 +560,8 @@ public abstract class AbstractHTTPSender {
                             HTTPConstants.MULTITHREAD_HTTP_CONNECTION_MANAGER);
             if(connManager != null){
                 httpClient = new HttpClient(connManager);
+            } else if (connectionPool != null) {
+                httpClient = new HttpClient(connectionPool);
             } else {
                 //Multi threaded http connection manager has set as the default
                 connManager = new MultiThreadedHttpConnectionManager();
@@ -510,6 +580,18 @@ public abstract class AbstractHTTPSender {
 
         msgContext.setProperty(HTTPConstants.HTTP_METHOD, method);
 
+        addRequestHeaders(method, msgContext);
+        httpClient.executeMethod(config, method);
+    }
+
+    /**
+     * Adds the custom, compression and cookie settings of the message to a
+     * method about to be executed
+     *
+     * @param method the method that sends the message
+     * @param msgContext the MessageContext of the message
+     */
+    protected void addRequestHeaders(HttpMethod method, MessageContext msgContext) {
         // set the custom headers, if available
         addCustomHeaders(method, msgContext);
 
@@ -534,7 +616,6 @@ public abstract class AbstractHTTPSender {
         if (cookiePolicy != null) {
             method.getParams().setCookiePolicy(cookiePolicy);
         }
-        httpClient.executeMethod(config, method);
     }
 
     public void addCustomHeaders(HttpMethod method, MessageContext msgContext) {
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.List;
+
+import org.apache.axis2.Axis2Constants;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OperationContext;
+import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.transport.AsyncResponseHandler;
+import org.apache.axis2.transport.MessageFormatter;
+import org.apache.axis2.transport.http.async.ClientExchange;
+import org.apache.axis2.transport.http.async.ClientIOReactor;
+import org.apache.axis2.transport.http.async.ClientResponse;
+import org.apache.axis2.transport.http.async.ExchangeCallback;
+import org.apache.axis2.wsdl.WSDLConstants;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.DeleteMethod;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Sends a request over a {@link ClientIOReactor} and returns without waiting
+ * for the response, which is handed to the message's
+ * {@link AsyncResponseHandler} on a worker thread.  The request is built the
+ * same way as by the {@link HTTPSender}, and buffered in full before it is
+ * sent; the response is buffered before the handler is called, unless it is
+ * too large for the reactor's response buffer, in which case the handler
+ * reads the rest as it arrives.
+ */
+public class AsyncHTTPSender extends AbstractHTTPSender {
+
+    private static final Log log = LogFactory.getLog(AsyncHTTPSender.class);
+
+    private static final String CRLF = "\r\n";
+
+    private final ClientIOReactor reactor;
+
+    private final AsyncResponseHandler handler;
+
+    private int connectionTimeout = HTTPConstants.DEFAULT_CONNECTION_TIMEOUT;
+
+    private int soTimeout = HTTPConstants.DEFAULT_SO_TIMEOUT;
+
+    public AsyncHTTPSender(ClientIOReactor reactor, AsyncResponseHandler handler) {
+        if (reactor == null) {
+            throw new IllegalArgumentException("Reactor may not be null");
+        }
+        if (handler == null) {
+            throw new IllegalArgumentException("Response handler may not be null");
+        }
+        this.reactor = reactor;
+        this.handler = handler;
+    }
+
+    /**
+     * Sets the timeouts used unless the message sets its own.
+     */
+    public void setTimeouts(int connectionTimeout, int soTimeout) {
+        this.connectionTimeout = connectionTimeout;
+        this.soTimeout = soTimeout;
+    }
+
+    /**
+     * Tells whether a message to the given URL can be sent without blocking.
+     * Secure connections, proxies, authentication and custom socket factories
+     * all need the blocking client.
+     *
+     * @param msgContext the MessageContext of the message
+     * @param url the target URL
+     * @return <code>true</code> if this sender can send the message
+     * @throws AxisFault if the proxy configuration is invalid
+     */
+    public static boolean canSend(MessageContext msgContext, URL url) throws AxisFault {
+        return PROTOCOL_HTTP.equals(url.getProtocol())
+                && msgContext.getProperty(HTTPConstants.AUTHENTICATE) == null
+                && msgContext.getOptions().getProperty(HTTPConstants.CUSTOM_PROTOCOL_HANDLER) == null
+                && !ProxyConfiguration.isProxyEnabled(msgContext, url);
+    }
+
+    @Override
+    public void send(final MessageContext msgContext, URL url, String soapActionString)
+            throws IOException {
+
+        String httpMethod =
+                (String) msgContext.getProperty(Axis2Constants.Configuration.HTTP_METHOD);
+
+        HttpMethodBase method;
+        boolean soapActionHeader = true;
+        if (Axis2Constants.Configuration.HTTP_METHOD_GET.equalsIgnoreCase(httpMethod)) {
+            method = new GetMethod();
+        } else if (Axis2Constants.Configuration.HTTP_METHOD_DELETE.equalsIgnoreCase(httpMethod)) {
+            method = new DeleteMethod();
+            soapActionHeader = false;
+        } else if (Axis2Constants.Configuration.HTTP_METHOD_PUT.equalsIgnoreCase(httpMethod)) {
+            method = new PutMethod();
+        } else {
+            method = new PostMethod();
+        }
+
+        // The client only carries the protocol version here; the request never goes
+        // through it.
+        HttpClient httpClient = new HttpClient();
+        MessageFormatter messageFormatter =
+                populateCommonProperties(msgContext, url, method, httpClient, soapActionString);
+
+        byte[] entity = null;
+        if (method instanceof EntityEnclosingMethod) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            // Written as if chunked, so that a gzip request is compressed as well
+            new AxisRequestEntity(messageFormatter, msgContext, format, soapActionString,
+                                  true, isAllowedRetry).writeRequest(out);
+            entity = out.toByteArray();
+        }
+
+        if (soapActionHeader) {
+            String soapAction =
+                    messageFormatter.formatSOAPAction(msgContext, format, soapActionString);
+            if (soapAction != null) {
+                method.setRequestHeader(HTTPConstants.HEADER_SOAP_ACTION, soapAction);
+            }
+        }
+        addRequestHeaders(method, msgContext);
+
+        int port = url.getPort() == -1 ? 80 : url.getPort();
+        method.setRequestHeader(HTTPConstants.HEADER_HOST,
+                                url.getPort() == -1 ? url.getHost() : url.getHost() + ":" + port);
+
+        // Resolve here rather than on the I/O thread, which must never block
+        InetSocketAddress address = new InetSocketAddress(url.getHost(), port);
+        if (address.isUnresolved()) {
+            throw new UnknownHostException(url.getHost());
+        }
+
+        ExchangeCallback callback = new ExchangeCallback() {
+            public void completed(ClientResponse response) {
+                try {
+                    handleResponse(msgContext, response);
+                    handler.onResponse(msgContext);
+                } catch (Exception e) {
+                    response.getContent().close();
+                    handler.onError(msgContext, e);
+                }
+            }
+
+            public void failed(Exception e) {
+                log.info("Unable to send to url[" + msgContext.getTo() + "]: " + e.getMessage());
+                handler.onError(msgContext, e);
+            }
+        };
+
+        // Only a POST may not be sent twice, should a reused connection fail
+        reactor.execute(new ClientExchange(address, formatRequest(method, entity), false,
+                !(method instanceof PostMethod),
+                getTimeout(msgContext, HTTPConstants.CONNECTION_TIMEOUT, connectionTimeout),
+                getTimeout(msgContext, HTTPConstants.SO_TIMEOUT, soTimeout),
+                callback));
+    }
+
+    private static int getTimeout(MessageContext msgContext, String property, int defaultValue) {
+        Integer value = (Integer) msgContext.getProperty(property);
+        if (value != null) {
+            return value.intValue();
+        }
+        long timeout = msgContext.getOptions().getTimeOutInMilliSeconds();
+        return timeout > 0 ? (int) timeout : defaultValue;
+    }
+
+    private byte[] formatRequest(HttpMethodBase method, byte[] entity)
+            throws UnsupportedEncodingException {
+
+        StringBuilder head = new StringBuilder(512);
+        head.append(method.getName()).append(' ');
+        String path = method.getPath();
+        head.append(path == null || path.length() == 0 ? "/" : path);
+        if (method.getQueryString() != null) {
+            head.append('?').append(method.getQueryString());
+        }
+        head.append(' ').append(httpVersion).append(CRLF);
+
+        for (Header header : method.getRequestHeaders()) {
+            String name = header.getName();
+            // The entity is always sent with a known length
+            if (!name.equalsIgnoreCase(HTTPConstants.HEADER_CONTENT_LENGTH)
+                    && !name.equalsIgnoreCase(HTTPConstants.HEADER_TRANSFER_ENCODING)) {
+                head.append(name).append(": ").append(header.getValue()).append(CRLF);
+            }
+        }
+        if (entity != null) {
+            head.append(HTTPConstants.HEADER_CONTENT_LENGTH).append(": ")
+                    .append(entity.length).append(CRLF);
+        }
+        if (HTTPConstants.HEADER_PROTOCOL_10.equals(httpVersion)) {
+            head.append(HTTPConstants.HEADER_CONNECTION).append(": ")
+                    .append(HTTPConstants.HEADER_CONNECTION_KEEPALIVE).append(CRLF);
+        }
+        head.append(CRLF);
+
+        byte[] headBytes = head.toString().getBytes("ISO-8859-1");
+        if (entity == null) {
+            return headBytes;
+        }
+        byte[] request = new byte[headBytes.length + entity.length];
+        System.arraycopy(headBytes, 0, request, 0, headBytes.length);
+        System.arraycopy(entity, 0, request, headBytes.length, entity.length);
+        return request;
+    }
+
+    /**
+     * Same as HTTPSender.handleResponse, for a response the reactor received
+     */
+    private void handleResponse(MessageContext msgContext,
+                                ClientResponse response) throws IOException {
+        List<String[]> received = response.getHeaders();
+        Header[] headers = new Header[received.size()];
+        for (int i = 0; i < headers.length; i++) {
+            String[] header = received.get(i);
+            headers[i] = new Header(header[0], header[1]);
+        }
+
+        int statusCode = response.getStatusCode();
+        if (statusCode == HttpStatus.SC_OK) {
+            processResponse(headers, statusCode, response.getContent(), msgContext);
+        } else if (statusCode == HttpStatus.SC_ACCEPTED) {
+            response.getContent().close();
+        } else if (statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR ||
+                statusCode == HttpStatus.SC_BAD_REQUEST) {
+            OperationContext opContext = msgContext.getOperationContext();
+            if (opContext != null) {
+                MessageContext inMessageContext =
+                        opContext.getMessageContext(WSDLConstants.MESSAGE_LABEL_IN_VALUE);
+                if (inMessageContext != null) {
+                    inMessageContext.setProcessingFault(true);
+                }
+            }
+            if (response.getHeader(HTTPConstants.HEADER_CONTENT_TYPE) != null) {
+                processResponse(headers, statusCode, response.getContent(), msgContext);
+            } else {
+                response.getContent().close();
+                // Nobody is waiting on the send to return this as a fault
+                throw new AxisFault(Messages.getMessage("transportError",
+                                                        String.valueOf(statusCode),
+                                                        response.getReasonPhrase()));
+            }
+        } else {
+            response.getContent().close();
+            throw new AxisFault(Messages.getMessage("transportError",
+                                                    String.valueOf(statusCode),
+                                                    response.getReasonPhrase()));
+        }
+    }
+}
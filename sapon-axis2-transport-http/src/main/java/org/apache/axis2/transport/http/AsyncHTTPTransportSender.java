@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.description.TransportOutDescription;
+import org.apache.axis2.transport.AsyncResponseHandler;
+import org.apache.axis2.transport.http.async.ClientIOReactor;
+import org.apache.axis2.transport.http.server.DefaultThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * An HTTP transport sender that does not wait for responses.  Requests whose
+ * message context carries an {@link AsyncResponseHandler} are sent over a small
+ * group of I/O reactor threads, and the response is handed to the handler on
+ * a worker thread of the configuration context's executor.  All other
+ * messages, and messages needing https, a proxy or authentication, are sent
+ * by the blocking sender as before.
+ *
+ * <p>Besides the parameters of the {@link CommonsHTTPTransportSender}, the
+ * <code>ioThreadCount</code> parameter sets the number of I/O threads, and
+ * <code>maxConnectionsPerHost</code> and <code>connectionIdleTimeout</code>
+ * also limit the idle connections each I/O thread keeps alive.  Responses are
+ * buffered up to <code>responseBufferSize</code> bytes and streamed beyond,
+ * and a response entity larger than <code>maxResponseSize</code> bytes fails
+ * the exchange.</p>
+ */
+public class AsyncHTTPTransportSender extends CommonsHTTPTransportSender {
+
+    private static final Log log = LogFactory.getLog(AsyncHTTPTransportSender.class);
+
+    private ClientIOReactor[] reactors;
+
+    private final AtomicInteger nextReactor = new AtomicInteger();
+
+    @Override
+    public void init(ConfigurationContext confContext,
+                     TransportOutDescription transportOut) throws AxisFault {
+        super.init(confContext, transportOut);
+
+        int ioThreadCount = getIntParameter(transportOut, HTTPConstants.IO_THREAD_COUNT,
+                                            Runtime.getRuntime().availableProcessors());
+        if (ioThreadCount < 1) {
+            throw new AxisFault("Parameter " + HTTPConstants.IO_THREAD_COUNT
+                    + " must be at least 1");
+        }
+        int maxIdlePerRoute = getIntParameter(transportOut, HTTPConstants.MAX_CONNECTIONS_PER_HOST,
+                                              HTTPConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST);
+        int keepAliveTimeout = getIntParameter(transportOut, HTTPConstants.CONNECTION_IDLE_TIMEOUT,
+                                               HTTPConstants.DEFAULT_CONNECTION_IDLE_TIMEOUT);
+        int responseBufferSize = getIntParameter(transportOut, HTTPConstants.RESPONSE_BUFFER_SIZE,
+                                                 HTTPConstants.DEFAULT_RESPONSE_BUFFER_SIZE);
+        if (responseBufferSize < 1) {
+            throw new AxisFault("Parameter " + HTTPConstants.RESPONSE_BUFFER_SIZE
+                    + " must be at least 1");
+        }
+        int maxResponseSize = getIntParameter(transportOut, HTTPConstants.MAX_RESPONSE_SIZE,
+                                              HTTPConstants.DEFAULT_MAX_RESPONSE_SIZE);
+
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(
+                new ThreadGroup("HTTP client I/O reactor thread group"), "HttpClientIOReactor");
+        reactors = new ClientIOReactor[ioThreadCount];
+        try {
+            for (int i = 0; i < ioThreadCount; i++) {
+                reactors[i] = new ClientIOReactor(confContext.getExecutor(),
+                                                  maxIdlePerRoute, keepAliveTimeout,
+                                                  responseBufferSize, maxResponseSize);
+                Thread t = threadFactory.newThread(reactors[i]);
+                t.setDaemon(true);
+                t.start();
+            }
+        } catch (IOException e) {
+            stop();
+            throw AxisFault.makeFault(e);
+        }
+        log.info("Non-blocking HTTP sender started with " + ioThreadCount + " I/O threads");
+    }
+
+    @Override
+    public void stop() {
+        if (reactors != null) {
+            for (ClientIOReactor reactor : reactors) {
+                if (reactor != null) {
+                    reactor.shutdown();
+                }
+            }
+        }
+        super.stop();
+    }
+
+    /**
+     * Returns the number of requests sent without blocking and not yet answered.
+     */
+    public int getActiveCount() {
+        int count = 0;
+        for (ClientIOReactor reactor : reactors) {
+            count += reactor.getActiveCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of open non-blocking connections, busy or idle.
+     */
+    public int getConnectionCount() {
+        int count = 0;
+        for (ClientIOReactor reactor : reactors) {
+            count += reactor.getConnectionCount();
+        }
+        return count;
+    }
+
+    @Override
+    protected void writeMessageWithCommons(MessageContext messageContext,
+                                           EndpointReference toEPR, OMOutputFormat format)
+            throws AxisFault {
+
+        AsyncResponseHandler handler = (AsyncResponseHandler) messageContext.getProperty(
+                AsyncResponseHandler.ASYNC_RESPONSE_HANDLER);
+        URL url;
+        try {
+            url = new URL(toEPR.getAddress());
+        } catch (MalformedURLException e) {
+            log.debug(e);
+            throw AxisFault.makeFault(e);
+        }
+        if (handler == null || !AsyncHTTPSender.canSend(messageContext, url)) {
+            super.writeMessageWithCommons(messageContext, toEPR, format);
+            return;
+        }
+
+        ClientIOReactor reactor = reactors[
+                (nextReactor.getAndIncrement() & Integer.MAX_VALUE) % reactors.length];
+        AsyncHTTPSender sender = new AsyncHTTPSender(reactor, handler);
+        if (messageContext.getProperty(HTTPConstants.HTTP_PROTOCOL_VERSION) != null) {
+            sender.setHttpVersion((String) messageContext
+                    .getProperty(HTTPConstants.HTTP_PROTOCOL_VERSION));
+        } else {
+            sender.setHttpVersion(httpVersion);
+        }
+        sender.setFormat(format);
+        sender.setTimeouts(connectionTimeout, soTimeout);
+        try {
+            sender.send(messageContext, url, findSOAPAction(messageContext));
+        } catch (IOException e) {
+            log.debug(e);
+            throw AxisFault.makeFault(e);
+        }
+    }
+
+}
@@ -43,9 +43,11 @@ import org.apache.axis2.transport.MessageFormatter;
 import org.apache.axis2.transport.OutTransportInfo;
 import org.apache.axis2.transport.TransportSender;
 import org.apache.axis2.transport.TransportUtils;
+import org.apache.axis2.transport.base.MetricsRegistry;
 import org.apache.axis2.transport.http.server.AxisHttpResponseImpl;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HostConfiguration;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.logging.Log;
@@ -74,6 +76,10 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
 
     int connectionTimeout = HTTPConstants.DEFAULT_CONNECTION_TIMEOUT;
 
+    private PooledHttpConnectionManager connectionPool = null;
+
+    private String transportName = null;
+
     public void cleanup(MessageContext msgContext) throws AxisFault {
         HttpMethod httpMethod = (HttpMethod) msgContext
                 .getProperty(HTTPConstants.HTTP_METHOD);
@@ -134,10 +140,109 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
             // If there's a problem log it and use the default values
             log.error("Invalid timeout value format: not a number", nfe);
         }
+
+        if (getBooleanParameter(transportOut, HTTPConstants.CONNECTION_POOL_ENABLED, true)) {
+            int leaseTimeout = getIntParameter(transportOut, HTTPConstants.CONNECTION_LEASE_TIMEOUT,
+                                               HTTPConstants.DEFAULT_CONNECTION_LEASE_TIMEOUT);
+            if (leaseTimeout <= 0) {
+                throw new AxisFault("Parameter " + HTTPConstants.CONNECTION_LEASE_TIMEOUT
+                        + " must be positive: " + leaseTimeout);
+            }
+            connectionPool = new PooledHttpConnectionManager(
+                    getIntParameter(transportOut, HTTPConstants.MAX_TOTAL_CONNECTIONS,
+                                    HTTPConstants.DEFAULT_MAX_TOTAL_CONNECTIONS),
+                    getIntParameter(transportOut, HTTPConstants.MAX_CONNECTIONS_PER_HOST,
+                                    HTTPConstants.DEFAULT_MAX_CONNECTIONS_PER_HOST),
+                    connectionTimeout,
+                    getBooleanParameter(transportOut, HTTPConstants.CONNECTION_STALE_CHECK, true),
+                    leaseTimeout);
+            setMaxConnectionsPerRoute(transportOut);
+            connectionPool.startIdleConnectionReaper(
+                    getIntParameter(transportOut, HTTPConstants.CONNECTION_IDLE_TIMEOUT,
+                                    HTTPConstants.DEFAULT_CONNECTION_IDLE_TIMEOUT));
+            transportName = transportOut.getName();
+            connectionPool.setName(transportName);
+            MetricsRegistry.getInstance().register(getPoolMetricsId(transportName),
+                                                   connectionPool);
+        }
+    }
+
+    /**
+     * Applies the per-host limits of the {@link HTTPConstants#MAX_CONNECTIONS_PER_ROUTE}
+     * parameter, given as <code>scheme://host[:port]=limit</code> entries, to the pool.
+     */
+    private void setMaxConnectionsPerRoute(TransportOutDescription transportOut)
+            throws AxisFault {
+        Parameter param = transportOut.getParameter(HTTPConstants.MAX_CONNECTIONS_PER_ROUTE);
+        if (param == null || param.getValue() == null) {
+            return;
+        }
+        for (String route : ((String) param.getValue()).split(",")) {
+            route = route.trim();
+            if (route.length() == 0) {
+                continue;
+            }
+            int separator = route.lastIndexOf('=');
+            try {
+                if (separator < 0) {
+                    throw new MalformedURLException("no limit given");
+                }
+                URL url = new URL(route.substring(0, separator).trim());
+                int limit = Integer.parseInt(route.substring(separator + 1).trim());
+                HostConfiguration hostConfiguration = new HostConfiguration();
+                hostConfiguration.setHost(url.getHost(),
+                        url.getPort() == -1 ? url.getDefaultPort() : url.getPort(),
+                        url.getProtocol());
+                connectionPool.setMaxConnectionsPerHost(hostConfiguration, limit);
+            } catch (MalformedURLException e) {
+                throw new AxisFault("Parameter " + HTTPConstants.MAX_CONNECTIONS_PER_ROUTE
+                        + " must list scheme://host[:port]=limit entries: " + route, e);
+            } catch (NumberFormatException e) {
+                throw new AxisFault("Parameter " + HTTPConstants.MAX_CONNECTIONS_PER_ROUTE
+                        + " must list scheme://host[:port]=limit entries: " + route, e);
+            }
+        }
+    }
+
+    private static String getPoolMetricsId(String transportName) {
+        return "HttpConnectionPool:" + transportName;
+    }
+
+    protected static int getIntParameter(TransportOutDescription transportOut, String name,
+                                         int defaultValue) throws AxisFault {
+        Parameter param = transportOut.getParameter(name);
+        if (param == null || param.getValue() == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(((String) param.getValue()).trim());
+        } catch (NumberFormatException nfe) {
+            throw new AxisFault("Parameter " + name + " must be an integer: " + param.getValue());
+        }
+    }
+
+    private static boolean getBooleanParameter(TransportOutDescription transportOut, String name,
+                                               boolean defaultValue) {
+        Parameter param = transportOut.getParameter(name);
+        if (param == null || param.getValue() == null) {
+            return defaultValue;
+        }
+        return !JavaUtils.isFalseExplicitly(param.getValue());
+    }
+
+    /**
+     * Returns the connection pool shared by the messages sent through this sender, or
+     * <code>null</code> if pooling was disabled in the transport configuration.
+     */
+    public PooledHttpConnectionManager getConnectionPool() {
+        return connectionPool;
     }
 
     public void stop() {
-        // Any code that , need to invoke when sender stop
+        if (connectionPool != null) {
+            MetricsRegistry.getInstance().unregister(getPoolMetricsId(transportName));
+            connectionPool.shutdown();
+        }
     }
 
     public InvocationResponse invoke(MessageContext msgContext)
@@ -151,6 +256,9 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
             format.setSOAP11(msgContext.isSOAP11());
             format.setDoOptimize(msgContext.isDoingMTOM());
             format.setDoingSWA(msgContext.isDoingSwA());
+            if (msgContext.isDoingMTOM() && TransportUtils.doStreamMTOM(msgContext)) {
+                format.setProperty(OMOutputFormat.STREAM_OPTIMIZED_SOAP_PART, Boolean.TRUE);
+            }
             format.setCharSetEncoding(TransportUtils.getCharSetEncoding(msgContext));
 
             Object mimeBoundaryProperty = msgContext
@@ -356,8 +464,8 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
         }
     }
 
-    private void writeMessageWithCommons(MessageContext messageContext,
-                                         EndpointReference toEPR, OMOutputFormat format)
+    protected void writeMessageWithCommons(MessageContext messageContext,
+                                           EndpointReference toEPR, OMOutputFormat format)
             throws AxisFault {
         try {
             URL url = new URL(toEPR.getAddress());
@@ -381,6 +489,7 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
             sender.setChunked(chunked);
             sender.setHttpVersion(httpVersion);
             sender.setFormat(format);
+            sender.setConnectionPool(connectionPool);
 
             sender.send(messageContext, url, findSOAPAction(messageContext));
         } catch (MalformedURLException e) {
@@ -395,7 +504,7 @@ public class CommonsHTTPTransportSender extends AbstractHandler implements
         }
     }
 
-    private static String findSOAPAction(MessageContext messageContext) {
+    protected static String findSOAPAction(MessageContext messageContext) {
         String soapActionString = null;
 
         Parameter parameter =
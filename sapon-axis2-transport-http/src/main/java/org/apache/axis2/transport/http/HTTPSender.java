@@ -98,19 +98,26 @@ public class HTTPSender extends AbstractHTTPSender {
         if (soapAction != null) {
             getMethod.setRequestHeader(HTTPConstants.HEADER_SOAP_ACTION, soapAction);
         }
+        boolean responseInUse = false;
         try {
             executeMethod(httpClient, msgContext, url, getMethod);
-            handleResponse(msgContext, getMethod);
+            responseInUse = handleResponse(msgContext, getMethod);
         } catch (IOException e) {
             log.info("Unable to sendViaGet to url[" + url + "]", e);
             throw AxisFault.makeFault(e);
         } finally {
-            cleanup(msgContext, getMethod);
+            cleanup(msgContext, getMethod, responseInUse);
         }
     }
 
-    private void cleanup(MessageContext msgContext, HttpMethod method) {
-        if (msgContext.isPropertyTrue(HTTPConstants.AUTO_RELEASE_CONNECTION)) {
+    /**
+     * Returns the connection of a method to its pool, unless the response body was
+     * handed to the message to be read later: the body stream then releases the
+     * connection when it has been read to the end or closed.
+     */
+    private void cleanup(MessageContext msgContext, HttpMethod method, boolean responseInUse) {
+        if (!responseInUse
+                || msgContext.isPropertyTrue(HTTPConstants.AUTO_RELEASE_CONNECTION)) {
             method.releaseConnection();
         }
     }
@@ -130,14 +137,15 @@ public class HTTPSender extends AbstractHTTPSender {
         HttpClient httpClient = getHttpClient(msgContext);
         populateCommonProperties(msgContext, url, deleteMethod, httpClient, soapActiionString);
 
+        boolean responseInUse = false;
         try {
             executeMethod(httpClient, msgContext, url, deleteMethod);
-            handleResponse(msgContext, deleteMethod);
+            responseInUse = handleResponse(msgContext, deleteMethod);
         } catch (IOException e) {
             log.info("Unable to sendViaDelete to url[" + url + "]", e);
             throw AxisFault.makeFault(e);
         } finally {
-            cleanup(msgContext, deleteMethod);
+            cleanup(msgContext, deleteMethod, responseInUse);
         }
     }
 
@@ -185,14 +193,15 @@ public class HTTPSender extends AbstractHTTPSender {
         /*
          *   main excecution takes place..
          */
+        boolean responseInUse = false;
         try {
             executeMethod(httpClient, msgContext, url, postMethod);
-            handleResponse(msgContext, postMethod);
+            responseInUse = handleResponse(msgContext, postMethod);
         } catch (IOException e) {
             log.info("Unable to sendViaPost to url[" + url + "]", e);
             throw AxisFault.makeFault(e);
         } finally {
-            cleanup(msgContext, postMethod);
+            cleanup(msgContext, postMethod, responseInUse);
         }
     }
 
@@ -239,14 +248,15 @@ public class HTTPSender extends AbstractHTTPSender {
         /*
          *   main excecution takes place..
          */
+        boolean responseInUse = false;
         try {
             executeMethod(httpClient, msgContext, url, putMethod);
-            handleResponse(msgContext, putMethod);
+            responseInUse = handleResponse(msgContext, putMethod);
         } catch (IOException e) {
             log.info("Unable to sendViaPut to url[" + url + "]", e);
             throw AxisFault.makeFault(e);
         } finally {
-            cleanup(msgContext, putMethod);
+            cleanup(msgContext, putMethod, responseInUse);
         }
     }
 
@@ -255,15 +265,18 @@ public class HTTPSender extends AbstractHTTPSender {
      *
      * @param msgContext - The MessageContext of the message
      * @param method     - The HTTP method used
+     * @return true if the response body was set on the message to be read later
      * @throws IOException - Thrown in case an exception occurs
      */
-    private void handleResponse(MessageContext msgContext,
-                                HttpMethodBase method) throws IOException {
+    private boolean handleResponse(MessageContext msgContext,
+                                   HttpMethodBase method) throws IOException {
     	try {
 	        int statusCode = method.getStatusCode();
 	        if (statusCode == HttpStatus.SC_OK) {
 	            processResponse(method, msgContext);
+	            return true;
 	        } else if (statusCode == HttpStatus.SC_ACCEPTED) {
+	            return false;
 	        } else if (statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR ||
 	                statusCode == HttpStatus.SC_BAD_REQUEST) {
 	            Header contenttypeHeader =
@@ -291,6 +304,7 @@ public class HTTPSender extends AbstractHTTPSender {
 	                        String.valueOf(statusCode),
 	                        method.getStatusText()));
 	            }
+	            return value != null;
 	        } else {
 	            throw new AxisFault(Messages.getMessage("transportError",
 	                                                    String.valueOf(statusCode),
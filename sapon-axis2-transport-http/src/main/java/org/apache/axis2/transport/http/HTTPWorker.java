@@ -24,6 +24,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Map;
 
 import org.apache.axis2.Axis2Constants;
@@ -32,9 +34,12 @@ import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.deployment.DeploymentConstants;
 import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.Parameter;
 import org.apache.axis2.engine.Handler.InvocationResponse;
 import org.apache.axis2.transport.RequestResponseTransport;
 import org.apache.axis2.transport.TransportUtils;
+import org.apache.axis2.transport.base.MetricsRegistry;
+import org.apache.axis2.transport.base.MetricsWriter;
 import org.apache.axis2.transport.http.server.AxisHttpRequest;
 import org.apache.axis2.transport.http.server.AxisHttpResponse;
 import org.apache.axis2.transport.http.server.HttpUtils;
@@ -52,6 +57,14 @@ import org.apache.ws.commons.schema.XmlSchema;
 
 public class HTTPWorker implements Worker {
 
+    /** The path the metrics of the node are served on, in the OpenMetrics text format */
+    public static final String METRICS_PATH = "/metrics";
+    /**
+     * The global parameter that enables the metrics path when set to true. The path is off by
+     * default, as it is not authenticated and is served on the service port.
+     */
+    public static final String EXPOSE_METRICS = "exposeMetrics";
+
     public HTTPWorker() {
     }
 
@@ -71,6 +84,14 @@ public class HTTPWorker implements Worker {
         InvocationResponse pi;
 
         if (method.equals(HTTPConstants.HEADER_GET)) {
+            if (uri.equals(METRICS_PATH) && isMetricsExposed(configurationContext)) {
+                response.setStatus(HttpStatus.SC_OK);
+                response.setContentType(MetricsWriter.CONTENT_TYPE);
+                Writer out = new OutputStreamWriter(response.getOutputStream(), "UTF-8");
+                MetricsRegistry.getInstance().writeMetrics(out);
+                out.flush();
+                return;
+            }
             if (uri.equals("/favicon.ico")) {
                 response.setStatus(HttpStatus.SC_MOVED_PERMANENTLY);
                 response.addHeader(new BasicHeader("Location", "http://ws.apache.org/favicon.ico"));
@@ -358,6 +379,12 @@ public class HTTPWorker implements Worker {
 
     }
 
+    private static boolean isMetricsExposed(ConfigurationContext configurationContext) {
+        Parameter param =
+            configurationContext.getAxisConfiguration().getParameter(EXPOSE_METRICS);
+        return param != null && "true".equalsIgnoreCase(String.valueOf(param.getValue()));
+    }
+
     public String getHost(AxisHttpRequest request) throws java.net.SocketException {
         String host = null;
         Header hostHeader = request.getFirstHeader("host");
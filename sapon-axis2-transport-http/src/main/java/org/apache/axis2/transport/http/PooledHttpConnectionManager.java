@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.axis2.transport.base.MetricsSource;
+import org.apache.axis2.transport.base.MetricsWriter;
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Long-lived connection pool shared by all messages sent through a
+ * {@link CommonsHTTPTransportSender}, so that consecutive requests to the same
+ * backend reuse an open (and, for https, already negotiated) connection.
+ * Connections are pooled per host configuration, i.e. per host, port and
+ * scheme, and the pool keeps simple lease statistics.  A request that finds the
+ * pool for its host exhausted waits at most the lease timeout for a connection
+ * to be released, even if the client asked to wait indefinitely.  The pool
+ * statistics are published as metrics, labelled with the name of the pool.
+ */
+public class PooledHttpConnectionManager extends MultiThreadedHttpConnectionManager
+        implements MetricsSource {
+
+    private static final Log log = LogFactory.getLog(PooledHttpConnectionManager.class);
+
+    private final AtomicLong leases = new AtomicLong();
+    private final AtomicLong releases = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+
+    private final long leaseTimeout;
+
+    private IdleConnectionTimeoutThread idleConnectionReaper = null;
+
+    private String name = "http";
+
+    /**
+     * @param maxTotalConnections   upper bound of connections over all hosts
+     * @param maxConnectionsPerHost upper bound of connections to one host, port and scheme
+     * @param connectionTimeout     connect timeout in milliseconds
+     * @param staleCheck            whether to check a pooled connection before reusing it
+     * @param leaseTimeout          time in milliseconds to wait for a pooled connection when
+     *                              the client does not set a shorter one
+     */
+    public PooledHttpConnectionManager(int maxTotalConnections, int maxConnectionsPerHost,
+                                       int connectionTimeout, boolean staleCheck,
+                                       long leaseTimeout) {
+        super();
+        if (leaseTimeout <= 0) {
+            throw new IllegalArgumentException("Lease timeout must be positive: " + leaseTimeout);
+        }
+        this.leaseTimeout = leaseTimeout;
+        HttpConnectionManagerParams params = getParams();
+        params.setMaxTotalConnections(maxTotalConnections);
+        params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+        params.setConnectionTimeout(connectionTimeout);
+        params.setStaleCheckingEnabled(staleCheck);
+    }
+
+    /**
+     * Sets a connection limit for one host configuration, overriding the default
+     * per-host limit.
+     */
+    public void setMaxConnectionsPerHost(HostConfiguration route, int maxConnections) {
+        getParams().setMaxConnectionsPerHost(route, maxConnections);
+    }
+
+    /**
+     * Sets the name the metrics of this pool are labelled with, typically the
+     * name of the transport sender.
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts closing connections that have been idle in the pool for longer than
+     * the given time.
+     *
+     * @param idleTimeout time in milliseconds a connection may stay idle
+     */
+    public synchronized void startIdleConnectionReaper(long idleTimeout) {
+        if (idleTimeout <= 0 || idleConnectionReaper != null) {
+            return;
+        }
+        idleConnectionReaper = new IdleConnectionTimeoutThread();
+        idleConnectionReaper.setName("HttpConnectionReaper");
+        idleConnectionReaper.setConnectionTimeout(idleTimeout);
+        idleConnectionReaper.setTimeoutInterval(Math.max(idleTimeout / 2, 1000L));
+        idleConnectionReaper.addConnectionManager(this);
+        idleConnectionReaper.start();
+    }
+
+    @Override
+    public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration,
+                                                   long timeout)
+            throws ConnectionPoolTimeoutException {
+        // HttpClient passes 0, i.e. wait forever, unless the connection manager timeout
+        // was set on the client; never let a leaked connection block a sender for good
+        if (timeout <= 0 || timeout > leaseTimeout) {
+            timeout = leaseTimeout;
+        }
+        try {
+            HttpConnection conn = super.getConnectionWithTimeout(hostConfiguration, timeout);
+            leases.incrementAndGet();
+            return conn;
+        } catch (ConnectionPoolTimeoutException e) {
+            leaseTimeouts.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Timed out waiting for a connection to " + hostConfiguration
+                        + " after " + timeout + "ms");
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(HttpConnection conn) {
+        super.releaseConnection(conn);
+        releases.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (idleConnectionReaper != null) {
+            idleConnectionReaper.shutdown();
+            idleConnectionReaper = null;
+        }
+        super.shutdown();
+    }
+
+    /**
+     * Returns the number of connections handed out since the pool was created.
+     */
+    public long getLeaseCount() {
+        return leases.get();
+    }
+
+    /**
+     * Returns the longest time in milliseconds a request waits for a pooled connection.
+     */
+    public long getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    /**
+     * Returns the number of requests that gave up waiting for a connection.
+     */
+    public long getLeaseTimeoutCount() {
+        return leaseTimeouts.get();
+    }
+
+    /**
+     * Returns the number of connections currently handed out.
+     */
+    public long getLeasedConnectionCount() {
+        return leases.get() - releases.get();
+    }
+
+    /**
+     * Returns the number of connections, leased or idle, currently open to the
+     * given host configuration.
+     */
+    public int getConnectionCount(HostConfiguration route) {
+        return getConnectionsInPool(route);
+    }
+
+    /**
+     * Returns the number of connections, leased or idle, currently open.
+     */
+    public int getConnectionCount() {
+        return getConnectionsInPool();
+    }
+
+    public void collectMetrics(MetricsWriter writer) {
+        String[] labels = {"pool", name};
+        writer.gauge("axis2_http_pool_connections", "Open pooled connections, leased or idle",
+                getConnectionCount(), labels);
+        writer.gauge("axis2_http_pool_leased_connections", "Pooled connections in use",
+                getLeasedConnectionCount(), labels);
+        writer.counter("axis2_http_pool_leases", "Connections handed out by the pool",
+                getLeaseCount(), labels);
+        writer.counter("axis2_http_pool_lease_timeouts",
+                "Requests that gave up waiting for a pooled connection",
+                getLeaseTimeoutCount(), labels);
+    }
+
+    @Override
+    public String toString() {
+        return "PooledHttpConnectionManager[connections=" + getConnectionCount()
+                + ", leased=" + getLeasedConnectionCount()
+                + ", leases=" + getLeaseCount()
+                + ", leaseTimeouts=" + getLeaseTimeoutCount() + "]";
+    }
+
+}
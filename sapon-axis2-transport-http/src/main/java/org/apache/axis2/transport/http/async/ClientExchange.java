@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.async;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * A single request and response over a non-blocking connection.  The request
+ * is fully serialized before the exchange is handed to a
+ * {@link ClientIOReactor}, which then owns it until the callback is invoked.
+ */
+public class ClientExchange {
+
+    private final InetSocketAddress address;
+    private final byte[] request;
+    private final boolean headRequest;
+    private final boolean idempotent;
+    private final int connectTimeout;
+    private final int soTimeout;
+    private final ExchangeCallback callback;
+
+    private ByteBuffer requestBuffer;
+    private ClientResponse response;
+    private boolean retried = false;
+    private boolean dispatched = false;
+    private long lastActivity;
+
+    /**
+     * @param address the resolved address of the server
+     * @param request the request head and entity, as written to the connection
+     * @param headRequest whether the request is a HEAD request, whose response
+     *                    has no entity
+     * @param idempotent whether the request may be sent again once the server
+     *                   may have received it, e.g. for a GET but not a POST
+     * @param connectTimeout milliseconds to wait for the connection to be
+     *                       established, or zero to wait indefinitely
+     * @param soTimeout milliseconds to wait for the server between reads, or
+     *                  zero to wait indefinitely
+     * @param callback receives the outcome of the exchange
+     */
+    public ClientExchange(InetSocketAddress address, byte[] request, boolean headRequest,
+                          boolean idempotent, int connectTimeout, int soTimeout,
+                          ExchangeCallback callback) {
+        if (address == null) {
+            throw new IllegalArgumentException("Address may not be null");
+        }
+        if (request == null) {
+            throw new IllegalArgumentException("Request may not be null");
+        }
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback may not be null");
+        }
+        this.address = address;
+        this.request = request;
+        this.headRequest = headRequest;
+        this.idempotent = idempotent;
+        this.connectTimeout = connectTimeout;
+        this.soTimeout = soTimeout;
+        this.callback = callback;
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getSoTimeout() {
+        return soTimeout;
+    }
+
+    public ExchangeCallback getCallback() {
+        return callback;
+    }
+
+    ByteBuffer getRequestBuffer() {
+        return requestBuffer;
+    }
+
+    ClientResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Indicates whether the whole request has been written to the connection.
+     */
+    boolean isRequestSent() {
+        return requestBuffer != null && !requestBuffer.hasRemaining();
+    }
+
+    /**
+     * Marks the exchange to be sent again over a new connection, after a
+     * reused connection turned out to have been closed by the server.
+     *
+     * @return <code>false</code> if the exchange was retried before
+     */
+    boolean retry() {
+        if (retried) {
+            return false;
+        }
+        retried = true;
+        return true;
+    }
+
+    /**
+     * Indicates whether the response has been handed to the callback.
+     */
+    boolean isDispatched() {
+        return dispatched;
+    }
+
+    void setDispatched() {
+        dispatched = true;
+    }
+
+    void touch(long now) {
+        lastActivity = now;
+    }
+
+    long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * Prepares the exchange to be sent over a connection.
+     */
+    void reset(int responseBufferSize, long maxResponseSize) {
+        requestBuffer = ByteBuffer.wrap(request);
+        response = new ClientResponse(headRequest, responseBufferSize, maxResponseSize);
+    }
+
+}
@@ -0,0 +1,606 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.async;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.ProtocolException;
+
+/**
+ * Runs client HTTP exchanges over non-blocking connections on a single
+ * selector thread.  Connecting, writing the request and reading the response
+ * never block the thread that submitted the exchange; the callback is invoked
+ * on the given executor once the response is complete, or once its entity
+ * fills the response buffer, in which case the rest is streamed to the callback.
+ * The callback never runs on the reactor thread: if the executor rejects it,
+ * the exchange fails, and the failure is handed to the executor as soon as it
+ * accepts tasks again.  Connections the server allows to be kept alive are
+ * pooled per server address and reused by later exchanges on this reactor.
+ */
+public class ClientIOReactor implements Runnable {
+
+    private static final Log log = LogFactory.getLog(ClientIOReactor.class);
+
+    /** Longest time the reactor blocks in select, and so the timeout check period. */
+    private static final long SELECT_INTERVAL = 1000L; // ms
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Executor executor;
+    private final int maxIdlePerRoute;
+    private final long keepAliveTimeout;
+    private final int responseBufferSize;
+    private final long maxResponseSize;
+    private final Selector selector;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /** Exchanges waiting to be started, submitted from any thread. */
+    private final Queue<ClientExchange> pending = new ConcurrentLinkedQueue<ClientExchange>();
+
+    /** Streamed responses whose reader made room in, or closed, the entity buffer. */
+    private final Queue<Wakeup> wakeups = new ConcurrentLinkedQueue<Wakeup>();
+
+    /** Callbacks the executor rejected, to be handed to it again. */
+    private final Queue<Runnable> undelivered = new ConcurrentLinkedQueue<Runnable>();
+
+    /** Idle keep-alive connections by server address, most recently used last. */
+    private final Map<InetSocketAddress, LinkedList<Connection>> idle =
+            new HashMap<InetSocketAddress, LinkedList<Connection>>();
+
+    /** Exchanges submitted and not yet completed */
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private volatile boolean shutdown = false;
+
+    private long lastTimeoutCheck;
+
+    /**
+     * @param executor runs the exchange callbacks
+     * @param maxIdlePerRoute the most idle connections kept per server address
+     * @param keepAliveTimeout milliseconds after which idle connections are
+     *                         closed, or zero to keep them until the server
+     *                         closes them
+     * @param responseBufferSize the number of bytes of a response entity
+     *                           buffered before reading waits for the callback
+     * @param maxResponseSize the largest response entity accepted, or zero for
+     *                        no limit
+     */
+    public ClientIOReactor(Executor executor, int maxIdlePerRoute, long keepAliveTimeout,
+                           int responseBufferSize, long maxResponseSize) throws IOException {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor may not be null");
+        }
+        if (responseBufferSize <= 0) {
+            throw new IllegalArgumentException("Response buffer size must be positive: "
+                    + responseBufferSize);
+        }
+        this.executor = executor;
+        this.maxIdlePerRoute = maxIdlePerRoute;
+        this.keepAliveTimeout = keepAliveTimeout;
+        this.responseBufferSize = responseBufferSize;
+        this.maxResponseSize = maxResponseSize;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Submits an exchange.  May be called from any thread; returns at once.
+     */
+    public void execute(ClientExchange exchange) {
+        activeCount.incrementAndGet();
+        if (shutdown) {
+            dispatchFailure(exchange, new IOException("I/O reactor has been shut down"));
+            return;
+        }
+        pending.add(exchange);
+        selector.wakeup();
+    }
+
+    /**
+     * Returns the number of exchanges submitted and not yet completed.
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * Returns the number of open connections, busy or idle.
+     */
+    public int getConnectionCount() {
+        try {
+            return selector.keys().size();
+        } catch (ClosedSelectorException e) {
+            return 0;
+        }
+    }
+
+    public void run() {
+        lastTimeoutCheck = System.currentTimeMillis();
+        try {
+            while (!shutdown) {
+                selector.select(SELECT_INTERVAL);
+                redeliver();
+                startPending();
+                processWakeups();
+                processSelectedKeys();
+                long now = System.currentTimeMillis();
+                if (now - lastTimeoutCheck >= SELECT_INTERVAL) {
+                    checkTimeouts(now);
+                    lastTimeoutCheck = now;
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            log.debug("I/O reactor selector closed");
+        } catch (IOException e) {
+            log.error("I/O reactor terminated", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        selector.wakeup();
+    }
+
+    private void startPending() {
+        ClientExchange exchange;
+        while ((exchange = pending.poll()) != null) {
+            start(exchange);
+        }
+    }
+
+    private void start(ClientExchange exchange) {
+        exchange.touch(System.currentTimeMillis());
+        exchange.reset(responseBufferSize, maxResponseSize);
+
+        Connection conn = leaseIdle(exchange.getAddress());
+        if (conn != null) {
+            conn.exchange = exchange;
+            conn.key.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            conn = new Connection(channel, exchange.getAddress());
+            conn.exchange = exchange;
+            if (channel.connect(exchange.getAddress())) {
+                conn.key = channel.register(selector, SelectionKey.OP_WRITE, conn);
+            } else {
+                conn.connecting = true;
+                conn.key = channel.register(selector, SelectionKey.OP_CONNECT, conn);
+            }
+        } catch (IOException e) {
+            closeChannel(channel);
+            dispatchFailure(exchange, e);
+        }
+    }
+
+    private void processWakeups() {
+        Wakeup wakeup;
+        while ((wakeup = wakeups.poll()) != null) {
+            Connection conn = wakeup.conn;
+            if (conn.exchange != wakeup.exchange || !conn.key.isValid()) {
+                continue;
+            }
+            if (conn.exchange.getResponse().getContentBuffer().isClosed()) {
+                abort(conn);
+            } else {
+                conn.exchange.touch(System.currentTimeMillis());
+                conn.key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+            Connection conn = (Connection) key.attachment();
+            if (!key.isValid()) {
+                continue;
+            }
+            try {
+                if (key.isConnectable()) {
+                    connect(conn);
+                } else if (key.isWritable()) {
+                    write(conn);
+                } else if (key.isReadable()) {
+                    read(conn);
+                }
+            } catch (IOException e) {
+                fail(conn, e);
+            } catch (ProtocolException e) {
+                fail(conn, e);
+            }
+        }
+    }
+
+    private void connect(Connection conn) throws IOException {
+        if (conn.channel.finishConnect()) {
+            conn.connecting = false;
+            conn.exchange.touch(System.currentTimeMillis());
+            conn.key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void write(Connection conn) throws IOException {
+        ByteBuffer request = conn.exchange.getRequestBuffer();
+        conn.channel.write(request);
+        conn.exchange.touch(System.currentTimeMillis());
+        if (!request.hasRemaining()) {
+            conn.key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void read(Connection conn) throws IOException, ProtocolException {
+        readBuffer.clear();
+        int n = conn.channel.read(readBuffer);
+
+        ClientExchange exchange = conn.exchange;
+        if (exchange == null) {
+            // An idle connection only becomes readable when the server closes it
+            closeConnection(conn);
+            return;
+        }
+
+        ClientResponse response = exchange.getResponse();
+        if (n < 0) {
+            if (response.endOfStream()) {
+                complete(conn, false);
+            } else {
+                throw new ConnectionClosedException("Connection closed by the server");
+            }
+            return;
+        }
+
+        exchange.touch(System.currentTimeMillis());
+        readBuffer.flip();
+        ContentBuffer content = response.getContentBuffer();
+        if (response.consume(readBuffer)) {
+            // Any bytes past the response mean the connection is out of step
+            complete(conn, response.isKeepAlive() && !readBuffer.hasRemaining());
+        } else if (content.isClosed()) {
+            abort(conn);
+        } else if (content.suspendIfFull()) {
+            conn.key.interestOps(0);
+            if (!exchange.isDispatched()) {
+                // Too large to buffer: stream the rest to the callback
+                content.setListener(new Wakeup(conn, exchange));
+                if (!dispatchCompleted(exchange)) {
+                    abort(conn);
+                }
+            }
+        }
+    }
+
+    private void complete(Connection conn, boolean reusable) {
+        ClientExchange exchange = conn.exchange;
+        conn.exchange = null;
+        if (reusable) {
+            release(conn);
+        } else {
+            closeConnection(conn);
+        }
+        if (!exchange.isDispatched()) {
+            dispatchCompleted(exchange);
+        }
+    }
+
+    /**
+     * Closes the connection of an exchange whose callback no longer reads the
+     * response.
+     */
+    private void abort(Connection conn) {
+        conn.exchange = null;
+        closeConnection(conn);
+    }
+
+    private void fail(Connection conn, Exception e) {
+        ClientExchange exchange = conn.exchange;
+        boolean reused = conn.reused;
+        conn.exchange = null;
+        closeConnection(conn);
+        if (exchange == null) {
+            return;
+        }
+        if (exchange.isDispatched()) {
+            // The callback is already reading the streamed entity
+            exchange.getResponse().getContentBuffer().fail(toIOException(e));
+            return;
+        }
+        // A kept-alive connection may have been closed by the server just as it
+        // was reused; that is no reason to fail a request it never answered, as
+        // long as the server cannot have acted on it: the request was not sent
+        // in full, or may safely be sent twice.
+        if (reused && !exchange.getResponse().isReceived()
+                && (exchange.isIdempotent() || !exchange.isRequestSent())
+                && e instanceof IOException && !(e instanceof InterruptedIOException)
+                && exchange.retry()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Reused connection to " + exchange.getAddress()
+                        + " failed, retrying on a new connection: " + e.getMessage());
+            }
+            start(exchange);
+            return;
+        }
+        dispatchFailure(exchange, e);
+    }
+
+    private Connection leaseIdle(InetSocketAddress address) {
+        LinkedList<Connection> list = idle.get(address);
+        while (list != null && !list.isEmpty()) {
+            Connection conn = list.removeLast();
+            conn.idle = false;
+            if (conn.key.isValid() && conn.channel.isOpen()) {
+                conn.reused = true;
+                return conn;
+            }
+            closeConnection(conn);
+        }
+        return null;
+    }
+
+    private void release(Connection conn) {
+        LinkedList<Connection> list = idle.get(conn.address);
+        if (list == null) {
+            list = new LinkedList<Connection>();
+            idle.put(conn.address, list);
+        }
+        if (list.size() >= maxIdlePerRoute) {
+            closeConnection(conn);
+            return;
+        }
+        conn.idle = true;
+        conn.idleSince = System.currentTimeMillis();
+        conn.key.interestOps(SelectionKey.OP_READ);
+        list.addLast(conn);
+    }
+
+    private void checkTimeouts(long now) {
+        List<Connection> expired = new ArrayList<Connection>();
+        for (SelectionKey key : selector.keys()) {
+            Connection conn = (Connection) key.attachment();
+            if (conn == null || !key.isValid()) {
+                continue;
+            }
+            ClientExchange exchange = conn.exchange;
+            if (exchange != null) {
+                int timeout = conn.connecting
+                        ? exchange.getConnectTimeout() : exchange.getSoTimeout();
+                if (timeout > 0 && now - exchange.getLastActivity() > timeout) {
+                    expired.add(conn);
+                }
+            } else if (keepAliveTimeout > 0 && now - conn.idleSince > keepAliveTimeout) {
+                expired.add(conn);
+            }
+        }
+        for (Connection conn : expired) {
+            if (conn.exchange == null) {
+                closeConnection(conn);
+            } else {
+                fail(conn, new SocketTimeoutException((conn.connecting ? "Connect to " : "Read from ")
+                        + conn.address + " timed out"));
+            }
+        }
+    }
+
+    private void closeConnection(Connection conn) {
+        if (conn.idle) {
+            LinkedList<Connection> list = idle.get(conn.address);
+            if (list != null) {
+                list.remove(conn);
+                if (list.isEmpty()) {
+                    idle.remove(conn.address);
+                }
+            }
+            conn.idle = false;
+        }
+        if (conn.key != null) {
+            conn.key.cancel();
+        }
+        closeChannel(conn.channel);
+    }
+
+    private void closeAll() {
+        IOException shutdownException = new IOException("I/O reactor has been shut down");
+        try {
+            for (SelectionKey key : selector.keys()) {
+                Connection conn = (Connection) key.attachment();
+                if (conn != null) {
+                    ClientExchange exchange = conn.exchange;
+                    conn.exchange = null;
+                    closeChannel(conn.channel);
+                    if (exchange == null) {
+                        continue;
+                    }
+                    if (exchange.isDispatched()) {
+                        exchange.getResponse().getContentBuffer().fail(shutdownException);
+                    } else {
+                        dispatchFailure(exchange, shutdownException);
+                    }
+                }
+            }
+        } catch (ClosedSelectorException ignore) {
+        }
+        idle.clear();
+        ClientExchange exchange;
+        while ((exchange = pending.poll()) != null) {
+            dispatchFailure(exchange, shutdownException);
+        }
+        wakeups.clear();
+        redeliver();
+        if (!undelivered.isEmpty()) {
+            log.warn("Worker pool rejected the failures of " + undelivered.size()
+                    + " HTTP exchanges on shutdown; dropping them");
+            undelivered.clear();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.debug("Error closing the I/O reactor selector", e);
+        }
+    }
+
+    /**
+     * Hands the response to the callback, or fails the exchange if the
+     * executor rejects it.
+     *
+     * @return <code>false</code> if the exchange failed
+     */
+    private boolean dispatchCompleted(final ClientExchange exchange) {
+        final ClientResponse response = exchange.getResponse();
+        boolean accepted = dispatch(new Runnable() {
+            public void run() {
+                exchange.getCallback().completed(response);
+            }
+        });
+        if (accepted) {
+            exchange.setDispatched();
+            return true;
+        }
+        log.warn("Worker pool rejected the response from " + exchange.getAddress()
+                + "; failing the exchange");
+        dispatchFailure(exchange, new IOException(
+                "Worker pool rejected the response from " + exchange.getAddress()));
+        return false;
+    }
+
+    /**
+     * Hands a failure to the callback, or keeps it until the executor accepts
+     * it; the callback never runs on the reactor thread.
+     */
+    private void dispatchFailure(final ClientExchange exchange, final Exception e) {
+        Runnable task = new Runnable() {
+            public void run() {
+                exchange.getCallback().failed(e);
+            }
+        };
+        if (!dispatch(task)) {
+            undelivered.add(task);
+        }
+    }
+
+    /**
+     * Hands the failures the executor rejected to it again, in order.
+     */
+    private void redeliver() {
+        Runnable task;
+        while ((task = undelivered.peek()) != null) {
+            if (!dispatch(task)) {
+                return;
+            }
+            undelivered.poll();
+        }
+    }
+
+    private boolean dispatch(Runnable task) {
+        activeCount.decrementAndGet();
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            activeCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private static IOException toIOException(Exception e) {
+        if (e instanceof IOException) {
+            return (IOException) e;
+        }
+        IOException ioe = new IOException(e.getMessage());
+        ioe.initCause(e);
+        return ioe;
+    }
+
+    private static void closeChannel(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Error closing connection", e);
+            }
+        }
+    }
+
+    /**
+     * Run by the reader of a streamed entity, to have the reactor read more of
+     * it or drop the connection.
+     */
+    private class Wakeup implements Runnable {
+        final Connection conn;
+        final ClientExchange exchange;
+
+        Wakeup(Connection conn, ClientExchange exchange) {
+            this.conn = conn;
+            this.exchange = exchange;
+        }
+
+        public void run() {
+            wakeups.add(this);
+            selector.wakeup();
+        }
+    }
+
+    /** A client connection, owned by the reactor thread */
+    private static class Connection {
+        final SocketChannel channel;
+        final InetSocketAddress address;
+        SelectionKey key;
+        ClientExchange exchange;
+        boolean connecting = false;
+        boolean reused = false;
+        boolean idle = false;
+        long idleSince;
+
+        Connection(SocketChannel channel, InetSocketAddress address) {
+            this.channel = channel;
+            this.address = address;
+        }
+    }
+
+}
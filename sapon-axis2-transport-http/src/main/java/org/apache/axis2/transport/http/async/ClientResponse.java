@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.async;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.http.ProtocolException;
+
+/**
+ * An HTTP response that is parsed incrementally as the reactor reads it from
+ * the connection.  An entity that fits the buffer is received in full before
+ * the exchange completes, so that the worker thread completing it never has to
+ * wait for the network; a larger one is streamed to the worker as it arrives.
+ * An entity longer than the maximum size fails the exchange.
+ */
+public class ClientResponse {
+
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    private static final int HEAD = 0;
+    private static final int BODY = 1;
+    private static final int CHUNK_SIZE = 2;
+    private static final int CHUNK_DATA = 3;
+    private static final int CHUNK_END = 4;
+    private static final int TRAILERS = 5;
+    private static final int UNTIL_CLOSE = 6;
+    private static final int DONE = 7;
+
+    private final boolean headRequest;
+    private final long maxContentLength;
+
+    private int state = HEAD;
+
+    private int statusCode;
+    private String reasonPhrase;
+    private String protocolVersion;
+    private final List<String[]> headers = new ArrayList<String[]>();
+    private final Map<String, String> headerIndex =
+            new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+
+    /** Bytes of the current header or chunk-size line. */
+    private final StringBuilder line = new StringBuilder();
+    private int headSize;
+
+    private final ContentBuffer content;
+    private long bodyLength;
+    private long remaining;
+
+    private boolean received = false;
+
+    /**
+     * @param headRequest whether the request was a HEAD request, whose response
+     *                    has no entity
+     * @param bufferSize the number of entity bytes buffered before the reactor
+     *                   waits for the worker to read them
+     * @param maxContentLength the largest entity accepted, or zero or less for
+     *                         no limit
+     */
+    public ClientResponse(boolean headRequest, int bufferSize, long maxContentLength) {
+        this.headRequest = headRequest;
+        this.maxContentLength = maxContentLength;
+        this.content = new ContentBuffer(bufferSize);
+    }
+
+    /**
+     * Consumes bytes read from the connection.
+     *
+     * @return <code>true</code> once the response is complete
+     */
+    public boolean consume(ByteBuffer src) throws ProtocolException {
+        if (src.hasRemaining()) {
+            received = true;
+        }
+        while (src.hasRemaining() && state != DONE) {
+            switch (state) {
+                case HEAD:
+                case CHUNK_SIZE:
+                case CHUNK_END:
+                case TRAILERS:
+                    String l = readLine(src);
+                    if (l != null) {
+                        processLine(l);
+                    }
+                    break;
+                case BODY:
+                case CHUNK_DATA:
+                    int n = (int) Math.min(remaining, src.remaining());
+                    append(src, n);
+                    remaining -= n;
+                    if (remaining == 0) {
+                        if (state == BODY) {
+                            done();
+                        } else {
+                            state = CHUNK_END;
+                        }
+                    }
+                    break;
+                case UNTIL_CLOSE:
+                    append(src, src.remaining());
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+        return state == DONE;
+    }
+
+    /**
+     * Signals that the server closed the connection.
+     *
+     * @return <code>true</code> if that completed the response
+     */
+    public boolean endOfStream() {
+        if (state == UNTIL_CLOSE) {
+            done();
+        }
+        return state == DONE;
+    }
+
+    /**
+     * Indicates whether any bytes of the response arrived yet.
+     */
+    public boolean isReceived() {
+        return received;
+    }
+
+    public boolean isComplete() {
+        return state == DONE;
+    }
+
+    /**
+     * Indicates whether the server allows the connection to be reused.
+     */
+    public boolean isKeepAlive() {
+        String connection = getHeader("Connection");
+        if (connection != null && connection.equalsIgnoreCase("close")) {
+            return false;
+        }
+        if ("HTTP/1.0".equalsIgnoreCase(protocolVersion)) {
+            return connection != null && connection.equalsIgnoreCase("keep-alive");
+        }
+        return true;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getReasonPhrase() {
+        return reasonPhrase;
+    }
+
+    /**
+     * Returns the value of the last header with the given name, ignoring case.
+     */
+    public String getHeader(String name) {
+        return headerIndex.get(name);
+    }
+
+    /**
+     * Returns all headers as name and value pairs, in the order received.
+     */
+    public List<String[]> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the number of entity bytes received so far.
+     */
+    public long getContentLength() {
+        return bodyLength;
+    }
+
+    /**
+     * Returns the entity.  Unless the response is complete, reading it waits
+     * for the rest to arrive, and fails if the exchange does.
+     */
+    public InputStream getContent() {
+        return content;
+    }
+
+    ContentBuffer getContentBuffer() {
+        return content;
+    }
+
+    private String readLine(ByteBuffer src) throws ProtocolException {
+        while (src.hasRemaining()) {
+            byte b = src.get();
+            if (++headSize > MAX_HEAD_SIZE) {
+                throw new ProtocolException("Response head exceeds " + MAX_HEAD_SIZE + " bytes");
+            }
+            if (b == '\n') {
+                int len = line.length();
+                if (len > 0 && line.charAt(len - 1) == '\r') {
+                    line.setLength(len - 1);
+                }
+                String l = line.toString();
+                line.setLength(0);
+                return l;
+            }
+            // ISO-8859-1, as in the HTTP specification
+            line.append((char) (b & 0xff));
+        }
+        return null;
+    }
+
+    private void processLine(String l) throws ProtocolException {
+        switch (state) {
+            case HEAD:
+                if (protocolVersion == null) {
+                    if (l.length() > 0) {
+                        parseStatusLine(l);
+                    }
+                } else if (l.length() > 0) {
+                    parseHeader(l);
+                } else if (statusCode >= 100 && statusCode < 200) {
+                    // Interim response; the real one follows
+                    protocolVersion = null;
+                    headers.clear();
+                    headerIndex.clear();
+                } else {
+                    startBody();
+                }
+                break;
+            case CHUNK_SIZE:
+                int semicolon = l.indexOf(';');
+                String size = (semicolon < 0 ? l : l.substring(0, semicolon)).trim();
+                try {
+                    remaining = Long.parseLong(size, 16);
+                } catch (NumberFormatException e) {
+                    throw new ProtocolException("Invalid chunk size: " + l);
+                }
+                if (remaining < 0) {
+                    throw new ProtocolException("Invalid chunk size: " + l);
+                }
+                state = (remaining == 0) ? TRAILERS : CHUNK_DATA;
+                break;
+            case CHUNK_END:
+                if (l.length() > 0) {
+                    throw new ProtocolException("Chunk not followed by CRLF");
+                }
+                state = CHUNK_SIZE;
+                break;
+            case TRAILERS:
+                if (l.length() == 0) {
+                    done();
+                }
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    private void parseStatusLine(String l) throws ProtocolException {
+        int first = l.indexOf(' ');
+        if (first < 0 || !l.startsWith("HTTP/")) {
+            throw new ProtocolException("Invalid status line: " + l);
+        }
+        int second = l.indexOf(' ', first + 1);
+        protocolVersion = l.substring(0, first);
+        try {
+            statusCode = Integer.parseInt(
+                    second < 0 ? l.substring(first + 1) : l.substring(first + 1, second));
+        } catch (NumberFormatException e) {
+            throw new ProtocolException("Invalid status line: " + l);
+        }
+        reasonPhrase = second < 0 ? "" : l.substring(second + 1);
+    }
+
+    private void parseHeader(String l) throws ProtocolException {
+        int colon = l.indexOf(':');
+        if (colon <= 0) {
+            throw new ProtocolException("Invalid header: " + l);
+        }
+        String name = l.substring(0, colon).trim();
+        String value = l.substring(colon + 1).trim();
+        headers.add(new String[] { name, value });
+        headerIndex.put(name, value);
+    }
+
+    private void startBody() throws ProtocolException {
+        headSize = 0;
+        if (headRequest || statusCode == 204 || statusCode == 304) {
+            done();
+            return;
+        }
+        String transferEncoding = getHeader("Transfer-Encoding");
+        String contentLength = getHeader("Content-Length");
+        if (transferEncoding != null && transferEncoding.equalsIgnoreCase("chunked")) {
+            state = CHUNK_SIZE;
+        } else if (contentLength != null) {
+            try {
+                remaining = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                throw new ProtocolException("Invalid Content-Length: " + contentLength);
+            }
+            if (remaining < 0) {
+                throw new ProtocolException("Invalid Content-Length: " + contentLength);
+            }
+            if (maxContentLength > 0 && remaining > maxContentLength) {
+                throw new ProtocolException("Content-Length " + remaining
+                        + " exceeds the limit of " + maxContentLength + " bytes");
+            }
+            if (remaining == 0) {
+                done();
+            } else {
+                state = BODY;
+            }
+        } else {
+            state = UNTIL_CLOSE;
+        }
+    }
+
+    private void append(ByteBuffer src, int n) throws ProtocolException {
+        bodyLength += n;
+        if (maxContentLength > 0 && bodyLength > maxContentLength) {
+            throw new ProtocolException("Response entity exceeds the limit of "
+                    + maxContentLength + " bytes");
+        }
+        content.write(src, n);
+    }
+
+    private void done() {
+        state = DONE;
+        content.end();
+    }
+
+    @Override
+    public String toString() {
+        return protocolVersion + " " + statusCode + " " + reasonPhrase;
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.async;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The entity of a {@link ClientResponse}, written by the I/O reactor and read
+ * as a stream by the worker thread completing the exchange.  The reactor stops
+ * reading from the connection once the buffer holds its capacity, and the
+ * listener is run as soon as the reader made room again, or closed the stream
+ * before the entity was complete.
+ */
+class ContentBuffer extends InputStream {
+
+    private static final int MIN_ALLOCATION = 1024;
+
+    private final int capacity;
+
+    private byte[] buffer = new byte[0];
+    private int start;
+    private int end;
+
+    private boolean ended = false;
+    private boolean closed = false;
+    private boolean suspended = false;
+    private IOException error;
+
+    private Runnable listener;
+
+    /**
+     * @param capacity the number of bytes buffered before the reactor stops
+     *                 reading; a single read may exceed it
+     */
+    ContentBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    synchronized void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Appends bytes of the entity, or drops them if the reader closed the stream.
+     */
+    synchronized void write(ByteBuffer src, int n) {
+        if (closed) {
+            src.position(src.position() + n);
+            return;
+        }
+        if (end + n > buffer.length) {
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+            if (end + n > buffer.length) {
+                byte[] grown = new byte[Math.max(end + n,
+                        Math.min(capacity, Math.max(buffer.length * 2, MIN_ALLOCATION)))];
+                System.arraycopy(buffer, 0, grown, 0, end);
+                buffer = grown;
+            }
+        }
+        src.get(buffer, end, n);
+        end += n;
+        notifyAll();
+    }
+
+    /**
+     * Marks the entity as complete.
+     */
+    synchronized void end() {
+        ended = true;
+        notifyAll();
+    }
+
+    /**
+     * Fails the entity; the reader gets the exception once the bytes buffered
+     * so far have been read.
+     */
+    synchronized void fail(IOException e) {
+        if (!ended && error == null) {
+            error = e;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Tells the reactor whether to stop reading.  If so, the listener is run
+     * once the reader has made room.
+     */
+    synchronized boolean suspendIfFull() {
+        if (!closed && end - start >= capacity) {
+            suspended = true;
+        }
+        return suspended;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Returns the number of bytes buffered and not yet read.
+     */
+    synchronized int size() {
+        return end - start;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        Runnable wakeup = null;
+        int n;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            while (start == end && !ended && error == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for the response");
+                }
+            }
+            if (start == end) {
+                if (error != null) {
+                    throw error;
+                }
+                return -1;
+            }
+            n = Math.min(len, end - start);
+            System.arraycopy(buffer, start, b, off, n);
+            start += n;
+            if (start == end) {
+                start = end = 0;
+            }
+            if (suspended && end - start < capacity) {
+                suspended = false;
+                wakeup = listener;
+            }
+        }
+        if (wakeup != null) {
+            wakeup.run();
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        return end - start;
+    }
+
+    @Override
+    public void close() {
+        Runnable wakeup;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer = new byte[0];
+            start = end = 0;
+            suspended = false;
+            wakeup = (ended || error != null) ? null : listener;
+        }
+        // Let the reactor drop the connection rather than read the rest
+        if (wakeup != null) {
+            wakeup.run();
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.async;
+
+/**
+ * Completion callback of a {@link ClientExchange}.  Both methods are invoked
+ * on a worker thread, never on the I/O reactor thread, and exactly one of them
+ * is invoked once per exchange.
+ */
+public interface ExchangeCallback {
+
+    /**
+     * Called once the complete response has been received.
+     */
+    public void completed(ClientResponse response);
+
+    /**
+     * Called if the request could not be sent or the response not received.
+     */
+    public void failed(Exception e);
+
+}
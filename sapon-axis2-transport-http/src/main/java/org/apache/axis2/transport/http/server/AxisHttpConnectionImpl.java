@@ -92,7 +92,7 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
         int buffersize = HttpConnectionParams.getSocketBufferSize(params);
         this.socket = socket;
         this.outbuffer = new SocketOutputBuffer(socket, buffersize, params); 
-        this.inbuffer = new SocketInputBuffer(socket, buffersize, params); 
+        this.inbuffer = createSessionInputBuffer(socket, buffersize, params);
         this.contentLenStrategy = new StrictContentLengthStrategy();
         this.requestParser = new HttpRequestParser(
                 this.inbuffer, null, new DefaultHttpRequestFactory(), params);
@@ -100,6 +100,19 @@ public class AxisHttpConnectionImpl implements AxisHttpConnection {
                 this.outbuffer, null, params);
     }
 
+    /**
+     * Creates the buffer requests are parsed from.  Called from the constructor,
+     * so implementations must not rely on subclass state.
+     */
+    protected SessionInputBuffer createSessionInputBuffer(final Socket socket,
+            int buffersize, final HttpParams params) throws IOException {
+        return new SocketInputBuffer(socket, buffersize, params);
+    }
+
+    protected SessionInputBuffer getSessionInputBuffer() {
+        return this.inbuffer;
+    }
+
     public void close() throws IOException {
         this.outbuffer.flush();
         try {
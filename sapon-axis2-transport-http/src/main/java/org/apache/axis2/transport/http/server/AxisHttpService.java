@@ -43,6 +43,7 @@ import org.apache.axis2.description.TransportInDescription;
 import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.engine.AxisEngine;
 import org.apache.axis2.transport.RequestResponseTransport;
+import org.apache.axis2.transport.TransportUtils;
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.axis2.util.MessageContextBuilder;
 import org.apache.commons.logging.Log;
@@ -320,6 +321,9 @@ public class AxisHttpService {
                 }
             }
             AxisEngine.sendFault(faultContext);
+        } finally {
+            // The request has been processed, release the storage of its attachments
+            TransportUtils.deleteAttachments(msgContext);
         }
     }
 
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+
+import org.apache.http.impl.io.AbstractSessionInputBuffer;
+import org.apache.http.params.HttpParams;
+
+/**
+ * Session input buffer over the socket of a blocking mode
+ * {@link java.nio.channels.SocketChannel}, which first returns any bytes that
+ * an I/O reactor already read from the channel while waiting for the request
+ * head.
+ */
+public class ChannelSessionInputBuffer extends AbstractSessionInputBuffer {
+
+    private final Socket socket;
+    private final UnreadInputStream instream;
+
+    public ChannelSessionInputBuffer(final Socket socket, int buffersize,
+            final HttpParams params) throws IOException {
+        super();
+        if (socket == null) {
+            throw new IllegalArgumentException("Socket may not be null");
+        }
+        this.socket = socket;
+        if (buffersize < 0) {
+            buffersize = socket.getReceiveBufferSize();
+        }
+        if (buffersize < 1024) {
+            buffersize = 1024;
+        }
+        this.instream = new UnreadInputStream(socket.getInputStream());
+        init(this.instream, buffersize, params);
+    }
+
+    /**
+     * Pushes bytes back in front of the socket stream.  Must only be called
+     * while no data is buffered.
+     */
+    public void unread(final byte[] b, int off, int len) {
+        if (hasBufferedData()) {
+            throw new IllegalStateException("Input buffer is not empty");
+        }
+        this.instream.unread(b, off, len);
+    }
+
+    /**
+     * Indicates whether bytes have been received that were not yet parsed.
+     */
+    @Override
+    public boolean hasBufferedData() {
+        return super.hasBufferedData() || this.instream.hasUnread();
+    }
+
+    public boolean isDataAvailable(int timeout) throws IOException {
+        boolean result = hasBufferedData();
+        if (!result) {
+            int oldtimeout = this.socket.getSoTimeout();
+            try {
+                this.socket.setSoTimeout(timeout);
+                fillBuffer();
+                result = hasBufferedData();
+            } finally {
+                this.socket.setSoTimeout(oldtimeout);
+            }
+        }
+        return result;
+    }
+
+    private static class UnreadInputStream extends FilterInputStream {
+
+        private byte[] unread;
+        private int pos;
+        private int end;
+
+        UnreadInputStream(final InputStream in) {
+            super(in);
+        }
+
+        void unread(final byte[] b, int off, int len) {
+            this.unread = b;
+            this.pos = off;
+            this.end = off + len;
+        }
+
+        boolean hasUnread() {
+            return this.pos < this.end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (hasUnread()) {
+                return this.unread[this.pos++] & 0xff;
+            }
+            return super.read();
+        }
+
+        @Override
+        public int read(final byte[] b, int off, int len) throws IOException {
+            if (hasUnread()) {
+                int n = Math.min(len, this.end - this.pos);
+                System.arraycopy(this.unread, this.pos, b, off, n);
+                this.pos += n;
+                if (!hasUnread()) {
+                    this.unread = null;
+                }
+                return n;
+            }
+            return super.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (this.end - this.pos) + super.available();
+        }
+
+    }
+
+}
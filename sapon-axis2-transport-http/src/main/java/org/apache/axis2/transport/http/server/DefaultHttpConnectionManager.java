@@ -23,8 +23,10 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.transport.base.threads.AdmissionControl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.ConnectionReuseStrategy;
@@ -52,6 +54,9 @@ public class DefaultHttpConnectionManager implements HttpConnectionManager {
 
     private final HttpParams params;
 
+    /** Admission control of the connections handed to the executor, or null */
+    private final AdmissionControl admission;
+
     /** The list of processors. */
     // XXX: is this list really needed?
     private final List<IOProcessor> processors;
@@ -62,6 +67,12 @@ public class DefaultHttpConnectionManager implements HttpConnectionManager {
     public DefaultHttpConnectionManager(final ConfigurationContext configurationContext,
             final Executor executor, final WorkerFactory workerfactory,
             final HttpParams params) {
+        this(configurationContext, executor, workerfactory, params, (AdmissionControl) null);
+    }
+
+    public DefaultHttpConnectionManager(final ConfigurationContext configurationContext,
+            final Executor executor, final WorkerFactory workerfactory,
+            final HttpParams params, final AdmissionControl admission) {
         super();
         if (configurationContext == null) {
             throw new IllegalArgumentException("Configuration context may not be null");
@@ -79,6 +90,7 @@ public class DefaultHttpConnectionManager implements HttpConnectionManager {
         this.executor = executor;
         this.workerfactory = workerfactory;
         this.params = params;
+        this.admission = admission;
         this.processors = new LinkedList<IOProcessor>();
     }
 
@@ -144,6 +156,16 @@ public class DefaultHttpConnectionManager implements HttpConnectionManager {
         if (conn == null) {
             throw new IllegalArgumentException("HTTP connection may not be null");
         }
+        // Refuse the connection right away when too many are waiting for a thread
+        if (this.admission != null && !this.admission.admit()) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Too many connections waiting to be processed, refusing " + conn);
+            }
+            refuse(conn);
+            return;
+        }
+        long admitted = this.admission != null ? System.currentTimeMillis() : 0L;
+
         // Evict destroyed processors
         cleanup();
 
@@ -184,10 +206,44 @@ public class DefaultHttpConnectionManager implements HttpConnectionManager {
             }
 
         };
-        IOProcessor processor = new HttpServiceProcessor(httpService, conn, callback);
+        IOProcessor processor = new HttpServiceProcessor(httpService, conn, callback,
+                this.admission, admitted);
 
         addProcessor(processor);
-        this.executor.execute(processor);
+        try {
+            this.executor.execute(processor);
+        } catch (RejectedExecutionException ex) {
+            removeProcessor(processor);
+            if (this.admission != null) {
+                this.admission.cancel();
+            }
+            LOG.warn("Request executor overloaded, refusing connection : " + ex.getMessage());
+            refuse(conn);
+        }
+    }
+
+    /**
+     * Answers 503 on a connection that cannot be processed now, and closes it.
+     * Connections dispatched by a {@link SelectorIOReactor} are refused on its
+     * thread, so they are answered without blocking.
+     */
+    private void refuse(final AxisHttpConnection conn) {
+        if (conn instanceof SelectorHttpConnection) {
+            ((SelectorHttpConnection) conn).refuse();
+            return;
+        }
+        try {
+            HttpUtils.sendServiceUnavailable(conn);
+        } catch (Exception ex) {
+            LOG.debug("I/O error refusing connection", ex);
+        }
+    }
+
+    /**
+     * @return the admission control of this connection manager, or null
+     */
+    public AdmissionControl getAdmissionControl() {
+        return this.admission;
     }
 
 
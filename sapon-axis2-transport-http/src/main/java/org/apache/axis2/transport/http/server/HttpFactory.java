@@ -32,6 +32,7 @@ import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.TransportInDescription;
 import org.apache.axis2.engine.ListenerManager;
+import org.apache.axis2.transport.base.threads.AdmissionControl;
 import org.apache.axis2.transport.http.HTTPWorkerFactory;
 import org.apache.http.ConnectionReuseStrategy;
 import org.apache.http.HttpResponseFactory;
@@ -100,6 +101,36 @@ public class HttpFactory {
      */
     public static final String PARAMETER_THREAD_KEEP_ALIVE_TIME_UNIT = "threadKeepAliveTimeUnit";
 
+    /**
+     * Name of axis2.xml listenerMode parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_LISTENER_MODE = "listenerMode";
+
+    /**
+     * Name of axis2.xml ioThreadCount parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_IO_THREAD_COUNT = "ioThreadCount";
+
+    /**
+     * Name of axis2.xml requestQueueLimit parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_REQUEST_QUEUE_LIMIT = "requestQueueLimit";
+
+    /**
+     * Name of axis2.xml requestQueueTimeout parameter for SimpleHTTPServer configuration
+     */
+    public static final String PARAMETER_REQUEST_QUEUE_TIMEOUT = "requestQueueTimeout";
+
+    /**
+     * listenerMode value for a thread per connection (the default)
+     */
+    public static final String LISTENER_MODE_BLOCKING = "blocking";
+
+    /**
+     * listenerMode value for multiplexing idle connections over I/O reactor threads
+     */
+    public static final String LISTENER_MODE_SELECTOR = "selector";
+
     private ConfigurationContext configurationContext;
     private TransportInDescription httpConfiguration;
     private int port;
@@ -111,6 +142,10 @@ public class HttpFactory {
     private int requestMaxThreadPoolSize;
     private long threadKeepAliveTime;
     private TimeUnit threadKeepAliveTimeUnit;
+    private String listenerMode;
+    private int ioThreadCount;
+    private int requestQueueLimit;
+    private long requestQueueTimeout;
 
     private WorkerFactory requestWorkerFactory = null;
 
@@ -130,6 +165,17 @@ public class HttpFactory {
         threadKeepAliveTime = getLongParam(PARAMETER_THREAD_KEEP_ALIVE_TIME, 180L);
         threadKeepAliveTimeUnit =
                 getTimeUnitParam(PARAMETER_THREAD_KEEP_ALIVE_TIME_UNIT, TimeUnit.SECONDS);
+        listenerMode = getStringParam(PARAMETER_LISTENER_MODE, LISTENER_MODE_BLOCKING);
+        if (!LISTENER_MODE_BLOCKING.equals(listenerMode)
+                && !LISTENER_MODE_SELECTOR.equals(listenerMode)) {
+            throw new AxisFault("Listener mode must be " + LISTENER_MODE_BLOCKING + " or " +
+                    LISTENER_MODE_SELECTOR + " for parameter " + PARAMETER_LISTENER_MODE +
+                    ":  " + listenerMode);
+        }
+        ioThreadCount = getIntParam(PARAMETER_IO_THREAD_COUNT,
+                                    Runtime.getRuntime().availableProcessors());
+        requestQueueLimit = getIntParam(PARAMETER_REQUEST_QUEUE_LIMIT, 0);
+        requestQueueTimeout = getLongParam(PARAMETER_REQUEST_QUEUE_TIMEOUT, 0L);
     }
 
     /**
@@ -236,6 +282,14 @@ public class HttpFactory {
             int port,
             final HttpConnectionManager manager,
             final HttpParams params) throws IOException {
+        if (LISTENER_MODE_SELECTOR.equals(listenerMode)) {
+            return new SelectorConnectionListener(
+                    port,
+                    manager,
+                    new DefaultConnectionListenerFailureHandler(),
+                    params,
+                    ioThreadCount);
+        }
         return new DefaultConnectionListener(
                 port,
                 manager,
@@ -265,7 +319,18 @@ public class HttpFactory {
                                                              WorkerFactory workerFactory,
                                                              HttpParams params) {
         return new DefaultHttpConnectionManager(configurationContext, requestExecutor,
-                                                workerFactory, params);
+                                                workerFactory, params, newAdmissionControl());
+    }
+
+    /**
+     * Create the admission control for connections waiting for a request thread, or null
+     * when neither requestQueueLimit nor requestQueueTimeout is set
+     */
+    public AdmissionControl newAdmissionControl() {
+        if (requestQueueLimit <= 0 && requestQueueTimeout <= 0) {
+            return null;
+        }
+        return new AdmissionControl(requestQueueLimit, requestQueueTimeout);
     }
 
     /**
@@ -481,4 +546,72 @@ public class HttpFactory {
         this.threadKeepAliveTimeUnit = threadKeepAliveTimeUnit;
     }
 
+    /**
+     * Getter for listenerMode
+     *
+     * @return "selector" if idle connections are parked on I/O reactor threads and only
+     *         dispatched to a request thread once a request head has arrived, or "blocking"
+     *         if each connection holds a request thread until it is closed (default "blocking")
+     */
+    public String getListenerMode() {
+        return listenerMode;
+    }
+
+    /**
+     * Setter for listenerMode
+     */
+    public void setListenerMode(String listenerMode) {
+        this.listenerMode = listenerMode;
+    }
+
+    /**
+     * Getter for ioThreadCount
+     *
+     * @return the number of I/O reactor threads used in selector listener mode
+     *         (default the number of available processors)
+     */
+    public int getIoThreadCount() {
+        return ioThreadCount;
+    }
+
+    /**
+     * Setter for ioThreadCount
+     */
+    public void setIoThreadCount(int ioThreadCount) {
+        this.ioThreadCount = ioThreadCount;
+    }
+
+    /**
+     * Getter for requestQueueLimit
+     *
+     * @return the maximum number of connections waiting for a request thread before new ones
+     *         are refused with 503 Service Unavailable (default 0, no limit)
+     */
+    public int getRequestQueueLimit() {
+        return requestQueueLimit;
+    }
+
+    /**
+     * Setter for requestQueueLimit
+     */
+    public void setRequestQueueLimit(int requestQueueLimit) {
+        this.requestQueueLimit = requestQueueLimit;
+    }
+
+    /**
+     * Getter for requestQueueTimeout
+     *
+     * @return the maximum time in millis a connection may wait for a request thread before
+     *         it is refused with 503 Service Unavailable (default 0, no limit)
+     */
+    public long getRequestQueueTimeout() {
+        return requestQueueTimeout;
+    }
+
+    /**
+     * Setter for requestQueueTimeout
+     */
+    public void setRequestQueueTimeout(long requestQueueTimeout) {
+        this.requestQueueTimeout = requestQueueTimeout;
+    }
 }
@@ -26,6 +26,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.axis2.AxisFault;
+import org.apache.axis2.transport.base.threads.AdmissionControl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.ConnectionClosedException;
@@ -51,6 +52,10 @@ public class HttpServiceProcessor implements IOProcessor {
 
     private final IOProcessorCallback callback;
 
+    private final AdmissionControl admission;
+
+    private final long admitted;
+
     /**
      * Unique identifier used by {@linkplain #equals(Object)} and
      * {@linkplain #hashCode()}.
@@ -65,10 +70,22 @@ public class HttpServiceProcessor implements IOProcessor {
 
     public HttpServiceProcessor(final AxisHttpService httpservice,
             final AxisHttpConnection conn, final IOProcessorCallback callback) {
+        this(httpservice, conn, callback, null, 0L);
+    }
+
+    /**
+     * @param admission the admission control that admitted this connection, or null
+     * @param admitted  the time in milliseconds at which it was admitted
+     */
+    public HttpServiceProcessor(final AxisHttpService httpservice,
+            final AxisHttpConnection conn, final IOProcessorCallback callback,
+            final AdmissionControl admission, final long admitted) {
         super();
         this.httpservice = httpservice;
         this.conn = conn;
         this.callback = callback;
+        this.admission = admission;
+        this.admitted = admitted;
         this.terminated = new AtomicBoolean(false);
 
         id = counter.incrementAndGet();
@@ -78,9 +95,25 @@ public class HttpServiceProcessor implements IOProcessor {
     public void run() {
         LOG.debug("New connection thread");
         HttpContext context = new BasicHttpContext(null);
+        boolean suspended = false;
         try {
+            if (this.admission != null && !this.admission.start(this.admitted)) {
+                // Waited too long for a thread, the client has probably given up
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Connection waited more than " + this.admission.getMaxQueueTime()
+                            + "ms to be processed, refusing it");
+                }
+                HttpUtils.sendServiceUnavailable(this.conn);
+                return;
+            }
             while (! Thread.interrupted() && ! isDestroyed() && this.conn.isOpen()) {
                 this.httpservice.handleRequest(this.conn, context);
+                if (this.conn instanceof SuspendableHttpConnection
+                        && ((SuspendableHttpConnection) this.conn).suspend()) {
+                    // The connection now belongs to its I/O reactor again
+                    suspended = true;
+                    break;
+                }
             }
         } catch (ConnectionClosedException ex) {
             LOG.debug("Client closed connection", ex);
@@ -99,7 +132,11 @@ public class HttpServiceProcessor implements IOProcessor {
                 LOG.warn("HTTP protocol error: " + ex.getMessage(), ex);
             }
         } finally {
-            destroy();
+            if (suspended) {
+                this.terminated.set(true);
+            } else {
+                destroy();
+            }
             if (this.callback == null) {
                 throw new NullPointerException("The callback object can't be null");
             }
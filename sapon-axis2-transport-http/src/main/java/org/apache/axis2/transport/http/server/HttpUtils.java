@@ -19,8 +19,16 @@
 
 package org.apache.axis2.transport.http.server;
 
+import java.io.IOException;
+
 import org.apache.axis2.transport.http.HTTPConstants;
 import org.apache.http.Header;
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HTTP;
 
 public class HttpUtils {
 
@@ -39,4 +47,22 @@ public class HttpUtils {
         }
     }
 
+    /**
+     * Refuse a connection that could not be admitted for processing: answer
+     * 503 Service Unavailable without reading the request, and close it.
+     */
+    public static void sendServiceUnavailable(final AxisHttpConnection conn)
+            throws HttpException, IOException {
+        HttpResponse response = new BasicHttpResponse(
+                HttpVersion.HTTP_1_1, HttpStatus.SC_SERVICE_UNAVAILABLE, "Service Unavailable");
+        response.addHeader(HTTP.CONTENT_LEN, "0");
+        response.addHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+        try {
+            conn.sendResponse(response);
+            conn.flush();
+        } finally {
+            conn.close();
+        }
+    }
+
 }
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.params.HttpParams;
+
+/**
+ * Connection listener that spreads accepted connections over a small number of
+ * {@link SelectorIOReactor}s, rather than handing every connection to its own
+ * worker thread for as long as the client keeps it alive.  Workers are only
+ * used while a request is actually being processed.
+ */
+public class SelectorConnectionListener implements IOProcessor {
+
+    private static Log LOG = LogFactory.getLog(SelectorConnectionListener.class);
+
+    private volatile boolean destroyed = false;
+
+    private final int port;
+    private final ConnectionListenerFailureHandler failureHandler;
+    private final SelectorIOReactor[] reactors;
+    private final ExecutorService reactorExecutor;
+
+    private ServerSocketChannel serverChannel = null;
+    private int nextReactor = 0;
+
+    public SelectorConnectionListener(
+            int port,
+            final HttpConnectionManager connmanager,
+            final ConnectionListenerFailureHandler failureHandler,
+            final HttpParams params,
+            int ioThreadCount) throws IOException {
+        super();
+        if (connmanager == null) {
+            throw new IllegalArgumentException("Connection manager may not be null");
+        }
+        if (failureHandler == null) {
+            throw new IllegalArgumentException("Failure handler may not be null");
+        }
+        if (params == null) {
+            throw new IllegalArgumentException("HTTP parameters may not be null");
+        }
+        if (ioThreadCount < 1) {
+            throw new IllegalArgumentException("I/O thread count must be positive");
+        }
+        this.port = port;
+        this.failureHandler = failureHandler;
+        this.reactors = new SelectorIOReactor[ioThreadCount];
+        for (int i = 0; i < ioThreadCount; i++) {
+            this.reactors[i] = new SelectorIOReactor(connmanager, params);
+        }
+        this.reactorExecutor = Executors.newFixedThreadPool(ioThreadCount,
+                new DefaultThreadFactory(new ThreadGroup("I/O reactor thread group"),
+                                         "HttpIOReactor-" + port));
+    }
+
+    public void run() {
+        for (SelectorIOReactor reactor : this.reactors) {
+            this.reactorExecutor.execute(reactor);
+        }
+        try {
+            while (!Thread.interrupted()) {
+                try {
+                    if (serverChannel == null || !serverChannel.isOpen()) {
+                        if (LOG.isInfoEnabled()) {
+                            LOG.info("Listening on port " + port + " with "
+                                    + reactors.length + " I/O reactor(s)");
+                        }
+                        serverChannel = ServerSocketChannel.open();
+                        serverChannel.socket().setReuseAddress(true);
+                        serverChannel.socket().bind(new InetSocketAddress(port));
+                    }
+                    LOG.debug("Waiting for incoming HTTP connection");
+                    SocketChannel channel = this.serverChannel.accept();
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Incoming HTTP connection from " +
+                                channel.socket().getRemoteSocketAddress());
+                    }
+                    nextReactor().register(channel);
+                } catch (AsynchronousCloseException ace) {
+                    break;
+                } catch (InterruptedIOException ie) {
+                    break;
+                } catch (Throwable ex) {
+                    if (Thread.interrupted()) {
+                        break;
+                    }
+                    if (!failureHandler.failed(this, ex)) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            destroy();
+        }
+    }
+
+    private SelectorIOReactor nextReactor() {
+        SelectorIOReactor reactor = this.reactors[this.nextReactor];
+        this.nextReactor = (this.nextReactor + 1) % this.reactors.length;
+        return reactor;
+    }
+
+    /**
+     * Returns the number of connections currently idle in the I/O reactors.
+     */
+    public int getIdleConnectionCount() {
+        int count = 0;
+        for (SelectorIOReactor reactor : this.reactors) {
+            count += reactor.getConnectionCount();
+        }
+        return count;
+    }
+
+    public void close() throws IOException {
+        if (this.serverChannel != null) {
+            this.serverChannel.close();
+        }
+    }
+
+    public void destroy() {
+        this.destroyed = true;
+        try {
+            close();
+        } catch (IOException ex) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("I/O error closing listener", ex);
+            }
+        }
+        for (SelectorIOReactor reactor : this.reactors) {
+            reactor.shutdown();
+        }
+        this.reactorExecutor.shutdown();
+    }
+
+    public boolean isDestroyed() {
+        return this.destroyed;
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import org.apache.http.io.SessionInputBuffer;
+import org.apache.http.params.HttpParams;
+import org.apache.http.util.EncodingUtils;
+
+/**
+ * Connection dispatched by a {@link SelectorIOReactor} once a complete request
+ * head has been received.  The channel is in blocking mode for as long as a
+ * worker is processing it, and is returned to the reactor by
+ * {@link #suspend()} when the worker is done.
+ */
+public class SelectorHttpConnection extends AxisHttpConnectionImpl
+        implements SuspendableHttpConnection {
+
+    private static final byte[] SERVICE_UNAVAILABLE = EncodingUtils.getAsciiBytes(
+            "HTTP/1.1 503 Service Unavailable\r\n"
+            + "Content-Length: 0\r\n"
+            + "Connection: close\r\n\r\n");
+
+    private final SocketChannel channel;
+    private final SelectorIOReactor reactor;
+
+    public SelectorHttpConnection(final SocketChannel channel, final HttpParams params,
+            final SelectorIOReactor reactor) throws IOException {
+        super(channel.socket(), params);
+        if (reactor == null) {
+            throw new IllegalArgumentException("I/O reactor may not be null");
+        }
+        this.channel = channel;
+        this.reactor = reactor;
+    }
+
+    @Override
+    protected SessionInputBuffer createSessionInputBuffer(final Socket socket,
+            int buffersize, final HttpParams params) throws IOException {
+        return new ChannelSessionInputBuffer(socket, buffersize, params);
+    }
+
+    /**
+     * Makes bytes the reactor has already read from the channel available to
+     * the request parser.
+     */
+    void unread(final byte[] b, int off, int len) {
+        ((ChannelSessionInputBuffer) getSessionInputBuffer()).unread(b, off, len);
+    }
+
+    /**
+     * Answers 503 and closes the connection without blocking.  Connections are
+     * refused on the reactor thread, which must never wait for a slow client:
+     * the response is written in non-blocking mode, and is dropped if the
+     * socket cannot take it at once.
+     */
+    void refuse() {
+        try {
+            this.channel.configureBlocking(false);
+            this.channel.write(ByteBuffer.wrap(SERVICE_UNAVAILABLE));
+        } catch (IOException ignore) {
+        } finally {
+            try {
+                shutdown();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    public boolean suspend() throws IOException {
+        if (!isOpen()) {
+            return false;
+        }
+        if (((ChannelSessionInputBuffer) getSessionInputBuffer()).hasBufferedData()) {
+            // A pipelined request is already waiting; no point in a round trip
+            // through the reactor.
+            return false;
+        }
+        flush();
+        this.reactor.register(this.channel);
+        return true;
+    }
+
+}
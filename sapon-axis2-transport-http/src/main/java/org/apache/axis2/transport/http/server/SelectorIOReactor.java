@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+/**
+ * Multiplexes idle HTTP connections over a single selector thread.  Each
+ * registered channel is read in non-blocking mode until a complete request
+ * head has arrived; only then is the channel switched to blocking mode and
+ * handed to the {@link HttpConnectionManager}, so that worker threads are never
+ * parked on keep-alive connections waiting for the client's next request.
+ */
+public class SelectorIOReactor implements Runnable {
+
+    private static final Log LOG = LogFactory.getLog(SelectorIOReactor.class);
+
+    /** Longest time the reactor blocks in select, and so the idle check period. */
+    private static final long SELECT_INTERVAL = 1000L; // ms
+
+    /** Largest request head accepted before the connection is dropped. */
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    private final HttpConnectionManager connmanager;
+    private final HttpParams params;
+    private final int idleTimeout;
+    private final Selector selector;
+    private final ByteBuffer readBuffer;
+
+    /** Channels waiting to be registered with the selector, from any thread. */
+    private final Queue<SocketChannel> pending;
+
+    /** Channels with a complete request head, waiting to be dispatched. */
+    private final List<RequestHead> ready;
+
+    private volatile boolean shutdown = false;
+
+    private long lastIdleCheck;
+
+    public SelectorIOReactor(final HttpConnectionManager connmanager,
+            final HttpParams params) throws IOException {
+        super();
+        if (connmanager == null) {
+            throw new IllegalArgumentException("Connection manager may not be null");
+        }
+        if (params == null) {
+            throw new IllegalArgumentException("HTTP parameters may not be null");
+        }
+        this.connmanager = connmanager;
+        this.params = params;
+        this.idleTimeout = HttpConnectionParams.getSoTimeout(params);
+        this.readBuffer = ByteBuffer.allocate(
+                Math.max(HttpConnectionParams.getSocketBufferSize(params), 1024));
+        this.pending = new ConcurrentLinkedQueue<SocketChannel>();
+        this.ready = new ArrayList<RequestHead>();
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Hands a connected channel to the reactor.  May be called from any thread.
+     */
+    public void register(final SocketChannel channel) {
+        if (this.shutdown) {
+            closeChannel(channel);
+            return;
+        }
+        this.pending.add(channel);
+        this.selector.wakeup();
+    }
+
+    public int getConnectionCount() {
+        try {
+            return this.selector.keys().size();
+        } catch (ClosedSelectorException ex) {
+            return 0;
+        }
+    }
+
+    public void run() {
+        this.lastIdleCheck = System.currentTimeMillis();
+        try {
+            while (!this.shutdown) {
+                this.selector.select(SELECT_INTERVAL);
+                registerPending();
+                processSelectedKeys();
+                while (!this.ready.isEmpty()) {
+                    // Cancelled keys are only deregistered by the next selection
+                    // operation, and a channel can't be put back into blocking
+                    // mode while it is still registered.
+                    this.selector.selectNow();
+                    dispatchReady();
+                    processSelectedKeys();
+                }
+                closeIdleConnections();
+            }
+        } catch (ClosedSelectorException ex) {
+            LOG.debug("I/O reactor selector closed");
+        } catch (IOException ex) {
+            LOG.error("I/O reactor terminated", ex);
+        } finally {
+            closeAll();
+        }
+    }
+
+    public void shutdown() {
+        this.shutdown = true;
+        this.selector.wakeup();
+    }
+
+    private void registerPending() {
+        SocketChannel channel;
+        while ((channel = this.pending.poll()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.register(this.selector, SelectionKey.OP_READ, new RequestHead(channel));
+            } catch (IOException ex) {
+                LOG.debug("I/O error registering connection", ex);
+                closeChannel(channel);
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        for (Iterator<SelectionKey> i = this.selector.selectedKeys().iterator(); i.hasNext();) {
+            SelectionKey key = i.next();
+            i.remove();
+            if (key.isValid() && key.isReadable()) {
+                read(key);
+            }
+        }
+    }
+
+    private void read(final SelectionKey key) {
+        RequestHead head = (RequestHead) key.attachment();
+        int n;
+        try {
+            this.readBuffer.clear();
+            n = head.channel.read(this.readBuffer);
+        } catch (IOException ex) {
+            LOG.debug("I/O error reading request head", ex);
+            close(key);
+            return;
+        }
+        if (n < 0) {
+            // Client closed an idle connection
+            close(key);
+            return;
+        }
+        this.readBuffer.flip();
+        head.lastActivity = System.currentTimeMillis();
+        if (head.append(this.readBuffer)) {
+            key.cancel();
+            this.ready.add(head);
+        } else if (head.length > MAX_HEAD_SIZE) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn("Request head exceeds " + MAX_HEAD_SIZE
+                        + " bytes; closing connection from "
+                        + head.channel.socket().getRemoteSocketAddress());
+            }
+            close(key);
+        }
+    }
+
+    private void dispatchReady() {
+        for (RequestHead head : this.ready) {
+            try {
+                head.channel.configureBlocking(true);
+                SelectorHttpConnection conn =
+                        new SelectorHttpConnection(head.channel, this.params, this);
+                conn.unread(head.data, 0, head.length);
+                this.connmanager.process(conn);
+            } catch (Throwable ex) {
+                LOG.warn("Unable to dispatch HTTP connection", ex);
+                closeChannel(head.channel);
+            }
+        }
+        this.ready.clear();
+    }
+
+    private void closeIdleConnections() {
+        long now = System.currentTimeMillis();
+        if (this.idleTimeout <= 0 || now - this.lastIdleCheck < SELECT_INTERVAL) {
+            return;
+        }
+        this.lastIdleCheck = now;
+        for (SelectionKey key : this.selector.keys()) {
+            RequestHead head = (RequestHead) key.attachment();
+            if (key.isValid() && now - head.lastActivity > this.idleTimeout) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Closing idle connection from "
+                            + head.channel.socket().getRemoteSocketAddress());
+                }
+                close(key);
+            }
+        }
+    }
+
+    private void closeAll() {
+        try {
+            for (SelectionKey key : this.selector.keys()) {
+                closeChannel(key.channel());
+            }
+            this.selector.close();
+        } catch (ClosedSelectorException ignore) {
+        } catch (IOException ex) {
+            LOG.debug("I/O error closing selector", ex);
+        }
+        for (RequestHead head : this.ready) {
+            closeChannel(head.channel);
+        }
+        this.ready.clear();
+        SocketChannel channel;
+        while ((channel = this.pending.poll()) != null) {
+            closeChannel(channel);
+        }
+    }
+
+    private static void close(final SelectionKey key) {
+        key.cancel();
+        closeChannel(key.channel());
+    }
+
+    private static void closeChannel(final Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            LOG.debug("I/O error closing connection", ex);
+        }
+    }
+
+    /**
+     * Bytes received on a connection while waiting for the end of the request
+     * head.  Any bytes of the request body that arrive in the same read are kept
+     * as well, and handed to the worker along with the head.
+     */
+    private static class RequestHead {
+
+        final SocketChannel channel;
+        byte[] data;
+        int length;
+        long lastActivity;
+
+        /** 0: in a line, 1: after LF, 2: after LF CR. */
+        private int state;
+
+        RequestHead(final SocketChannel channel) {
+            this.channel = channel;
+            this.lastActivity = System.currentTimeMillis();
+        }
+
+        /**
+         * Appends the buffer's remaining bytes.
+         *
+         * @return <code>true</code> once the blank line ending the head was seen
+         */
+        boolean append(final ByteBuffer buffer) {
+            int n = buffer.remaining();
+            if (this.data == null) {
+                this.data = new byte[Math.max(n, 256)];
+            } else if (this.length + n > this.data.length) {
+                byte[] grown = new byte[Math.max(this.length + n, this.data.length * 2)];
+                System.arraycopy(this.data, 0, grown, 0, this.length);
+                this.data = grown;
+            }
+            int start = this.length;
+            buffer.get(this.data, start, n);
+            this.length += n;
+
+            boolean complete = false;
+            for (int i = start; i < this.length && !complete; i++) {
+                byte b = this.data[i];
+                if (b == '\n') {
+                    complete = this.state != 0;
+                    this.state = 1;
+                } else if (b == '\r' && this.state == 1) {
+                    this.state = 2;
+                } else {
+                    this.state = 0;
+                }
+            }
+            return complete;
+        }
+
+    }
+
+}
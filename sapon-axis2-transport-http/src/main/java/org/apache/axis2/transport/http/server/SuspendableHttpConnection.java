@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import java.io.IOException;
+
+/**
+ * An {@link AxisHttpConnection} that can be handed back to an I/O reactor while
+ * it sits idle between requests, instead of holding on to a worker thread.
+ */
+public interface SuspendableHttpConnection extends AxisHttpConnection {
+
+    /**
+     * Returns the connection to its reactor, which dispatches it again once the
+     * next request head has arrived.
+     *
+     * @return <code>true</code> if the connection was suspended, in which case
+     *         the caller must neither use nor close it any further;
+     *         <code>false</code> if the caller should keep processing it, e.g.
+     *         because a pipelined request is already buffered
+     */
+    boolean suspend() throws IOException;
+
+}
@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.async;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.http.ProtocolException;
+
+public class ClientIOReactorTest extends TestCase {
+
+    private static final String GET = "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n";
+    private static final String POST =
+            "POST / HTTP/1.1\r\nHost: localhost\r\nContent-Length: 4\r\n\r\ndata";
+
+    /** What the server does with each request it reads, in order */
+    private final BlockingQueue<String> script = new LinkedBlockingQueue<String>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private ServerSocket server;
+    private Thread reactorThread;
+    private ClientIOReactor reactor;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        Thread acceptor = new Thread("test-server") {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        final Socket socket = server.accept();
+                        connections.incrementAndGet();
+                        new Thread("test-connection") {
+                            @Override
+                            public void run() {
+                                serve(socket);
+                            }
+                        }.start();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        };
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (reactor != null) {
+            reactor.shutdown();
+            reactorThread.join(5000);
+        }
+        server.close();
+    }
+
+    public void testExchange() throws Exception {
+        startReactor(new ThreadExecutor(), 64 * 1024, 0);
+        script.add("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello");
+        TestCallback callback = send(GET, true);
+        assertEquals("hello", callback.awaitBody());
+        assertEquals(0, reactor.getActiveCount());
+    }
+
+    public void testConnectionIsReused() throws Exception {
+        startReactor(new ThreadExecutor(), 64 * 1024, 0);
+        script.add("HTTP/1.1 200 OK\r\nContent-Length: 3\r\n\r\none");
+        script.add("HTTP/1.1 200 OK\r\nContent-Length: 3\r\n\r\ntwo");
+        assertEquals("one", send(GET, true).awaitBody());
+        assertEquals("two", send(GET, true).awaitBody());
+        assertEquals(1, connections.get());
+    }
+
+    public void testIdempotentRequestIsRetriedOnClosedConnection() throws Exception {
+        startReactor(new ThreadExecutor(), 64 * 1024, 0);
+        script.add("HTTP/1.1 200 OK\r\nContent-Length: 3\r\n\r\none");
+        // the kept-alive connection is closed once it receives the next request
+        script.add("close");
+        script.add("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nretry");
+        assertEquals("one", send(GET, true).awaitBody());
+        assertEquals("retry", send(GET, true).awaitBody());
+        assertEquals(2, connections.get());
+    }
+
+    public void testSentPostIsNotRetried() throws Exception {
+        startReactor(new ThreadExecutor(), 64 * 1024, 0);
+        script.add("HTTP/1.1 200 OK\r\nContent-Length: 3\r\n\r\none");
+        script.add("close");
+        assertEquals("one", send(POST, false).awaitBody());
+        assertTrue(send(POST, false).awaitFailure() instanceof IOException);
+        assertEquals(1, connections.get());
+    }
+
+    public void testConnectFailure() throws Exception {
+        startReactor(new ThreadExecutor(), 64 * 1024, 0);
+        ServerSocket closed = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        int port = closed.getLocalPort();
+        closed.close();
+        TestCallback callback = new TestCallback();
+        reactor.execute(new ClientExchange(new InetSocketAddress("127.0.0.1", port),
+                GET.getBytes("ISO-8859-1"), false, true, 5000, 5000, callback));
+        assertTrue(callback.awaitFailure() instanceof IOException);
+    }
+
+    public void testReadTimeout() throws Exception {
+        startReactor(new ThreadExecutor(), 64 * 1024, 0);
+        script.add("silent");
+        TestCallback callback = new TestCallback();
+        reactor.execute(new ClientExchange(address(), GET.getBytes("ISO-8859-1"),
+                false, true, 5000, 500, callback));
+        assertTrue(callback.awaitFailure() instanceof java.net.SocketTimeoutException);
+    }
+
+    public void testResponseOverMaximumSizeFails() throws Exception {
+        startReactor(new ThreadExecutor(), 64 * 1024, 100);
+        script.add("HTTP/1.1 200 OK\r\nContent-Length: 1000\r\n\r\n");
+        assertTrue(send(GET, true).awaitFailure() instanceof ProtocolException);
+    }
+
+    public void testLargeResponseIsStreamed() throws Exception {
+        startReactor(new ThreadExecutor(), 1024, 0);
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 200 * 1024) {
+            body.append("0123456789abcdef");
+        }
+        script.add("HTTP/1.1 200 OK\r\nContent-Length: " + body.length() + "\r\n\r\n" + body);
+        TestCallback callback = send(GET, true);
+        assertEquals(body.toString(), callback.awaitBody());
+    }
+
+    public void testRejectedResponseFailsOffTheReactorThread() throws Exception {
+        RejectingExecutor executor = new RejectingExecutor(1);
+        startReactor(executor, 64 * 1024, 0);
+        script.add("HTTP/1.1 200 OK\r\nContent-Length: 5\r\n\r\nhello");
+        TestCallback callback = send(GET, true);
+        Exception e = callback.awaitFailure();
+        assertTrue(e instanceof IOException);
+        assertNotSame(reactorThread, callback.thread);
+        assertEquals(0, reactor.getActiveCount());
+    }
+
+    private void startReactor(Executor executor, int bufferSize, long maxSize)
+            throws IOException {
+        reactor = new ClientIOReactor(executor, 2, 0, bufferSize, maxSize);
+        reactorThread = new Thread(reactor, "test-reactor");
+        reactorThread.setDaemon(true);
+        reactorThread.start();
+    }
+
+    private InetSocketAddress address() {
+        return new InetSocketAddress("127.0.0.1", server.getLocalPort());
+    }
+
+    private TestCallback send(String request, boolean idempotent) throws IOException {
+        TestCallback callback = new TestCallback();
+        reactor.execute(new ClientExchange(address(), request.getBytes("ISO-8859-1"),
+                false, idempotent, 5000, 5000, callback));
+        return callback;
+    }
+
+    private void serve(Socket socket) {
+        try {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            while (readRequest(in)) {
+                String action = script.poll(5, TimeUnit.SECONDS);
+                if (action == null || action.equals("close")) {
+                    break;
+                } else if (action.equals("silent")) {
+                    Thread.sleep(2000);
+                    break;
+                }
+                out.write(action.getBytes("ISO-8859-1"));
+                out.flush();
+            }
+        } catch (Exception ignore) {
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * Reads a request head and its Content-Length entity.
+     */
+    private static boolean readRequest(InputStream in) throws IOException {
+        StringBuilder head = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            head.append((char) b);
+            if (head.length() >= 4 && head.substring(head.length() - 4).equals("\r\n\r\n")) {
+                break;
+            }
+        }
+        if (b == -1) {
+            return false;
+        }
+        int index = head.indexOf("Content-Length: ");
+        if (index >= 0) {
+            int length = Integer.parseInt(
+                    head.substring(index + 16, head.indexOf("\r\n", index)).trim());
+            for (int i = 0; i < length; i++) {
+                in.read();
+            }
+        }
+        return true;
+    }
+
+    private static class ThreadExecutor implements Executor {
+        public void execute(Runnable task) {
+            new Thread(task, "test-worker").start();
+        }
+    }
+
+    /** Rejects the given number of tasks, then runs them on new threads */
+    private static class RejectingExecutor extends ThreadExecutor {
+        private final AtomicInteger rejections;
+
+        RejectingExecutor(int rejections) {
+            this.rejections = new AtomicInteger(rejections);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("Test rejection");
+            }
+            super.execute(task);
+        }
+    }
+
+    private static class TestCallback implements ExchangeCallback {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile String body;
+        private volatile Exception failure;
+        private volatile Thread thread;
+
+        public void completed(ClientResponse response) {
+            thread = Thread.currentThread();
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                InputStream in = response.getContent();
+                byte[] b = new byte[4096];
+                int n;
+                while ((n = in.read(b)) != -1) {
+                    out.write(b, 0, n);
+                }
+                body = out.toString("ISO-8859-1");
+            } catch (IOException e) {
+                failure = e;
+            }
+            done.countDown();
+        }
+
+        public void failed(Exception e) {
+            thread = Thread.currentThread();
+            failure = e;
+            done.countDown();
+        }
+
+        String awaitBody() throws Exception {
+            assertTrue("Exchange did not complete", done.await(10, TimeUnit.SECONDS));
+            if (failure != null) {
+                throw failure;
+            }
+            return body;
+        }
+
+        Exception awaitFailure() throws Exception {
+            assertTrue("Exchange did not complete", done.await(10, TimeUnit.SECONDS));
+            assertNotNull("Exchange did not fail", failure);
+            return failure;
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.async;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+import org.apache.http.ProtocolException;
+
+public class ClientResponseTest extends TestCase {
+
+    public void testContentLength() throws Exception {
+        ClientResponse response = newResponse();
+        assertTrue(feed(response, "HTTP/1.1 200 OK\r\nContent-Type: text/xml\r\n"
+                + "content-length: 5\r\n\r\nhello"));
+        assertEquals(200, response.getStatusCode());
+        assertEquals("OK", response.getReasonPhrase());
+        assertEquals("text/xml", response.getHeader("CONTENT-TYPE"));
+        assertEquals(2, response.getHeaders().size());
+        assertEquals(5, response.getContentLength());
+        assertEquals("hello", read(response.getContent()));
+        assertTrue(response.isKeepAlive());
+    }
+
+    public void testContentLengthOneByteAtATime() throws Exception {
+        ClientResponse response = newResponse();
+        String message = "HTTP/1.1 200 OK\r\nContent-Length: 11\r\n\r\nhello world";
+        for (int i = 0; i < message.length() - 1; i++) {
+            assertFalse(feed(response, message.substring(i, i + 1)));
+        }
+        assertTrue(feed(response, message.substring(message.length() - 1)));
+        assertEquals("hello world", read(response.getContent()));
+    }
+
+    public void testBytesPastTheResponseAreLeft() throws Exception {
+        ClientResponse response = newResponse();
+        ByteBuffer src = toBuffer("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nokHTTP");
+        assertTrue(response.consume(src));
+        assertEquals(4, src.remaining());
+    }
+
+    public void testChunked() throws Exception {
+        ClientResponse response = newResponse();
+        assertFalse(feed(response, "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "5;name=value\r\nhello\r\n"));
+        assertFalse(feed(response, "6\r\n worl"));
+        assertTrue(feed(response, "d\r\n0\r\nX-Trailer: yes\r\n\r\n"));
+        assertEquals(11, response.getContentLength());
+        assertEquals("hello world", read(response.getContent()));
+    }
+
+    public void testCloseDelimited() throws Exception {
+        ClientResponse response = newResponse();
+        assertFalse(feed(response, "HTTP/1.0 200 OK\r\n\r\nuntil"));
+        assertFalse(feed(response, " close"));
+        assertFalse(response.isKeepAlive());
+        assertTrue(response.endOfStream());
+        assertEquals("until close", read(response.getContent()));
+    }
+
+    public void testEndOfStreamBeforeContentLength() throws Exception {
+        ClientResponse response = newResponse();
+        assertFalse(feed(response, "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\nshort"));
+        assertFalse(response.endOfStream());
+        assertFalse(response.isComplete());
+    }
+
+    public void testInterimResponseIsSkipped() throws Exception {
+        ClientResponse response = newResponse();
+        assertTrue(feed(response, "HTTP/1.1 100 Continue\r\nX-Interim: 1\r\n\r\n"
+                + "HTTP/1.1 202 Accepted\r\nContent-Length: 0\r\n\r\n"));
+        assertEquals(202, response.getStatusCode());
+        assertNull(response.getHeader("X-Interim"));
+        assertEquals(-1, response.getContent().read());
+    }
+
+    public void testNoEntity() throws Exception {
+        assertTrue(feed(newResponse(), "HTTP/1.1 204 No Content\r\n\r\n"));
+        assertTrue(feed(newResponse(), "HTTP/1.1 304 Not Modified\r\n\r\n"));
+        ClientResponse head = new ClientResponse(true, 1024, 0);
+        assertTrue(feed(head, "HTTP/1.1 200 OK\r\nContent-Length: 100\r\n\r\n"));
+    }
+
+    public void testKeepAlive() throws Exception {
+        ClientResponse close = newResponse();
+        feed(close, "HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Length: 0\r\n\r\n");
+        assertFalse(close.isKeepAlive());
+        ClientResponse keepAlive = newResponse();
+        feed(keepAlive, "HTTP/1.0 200 OK\r\nConnection: Keep-Alive\r\nContent-Length: 0\r\n\r\n");
+        assertTrue(keepAlive.isKeepAlive());
+    }
+
+    public void testMalformedInput() throws Exception {
+        assertMalformed("HTTP/1.1\r\n\r\n");
+        assertMalformed("SMTP/1.1 200 OK\r\n\r\n");
+        assertMalformed("HTTP/1.1 abc OK\r\n\r\n");
+        assertMalformed("HTTP/1.1 200 OK\r\nno colon\r\n\r\n");
+        assertMalformed("HTTP/1.1 200 OK\r\nContent-Length: ten\r\n\r\n");
+        assertMalformed("HTTP/1.1 200 OK\r\nContent-Length: -1\r\n\r\n");
+        assertMalformed("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nxyz\r\n");
+        assertMalformed("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n-5\r\n");
+        assertMalformed("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "2\r\nabc\r\n");
+    }
+
+    public void testHeadTooLarge() throws Exception {
+        StringBuilder head = new StringBuilder("HTTP/1.1 200 OK\r\n");
+        while (head.length() < 70 * 1024) {
+            head.append("X-Filler: 0123456789012345678901234567890123456789\r\n");
+        }
+        assertMalformed(head.toString());
+    }
+
+    public void testMaxContentLength() throws Exception {
+        ClientResponse declared = new ClientResponse(false, 1024, 10);
+        try {
+            feed(declared, "HTTP/1.1 200 OK\r\nContent-Length: 11\r\n\r\n");
+            fail("Content-Length over the limit accepted");
+        } catch (ProtocolException expected) {
+        }
+
+        ClientResponse chunked = new ClientResponse(false, 1024, 10);
+        feed(chunked, "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "8\r\n12345678\r\n");
+        try {
+            feed(chunked, "8\r\n12345678\r\n");
+            fail("Chunked entity over the limit accepted");
+        } catch (ProtocolException expected) {
+        }
+
+        ClientResponse untilClose = new ClientResponse(false, 1024, 10);
+        try {
+            feed(untilClose, "HTTP/1.0 200 OK\r\n\r\n0123456789ABC");
+            fail("Close-delimited entity over the limit accepted");
+        } catch (ProtocolException expected) {
+        }
+    }
+
+    public void testBufferFillsUp() throws Exception {
+        ClientResponse response = new ClientResponse(false, 8, 0);
+        assertFalse(feed(response, "HTTP/1.1 200 OK\r\nContent-Length: 20\r\n\r\n1234"));
+        ContentBuffer content = response.getContentBuffer();
+        assertFalse(content.suspendIfFull());
+        assertFalse(feed(response, "56789012"));
+        assertTrue(content.suspendIfFull());
+
+        final int[] wakeups = new int[1];
+        content.setListener(new Runnable() {
+            public void run() {
+                wakeups[0]++;
+            }
+        });
+        byte[] b = new byte[8];
+        assertEquals(8, content.read(b, 0, 8));
+        assertEquals("12345678", new String(b, 0, 8, "ISO-8859-1"));
+        assertEquals(1, wakeups[0]);
+
+        assertTrue(feed(response, "34567890"));
+        assertEquals("9012345678" + "90", read(content));
+        assertEquals(1, wakeups[0]);
+    }
+
+    public void testClosingAnIncompleteEntityWakesTheReactor() throws Exception {
+        ClientResponse response = new ClientResponse(false, 8, 0);
+        feed(response, "HTTP/1.1 200 OK\r\nContent-Length: 20\r\n\r\n1234");
+        final int[] wakeups = new int[1];
+        response.getContentBuffer().setListener(new Runnable() {
+            public void run() {
+                wakeups[0]++;
+            }
+        });
+        response.getContent().close();
+        assertEquals(1, wakeups[0]);
+        assertTrue(response.getContentBuffer().isClosed());
+        // the rest of the entity is dropped
+        assertTrue(feed(response, "5678901234567890"));
+        assertEquals(0, response.getContentBuffer().size());
+    }
+
+    public void testFailedEntity() throws Exception {
+        ClientResponse response = newResponse();
+        feed(response, "HTTP/1.1 200 OK\r\nContent-Length: 20\r\n\r\nabc");
+        IOException failure = new IOException("reset");
+        response.getContentBuffer().fail(failure);
+        InputStream in = response.getContent();
+        byte[] b = new byte[10];
+        assertEquals(3, in.read(b));
+        try {
+            in.read(b);
+            fail("Failure not reported");
+        } catch (IOException e) {
+            assertSame(failure, e);
+        }
+    }
+
+    private static ClientResponse newResponse() {
+        return new ClientResponse(false, 64 * 1024, 0);
+    }
+
+    private static void assertMalformed(String message) throws Exception {
+        try {
+            feed(newResponse(), message);
+            fail("Malformed response accepted: " + message);
+        } catch (ProtocolException expected) {
+        }
+    }
+
+    private static boolean feed(ClientResponse response, String data) throws Exception {
+        return response.consume(toBuffer(data));
+    }
+
+    private static ByteBuffer toBuffer(String data) throws Exception {
+        return ByteBuffer.wrap(data.getBytes("ISO-8859-1"));
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] b = new byte[4];
+        int n;
+        while ((n = in.read(b)) != -1) {
+            out.write(b, 0, n);
+        }
+        return out.toString("ISO-8859-1");
+    }
+
+}
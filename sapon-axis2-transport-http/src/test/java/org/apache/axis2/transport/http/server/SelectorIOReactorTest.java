@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.axis2.transport.http.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+public class SelectorIOReactorTest extends TestCase {
+
+    /** The connections the reactor dispatched, in order */
+    private final BlockingQueue<AxisHttpConnection> dispatched =
+            new LinkedBlockingQueue<AxisHttpConnection>();
+
+    private ServerSocketChannel server;
+    private SelectorIOReactor reactor;
+    private Thread reactorThread;
+    private Socket client;
+    private boolean refuse;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        for (AxisHttpConnection conn : dispatched) {
+            conn.shutdown();
+        }
+        if (reactor != null) {
+            reactor.shutdown();
+            reactorThread.join(5000);
+        }
+        server.close();
+    }
+
+    private void startReactor(int idleTimeout) throws Exception {
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setSoTimeout(params, idleTimeout);
+        HttpConnectionManager connmanager = new HttpConnectionManager() {
+            public void process(AxisHttpConnection conn) {
+                if (refuse) {
+                    ((SelectorHttpConnection) conn).refuse();
+                } else {
+                    dispatched.add(conn);
+                }
+            }
+
+            public void shutdown() {
+            }
+        };
+        reactor = new SelectorIOReactor(connmanager, params);
+        reactorThread = new Thread(reactor, "test-reactor");
+        reactorThread.setDaemon(true);
+        reactorThread.start();
+
+        client = new Socket(server.socket().getInetAddress(), server.socket().getLocalPort());
+        reactor.register(server.accept());
+    }
+
+    private void send(String data) throws IOException {
+        OutputStream out = client.getOutputStream();
+        out.write(data.getBytes("US-ASCII"));
+        out.flush();
+    }
+
+    /**
+     * Reads what the reactor sent before closing the connection.
+     */
+    private String readUntilClosed() throws IOException {
+        client.setSoTimeout(5000);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        InputStream in = client.getInputStream();
+        try {
+            for (int b; (b = in.read()) != -1; ) {
+                received.write(b);
+            }
+        } catch (IOException e) {
+            // Reset by the reactor closing with unread data, which also ends the connection
+        }
+        return received.toString("US-ASCII");
+    }
+
+    public void testHeadSplitAcrossReads() throws Exception {
+        startReactor(0);
+        send("GET /services/Echo HTTP/1.1\r\nHost: localhost\r");
+        assertNull(dispatched.poll(300, TimeUnit.MILLISECONDS));
+        send("\n\r");
+        assertNull(dispatched.poll(300, TimeUnit.MILLISECONDS));
+        send("\n");
+
+        AxisHttpConnection conn = dispatched.poll(5, TimeUnit.SECONDS);
+        assertNotNull(conn);
+        HttpRequest request = conn.receiveRequest();
+        assertEquals("GET", request.getRequestLine().getMethod());
+        assertEquals("/services/Echo", request.getRequestLine().getUri());
+        assertEquals("localhost", request.getFirstHeader("Host").getValue());
+    }
+
+    public void testBodyReadWithTheHeadIsParsed() throws Exception {
+        startReactor(0);
+        send("POST /services/Echo HTTP/1.1\r\nHost: localhost\r\nContent-Length: 4\r\n\r\ndata");
+
+        AxisHttpConnection conn = dispatched.poll(5, TimeUnit.SECONDS);
+        assertNotNull(conn);
+        HttpRequest request = conn.receiveRequest();
+        assertEquals("POST", request.getRequestLine().getMethod());
+        byte[] body = new byte[4];
+        InputStream in = conn.getInputStream();
+        int n = 0;
+        for (int r; n < body.length && (r = in.read(body, n, body.length - n)) != -1; ) {
+            n += r;
+        }
+        assertEquals("data", new String(body, 0, n, "US-ASCII"));
+    }
+
+    public void testOversizedHeadClosesTheConnection() throws Exception {
+        startReactor(0);
+        StringBuilder header = new StringBuilder("X-Filler: ");
+        while (header.length() < 70 * 1024) {
+            header.append("0123456789");
+        }
+        try {
+            send("GET / HTTP/1.1\r\n" + header);
+        } catch (IOException e) {
+            // The reactor may close the connection before it all went out
+        }
+        assertEquals("", readUntilClosed());
+        assertTrue(dispatched.isEmpty());
+    }
+
+    public void testIdleConnectionIsClosed() throws Exception {
+        startReactor(500);
+        long start = System.currentTimeMillis();
+        assertEquals("", readUntilClosed());
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue("closed after " + elapsed + "ms", elapsed >= 500 && elapsed < 5000);
+        assertTrue(dispatched.isEmpty());
+    }
+
+    public void testRefusedConnectionGets503() throws Exception {
+        refuse = true;
+        startReactor(0);
+        send("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        assertTrue(readUntilClosed().startsWith("HTTP/1.1 503 "));
+    }
+}
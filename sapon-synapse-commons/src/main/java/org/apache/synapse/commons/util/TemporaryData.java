@@ -211,6 +211,11 @@ public class TemporaryData {
      */
     File temporaryFile;
     
+    /**
+     * Whether the temporary file is registered to be deleted when the JVM exits.
+     */
+    private boolean deleteOnExit = true;
+    
     public TemporaryData(int numberOfChunks, int chunkSize, String tempPrefix, String tempSuffix) {
         this.chunkSize = chunkSize;
         this.tempPrefix = tempPrefix;
@@ -246,7 +251,9 @@ public class TemporaryData {
         if (log.isDebugEnabled()) {
             log.debug("Using temporary file " + temporaryFile);
         }
-        temporaryFile.deleteOnExit();
+        if (deleteOnExit) {
+            temporaryFile.deleteOnExit();
+        }
 
         FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile);
         // Write the buffer to the temporary file.
@@ -264,6 +271,18 @@ public class TemporaryData {
         return fileOutputStream;
     }
     
+    /**
+     * Sets whether a temporary file is registered to be deleted when the JVM
+     * exits, <code>true</code> by default. The JVM keeps every registered file
+     * until it exits, so users that always call {@link #release()} should turn
+     * this off.
+     * 
+     * @param deleteOnExit false to leave the temporary file to {@link #release()}
+     */
+    public void setDeleteOnExit(boolean deleteOnExit) {
+        this.deleteOnExit = deleteOnExit;
+    }
+    
     public OutputStream getOutputStream() {
         return new OutputStreamImpl();
     }
@@ -47,6 +47,7 @@ import org.apache.axis2.phaseresolver.PhaseException;
 import org.apache.axis2.phaseresolver.PhaseMetadata;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.aspects.statistics.StatisticsCollector;
 import org.apache.synapse.commons.jmx.JmxInformation;
 import org.apache.synapse.commons.jmx.JmxInformationFactory;
 import org.apache.synapse.commons.security.SecurityConstants;
@@ -349,7 +350,8 @@ public class Axis2SynapseController implements SynapseController {
     }
 
     /**
-     * Destroys the Synapse Environment by undeploying all Axis2 services.
+     * Destroys the Synapse Environment by undeploying all Axis2 services and stopping the
+     * statistics aggregator.
      */
     public void destroySynapseEnvironment() {
         if (synapseEnvironment != null) {
@@ -359,6 +361,11 @@ public class Axis2SynapseController implements SynapseController {
             } catch (AxisFault e) {
                 handleFatal("t", e);
             }
+            StatisticsCollector collector = synapseEnvironment.getStatisticsCollector();
+            if (collector != null) {
+                collector.destroy();
+                synapseEnvironment.setStatisticsCollector(null);
+            }
             synapseEnvironment.setInitialized(false);
         }
     }
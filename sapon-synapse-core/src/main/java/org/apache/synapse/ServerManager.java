@@ -22,6 +22,7 @@ import java.util.Date;
 
 import javax.management.NotCompliantMBeanException;
 
+import org.apache.axis2.transport.base.MetricsRegistry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.commons.jmx.MBeanRegistrar;
@@ -490,8 +491,10 @@ public class ServerManager {
     }
 
     private void registerMBean() {
-        MBeanRegistrar.getInstance().registerMBean(new ServerManagerView(),
+        ServerManagerView view = new ServerManagerView();
+        MBeanRegistrar.getInstance().registerMBean(view,
                 SynapseConstants.SERVER_MANAGER_MBEAN, SynapseConstants.SERVER_MANAGER_MBEAN);
+        MetricsRegistry.getInstance().register(SynapseConstants.SERVER_MANAGER_MBEAN, view);
         try {
             MBeanRegistrar.getInstance().registerMBean(
                     new SecretManagerAdminMBeanImpl(),
@@ -505,6 +508,7 @@ public class ServerManager {
     private void unRegisterMBean() {
         MBeanRegistrar.getInstance().unRegisterMBean(
                 SynapseConstants.SERVER_MANAGER_MBEAN, SynapseConstants.SERVER_MANAGER_MBEAN);
+        MetricsRegistry.getInstance().unregister(SynapseConstants.SERVER_MANAGER_MBEAN);
         MBeanRegistrar.getInstance().unRegisterMBean(
                 SecurityConstants.PROP_SECURITY_ADMIN_SERVICES,
                 SecurityConstants.PROP_SECRET_MANAGER_ADMIN_MBEAN);
@@ -18,13 +18,15 @@
  */
 package org.apache.synapse;
 
+import org.apache.axis2.transport.base.MetricsSource;
+import org.apache.axis2.transport.base.MetricsWriter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
  * @see org.apache.synapse.ServerManagerViewMBean
  */
-public class ServerManagerView implements ServerManagerViewMBean {
+public class ServerManagerView implements ServerManagerViewMBean, MetricsSource {
 
     private static final Log log = LogFactory.getLog(ServerManagerView.class);
 
@@ -37,6 +39,19 @@ public class ServerManagerView implements ServerManagerViewMBean {
         return serverManager.getServerState().toString();
     }
 
+    /**
+     * Publishes the state of the server.
+     */
+    public void collectMetrics(MetricsWriter writer) {
+        ServerState[] states = ServerState.values();
+        String[] names = new String[states.length];
+        for (int i = 0; i < states.length; i++) {
+            names[i] = states[i].toString();
+        }
+        writer.stateSet("synapse_server_state", "State of the server",
+                serverManager.getServerState().toString(), names);
+    }
+
     /**
      * {@inheritDoc}
      */
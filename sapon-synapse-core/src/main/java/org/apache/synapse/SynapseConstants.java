@@ -271,6 +271,12 @@ public final class SynapseConstants {
             = "synapse.sal.endpoints.sesssion.timeout.default";    
 
     public static final long SAL_ENDPOINTS_DEFAULT_SESSION_TIMEOUT = 120000;
+
+    /** The maximum number of sessions kept, the least recently used are evicted beyond it */
+    public static final String PROP_SAL_ENDPOINT_MAX_SESSIONS
+            = "synapse.sal.endpoints.session.max";
+
+    public static final long SAL_ENDPOINTS_DEFAULT_MAX_SESSIONS = -1;
     
 
     /** A name to use for anonymous sequences in the sequence stack */
@@ -349,6 +355,8 @@ public final class SynapseConstants {
     public static final int ENDPOINT_FO_NONE_READY   = 303000;
     public static final int ENDPOINT_ADDRESS_NONE_READY = 303001;
     public static final int ENDPOINT_WSDL_NONE_READY = 303002;
+    // too many requests in flight on the endpoint
+    public static final int ENDPOINT_CONCURRENCY_LIMIT = 303003;
     // Failure on endpoint in the session 
     public static final int ENDPOINT_SAL_NOT_READY = 309001;
     public static final int ENDPOINT_SAL_INVALID_PATH = 309002;
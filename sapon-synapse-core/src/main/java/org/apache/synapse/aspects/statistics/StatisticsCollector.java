@@ -18,32 +18,134 @@
  */
 package org.apache.synapse.aspects.statistics;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+import org.apache.axis2.transport.base.MetricsRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.aspects.ComponentType;
 import org.apache.synapse.aspects.statistics.mbean.StatisticsView;
+import org.apache.synapse.aspects.statistics.view.InOutStatisticsView;
+import org.apache.synapse.aspects.statistics.view.StatisticsViewStrategy;
+import org.apache.synapse.aspects.statistics.view.SystemViewStrategy;
 import org.apache.synapse.commons.jmx.MBeanRegistrar;
+import org.apache.synapse.config.SynapsePropertiesLoader;
 
 /**
- * Collects statistics and provides those collected data
+ * Collects statistics and provides those collected data.
+ * <p/>
+ * Mediation threads hand the records over through a bounded lock-free buffer, and a background
+ * thread aggregates them into the system wide views. A record is aggregated once no log has been
+ * added to it for a while, as the response of a message keeps adding to the record of the
+ * request. When the buffer is full, records are dropped and counted rather than making the
+ * mediation threads wait.
  */
-
 public class StatisticsCollector {
 
-    private final List<StatisticsRecord> statisticsCollection = new ArrayList<StatisticsRecord>();
+    private static final Log log = LogFactory.getLog(StatisticsCollector.class);
+
+    private final static int DEFAULT_BUFFER_SIZE = 16384;
+    private final static long DEFAULT_AGGREGATION_INTERVAL = 500;
+    private final static long DEFAULT_RECORD_IDLE_TIME = 1000 * 30;
+    private final static String BUFFER_SIZE = "statistics.buffer.size";
+    private final static String AGGREGATION_INTERVAL = "statistics.aggregation.interval";
+    private final static String RECORD_IDLE_TIME = "statistics.record.idle.time";
+
+    /** The types of component views are aggregated for */
+    private static final ComponentType[] VIEW_TYPES = {
+        ComponentType.ENDPOINT, ComponentType.SEQUENCE, ComponentType.PROXYSERVICE
+    };
+
+    private final StatisticsRingBuffer<StatisticsRecord> buffer;
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final AtomicBoolean clearRequested = new AtomicBoolean();
+    private final long aggregationInterval;
+    private final long recordIdleTime;
+    private final Thread aggregator;
+    private volatile boolean running = true;
+
+    /** The view this collector published, or null if it was created with explicit settings */
+    private StatisticsView view;
+
+    // Only used by the aggregating thread
+    private final StatisticsViewStrategy viewStrategy = new SystemViewStrategy();
+    private final Queue<StatisticsRecord> pendingRecords = new ArrayDeque<StatisticsRecord>();
+    private final Map<ComponentType, Map<String, Map<String, InOutStatisticsView>>> views =
+            new EnumMap<ComponentType, Map<String, Map<String, InOutStatisticsView>>>(
+                    ComponentType.class);
+
+    /** Copy of the views, published after each aggregation that changed them */
+    private volatile Map<ComponentType, Map<String, Map<String, InOutStatisticsView>>> snapshot =
+            Collections.emptyMap();
 
     public StatisticsCollector() {
-        MBeanRegistrar.getInstance().registerMBean(new StatisticsView(this),
-                "StatisticsView", "StatisticsView");
+        this(Integer.parseInt(SynapsePropertiesLoader.getPropertyValue(
+                        BUFFER_SIZE, String.valueOf(DEFAULT_BUFFER_SIZE))),
+             Long.parseLong(SynapsePropertiesLoader.getPropertyValue(
+                        AGGREGATION_INTERVAL, String.valueOf(DEFAULT_AGGREGATION_INTERVAL))),
+             Long.parseLong(SynapsePropertiesLoader.getPropertyValue(
+                        RECORD_IDLE_TIME, String.valueOf(DEFAULT_RECORD_IDLE_TIME))));
+        view = new StatisticsView(this);
+        MBeanRegistrar.getInstance().registerMBean(view, "StatisticsView", "StatisticsView");
+        MetricsRegistry.getInstance().register("StatisticsView", view);
     }
 
     /**
-     * Registering a statistics record
+     * Creates a collector with the given settings.
+     *
+     * @param bufferSize          the number of records that can wait for the aggregator
+     * @param aggregationInterval the interval in milliseconds between aggregations, or 0 to
+     *                            only aggregate on calls to {@link #aggregate(long)}
+     * @param recordIdleTime      the time in milliseconds a record must go without new logs
+     *                            before it is aggregated
+     */
+    public StatisticsCollector(int bufferSize, long aggregationInterval, long recordIdleTime) {
+        this.buffer = new StatisticsRingBuffer<StatisticsRecord>(bufferSize);
+        this.aggregationInterval = aggregationInterval;
+        this.recordIdleTime = recordIdleTime;
+        if (aggregationInterval > 0) {
+            aggregator = new Thread(new Runnable() {
+                public void run() {
+                    aggregateUntilDestroyed();
+                }
+            }, "SynapseStatisticsAggregator");
+            aggregator.setDaemon(true);
+            aggregator.start();
+        } else {
+            aggregator = null;
+        }
+    }
+
+    /**
+     * Registering a statistics record. A record is only registered once, however many times
+     * it is given.
      *
      * @param statisticsRecord statistics record instance
      */
     public void collect(StatisticsRecord statisticsRecord) {
-        this.statisticsCollection.add(statisticsRecord);
+        if (!statisticsRecord.markCollected()) {
+            return;
+        }
+        if (!buffer.offer(statisticsRecord)) {
+            long dropped = droppedRecords.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Statistics buffer is full, dropped " + statisticsRecord +
+                        " (" + dropped + " records dropped so far)");
+            }
+            return;
+        }
+        if (aggregator != null && buffer.size() > buffer.capacity() / 2) {
+            // Do not wait for the next run to make room
+            LockSupport.unpark(aggregator);
+        }
     }
 
     /**
@@ -53,36 +155,130 @@ public class StatisticsCollector {
      * @return True if there
      */
     public boolean contains(StatisticsRecord statisticsRecord) {
-        return statisticsCollection.contains(statisticsRecord);
+        return statisticsRecord.isCollected();
     }
 
     /**
-     * Clear all the existing statistics
+     * Clear all the existing statistics. The aggregator discards the views and the records
+     * collected so far on its next run.
      */
     public void clearStatistics() {
-        this.statisticsCollection.clear();
+        clearRequested.set(true);
+        if (aggregator != null) {
+            LockSupport.unpark(aggregator);
+        }
     }
 
     /**
-     * Returns All collected statistics records
+     * Returns the system wide views of all resources with given type, as of the last
+     * aggregation.
      *
-     * @return A list of StatisticsRecord
+     * @param type Type of resource
+     * @return the views of the resources, by owner and resource id
      */
-    public List<StatisticsRecord> getStatisticsRecords() {
-        List<StatisticsRecord> records = new ArrayList<StatisticsRecord>();
-        records.addAll(statisticsCollection);
-        return records;
+    public Map<String, Map<String, InOutStatisticsView>> getView(ComponentType type) {
+        Map<String, Map<String, InOutStatisticsView>> view = snapshot.get(type);
+        if (view == null) {
+            return Collections.emptyMap();
+        }
+        return view;
     }
 
     /**
-     * Return and clear collected statistics records
+     * Returns the number of records dropped because the buffer was full.
      *
-     * @return A list of StatisticsRecord
+     * @return the number of dropped records
      */
-    public List<StatisticsRecord> getAndClearStatisticsRecords() {
-        List<StatisticsRecord> records = new ArrayList<StatisticsRecord>();
-        records.addAll(statisticsCollection);
-        statisticsCollection.clear();
-        return records;
+    public long getDroppedRecordCount() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * Stops the aggregating thread, and withdraws the published view unless a newer
+     * collector has replaced it
+     */
+    public void destroy() {
+        running = false;
+        if (aggregator != null) {
+            LockSupport.unpark(aggregator);
+        }
+        if (view != null && MetricsRegistry.getInstance().unregister("StatisticsView", view)) {
+            MBeanRegistrar.getInstance().unRegisterMBean("StatisticsView", "StatisticsView");
+        }
+    }
+
+    private void aggregateUntilDestroyed() {
+        long intervalNanos = aggregationInterval * 1000 * 1000;
+        while (running) {
+            try {
+                aggregate(System.currentTimeMillis());
+            } catch (Throwable t) {
+                log.warn("Error aggregating statistics", t);
+            }
+            LockSupport.parkNanos(this, intervalNanos);
+        }
+    }
+
+    /**
+     * Moves the records out of the buffer, and adds those that went idle to the views. Must
+     * only be called by one thread at a time, which is the aggregating thread when there is
+     * one.
+     *
+     * @param now the current time in milliseconds
+     */
+    void aggregate(long now) {
+        boolean changed = false;
+        if (clearRequested.getAndSet(false)) {
+            buffer.drainTo(pendingRecords);
+            pendingRecords.clear();
+            views.clear();
+            changed = true;
+        }
+
+        buffer.drainTo(pendingRecords);
+        // In arrival order, and not waiting longer than the buffer could hold records
+        while (!pendingRecords.isEmpty()) {
+            StatisticsRecord record = pendingRecords.peek();
+            if (now - record.getLastUpdated() < recordIdleTime
+                    && pendingRecords.size() <= buffer.capacity()) {
+                break;
+            }
+            pendingRecords.remove();
+            for (ComponentType type : VIEW_TYPES) {
+                Map<String, Map<String, InOutStatisticsView>> view = views.get(type);
+                if (view == null) {
+                    view = new HashMap<String, Map<String, InOutStatisticsView>>();
+                    views.put(type, view);
+                }
+                viewStrategy.updateView(view, record, type);
+            }
+            changed = true;
+        }
+
+        if (changed) {
+            snapshot = copyViews();
+        }
+    }
+
+    private Map<ComponentType, Map<String, Map<String, InOutStatisticsView>>> copyViews() {
+        Map<ComponentType, Map<String, Map<String, InOutStatisticsView>>> copy =
+                new EnumMap<ComponentType, Map<String, Map<String, InOutStatisticsView>>>(
+                        ComponentType.class);
+        for (Map.Entry<ComponentType, Map<String, Map<String, InOutStatisticsView>>> typeEntry
+                : views.entrySet()) {
+            Map<String, Map<String, InOutStatisticsView>> perOwner =
+                    new HashMap<String, Map<String, InOutStatisticsView>>();
+            for (Map.Entry<String, Map<String, InOutStatisticsView>> ownerEntry
+                    : typeEntry.getValue().entrySet()) {
+                Map<String, InOutStatisticsView> perResource =
+                        new HashMap<String, InOutStatisticsView>();
+                for (InOutStatisticsView view : ownerEntry.getValue().values()) {
+                    perResource.put(view.getResourceId(), new InOutStatisticsView(view));
+                }
+                perOwner.put(ownerEntry.getKey(), Collections.unmodifiableMap(perResource));
+            }
+            copy.put(typeEntry.getKey(), Collections.unmodifiableMap(perOwner));
+        }
+        return copy;
     }
 }
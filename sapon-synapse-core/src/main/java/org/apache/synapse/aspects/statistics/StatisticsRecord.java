@@ -19,7 +19,12 @@
 package org.apache.synapse.aspects.statistics;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -27,14 +32,18 @@ import org.apache.synapse.Identifiable;
 import org.apache.synapse.aspects.ComponentType;
 
 /**
- * Holds a record for statistics for current message
+ * Holds a record for statistics for current message. The logs are appended without locking by
+ * the thread mediating the message, while the statistics aggregator reads them.
  */
 public class StatisticsRecord {
 
     private static final Log log = LogFactory.getLog(StatisticsRecord.class);
     private String id;
-    private final List<StatisticsLog> statisticsLogs = new ArrayList<StatisticsLog>();
-    private boolean isFaultResponse;
+    private final Queue<StatisticsLog> statisticsLogs = new ConcurrentLinkedQueue<StatisticsLog>();
+    /** Whether the record has been handed to a collector */
+    private final AtomicBoolean collected = new AtomicBoolean();
+    private volatile long lastUpdated = System.currentTimeMillis();
+    private volatile boolean isFaultResponse;
     private String clientIP;
     private String clientHost;
     private ComponentType owner;
@@ -80,10 +89,34 @@ public class StatisticsRecord {
             if (log.isDebugEnabled()) {
                 log.debug("Start to reportForComponent statistics for : " + auditID);
             }
-            statisticsLogs.add(new StatisticsLog(auditID, componentType, isResponse));
+            StatisticsLog statisticsLog = new StatisticsLog(auditID, componentType, isResponse);
+            statisticsLogs.add(statisticsLog);
+            lastUpdated = statisticsLog.getTime();
         }
     }
 
+    /**
+     * Returns the time the last log was added, or the record created.
+     *
+     * @return the time in milliseconds
+     */
+    public long getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Marks the record as handed to a collector.
+     *
+     * @return false if it already was
+     */
+    boolean markCollected() {
+        return collected.compareAndSet(false, true);
+    }
+
+    boolean isCollected() {
+        return collected.get();
+    }
+
     /**
      * Gets all the StatisticsLogs
      *
@@ -102,11 +135,11 @@ public class StatisticsRecord {
      * @return A List of Log ids
      */
     public Iterable<String> getAllLogIds(ComponentType componentType) {
-        final List<String> logIds = new ArrayList<String>();
+        final Set<String> logIds = new LinkedHashSet<String>();
         for (StatisticsLog startLog : statisticsLogs) {
             if (startLog != null && startLog.getComponentType() == componentType) {
                 String id = startLog.getId();
-                if (id != null && !"".equals(id) && !logIds.contains(id)) {
+                if (id != null && !"".equals(id)) {
                     logIds.add(id);
                 }
             }
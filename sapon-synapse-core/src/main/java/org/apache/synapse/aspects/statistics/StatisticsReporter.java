@@ -26,6 +26,7 @@ import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.aspects.AspectConfiguration;
 import org.apache.synapse.aspects.AspectConfigurationDetectionStrategy;
 import org.apache.synapse.aspects.ComponentType;
+import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2SynapseMessageContext;
 
 /**
@@ -121,19 +122,27 @@ public class StatisticsReporter {
 
         StatisticsCollector collector = synCtx.getEnvironment().getStatisticsCollector();
         if (collector == null) {
-
-            if (log.isDebugEnabled()) {
-                log.debug("Setting statistics collector in the synapse environment.");
-            }
-            collector = new StatisticsCollector();
-            synCtx.getEnvironment().setStatisticsCollector(collector);
+            collector = createStatisticsCollector(synCtx.getEnvironment());
         }
 
         record.collect((Identifiable) configurable,
                 componentType, synCtx.isResponse());
 
-        if (!collector.contains(record)) {
-            collector.collect(record);
+        // Only hands the record over on its first log
+        collector.collect(record);
+    }
+
+    private static StatisticsCollector createStatisticsCollector(SynapseEnvironment env) {
+        synchronized (env) {
+            StatisticsCollector collector = env.getStatisticsCollector();
+            if (collector == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Setting statistics collector in the synapse environment.");
+                }
+                collector = new StatisticsCollector();
+                env.setStatisticsCollector(collector);
+            }
+            return collector;
         }
     }
 }
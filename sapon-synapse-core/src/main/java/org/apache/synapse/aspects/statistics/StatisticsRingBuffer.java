@@ -0,0 +1,148 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.aspects.statistics;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free buffer with many producers and a single consumer. Each slot carries a
+ * sequence number telling whether it is free for the producer of a given position, or holds
+ * the element of a given position for the consumer, so producers only compete on claiming a
+ * position and never wait for each other. When the buffer is full, {@link #offer(Object)}
+ * fails instead of blocking.
+ *
+ * @param <E> the type of the elements
+ */
+public final class StatisticsRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    /** The next position to be claimed by a producer */
+    private final AtomicLong tail = new AtomicLong();
+    /** The next position to be read by the consumer */
+    private volatile long head;
+
+    /**
+     * Creates a buffer holding at least the given number of elements. The capacity is rounded
+     * up to a power of two, and is at least two so that a full slot can be told from a free
+     * one.
+     *
+     * @param capacity the minimum capacity
+     */
+    public StatisticsRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity : " + capacity);
+        }
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        elements = new AtomicReferenceArray<E>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element, from any thread.
+     *
+     * @param element the element to add
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Null elements are not supported");
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.set(index, element);
+                    // Publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                // The slot still holds the element of the previous lap
+                return false;
+            } else {
+                // Another producer claimed this position
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element. Must only be called by the consumer thread.
+     *
+     * @return the element, or null if the buffer is empty
+     */
+    public E poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            // Empty, or the producer of this position has not published it yet
+            return null;
+        }
+        E element = elements.get(index);
+        elements.set(index, null);
+        // Frees the slot for the producer of the next lap
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Moves all the available elements to the given collection. Must only be called by the
+     * consumer thread.
+     *
+     * @param collection the collection to add the elements to
+     * @return the number of elements moved
+     */
+    public int drainTo(Collection<? super E> collection) {
+        int count = 0;
+        E element;
+        while ((element = poll()) != null) {
+            collection.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the approximate number of elements in the buffer.
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return size < 0 ? 0 : (int) Math.min(size, capacity());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -19,70 +19,117 @@
 package org.apache.synapse.aspects.statistics.mbean;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.axis2.transport.base.MetricsSource;
+import org.apache.axis2.transport.base.MetricsWriter;
+import org.apache.synapse.SynapseException;
 import org.apache.synapse.aspects.ComponentType;
 import org.apache.synapse.aspects.statistics.StatisticsCollector;
 import org.apache.synapse.aspects.statistics.view.InOutStatisticsView;
-import org.apache.synapse.aspects.statistics.view.StatisticsViewStrategy;
-import org.apache.synapse.aspects.statistics.view.SystemViewStrategy;
+import org.apache.synapse.aspects.statistics.view.Statistics;
 
 /**
  * @see org.apache.synapse.aspects.statistics.mbean.StatisticsViewMBean
  */
-public class StatisticsView implements StatisticsViewMBean {
+public class StatisticsView implements StatisticsViewMBean, MetricsSource {
+
+    private static final ComponentType[] VIEW_TYPES = {
+            ComponentType.ENDPOINT, ComponentType.SEQUENCE, ComponentType.PROXYSERVICE};
 
     private final StatisticsCollector collector;
-    private final StatisticsViewStrategy systemViewStrategy = new SystemViewStrategy();
 
     public StatisticsView(StatisticsCollector collector) {
         this.collector = collector;
     }
 
     public List<String> getSystemEndpointStats(String id) {
-        return getAsList(
-                this.systemViewStrategy.determineView(id,
-                        collector.getStatisticsRecords(),
-                        ComponentType.ENDPOINT));
+        return getAsList(getResourceView(id, ComponentType.ENDPOINT));
     }
 
     public List<String> getSystemSequnceStats(String id) {
-        return getAsList(this.systemViewStrategy.determineView(id,
-                collector.getStatisticsRecords(),
-                ComponentType.SEQUENCE));
+        return getAsList(getResourceView(id, ComponentType.SEQUENCE));
     }
 
     public List<String> getSystemProxyServiceStats(String id) {
-        return getAsList(this.systemViewStrategy.determineView(id,
-                collector.getStatisticsRecords(),
-                ComponentType.PROXYSERVICE));
-
+        return getAsList(getResourceView(id, ComponentType.PROXYSERVICE));
     }
 
     public List<String> getSystemEndpointsStats() {
-        return getAllStatsAsList(
-                this.systemViewStrategy.determineView(collector.getStatisticsRecords(),
-                        ComponentType.ENDPOINT));
+        return getAllStatsAsList(collector.getView(ComponentType.ENDPOINT));
     }
 
     public List<String> getSystemSequncesStats() {
-        return getAllStatsAsList(
-                this.systemViewStrategy.determineView(collector.getStatisticsRecords(),
-                        ComponentType.SEQUENCE));
+        return getAllStatsAsList(collector.getView(ComponentType.SEQUENCE));
     }
 
     public List<String> getSystemProxyServicesStats() {
-        return getAllStatsAsList(
-                this.systemViewStrategy.determineView(collector.getStatisticsRecords(),
-                        ComponentType.PROXYSERVICE));
+        return getAllStatsAsList(collector.getView(ComponentType.PROXYSERVICE));
+    }
 
+    public long getDroppedStatisticsCount() {
+        return collector.getDroppedRecordCount();
     }
 
     public void clearAllStatistics() {
         this.collector.clearStatistics();
     }
 
+    public void collectMetrics(MetricsWriter writer) {
+        writer.counter("synapse_statistics_dropped_records",
+                "Statistics records dropped as the statistics buffer was full",
+                collector.getDroppedRecordCount());
+        for (ComponentType type : VIEW_TYPES) {
+            Map<String, InOutStatisticsView> views = collector.getView(type).get(Statistics.ALL);
+            if (views == null) {
+                continue;
+            }
+            String typeName = type.name().toLowerCase();
+            for (InOutStatisticsView view : views.values()) {
+                writeStatistics(writer, typeName, view.getResourceId(), "in",
+                        view.getInStatistics());
+                writeStatistics(writer, typeName, view.getResourceId(), "out",
+                        view.getOutStatistics());
+            }
+        }
+    }
+
+    private static void writeStatistics(MetricsWriter writer, String type, String id,
+                                        String flow, Statistics statistics) {
+        if (statistics.getCount() == 0) {
+            return;
+        }
+        String[] labels = {"type", type, "resource", id, "flow", flow};
+        writer.counter("synapse_statistics_messages", "Messages mediated",
+                statistics.getCount(), labels);
+        writer.counter("synapse_statistics_faults", "Messages mediated into a fault",
+                statistics.getFaultCount(), labels);
+        writer.gauge("synapse_statistics_max_processing_time_milliseconds",
+                "Maximum processing time", statistics.getMaxProcessingTime(), labels);
+        writer.gauge("synapse_statistics_avg_processing_time_milliseconds",
+                "Average processing time", statistics.getAvgProcessingTime(), labels);
+    }
+
+    private Map<String, InOutStatisticsView> getResourceView(String id, ComponentType type) {
+        if (id == null || "".equals(id)) {
+            throw new SynapseException("Resource Id cannot be null");
+        }
+        Map<String, InOutStatisticsView> viewMap = new HashMap<String, InOutStatisticsView>();
+        for (Map.Entry<String, Map<String, InOutStatisticsView>> entry
+                : collector.getView(type).entrySet()) {
+            InOutStatisticsView view = entry.getValue().get(id);
+            if (view != null) {
+                viewMap.put(entry.getKey(), view);
+            }
+        }
+        if (viewMap.isEmpty()) {
+            viewMap.put(Statistics.ALL, new InOutStatisticsView(id, Statistics.ALL, type));
+        }
+        return viewMap;
+    }
+
     private List<String> getAsList(Map<String, InOutStatisticsView> viewMap) {
         List<String> returnList = new ArrayList<String>();
         for (InOutStatisticsView view : viewMap.values()) {
@@ -37,5 +37,7 @@ public interface StatisticsViewMBean {
 
     List<String> getSystemProxyServicesStats();
 
+    long getDroppedStatisticsCount();
+
     void clearAllStatistics();
 }
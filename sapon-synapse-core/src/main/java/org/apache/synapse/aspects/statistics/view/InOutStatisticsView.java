@@ -44,6 +44,20 @@ public class InOutStatisticsView {
         }
     }
 
+    /**
+     * Creates a copy of the given view
+     *
+     * @param view the view to copy
+     */
+    public InOutStatisticsView(InOutStatisticsView view) {
+        this.resourceId = view.resourceId;
+        this.owner = view.owner;
+        this.componentType = view.componentType;
+        this.inStatistics = new Statistics(view.inStatistics);
+        this.outStatistics =
+                view.outStatistics == null ? null : new Statistics(view.outStatistics);
+    }
+
     public Statistics getInStatistics() {
         return inStatistics;
     }
@@ -40,4 +40,9 @@ public class PerUserDomainViewStrategy extends PerUserViewStrategy {
             ComponentType type) {
         return determineView(id, statisticsRecords, type, DOMAIN);
     }
+
+    public void updateView(Map<String, Map<String, InOutStatisticsView>> views,
+                           StatisticsRecord record, ComponentType type) {
+        updateView(views, record, type, DOMAIN);
+    }
 }
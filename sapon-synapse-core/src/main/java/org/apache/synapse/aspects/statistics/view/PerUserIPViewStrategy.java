@@ -40,4 +40,9 @@ public class PerUserIPViewStrategy extends PerUserViewStrategy {
         return determineView(id, statisticsRecords,
                 type, IP);
     }
+
+    public void updateView(Map<String, Map<String, InOutStatisticsView>> views,
+                           StatisticsRecord record, ComponentType type) {
+        updateView(views, record, type, IP);
+    }
 }
@@ -153,6 +153,40 @@ public abstract class PerUserViewStrategy implements StatisticsViewStrategy {
         return statisticsMap;
     }
 
+    public void updateView(Map<String, Map<String, InOutStatisticsView>> views,
+                           StatisticsRecord record, ComponentType type, int userIDType) {
+
+        String userID;
+        if (IP == userIDType) {
+            userID = record.getClientIP();
+        } else {
+            userID = record.getClientHost();
+        }
+
+        if (userID == null || "".equals(userID)) {
+            if (log.isDebugEnabled()) {
+                log.debug("user ID cannot be found.");
+            }
+            return;
+        }
+
+        Map<String, InOutStatisticsView> perResourceMap = views.get(userID);
+        if (perResourceMap == null) {
+            perResourceMap = new HashMap<String, InOutStatisticsView>();
+            views.put(userID, perResourceMap);
+        }
+
+        final StatisticsUpdateStrategy strategy = new StatisticsUpdateStrategy(record);
+        for(final String id: record.getAllLogIds(type)) {
+            InOutStatisticsView view = perResourceMap.get(id);
+            if (view == null) {
+                view = new InOutStatisticsView(id, userID, type);
+                perResourceMap.put(id, view);
+            }
+            updateStatistics(id, type, view, strategy);
+        }
+    }
+
     private void updateStatistics(String id, ComponentType type, InOutStatisticsView view,
                                   StatisticsUpdateStrategy strategy) {
         if (view != null) {
@@ -59,6 +59,21 @@ public class Statistics {
         this.id = id;
     }
 
+    /**
+     * Creates a copy of the given statistics
+     *
+     * @param statistics the statistics to copy
+     */
+    public Statistics(Statistics statistics) {
+        this.id = statistics.id;
+        this.maxProcessingTime = statistics.maxProcessingTime;
+        this.minProcessingTime = statistics.minProcessingTime;
+        this.avgProcessingTime = statistics.avgProcessingTime;
+        this.totalProcessingTime = statistics.totalProcessingTime;
+        this.count = statistics.count;
+        this.faultCount = statistics.faultCount;
+    }
+
     /**
      * Update the statistics
      *
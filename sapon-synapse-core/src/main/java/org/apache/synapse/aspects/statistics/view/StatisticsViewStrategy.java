@@ -51,4 +51,15 @@ public interface StatisticsViewStrategy {
     public Map<String, InOutStatisticsView> determineView(String id,
                                                           List<StatisticsRecord> statisticsRecords,
                                                           ComponentType type);
+
+    /**
+     * Adds the statistics of a record to the views of all resources with given type, as
+     * returned by {@link #determineView(List, ComponentType)}
+     *
+     * @param views  The views to update
+     * @param record Statistics Data
+     * @param type   Type of resource
+     */
+    public void updateView(Map<String, Map<String, InOutStatisticsView>> views,
+                           StatisticsRecord record, ComponentType type);
 }
@@ -50,28 +50,35 @@ public class SystemViewStrategy implements StatisticsViewStrategy {
             return statisticsMap;
         }
 
-        final Map<String, InOutStatisticsView> perResourceMap =
-                new HashMap<String, InOutStatisticsView>();
-
+        statisticsMap.put(Statistics.ALL, new HashMap<String, InOutStatisticsView>());
         for (StatisticsRecord record : statisticsRecords) {
             if (record != null) {
-                final StatisticsUpdateStrategy strategy = new StatisticsUpdateStrategy(record);
-                for(final String id: record.getAllLogIds(type)) {
-                    InOutStatisticsView view;
-                    if (!perResourceMap.containsKey(id)) {
-                        view = new InOutStatisticsView(id, Statistics.ALL, type);
-                        perResourceMap.put(id, view);
-                    } else {
-                        view = perResourceMap.get(id);
-                    }
-                    updateStatistics(id, type, view, strategy);
-                }
+                updateView(statisticsMap, record, type);
             }
         }
-        statisticsMap.put(Statistics.ALL, perResourceMap);
         return statisticsMap;
     }
 
+    public void updateView(Map<String, Map<String, InOutStatisticsView>> views,
+                           StatisticsRecord record, ComponentType type) {
+
+        Map<String, InOutStatisticsView> perResourceMap = views.get(Statistics.ALL);
+        if (perResourceMap == null) {
+            perResourceMap = new HashMap<String, InOutStatisticsView>();
+            views.put(Statistics.ALL, perResourceMap);
+        }
+
+        final StatisticsUpdateStrategy strategy = new StatisticsUpdateStrategy(record);
+        for(final String id: record.getAllLogIds(type)) {
+            InOutStatisticsView view = perResourceMap.get(id);
+            if (view == null) {
+                view = new InOutStatisticsView(id, Statistics.ALL, type);
+                perResourceMap.put(id, view);
+            }
+            updateStatistics(id, type, view, strategy);
+        }
+    }
+
 
     public Map<String, InOutStatisticsView> determineView(String id,
                                                           List<StatisticsRecord> statisticsRecords,
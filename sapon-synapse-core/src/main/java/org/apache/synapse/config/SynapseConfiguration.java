@@ -103,6 +103,12 @@ public class SynapseConfiguration implements ManagedLifecycle {
      */
     private Timer synapseTimer = new Timer(true);
 
+    /**
+     * Runs the periodic clean up of expired statistics and sessions, apart from
+     * the synapse timer so that a slow sweep never delays callback expiry.
+     */
+    private Timer cleanupTimer = new Timer("SynapseCleanup", true);
+
     /** Hold reference to the Axis2 ConfigurationContext */
     private AxisConfiguration axisConfiguration = null;
 
@@ -730,6 +736,15 @@ public class SynapseConfiguration implements ManagedLifecycle {
         return synapseTimer;
     }
 
+    /**
+     * Get the timer object for the periodic clean up tasks of the Synapse Configuration
+     *
+     * @return cleanupTimer clean up timer object of the configuration
+     */
+    public Timer getCleanupTimer() {
+        return cleanupTimer;
+    }
+
     /**
      * Get the startup collection in the configuration
      *
@@ -865,6 +880,8 @@ public class SynapseConfiguration implements ManagedLifecycle {
         // clear the timer tasks of Synapse
         synapseTimer.cancel();
         synapseTimer = null;
+        cleanupTimer.cancel();
+        cleanupTimer = null;
 
         // stop and shutdown all the proxy services
         for (ProxyService p : getProxyServices()) {
@@ -88,9 +88,15 @@ public class XMLConfigConstants {
     public static final String MARK_FOR_SUSPENSION = "markForSuspension";
     public static final String RETRIES_BEFORE_SUSPENSION = "retriesBeforeSuspension";
     public static final String RETRY_DELAY = "retryDelay";
+    public static final String CONCURRENCY_LIMIT = "concurrencyLimit";
+    public static final String CONCURRENCY_LIMIT_ALGORITHM = "algorithm";
+    public static final String CONCURRENCY_LIMIT_INITIAL = "initialLimit";
+    public static final String CONCURRENCY_LIMIT_MIN = "minLimit";
+    public static final String CONCURRENCY_LIMIT_MAX = "maxLimit";
 
 	public static final String LOADBALANCE_POLICY = "policy";
 	public static final String LOADBALANCE_ALGORITHM = "algorithm";
+	public static final String LOADBALANCE_WEIGHT = "weight";
 
     //TODO FIX-RUWAN
     public static final String ALGORITHM_NAME = "policy";
@@ -33,6 +33,7 @@ import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.config.XMLToObjectMapper;
 import org.apache.synapse.config.xml.XMLConfigConstants;
+import org.apache.synapse.endpoints.ConcurrencyLimiter;
 import org.apache.synapse.endpoints.Endpoint;
 import org.apache.synapse.endpoints.EndpointDefinition;
 import org.apache.synapse.endpoints.IndirectEndpoint;
@@ -386,6 +387,64 @@ public abstract class EndpointFactory implements XMLToObjectMapper {
     	}
     }
 
+    private void extractConcurrencyLimit(EndpointDefinition def, OMElement elem) {
+        OMElement concurrencyLimit = elem.getFirstChildWithName(new QName(
+                SynapseConstants.SYNAPSE_NAMESPACE,
+                XMLConfigConstants.CONCURRENCY_LIMIT));
+
+        if (concurrencyLimit != null) {
+
+            OMElement algorithm = concurrencyLimit.getFirstChildWithName(new QName(
+                    SynapseConstants.SYNAPSE_NAMESPACE,
+                    XMLConfigConstants.CONCURRENCY_LIMIT_ALGORITHM));
+            if (algorithm != null && algorithm.getText() != null) {
+                def.setConcurrencyLimitAlgorithm(algorithm.getText().trim());
+            } else {
+                def.setConcurrencyLimitAlgorithm(ConcurrencyLimiter.GRADIENT);
+            }
+
+            Integer initial = getConcurrencyLimit(concurrencyLimit,
+                    XMLConfigConstants.CONCURRENCY_LIMIT_INITIAL);
+            if (initial != null) {
+                def.setInitialConcurrencyLimit(initial);
+            }
+            Integer min = getConcurrencyLimit(concurrencyLimit,
+                    XMLConfigConstants.CONCURRENCY_LIMIT_MIN);
+            if (min != null) {
+                def.setMinConcurrencyLimit(min);
+            }
+            Integer max = getConcurrencyLimit(concurrencyLimit,
+                    XMLConfigConstants.CONCURRENCY_LIMIT_MAX);
+            if (max != null) {
+                def.setMaxConcurrencyLimit(max);
+            }
+
+            try {
+                // validate the settings
+                new ConcurrencyLimiter(def.getConcurrencyLimitAlgorithm(),
+                        def.getInitialConcurrencyLimit(), def.getMinConcurrencyLimit(),
+                        def.getMaxConcurrencyLimit());
+            } catch (IllegalArgumentException e) {
+                handleException("Invalid endpoint concurrency limit : " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private Integer getConcurrencyLimit(OMElement concurrencyLimit, String name) {
+        OMElement limit = concurrencyLimit.getFirstChildWithName(new QName(
+                SynapseConstants.SYNAPSE_NAMESPACE, name));
+        if (limit == null || limit.getText() == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(limit.getText().trim());
+        } catch (NumberFormatException e) {
+            handleException("The concurrency limit " + name + " should be specified " +
+                    "as a valid number : " + limit.getText(), e);
+            return null;
+        }
+    }
+
     /**
      * Extracts the QoS information from the XML which represents a WSDL/Address/Default endpoints
      *
@@ -403,6 +462,7 @@ public abstract class EndpointFactory implements XMLToObjectMapper {
         extractMarkForSuspension(def, elem);
         extractSuspendDuration(def, elem);
         extractSuspendOnFail(def, elem);
+        extractConcurrencyLimit(def, elem);
     }
 
     protected void extractSpecificEndpointProperties(EndpointDefinition definition,
@@ -258,6 +258,39 @@ public abstract class EndpointSerializer {
 
             element.addChild(markAsTimedout);
         }
+
+        if (endpointDefinition.getConcurrencyLimitAlgorithm() != null) {
+
+            OMElement concurrencyLimit = fac.createOMElement(
+                XMLConfigConstants.CONCURRENCY_LIMIT,
+                SynapseConstants.SYNAPSE_OMNAMESPACE);
+
+            OMElement algorithm = fac.createOMElement(
+                XMLConfigConstants.CONCURRENCY_LIMIT_ALGORITHM,
+                SynapseConstants.SYNAPSE_OMNAMESPACE);
+            algorithm.setText(endpointDefinition.getConcurrencyLimitAlgorithm());
+            concurrencyLimit.addChild(algorithm);
+
+            OMElement initialLimit = fac.createOMElement(
+                XMLConfigConstants.CONCURRENCY_LIMIT_INITIAL,
+                SynapseConstants.SYNAPSE_OMNAMESPACE);
+            initialLimit.setText(Integer.toString(endpointDefinition.getInitialConcurrencyLimit()));
+            concurrencyLimit.addChild(initialLimit);
+
+            OMElement minLimit = fac.createOMElement(
+                XMLConfigConstants.CONCURRENCY_LIMIT_MIN,
+                SynapseConstants.SYNAPSE_OMNAMESPACE);
+            minLimit.setText(Integer.toString(endpointDefinition.getMinConcurrencyLimit()));
+            concurrencyLimit.addChild(minLimit);
+
+            OMElement maxLimit = fac.createOMElement(
+                XMLConfigConstants.CONCURRENCY_LIMIT_MAX,
+                SynapseConstants.SYNAPSE_OMNAMESPACE);
+            maxLimit.setText(Integer.toString(endpointDefinition.getMaxConcurrencyLimit()));
+            concurrencyLimit.addChild(maxLimit);
+
+            element.addChild(concurrencyLimit);
+        }
     }
 
     protected void serializeSpecificEndpointProperties(EndpointDefinition endpointDefinition,
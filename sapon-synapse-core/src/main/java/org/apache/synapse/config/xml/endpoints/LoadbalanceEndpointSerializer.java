@@ -25,6 +25,8 @@ import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.config.xml.XMLConfigConstants;
 import org.apache.synapse.endpoints.Endpoint;
 import org.apache.synapse.endpoints.LoadbalanceEndpoint;
+import org.apache.synapse.endpoints.algorithms.LoadbalanceAlgorithm;
+import org.apache.synapse.endpoints.algorithms.WeightedRoundRobin;
 
 /**
  * Serializes {@link LoadbalanceEndpoint} to an XML configuration.
@@ -64,9 +66,7 @@ public class LoadbalanceEndpointSerializer extends EndpointSerializer {
         }
 
         // Serialize endpoint elements which are children of the loadbalance element
-        for (Endpoint childEndpoint : loadbalanceEndpoint.getChildren()) {
-            loadbalanceElement.addChild(EndpointSerializer.getElementFromEndpoint(childEndpoint));
-        }
+        serializeChildren(loadbalanceElement, loadbalanceEndpoint);
 
 //      TODO FIX_RUWAN        
 //        // Serialize member elements which are children of the loadbalance element
@@ -83,4 +83,30 @@ public class LoadbalanceEndpointSerializer extends EndpointSerializer {
 
         return endpointElement;
     }
+
+    /**
+     * Serialize the children of a loadbalance endpoint, along with their weights if the
+     * endpoint uses the weighted round robin algorithm
+     *
+     * @param loadbalanceElement the loadbalance element to add the children to
+     * @param loadbalanceEndpoint the endpoint being serialized
+     */
+    static void serializeChildren(OMElement loadbalanceElement,
+                                  LoadbalanceEndpoint loadbalanceEndpoint) {
+
+        LoadbalanceAlgorithm algorithm = loadbalanceEndpoint.getAlgorithm();
+        int index = 0;
+        for (Endpoint childEndpoint : loadbalanceEndpoint.getChildren()) {
+            OMElement childElement = EndpointSerializer.getElementFromEndpoint(childEndpoint);
+            if (algorithm instanceof WeightedRoundRobin) {
+                int weight = ((WeightedRoundRobin) algorithm).getWeight(index);
+                if (weight != 1) {
+                    childElement.addAttribute(XMLConfigConstants.LOADBALANCE_WEIGHT,
+                            String.valueOf(weight), null);
+                }
+            }
+            loadbalanceElement.addChild(childElement);
+            index++;
+        }
+    }
 }
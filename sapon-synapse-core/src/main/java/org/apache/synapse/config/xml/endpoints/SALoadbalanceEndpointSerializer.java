@@ -87,9 +87,7 @@ public class SALoadbalanceEndpointSerializer extends EndpointSerializer {
                 loadbalanceEndpoint.getAlgorithm().getClass().getName(),
                 null);
 
-        for (Endpoint childEndpoint : loadbalanceEndpoint.getChildren()) {
-            loadbalanceElement.addChild(EndpointSerializer.getElementFromEndpoint(childEndpoint));
-        }
+        LoadbalanceEndpointSerializer.serializeChildren(loadbalanceElement, loadbalanceEndpoint);
 
         return endpointElement;
     }
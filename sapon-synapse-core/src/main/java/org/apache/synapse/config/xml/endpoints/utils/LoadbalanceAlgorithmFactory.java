@@ -19,6 +19,7 @@
 
 package org.apache.synapse.config.xml.endpoints.utils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.xml.namespace.QName;
@@ -30,17 +31,28 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.config.xml.XMLConfigConstants;
 import org.apache.synapse.endpoints.Endpoint;
+import org.apache.synapse.endpoints.algorithms.LeastOutstandingRequests;
+import org.apache.synapse.endpoints.algorithms.LeastResponseTime;
 import org.apache.synapse.endpoints.algorithms.LoadbalanceAlgorithm;
 import org.apache.synapse.endpoints.algorithms.RoundRobin;
+import org.apache.synapse.endpoints.algorithms.WeightedRoundRobin;
 
 /**
  * Factory of all load balance algorithms. ESBSendMediatorFactroy will use this to create the
- * appropriate algorithm implementation.
+ * appropriate algorithm implementation. The built in algorithms can be chosen by the 'policy'
+ * attribute of the loadbalance element: roundRobin (the default), weightedRoundRobin,
+ * leastOutstandingRequests or leastResponseTime. The weights of the weighted round robin
+ * algorithm are given by the 'weight' attribute of the child endpoint elements.
  */
 public class LoadbalanceAlgorithmFactory {
 
     private static Log log = LogFactory.getLog(LoadbalanceAlgorithmFactory.class);
 
+    public static final String ROUND_ROBIN = "roundRobin";
+    public static final String WEIGHTED_ROUND_ROBIN = "weightedRoundRobin";
+    public static final String LEAST_OUTSTANDING_REQUESTS = "leastOutstandingRequests";
+    public static final String LEAST_RESPONSE_TIME = "leastResponseTime";
+
     public static LoadbalanceAlgorithm createLoadbalanceAlgorithm(OMElement loadbalanceElement, List<Endpoint> endpoints) {
 
         //default algorithm is round robin
@@ -71,16 +83,61 @@ public class LoadbalanceAlgorithmFactory {
             }
 
         } else if (policyAttribute != null) {
-            //currently only the roundRobin policy is supported
-            if (!policyAttribute.getAttributeValue().trim().equals("roundRobin")) {
-                String msg = "Unsupported algorithm " + policyAttribute.getAttributeValue().trim() +
-                             " specified. Please use the 'algorithm' attribute to specify the " +
-                             "correct loadbalance algorithm implementation.";
+            String policy = policyAttribute.getAttributeValue().trim();
+            if (WEIGHTED_ROUND_ROBIN.equals(policy)) {
+                algorithm = new WeightedRoundRobin(endpoints);
+            } else if (LEAST_OUTSTANDING_REQUESTS.equals(policy)) {
+                algorithm = new LeastOutstandingRequests(endpoints);
+            } else if (LEAST_RESPONSE_TIME.equals(policy)) {
+                algorithm = new LeastResponseTime(endpoints);
+            } else if (!ROUND_ROBIN.equals(policy)) {
+                String msg = "Unsupported algorithm " + policy + " specified. Please use the " +
+                             "'algorithm' attribute to specify the correct loadbalance " +
+                             "algorithm implementation.";
                 log.fatal(msg); // We cannot continue execution. Hence it is logged at fatal level
                 throw new SynapseException(msg);
             }
         }
 
+        if (algorithm instanceof WeightedRoundRobin && endpoints != null) {
+            ((WeightedRoundRobin) algorithm).setWeights(getWeights(loadbalanceElement));
+        }
+
         return algorithm;
     }
+
+    /**
+     * Read the weights of the child endpoint elements of the loadbalance element, defaulting
+     * to 1
+     */
+    private static int[] getWeights(OMElement loadbalanceElement) {
+
+        List<Integer> weights = new ArrayList<Integer>();
+        for (OMElement endpointElement :
+                loadbalanceElement.getChildrenWithName(XMLConfigConstants.ENDPOINT_ELT)) {
+            String weight = endpointElement.getAttributeValue(new QName(null,
+                    XMLConfigConstants.LOADBALANCE_WEIGHT));
+            int value = 1;
+            if (weight != null) {
+                try {
+                    value = Integer.parseInt(weight.trim());
+                } catch (NumberFormatException e) {
+                    value = 0;
+                }
+                if (value < 1) {
+                    String msg = "Invalid endpoint weight " + weight + ". The weight of an " +
+                                 "endpoint must be a positive integer.";
+                    log.fatal(msg);
+                    throw new SynapseException(msg);
+                }
+            }
+            weights.add(value);
+        }
+
+        int[] result = new int[weights.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = weights.get(i);
+        }
+        return result;
+    }
 }
@@ -21,6 +21,7 @@ package org.apache.synapse.core;
 
 import java.util.concurrent.ExecutorService;
 
+import org.apache.axis2.transport.base.threads.AdmissionControl;
 import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.aspects.statistics.StatisticsCollector;
 import org.apache.synapse.commons.util.TemporaryData;
@@ -83,6 +84,14 @@ public interface SynapseEnvironment {
      */
     ExecutorService getExecutorService();
 
+    /**
+     * The admission control of the executor service, which refuses work once
+     * too many tasks are waiting and sheds tasks that waited too long.
+     *
+     * @return the admission control, or null if the executor is not limited
+     */
+    AdmissionControl getAdmissionControl();
+
     /**
      * Has the Synapse Environment properly initialized?
      *
@@ -44,6 +44,7 @@ import org.apache.synapse.NhttpConstants;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.endpoints.EndpointDefinition;
+import org.apache.synapse.endpoints.ReplayableEnvelope;
 import org.apache.synapse.util.MessageHelper;
 
 /**
@@ -235,6 +236,11 @@ public class Axis2FlexibleMEPClient {
             Axis2Constants.RESPONSE_WRITTEN, "SKIP");
 
         mepClient.execute(true);
+
+        if (outOnlyMessage) {
+            // no response will come back, and a failed send would have thrown
+            ReplayableEnvelope.release(synapseOutMessageContext);
+        }
    }
 
     private static void prepMessageContextForEndpoint(MessageContext msgCtx,
@@ -28,6 +28,9 @@ import org.apache.axis2.context.OldMessageContext;
 import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.description.InOutAxisOperation;
+import org.apache.axis2.transport.base.threads.AdmissionControl;
+import org.apache.axis2.transport.base.threads.ExecutorWorkerPool;
+import org.apache.axis2.transport.base.threads.WorkerPoolFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.SynapseConstants;
@@ -55,6 +58,7 @@ public class Axis2SynapseEnvironment
     private SynapseConfiguration synapseConfig;
     private ConfigurationContext configContext;
     private ExecutorService executorService;
+    private AdmissionControl admissionControl;
     private boolean initialized = false;
 
     private StatisticsCollector statisticsCollector;
@@ -83,11 +87,57 @@ public class Axis2SynapseEnvironment
             keepAlive = Long.parseLong(synCfg.getProperty(SynapseThreadPool.SYN_THREAD_ALIVE));
         } catch (Exception ignore) {}
 
-        this.executorService = new SynapseThreadPool(coreThreads, maxThreads, keepAlive, qlength,
-            synCfg.getProperty(SynapseThreadPool.SYN_THREAD_GROUP,
-                SynapseThreadPool.SYNAPSE_THREAD_GROUP),
-            synCfg.getProperty(SynapseThreadPool.SYN_THREAD_IDPREFIX,
-                SynapseThreadPool.SYNAPSE_THREAD_ID_PREFIX));
+        int maxQueued = 0;
+        long maxQueueTime = 0;
+        try {
+            maxQueued = Integer.parseInt(synCfg.getProperty(SynapseThreadPool.SYN_THREAD_MAX_QUEUED));
+        } catch (Exception ignore) {}
+
+        try {
+            maxQueueTime = Long.parseLong(
+                synCfg.getProperty(SynapseThreadPool.SYN_THREAD_MAX_QUEUE_TIME));
+        } catch (Exception ignore) {}
+
+        if (maxQueued > 0 || maxQueueTime > 0) {
+            this.admissionControl = new AdmissionControl(maxQueued, maxQueueTime);
+        }
+
+        String idPrefix = synCfg.getProperty(SynapseThreadPool.SYN_THREAD_IDPREFIX,
+            SynapseThreadPool.SYNAPSE_THREAD_ID_PREFIX);
+        String type = synCfg.getProperty(SynapseThreadPool.SYN_THREAD_TYPE,
+            SynapseThreadPool.SYNAPSE_THREAD_TYPE_POOL);
+
+        if (SynapseThreadPool.SYNAPSE_THREAD_TYPE_VIRTUAL.equals(type)) {
+            // a virtual thread per task, at most maxThreads of them running at once
+            ExecutorService virtual = WorkerPoolFactory.newVirtualThreadExecutor(idPrefix);
+            if (virtual != null) {
+                this.executorService = new ExecutorWorkerPool(virtual, maxThreads, admissionControl);
+            } else {
+                log.warn("Virtual threads are not available, using the Synapse thread pool");
+            }
+        } else if (SynapseThreadPool.SYNAPSE_THREAD_TYPE_FORKJOIN.equals(type)) {
+            // work stealing across one thread per processor, for CPU bound mediation
+            ExecutorService forkJoin = WorkerPoolFactory.newForkJoinPool(
+                Runtime.getRuntime().availableProcessors());
+            if (forkJoin != null) {
+                this.executorService = new ExecutorWorkerPool(forkJoin, 0, admissionControl);
+            } else {
+                log.warn("ForkJoinPool is not available, using the Synapse thread pool");
+            }
+        } else if (!SynapseThreadPool.SYNAPSE_THREAD_TYPE_POOL.equals(type)) {
+            log.warn("Unknown Synapse thread type : " + type + ", using the Synapse thread pool");
+        }
+
+        if (this.executorService == null) {
+            this.executorService = new SynapseThreadPool(coreThreads, maxThreads, keepAlive, qlength,
+                synCfg.getProperty(SynapseThreadPool.SYN_THREAD_GROUP,
+                    SynapseThreadPool.SYNAPSE_THREAD_GROUP),
+                idPrefix);
+            if (admissionControl != null) {
+                this.executorService =
+                    new ExecutorWorkerPool(this.executorService, 0, admissionControl);
+            }
+        }
     }
 
     public Axis2SynapseEnvironment(	final ConfigurationContext cfgCtx,
@@ -204,12 +254,17 @@ public class Axis2SynapseEnvironment
     }
 
     /**
-     * To set the StatisticsCollector
+     * To set the StatisticsCollector. A collector being replaced is destroyed, so that its
+     * aggregating thread does not outlive it.
      *
      * @param collector - Statistics collector to be set
      */
     public void setStatisticsCollector(StatisticsCollector collector) {
+        StatisticsCollector previous = this.statisticsCollector;
         this.statisticsCollector = collector;
+        if (previous != null && previous != collector) {
+            previous.destroy();
+        }
     }
 
     /**
@@ -222,6 +277,16 @@ public class Axis2SynapseEnvironment
         return executorService;
     }
 
+    /**
+     * Returns the admission control of the executor service, configured with the
+     * synapse.threads.maxqueued and synapse.threads.maxqueuetime properties
+     *
+     * @return the admission control, or null if neither property is set
+     */
+    public AdmissionControl getAdmissionControl() {
+        return admissionControl;
+    }
+
     /**
      * Has this environment properly initialized?
      *
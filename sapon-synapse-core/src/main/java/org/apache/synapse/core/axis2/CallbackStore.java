@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.core.axis2;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.util.concurrent.TimingWheel;
+
+/**
+ * Holds the callbacks of outgoing messages waiting for a response, by
+ * message ID.  Besides the concurrent map used to find the callback of a
+ * response, every callback is scheduled on a {@link TimingWheel} at its
+ * timeout, so that finding the expired callbacks does not need to look at
+ * the ones still waiting.
+ *
+ * Callbacks whose timeout action is {@link SynapseConstants#NONE} are still
+ * expired after the global timeout, to ensure system stability over time.
+ */
+public class CallbackStore {
+
+    private final ConcurrentMap<String, Entry> callbacks =
+            new ConcurrentHashMap<String, Entry>();
+
+    private final TimingWheel<Entry> timeouts;
+
+    private final long globalTimeout;
+
+    /**
+     * @param tickDuration the resolution of the timeouts in milliseconds
+     * @param globalTimeout the time after which callbacks without a timeout
+     *                      action are dropped, in milliseconds
+     */
+    public CallbackStore(long tickDuration, long globalTimeout) {
+        this.timeouts = new TimingWheel<Entry>(tickDuration, System.currentTimeMillis());
+        this.globalTimeout = globalTimeout;
+    }
+
+    public void put(String messageID, AsyncCallback callback) {
+        long timeOutOn = callback.getTimeOutAction() != SynapseConstants.NONE
+                ? callback.getTimeOutOn() : callback.getTimeOutOn() + globalTimeout;
+        Entry entry = new Entry(messageID, callback);
+        // in the map before it can expire, or the expiry would not find it
+        cancel(callbacks.put(messageID, entry));
+        entry.timeout = timeouts.schedule(entry, timeOutOn);
+    }
+
+    /**
+     * Removes the callback of a message, and cancels its timeout.
+     *
+     * @return the callback, or <code>null</code> if there is none (anymore)
+     */
+    public AsyncCallback remove(String messageID) {
+        if (messageID == null) {
+            return null;
+        }
+        Entry entry = callbacks.remove(messageID);
+        if (entry == null) {
+            return null;
+        }
+        cancel(entry);
+        return entry.callback;
+    }
+
+    private static void cancel(Entry entry) {
+        // not yet scheduled if removed while being put; its expiry is then ignored
+        if (entry != null && entry.timeout != null) {
+            entry.timeout.cancel();
+        }
+    }
+
+    public int size() {
+        return callbacks.size();
+    }
+
+    /**
+     * Removes the callbacks that timed out by the given time.  Must only be
+     * called by one thread at a time.
+     *
+     * @param now the current time in milliseconds
+     * @return the expired callbacks by message ID
+     */
+    public Map<String, AsyncCallback> expire(long now) {
+        Map<String, AsyncCallback> expired = new LinkedHashMap<String, AsyncCallback>();
+        for (Entry entry : timeouts.expire(now)) {
+            // a response may have removed it in the meantime
+            if (callbacks.remove(entry.messageID, entry)) {
+                expired.put(entry.messageID, entry.callback);
+            }
+        }
+        return expired;
+    }
+
+    public long getGlobalTimeout() {
+        return globalTimeout;
+    }
+
+    private static class Entry {
+        final String messageID;
+        final AsyncCallback callback;
+        volatile TimingWheel.Timeout<Entry> timeout;
+
+        Entry(String messageID, AsyncCallback callback) {
+            this.messageID = messageID;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.core.axis2;
+
+import java.util.TimerTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.aspects.statistics.StatisticsCleaner;
+import org.apache.synapse.aspects.statistics.StatisticsCollector;
+import org.apache.synapse.config.SynapseConfigUtils;
+import org.apache.synapse.endpoints.dispatch.SALSessions;
+
+/**
+ * Periodically clears the expired statistics and the expired load balancing
+ * sessions.  Runs on the clean up timer of the configuration, apart from the
+ * TimeoutHandler on the synapse timer, so that a slow sweep never delays the
+ * expiry of callbacks.
+ */
+public class CleanupHandler extends TimerTask {
+
+    private static final Log log = LogFactory.getLog(CleanupHandler.class);
+
+    private StatisticsCleaner statisticsCleaner;
+
+    @Override
+    public void run() {
+        try {
+            //clear the expired statistics
+            if (statisticsCleaner == null) {
+                StatisticsCollector collector = SynapseConfigUtils.getStatisticsCollector();
+                if (collector != null) {
+                    statisticsCleaner = new StatisticsCleaner(collector);
+                }
+            }
+            if (statisticsCleaner != null) {
+                statisticsCleaner.clean();
+            }
+
+            //clear all the expired sessions
+            SALSessions.getInstance().clearSessions();
+        } catch (Exception e) {
+            log.warn("Error clearing expired statistics and sessions", e);
+        }
+    }
+}
@@ -19,6 +19,10 @@
 
 package org.apache.synapse.core.axis2;
 
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import javax.xml.namespace.QName;
 
 import org.apache.axiom.soap.SOAPEnvelope;
@@ -36,8 +40,11 @@ import org.apache.axis2.description.OutInAxisOperation;
 import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.engine.AxisEngine;
 import org.apache.axis2.i18n.Messages;
+import org.apache.axis2.transport.AsyncResponseHandler;
 import org.apache.axis2.transport.TransportUtils;
 import org.apache.axis2.wsdl.WSDLConstants;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.NhttpConstants;
 import org.apache.synapse.SynapseConstants;
 
@@ -46,6 +53,8 @@ import org.apache.synapse.SynapseConstants;
  */
 public class DynamicAxisOperation extends OutInAxisOperation {
 
+    private static final Log log = LogFactory.getLog(DynamicAxisOperation.class);
+
 	public DynamicAxisOperation() {
 		super();
 	}
@@ -165,72 +174,127 @@ public class DynamicAxisOperation extends OutInAxisOperation {
 			}
 		}
 
-		private void send(MessageContext msgctx) throws AxisFault {
+		private void send(final MessageContext msgctx) throws AxisFault {
 
 			// create the responseMessageContext and set that its related to the current outgoing
             // message, so that it could be tied back to the original request even if the response
             // envelope does not contain addressing headers
-            MessageContext responseMessageContext = new OldMessageContext();
+            final MessageContext responseMessageContext = new OldMessageContext();
             responseMessageContext.setMessageID(msgctx.getMessageID());
             responseMessageContext.setProperty(
                     SynapseConstants.RELATES_TO_FOR_POX, msgctx.getMessageID());
             responseMessageContext.setOptions(options);
 			addMessageContext(responseMessageContext);
 
+            // a non-blocking transport sender may return before the response arrives, and
+            // hand it over on another thread; whichever thread sees it first receives it
+            final AtomicBoolean received = new AtomicBoolean(false);
+            msgctx.setProperty(AsyncResponseHandler.ASYNC_RESPONSE_HANDLER,
+                    new AsyncResponseHandler() {
+                        public void onResponse(MessageContext requestMsgCtx) throws AxisFault {
+                            if (requestMsgCtx.getProperty(MessageContext.TRANSPORT_IN) != null
+                                    && received.compareAndSet(false, true)) {
+                                receiveResponse(requestMsgCtx, responseMessageContext);
+                            }
+                        }
+
+                        public void onError(MessageContext requestMsgCtx, Exception e) {
+                            receiveSendFault(requestMsgCtx, e);
+                        }
+                    });
+
             AxisEngine.send(msgctx);
 
             // did the engine receive a immediate synchronous response?
             // e.g. sometimes the transport sender may listen for a syncronous reply
-			if (msgctx.getProperty(MessageContext.TRANSPORT_IN) != null) {
-
-                responseMessageContext.setOperationContext(msgctx.getOperationContext());
-                responseMessageContext.setAxisMessage(
-                    msgctx.getOperationContext().getAxisOperation().
-                    getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
-                responseMessageContext.setAxisService(msgctx.getAxisService());
-
-                responseMessageContext.setProperty(MessageContext.TRANSPORT_OUT,
-                    msgctx.getProperty(MessageContext.TRANSPORT_OUT));
-                responseMessageContext.setProperty(Axis2Constants.OUT_TRANSPORT_INFO,
-                    msgctx.getProperty(Axis2Constants.OUT_TRANSPORT_INFO));
-
-                responseMessageContext.setProperty(
-                    org.apache.synapse.SynapseConstants.ISRESPONSE_PROPERTY, Boolean.TRUE);
-                responseMessageContext.setTransportIn(msgctx.getTransportIn());
-                responseMessageContext.setTransportOut(msgctx.getTransportOut());
-
-                // If request is REST assume that the responseMessageContext is REST too
-                responseMessageContext.setDoingREST(msgctx.isDoingREST());
-
-                responseMessageContext.setProperty(MessageContext.TRANSPORT_IN,
-                    msgctx.getProperty(MessageContext.TRANSPORT_IN));
-                responseMessageContext.setTransportIn(msgctx.getTransportIn());
-                responseMessageContext.setTransportOut(msgctx.getTransportOut());
-
-                // Options object reused above so soapAction needs to be removed so
-                // that soapAction+wsa:Action on response don't conflict
-                responseMessageContext.setSoapAction("");
-
-                if (responseMessageContext.getEnvelope() == null) {
-                    // If request is REST we assume the responseMessageContext is
-                    // REST, so set the variable
-
-                    SOAPEnvelope resenvelope =
-                        TransportUtils.createSOAPMessage(responseMessageContext);
-
-                    if (resenvelope != null) {
-                        responseMessageContext.setEnvelope(resenvelope);
-                        AxisEngine.receive(responseMessageContext);
-                        if (responseMessageContext.getReplyTo() != null) {
-                            sc.setTargetEPR(responseMessageContext.getReplyTo());
-                        }
-                    } else {
-                        throw new AxisFault(
-                                Messages.getMessage("blockingInvocationExpectsResponse"));
+			if (msgctx.getProperty(MessageContext.TRANSPORT_IN) != null
+                    && received.compareAndSet(false, true)) {
+                receiveResponse(msgctx, responseMessageContext);
+            }
+        }
+
+        private void receiveResponse(MessageContext msgctx,
+                                     MessageContext responseMessageContext) throws AxisFault {
+
+            responseMessageContext.setOperationContext(msgctx.getOperationContext());
+            responseMessageContext.setAxisMessage(
+                msgctx.getOperationContext().getAxisOperation().
+                getMessage(WSDLConstants.MESSAGE_LABEL_IN_VALUE));
+            responseMessageContext.setAxisService(msgctx.getAxisService());
+
+            responseMessageContext.setProperty(MessageContext.TRANSPORT_OUT,
+                msgctx.getProperty(MessageContext.TRANSPORT_OUT));
+            responseMessageContext.setProperty(Axis2Constants.OUT_TRANSPORT_INFO,
+                msgctx.getProperty(Axis2Constants.OUT_TRANSPORT_INFO));
+
+            responseMessageContext.setProperty(
+                org.apache.synapse.SynapseConstants.ISRESPONSE_PROPERTY, Boolean.TRUE);
+            responseMessageContext.setTransportIn(msgctx.getTransportIn());
+            responseMessageContext.setTransportOut(msgctx.getTransportOut());
+
+            // If request is REST assume that the responseMessageContext is REST too
+            responseMessageContext.setDoingREST(msgctx.isDoingREST());
+
+            responseMessageContext.setProperty(MessageContext.TRANSPORT_IN,
+                msgctx.getProperty(MessageContext.TRANSPORT_IN));
+            responseMessageContext.setTransportIn(msgctx.getTransportIn());
+            responseMessageContext.setTransportOut(msgctx.getTransportOut());
+
+            // Options object reused above so soapAction needs to be removed so
+            // that soapAction+wsa:Action on response don't conflict
+            responseMessageContext.setSoapAction("");
+
+            if (responseMessageContext.getEnvelope() == null) {
+                // If request is REST we assume the responseMessageContext is
+                // REST, so set the variable
+
+                SOAPEnvelope resenvelope =
+                    TransportUtils.createSOAPMessage(responseMessageContext);
+
+                if (resenvelope != null) {
+                    responseMessageContext.setEnvelope(resenvelope);
+                    AxisEngine.receive(responseMessageContext);
+                    if (responseMessageContext.getReplyTo() != null) {
+                        sc.setTargetEPR(responseMessageContext.getReplyTo());
                     }
+                } else {
+                    throw new AxisFault(
+                            Messages.getMessage("blockingInvocationExpectsResponse"));
                 }
             }
         }
 
+        /**
+         * Hands the failure of a request sent by a non-blocking transport to the
+         * fault handlers of the message that sent it, as a send error.
+         */
+        private void receiveSendFault(MessageContext msgctx, Exception e) {
+
+            int errorCode;
+            if (e instanceof ConnectException) {
+                errorCode = SynapseConstants.NHTTP_CONNECTION_FAILED;
+            } else if (e instanceof SocketTimeoutException) {
+                errorCode = SynapseConstants.NHTTP_CONNECTION_TIMEOUT;
+            } else {
+                errorCode = SynapseConstants.SND_IO_ERROR_SENDING;
+            }
+
+            MessageContext faultContext = new OldMessageContext();
+            faultContext.setMessageID(msgctx.getMessageID());
+            faultContext.setProperty(SynapseConstants.SENDING_FAULT, Boolean.TRUE);
+            faultContext.setProperty(SynapseConstants.ERROR_CODE, errorCode);
+            faultContext.setProperty(SynapseConstants.ERROR_MESSAGE, e.getMessage());
+            faultContext.setProperty(SynapseConstants.ERROR_DETAIL, e.toString());
+            faultContext.setProperty(SynapseConstants.ERROR_EXCEPTION, e);
+
+            SynapseCallbackReceiver callbackReceiver =
+                (SynapseCallbackReceiver) axisOp.getMessageReceiver();
+            try {
+                callbackReceiver.receiveSendFault(faultContext);
+            } catch (AxisFault af) {
+                log.error("Error handling the failure of message : "
+                        + msgctx.getMessageID(), af);
+            }
+        }
     }
 }
@@ -19,9 +19,6 @@
 
 package org.apache.synapse.core.axis2;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Stack;
 import java.util.Timer;
 
@@ -32,7 +29,6 @@ import org.apache.axis2.addressing.AddressingConstants;
 import org.apache.axis2.addressing.EndpointReference;
 import org.apache.axis2.addressing.RelatesTo;
 import org.apache.axis2.client.Options;
-import org.apache.axis2.client.async.AxisCallback;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.engine.MessageReceiver;
 import org.apache.axis2.wsdl.WSDLConstants;
@@ -47,6 +43,8 @@ import org.apache.synapse.aspects.statistics.StatisticsReporter;
 import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.config.SynapseConfiguration;
 import org.apache.synapse.endpoints.Endpoint;
+import org.apache.synapse.endpoints.InFlightRequest;
+import org.apache.synapse.endpoints.ReplayableEnvelope;
 import org.apache.synapse.endpoints.dispatch.Dispatcher;
 import org.apache.synapse.util.ResponseAcceptEncodingProcessor;
 
@@ -64,8 +62,8 @@ public class SynapseCallbackReceiver
 {
     private static final Log log = LogFactory.getLog(SynapseCallbackReceiver.class);
 
-    /** This is the synchronized callbackStore that maps outgoing messageID's to callback objects */
-    private final Map<String, AsyncCallback> callbackStore;  // will made thread safe in the constructor
+    /** This is the concurrent callbackStore that maps outgoing messageID's to callback objects */
+    private final CallbackStore callbackStore;
 
     /**
      * Create the *single* instance of this class that would be used by all
@@ -74,16 +72,22 @@ public class SynapseCallbackReceiver
      */
     public SynapseCallbackReceiver(SynapseConfiguration synCfg) {
 
-        callbackStore = Collections.synchronizedMap(new HashMap<String, AsyncCallback>());
+        long timeoutHandlerInterval = SynapseConfigUtils.getTimeoutHandlerInterval();
+
+        callbackStore = new CallbackStore(timeoutHandlerInterval,
+                SynapseConfigUtils.getGlobalTimeoutInterval());
 
         // create the Timer object and a TimeoutHandler task
         TimeoutHandler timeoutHandler = new TimeoutHandler(callbackStore);
 
         Timer timeOutTimer = synCfg.getSynapseTimer();
-        long timeoutHandlerInterval = SynapseConfigUtils.getTimeoutHandlerInterval();
 
         // schedule timeout handler to run every n seconds (n : specified or defaults to 15s)
         timeOutTimer.schedule(timeoutHandler, 0, timeoutHandlerInterval);
+
+        // expired statistics and sessions are cleared on their own timer
+        synCfg.getCleanupTimer().schedule(new CleanupHandler(), timeoutHandlerInterval,
+                timeoutHandlerInterval);
     }
 
     public int getCallbackCount() {
@@ -124,7 +128,7 @@ public class SynapseCallbackReceiver
         	}
         }
 
-        AxisCallback callback = callbackStore.remove(messageID);
+        AsyncCallback callback = callbackStore.remove(messageID);
         if (log.isDebugEnabled()) {
         	log.debug("Callback removed for request message id : " + messageID +
         			". Pending callbacks count : " + callbackStore.size());
@@ -147,6 +151,27 @@ public class SynapseCallbackReceiver
         }
     }
 
+    /**
+     * Invoked when an outgoing request sent without waiting for its response
+     * failed, after the sending thread returned.  The failure is handled like a
+     * response, through the fault handlers of the message that was sent.
+     *
+     * @param faultCtx an Axis2 message context carrying the message ID of the
+     *                 failed request and the SENDING_FAULT error properties
+     * @throws AxisFault if the failure cannot be handled
+     */
+    public void receiveSendFault(MessageContext faultCtx) throws AxisFault {
+
+        String messageID = faultCtx.getMessageID();
+        AsyncCallback callback = callbackStore.remove(messageID);
+        if (callback != null) {
+            handleMessage(messageID, faultCtx, callback.getSynapseOutMsgCtx());
+        } else {
+            log.warn("Sending the request with message Id : " + messageID + " failed" +
+                    " But a callback is not registered (anymore) to process this failure");
+        }
+    }
+
     /**
      * Handle the response or error (during a failed send) message received for
      * an outgoing request
@@ -170,6 +195,7 @@ public class SynapseCallbackReceiver
         if (o != null && Boolean.TRUE.equals(o)) {
 
         	StatisticsReporter.reportFaultForAll(synapseOutMsgCtx);
+            InFlightRequest.complete(synapseOutMsgCtx, false);
 
             Stack<FaultHandler> faultStack = synapseOutMsgCtx.getFaultStack();
             if (faultStack != null && !faultStack.isEmpty()) {
@@ -177,10 +203,12 @@ public class SynapseCallbackReceiver
                 // if we have access to the full synapseOutMsgCtx.getEnvelope(), then let
                 // it flow with the error details. Else, replace its envelope with the
                 // fault envelope
-                try {
-                    synapseOutMsgCtx.getEnvelope().build();
-                } catch (OMException x) {
-                    synapseOutMsgCtx.setEnvelope(response.getEnvelope());
+                if (!ReplayableEnvelope.replay(synapseOutMsgCtx)) {
+                    try {
+                        synapseOutMsgCtx.getEnvelope().build();
+                    } catch (OMException x) {
+                        synapseOutMsgCtx.setEnvelope(response.getEnvelope());
+                    }
                 }
 
                 Exception e = (Exception) response.getProperty(SynapseConstants.ERROR_EXCEPTION);
@@ -201,10 +229,15 @@ public class SynapseCallbackReceiver
                 }
 
                 (faultStack.pop()).handleFault(synapseOutMsgCtx, null);
+            } else {
+                ReplayableEnvelope.release(synapseOutMsgCtx);
             }
 
         } else {
 
+            InFlightRequest.complete(synapseOutMsgCtx, true);
+            ReplayableEnvelope.release(synapseOutMsgCtx);
+
             // there can always be only one instance of an Endpoint in the faultStack of a message
             // if the send was successful, so remove it before we proceed any further
             Stack<FaultHandler> faultStack = synapseOutMsgCtx.getFaultStack();
@@ -19,9 +19,11 @@
 
 package org.apache.synapse.core.axis2;
 
+import org.apache.axis2.Axis2Constants;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.engine.MessageReceiver;
+import org.apache.axis2.transport.base.threads.AdmissionControl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.SynapseConstants;
@@ -43,6 +45,9 @@ public class SynapseMessageReceiver implements MessageReceiver {
 
     private static final Log log = LogFactory.getLog(SynapseMessageReceiver.class);
 
+    /** HTTP status of the responses to rejected messages */
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
     private final SynapseEnvironment synEnv;
 
     public SynapseMessageReceiver(SynapseEnvironment env) {
@@ -65,6 +70,8 @@ public class SynapseMessageReceiver implements MessageReceiver {
     public void receive(MessageContext mc)
     	throws AxisFault
     {
+        rejectIfOverloaded(mc);
+
         SynapseMessageContext synCtx = getSynapseMessageContext(mc);
 
         StatisticsReporter.reportForComponent(synCtx,
@@ -115,6 +122,25 @@ public class SynapseMessageReceiver implements MessageReceiver {
         }
     }
 
+    /**
+     * Refuse new messages while the Synapse executor has as many tasks waiting as
+     * it admits, so that overload turns into 503 Service Unavailable responses
+     * (with a SOAP fault) rather than into queued work nobody waits for anymore.
+     */
+    private void rejectIfOverloaded(MessageContext mc) throws AxisFault {
+        AdmissionControl admission = synEnv != null ? synEnv.getAdmissionControl() : null;
+        if (admission != null && admission.isSaturated()) {
+            String msg = "Synapse is overloaded : " + admission.getQueued()
+                + " tasks waiting, message rejected";
+            if (log.isDebugEnabled()) {
+                log.debug(msg);
+            }
+            mc.setProperty(Axis2Constants.HTTP_RESPONSE_STATE,
+                String.valueOf(HTTP_SERVICE_UNAVAILABLE));
+            throw new AxisFault(msg);
+        }
+    }
+
     private void warn(String msg, SynapseMessageContext msgContext) {
         if (log.isDebugEnabled()) {
             log.warn(msg);
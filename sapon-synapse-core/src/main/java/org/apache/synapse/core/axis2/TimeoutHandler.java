@@ -28,50 +28,45 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.FaultHandler;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseMessageContext;
-import org.apache.synapse.aspects.statistics.StatisticsCleaner;
-import org.apache.synapse.aspects.statistics.StatisticsCollector;
-import org.apache.synapse.config.SynapseConfigUtils;
-import org.apache.synapse.endpoints.dispatch.SALSessions;
+import org.apache.synapse.endpoints.InFlightRequest;
+import org.apache.synapse.endpoints.ReplayableEnvelope;
 
 /**
  * An object of this class is registered to be invoked in some predefined time
- * intervals. This checks the timeouts of callbacks stored in the
- * SynapseCallbackReceiver and removes all expired callbacks. Timeouts of the
- * callbacks are stored as the time, not the duration. So that the time or the
- * interval of invoking this class does not affect the correctness of the
- * timeouts, although longer intervals would introduce larger error between the
- * actual timeout and the specified timeout.
+ * intervals. This removes all expired callbacks from the callback store of the
+ * SynapseCallbackReceiver. Timeouts of the callbacks are stored as the time,
+ * not the duration. So that the time or the interval of invoking this class
+ * does not affect the correctness of the timeouts, although longer intervals
+ * would introduce larger error between the actual timeout and the specified
+ * timeout.
  *
- * For each invocation this gets a time value to be compared against the
- * timeouts of the callback objects. This time is the
- * System.currentTimeMillis() for Java 1.4 and System.nanoTime() for
- * Java 1.5 and later.
+ * The callback store keeps the callbacks on a timing wheel, so each invocation
+ * only visits the callbacks that expired, not all the outstanding ones, and
+ * never locks out the SynapseCallbackReceiver.
  */
 public class TimeoutHandler extends TimerTask {
 
     private static final Log log = LogFactory.getLog(TimeoutHandler.class);
 
-    /** The callback map - already a Collections.synchronized() hash map */
-    private final Map<String, AsyncCallback> callbackStore;
+    /** The callback store of the SynapseCallbackReceiver */
+    private final CallbackStore callbackStore;
+
     /** a lock to prevent concurrent execution while ensuring least overhead */
     private final Object lock = new Object();
     private boolean alreadyExecuting = false;
-    /*This is the timeout for otherwise non-expiring callbacks to ensure system stability over time */
-    private long globalTimeout = SynapseConstants.DEFAULT_GLOBAL_TIMEOUT;
     private static final String SEND_TIMEOUT_MESSAGE = "Send timeout";
-    private StatisticsCleaner statisticsCleaner;
 
-    public TimeoutHandler(Map<String, AsyncCallback> callbacks) {
+    public TimeoutHandler(CallbackStore callbacks) {
         this.callbackStore = callbacks;
-        this.globalTimeout = SynapseConfigUtils.getGlobalTimeoutInterval();
-        log.info("This engine will expire all callbacks after : " + (globalTimeout / 1000) +
+        log.info("This engine will expire all callbacks after : " +
+                (callbackStore.getGlobalTimeout() / 1000) +
                 " seconds, irrespective of the timeout action," +
                 " after the specified or optional timeout");
     }
 
     /**
-     * Checks if the timeout has expired for each callback in the callback store. If expired, removes
-     * the callback. If specified sends a fault message to the client about the timeout.
+     * Removes the callbacks whose timeout has expired from the callback store. If
+     * specified sends a fault message to the client about the timeout.
      */
     @Override
 	public void run() {
@@ -90,78 +85,53 @@ public class TimeoutHandler extends TimerTask {
 
     private void processCallbacks() {
 
-        //clear the expired statistics
-        if (statisticsCleaner == null) {
-            StatisticsCollector collector = SynapseConfigUtils.getStatisticsCollector();
-            if (collector != null) {
-                statisticsCleaner = new StatisticsCleaner(collector);
-            }
-        }
-        if (statisticsCleaner != null) {
-            statisticsCleaner.clean();
-        }
-
-        //clear all the expired sessions
-        SALSessions.getInstance().clearSessions();
-
-        // checks if callback store contains at least one entry before proceeding. otherwise getting
-        // the time for doing nothing would be a inefficient task.
-
-        // we have to synchronize this on the callbackStore as iterators of thread safe collections
-        // are not thread safe. callbackStore can be modified
-        // concurrently by the SynapseCallbackReceiver.
-        synchronized(callbackStore) {
-
-            if (callbackStore.size() <= 0) {
-            	return;
-            }
-
-            long currentTime = currentTime();
-
-            for (Object key : callbackStore.keySet()) {
-
-            	AsyncCallback callback = callbackStore.get(key);
-            	if (callback == null) {
-            		if (log.isDebugEnabled()) {
-            			log.debug("There is no callback for key :" + key);
-            		}
-            		continue;
-            	}
-            	if (callback.getTimeOutAction() != SynapseConstants.NONE) {
-
-            		if (callback.getTimeOutOn() <= currentTime) {
-            			callbackStore.remove(key);
-
-            			if (callback.getTimeOutAction() == SynapseConstants.DISCARD_AND_FAULT) {
-
-            				// actiavte the fault sequence of the current sequence mediator
-            				SynapseMessageContext msgContext = callback.getSynapseOutMsgCtx();
-
-            				// add an error code to the message context, so that error sequences
-            				// can identify the cause of error
-            				msgContext.setProperty(SynapseConstants.ERROR_CODE,
-            						SynapseConstants.HANDLER_TIME_OUT);
-            				msgContext.setProperty(SynapseConstants.ERROR_MESSAGE,
-            						SEND_TIMEOUT_MESSAGE);
-
-            				Stack<FaultHandler> faultStack
-            				= msgContext.getFaultStack();
-
-            				for (int j = 0; j < faultStack.size(); j++) {
-            					Object o = faultStack.pop();
-            					if (o instanceof FaultHandler) {
-            						((FaultHandler) o).handleFault(msgContext);
-            					}
-            				}
-
-            			}
-            		}
-
-            	} else if (currentTime > globalTimeout + callback.getTimeOutOn()) {
-            		log.warn("Expiring message ID : " + key + "; dropping message after " +
-            				"global timeout of : " + (globalTimeout / 1000) + " seconds");
-            		callbackStore.remove(key);
-            	}
+        Map<String, AsyncCallback> expired = callbackStore.expire(currentTime());
+
+        for (Map.Entry<String, AsyncCallback> entry : expired.entrySet()) {
+
+            String key = entry.getKey();
+            AsyncCallback callback = entry.getValue();
+            InFlightRequest.complete(callback.getSynapseOutMsgCtx(), false);
+
+            if (callback.getTimeOutAction() == SynapseConstants.NONE) {
+                log.warn("Expiring message ID : " + key + "; dropping message after " +
+                        "global timeout of : " + (callbackStore.getGlobalTimeout() / 1000) +
+                        " seconds");
+                ReplayableEnvelope.release(callback.getSynapseOutMsgCtx());
+
+            } else if (callback.getTimeOutAction() == SynapseConstants.DISCARD) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Expiring message ID : " + key + "; discarding message after " +
+                            "its timeout");
+                }
+                ReplayableEnvelope.release(callback.getSynapseOutMsgCtx());
+
+            } else if (callback.getTimeOutAction() == SynapseConstants.DISCARD_AND_FAULT) {
+
+                // actiavte the fault sequence of the current sequence mediator
+                SynapseMessageContext msgContext = callback.getSynapseOutMsgCtx();
+
+                // add an error code to the message context, so that error sequences
+                // can identify the cause of error
+                msgContext.setProperty(SynapseConstants.ERROR_CODE,
+                        SynapseConstants.HANDLER_TIME_OUT);
+                msgContext.setProperty(SynapseConstants.ERROR_MESSAGE,
+                        SEND_TIMEOUT_MESSAGE);
+
+                Stack<FaultHandler> faultStack = msgContext.getFaultStack();
+                if (faultStack.isEmpty()) {
+                    ReplayableEnvelope.release(msgContext);
+                }
+
+                for (int j = 0; j < faultStack.size(); j++) {
+                    Object o = faultStack.pop();
+                    if (o instanceof FaultHandler) {
+                        ((FaultHandler) o).handleFault(msgContext);
+                    }
+                }
+            } else {
+                // no fault handler will take the message over
+                ReplayableEnvelope.release(callback.getSynapseOutMsgCtx());
             }
         }
     }
@@ -21,10 +21,13 @@ package org.apache.synapse.endpoints;
 
 import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.axis2.clustering.ClusterManager;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.transport.base.BaseConstants;
+import org.apache.axis2.transport.base.MetricsRegistry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.FaultHandler;
@@ -43,6 +46,9 @@ import org.apache.synapse.core.axis2.Axis2SynapseMessageContext;
  */
 public abstract class AbstractEndpoint extends FaultHandler implements Endpoint {
 
+    /** The weight of the latest response time in the moving average response time */
+    private static final double RESPONSE_TIME_WEIGHT = 0.2;
+
     protected Log log;
 
     /** Hold the logical name of an endpoint */
@@ -69,6 +75,15 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint
     /** The MBean managing the endpoint */
     EndpointView metricsMBean = null;
 
+    /** The number of messages sent through this endpoint awaiting a response */
+    private final AtomicInteger inFlightCount = new AtomicInteger(0);
+
+    /** Adapts the number of requests allowed in flight - null unless a limit is configured */
+    private volatile ConcurrencyLimiter concurrencyLimiter = null;
+
+    /** The bits of the moving average response time in milliseconds - negative until known */
+    private final AtomicLong averageResponseTime = new AtomicLong(Double.doubleToLongBits(-1));
+
     /** The name of the file where this endpoint is defined */
     protected String fileName;
 
@@ -137,6 +152,7 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint
         this.endpointName = endpointName;
         metricsMBean = new EndpointView(endpointName, this);
         MBeanRegistrar.getInstance().registerMBean(metricsMBean, "Endpoint", endpointName);
+        MetricsRegistry.getInstance().register("Endpoint:" + endpointName, metricsMBean);
     }
 
     public void init(SynapseEnvironment synapseEnvironment) {
@@ -152,6 +168,19 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint
             }
 
             context = new EndpointContext(getName(), getDefinition(), isClusteringEnabled, cc);
+
+            if (definition != null && definition.getConcurrencyLimitAlgorithm() != null) {
+                try {
+                    concurrencyLimiter = new ConcurrencyLimiter(
+                            definition.getConcurrencyLimitAlgorithm(),
+                            definition.getInitialConcurrencyLimit(),
+                            definition.getMinConcurrencyLimit(),
+                            definition.getMaxConcurrencyLimit());
+                } catch (IllegalArgumentException e) {
+                    handleException("Invalid concurrency limit for " + this + " : "
+                            + e.getMessage(), e);
+                }
+            }
         }
         initialized = true;
 
@@ -163,10 +192,14 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint
     }
 
     public boolean readyToSend() {
-        return !initialized || context == null || context.readyToSend();
+        return (!initialized || context == null || context.readyToSend())
+                && !isOverConcurrencyLimit();
     }
 
     public void send(SynapseMessageContext synCtx) {
+        if (rejectOverConcurrencyLimit(synCtx)) {
+            return;
+        }
         prepareForEndpointStatistics(synCtx);
         if (log.isDebugEnabled()) {
             String address = definition.getAddress();
@@ -194,7 +227,143 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint
         ((Axis2SynapseMessageContext) synCtx).getAxis2MessageContext().setProperty(
             BaseConstants.METRICS_COLLECTOR, metricsMBean);
         // Send the message through this endpoint
-        synCtx.getEnvironment().send(definition, synCtx);
+        dispatch(definition, synCtx);
+    }
+
+    /**
+     * Hands the message over to the environment to be sent to the given definition, and counts
+     * it as in flight on this endpoint until its response, fault or timeout is received - or
+     * right away for out only messages and messages that could not be sent
+     *
+     * @param endpointDef the definition to send the message to
+     * @param synCtx the message to send
+     */
+    protected void dispatch(EndpointDefinition endpointDef, SynapseMessageContext synCtx) {
+        InFlightRequest request = InFlightRequest.begin(this, synCtx);
+        boolean sent = false;
+        try {
+            synCtx.getEnvironment().send(endpointDef, synCtx);
+            sent = true;
+        } finally {
+            if (!sent) {
+                request.complete(false);
+            } else if ("true".equals(synCtx.getProperty(SynapseConstants.OUT_ONLY))) {
+                request.complete(true);
+            }
+        }
+    }
+
+    public int getInFlightCount() {
+        if (isLeafEndpoint()) {
+            return inFlightCount.get();
+        }
+        int count = 0;
+        for (Endpoint e : getChildren()) {
+            count += e.getInFlightCount();
+        }
+        return count;
+    }
+
+    public int getConcurrencyLimit() {
+        if (isLeafEndpoint()) {
+            ConcurrencyLimiter limiter = concurrencyLimiter;
+            return limiter == null ? -1 : limiter.getLimit();
+        }
+        // the sum of the limits of the children, unless one of them is unlimited
+        int limit = 0;
+        for (Endpoint e : getChildren()) {
+            int childLimit = e.getConcurrencyLimit();
+            if (childLimit < 0) {
+                return -1;
+            }
+            limit += childLimit;
+        }
+        return limit;
+    }
+
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Has this leaf endpoint reached the number of requests it currently allows in flight? The
+     * limit is soft - senders racing past this check at the same time may overshoot it slightly
+     *
+     * @return true if a concurrency limit is configured and has been reached
+     */
+    protected boolean isOverConcurrencyLimit() {
+        ConcurrencyLimiter limiter = concurrencyLimiter;
+        return limiter != null && inFlightCount.get() >= limiter.getLimit();
+    }
+
+    /**
+     * Fails the message fast - without sending it - if this endpoint is over its concurrency
+     * limit. The failure is reported to the parent endpoint if any, so that failover and load
+     * balance groups move on to the next child
+     *
+     * @param synCtx the message about to be sent
+     * @return true if the message was rejected
+     */
+    protected boolean rejectOverConcurrencyLimit(SynapseMessageContext synCtx) {
+        if (!isOverConcurrencyLimit()) {
+            return false;
+        }
+        String msg = this + " has reached its concurrency limit of "
+                + concurrencyLimiter.getLimit() + " in flight requests";
+        if (log.isDebugEnabled()) {
+            log.debug(msg);
+        }
+        if (metricsMBean != null) {
+            metricsMBean.reportSendingFault(SynapseConstants.ENDPOINT_CONCURRENCY_LIMIT);
+        }
+        informFailure(synCtx, SynapseConstants.ENDPOINT_CONCURRENCY_LIMIT, msg);
+        return true;
+    }
+
+    public double getAverageResponseTime() {
+        if (isLeafEndpoint()) {
+            return Double.longBitsToDouble(averageResponseTime.get());
+        }
+        // the mean of the children that have been heard of
+        double sum = 0;
+        int known = 0;
+        for (Endpoint e : getChildren()) {
+            double responseTime = e.getAverageResponseTime();
+            if (responseTime >= 0) {
+                sum += responseTime;
+                known++;
+            }
+        }
+        return known == 0 ? -1 : sum / known;
+    }
+
+    void requestStarted() {
+        inFlightCount.incrementAndGet();
+    }
+
+    void requestCompleted(long responseTime, boolean success) {
+        int inFlight = inFlightCount.getAndDecrement();
+        if (metricsMBean != null) {
+            metricsMBean.notifyLatency(responseTime);
+        }
+        ConcurrencyLimiter limiter = concurrencyLimiter;
+        if (limiter != null) {
+            limiter.onSample(responseTime, inFlight, success);
+        }
+        while (true) {
+            long bits = averageResponseTime.get();
+            double average = Double.longBitsToDouble(bits);
+            // a quick failure tells nothing about how fast this endpoint answers, but a
+            // slow one (e.g. a timeout) should make it look slower
+            if (!success && (average < 0 || responseTime <= average)) {
+                return;
+            }
+            double updated = average < 0 ? responseTime :
+                    average + RESPONSE_TIME_WEIGHT * (responseTime - average);
+            if (averageResponseTime.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+                return;
+            }
+        }
     }
 
     /**
@@ -372,6 +541,7 @@ public abstract class AbstractEndpoint extends FaultHandler implements Endpoint
 
     public void destroy() {
         MBeanRegistrar.getInstance().unRegisterMBean("Endpoint", endpointName);
+        MetricsRegistry.getInstance().unregister("Endpoint:" + endpointName);
         this.initialized = false;
     }
 }
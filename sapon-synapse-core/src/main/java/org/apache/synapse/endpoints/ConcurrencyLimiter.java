@@ -0,0 +1,135 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+/**
+ * Adapts the number of requests a leaf endpoint may have in flight to the response times it
+ * observes, so that a slow backend gets fewer concurrent requests instead of piling up threads
+ * and connections until it is suspended. Two algorithms are supported :
+ * <ul>
+ * <li>gradient - scales the limit by the ratio of the long term average response time to the
+ * latest one, plus some headroom that lets it probe for more capacity</li>
+ * <li>aimd - increases the limit additively while response times stay within a tolerance of
+ * their long term average, and decreases it multiplicatively when they do not</li>
+ * </ul>
+ * With either algorithm a failed request, such as a timeout, also decreases the limit.
+ */
+public class ConcurrencyLimiter {
+
+    public static final String GRADIENT = "gradient";
+    public static final String AIMD = "aimd";
+
+    /** The weight of the latest sample in the long term average response time */
+    private static final double LONG_TERM_WEIGHT = 0.05;
+    /** How much slower than the long term average a response may be before it is overload */
+    private static final double TOLERANCE = 1.5;
+    /** The weight of a new gradient limit against the current one */
+    private static final double SMOOTHING = 0.2;
+    /** The factor applied to the limit on a failure or, for aimd, a slow response */
+    private static final double BACKOFF = 0.9;
+
+    private final boolean gradient;
+    private final int minLimit;
+    private final int maxLimit;
+
+    // guarded by this
+    private double limit;
+    private double longTermResponseTime = -1;
+
+    private volatile int currentLimit;
+
+    /**
+     * @param algorithm    either {@link #GRADIENT} or {@link #AIMD}
+     * @param initialLimit the limit until response times have been observed
+     * @param minLimit     the lowest the limit may go, at least 1
+     * @param maxLimit     the highest the limit may go
+     */
+    public ConcurrencyLimiter(String algorithm, int initialLimit, int minLimit, int maxLimit) {
+        if (!GRADIENT.equals(algorithm) && !AIMD.equals(algorithm)) {
+            throw new IllegalArgumentException("Unknown concurrency limit algorithm : " + algorithm);
+        }
+        if (minLimit < 1 || maxLimit < minLimit
+                || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid concurrency limits : initial " + initialLimit
+                    + ", min " + minLimit + ", max " + maxLimit);
+        }
+        this.gradient = GRADIENT.equals(algorithm);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.currentLimit = initialLimit;
+    }
+
+    /**
+     * @return the number of requests the endpoint may currently have in flight
+     */
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public String getAlgorithm() {
+        return gradient ? GRADIENT : AIMD;
+    }
+
+    /**
+     * Updates the limit with a completed request
+     *
+     * @param responseTime the response time of the request in milliseconds
+     * @param inFlight the number of requests in flight when it completed, itself included
+     * @param success false if the request failed or timed out
+     */
+    public synchronized void onSample(long responseTime, int inFlight, boolean success) {
+        if (!success) {
+            setLimit(limit * BACKOFF);
+            return;
+        }
+
+        double sample = Math.max(responseTime, 1);
+        if (longTermResponseTime < 0) {
+            longTermResponseTime = sample;
+        } else {
+            longTermResponseTime += LONG_TERM_WEIGHT * (sample - longTermResponseTime);
+            if (longTermResponseTime > 2 * sample) {
+                // the backend got much faster, let the average catch up sooner
+                longTermResponseTime *= 0.95;
+            }
+        }
+
+        if (inFlight < limit / 2) {
+            // far from the limit, this sample tells nothing about the capacity
+            return;
+        }
+
+        if (gradient) {
+            double ratio = Math.max(0.5, Math.min(1.0, TOLERANCE * longTermResponseTime / sample));
+            double target = limit * ratio + Math.sqrt(limit);
+            setLimit(limit * (1 - SMOOTHING) + target * SMOOTHING);
+        } else if (sample > TOLERANCE * longTermResponseTime) {
+            setLimit(limit * BACKOFF);
+        } else {
+            setLimit(limit + 1 / limit);
+        }
+    }
+
+    private void setLimit(double newLimit) {
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        currentLimit = (int) limit;
+    }
+}
@@ -81,6 +81,8 @@ public class DynamicLoadbalanceEndpoint extends LoadbalanceEndpoint {
         DynamicLoadbalanceFaultHandler faultHandler = new DynamicLoadbalanceFaultHandler(to);
         if (isFailover()) {
             synCtx.pushFaultHandler(faultHandler);
+            // keep the envelope, as we may have to retry this message for failover support
+            ReplayableEnvelope.retain(synCtx);
         }
         ConfigurationContext configCtx =
                 ((Axis2SynapseMessageContext) synCtx).getAxis2MessageContext().getConfigurationContext();
@@ -124,9 +126,6 @@ public class DynamicLoadbalanceEndpoint extends LoadbalanceEndpoint {
                         new EndpointReference(transport + "://" + currentMember.getHostName() +
                                               ":" + currentMember.getHttpPort() + address);
                 synCtx.setTo(epr);
-                if (isFailover()) {
-                    synCtx.getEnvelope().build();
-                }
 
                 AddressEndpoint endpoint = new AddressEndpoint();
                 endpoint.setName("DynamicLoadBalanceAddressEndpoint-" + Math.random());
@@ -171,6 +170,8 @@ public class DynamicLoadbalanceEndpoint extends LoadbalanceEndpoint {
                 return;
             }
             synCtx.pushFaultHandler(this);
+            // the failed attempt may have consumed the envelope
+            ReplayableEnvelope.replay(synCtx);
             sendToApplicationMember(synCtx, to, this);
         }
     }
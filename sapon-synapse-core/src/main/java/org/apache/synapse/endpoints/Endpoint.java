@@ -91,6 +91,27 @@ public interface Endpoint extends ManagedLifecycle {
      */
     EndpointView getMetricsMBean();
 
+    /**
+     * Get the number of messages sent through this endpoint that are still waiting for a
+     * response, a fault or a timeout
+     * @return the number of outstanding requests
+     */
+    int getInFlightCount();
+
+    /**
+     * Get the number of requests this endpoint currently allows in flight, as adapted by its
+     * concurrency limiter
+     * @return the current concurrency limit, or -1 if the endpoint is not limited
+     */
+    int getConcurrencyLimit();
+
+    /**
+     * Get the exponentially weighted moving average of the response time of this endpoint
+     * @return the average response time in milliseconds, or a negative value if no response
+     *         has been received yet
+     */
+    double getAverageResponseTime();
+
     /**
      * Get the children of this endpoint
      * @return the child endpoints
@@ -111,6 +111,14 @@ public class EndpointDefinition implements AspectConfigurable {
     //A list of error codes which puts the endpoint into timeout mode
     private final List<Integer> timeoutErrorCodes = new ArrayList<Integer>();
 
+    //The algorithm adapting the number of requests in flight (gradient | aimd), null for no limit
+    private String concurrencyLimitAlgorithm = null;
+
+    //The concurrency limit until response times have been observed, and its bounds
+    private int initialConcurrencyLimit = 20;
+    private int minConcurrencyLimit = 1;
+    private int maxConcurrencyLimit = 200;
+
     private AspectConfiguration aspectConfiguration;
 
     //The variable that indicate tracing on or off for the current mediator
@@ -152,6 +160,10 @@ public class EndpointDefinition implements AspectConfigurable {
         this.retriesOnTimeoutBeforeSuspend = that.retriesOnTimeoutBeforeSuspend;
         this.retryDurationOnTimeout = that.retryDurationOnTimeout;
         this.timeoutErrorCodes.addAll(that.timeoutErrorCodes);
+        this.concurrencyLimitAlgorithm = that.concurrencyLimitAlgorithm;
+        this.initialConcurrencyLimit = that.initialConcurrencyLimit;
+        this.minConcurrencyLimit = that.minConcurrencyLimit;
+        this.maxConcurrencyLimit = that.maxConcurrencyLimit;
         this.aspectConfiguration = that.aspectConfiguration;
         this.traceState = that.traceState;
     }
@@ -507,6 +519,43 @@ public class EndpointDefinition implements AspectConfigurable {
         timeoutErrorCodes.add(code);
     }
 
+    /**
+     * Get the algorithm adapting the concurrency limit of the endpoint.
+     *
+     * @return gradient or aimd, or null if the endpoint has no concurrency limit
+     */
+    public String getConcurrencyLimitAlgorithm() {
+        return concurrencyLimitAlgorithm;
+    }
+
+    public void setConcurrencyLimitAlgorithm(String concurrencyLimitAlgorithm) {
+        this.concurrencyLimitAlgorithm = concurrencyLimitAlgorithm;
+    }
+
+    public int getInitialConcurrencyLimit() {
+        return initialConcurrencyLimit;
+    }
+
+    public void setInitialConcurrencyLimit(int initialConcurrencyLimit) {
+        this.initialConcurrencyLimit = initialConcurrencyLimit;
+    }
+
+    public int getMinConcurrencyLimit() {
+        return minConcurrencyLimit;
+    }
+
+    public void setMinConcurrencyLimit(int minConcurrencyLimit) {
+        this.minConcurrencyLimit = minConcurrencyLimit;
+    }
+
+    public int getMaxConcurrencyLimit() {
+        return maxConcurrencyLimit;
+    }
+
+    public void setMaxConcurrencyLimit(int maxConcurrencyLimit) {
+        this.maxConcurrencyLimit = maxConcurrencyLimit;
+    }
+
     @Override
 	public String toString() {
         if (leafEndpoint != null) {
@@ -19,52 +19,65 @@
 
 package org.apache.synapse.endpoints;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.axis2.transport.base.MessageLevelMetricsCollector;
+import org.apache.axis2.transport.base.MetricsSource;
+import org.apache.axis2.transport.base.MetricsWriter;
+import org.apache.axis2.transport.base.RollingHistogram;
+import org.apache.axis2.transport.base.StripedCounter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
- * This class is the metrics collector and JMX control point for Endpoints
+ * This class is the metrics collector and JMX control point for Endpoints. Besides the
+ * counters, it keeps the latencies and message sizes of the last minute in histograms, so
+ * that the tail latency of each endpoint can be watched.
  */
 public class EndpointView
-	implements EndpointViewMBean, MessageLevelMetricsCollector
+	implements EndpointViewMBean, MessageLevelMetricsCollector, MetricsSource
 {
 
     private static final Log log = LogFactory.getLog(EndpointView.class);
-    private static final Long ONE = (long) 1;
 
     private String endpointName = null;
     private Endpoint endpoint = null;
 
     // metrics collected / maintained
-    private long messagesReceived;
-    private long faultsReceiving;
-    private long timeoutsReceiving;
-    private long bytesReceived;
-    private long minSizeReceived;
-    private long maxSizeReceived;
-    private double avgSizeReceived;
-    private final Map<Integer, Long> receivingFaultTable =
-        Collections.synchronizedMap(new HashMap<Integer, Long>());
-
-    private long messagesSent;
-    private long faultsSending;
-    private long timeoutsSending;
-    private long bytesSent;
-    private long minSizeSent;
-    private long maxSizeSent;
-    private double avgSizeSent;
-    private final Map<Integer, Long> sendingFaultTable =
-        Collections.synchronizedMap(new HashMap<Integer, Long>());
-
-    private final Map<Integer, Long> responseCodeTable =
-        Collections.synchronizedMap(new HashMap<Integer, Long>());
-
-    private long lastResetTime = System.currentTimeMillis();
+    private final StripedCounter messagesReceived = new StripedCounter();
+    private final StripedCounter faultsReceiving = new StripedCounter();
+    private final StripedCounter timeoutsReceiving = new StripedCounter();
+    private final StripedCounter bytesReceived = new StripedCounter();
+    private final AtomicLong minSizeReceived = new AtomicLong();
+    private final AtomicLong maxSizeReceived = new AtomicLong();
+    private final StripedCounter sizesReceived = new StripedCounter();
+    private final StripedCounter totalSizeReceived = new StripedCounter();
+    private final RollingHistogram sizeReceivedHistogram = new RollingHistogram();
+    private final ConcurrentMap<Integer, AtomicLong> receivingFaultTable =
+        new ConcurrentHashMap<Integer, AtomicLong>();
+
+    private final StripedCounter messagesSent = new StripedCounter();
+    private final StripedCounter faultsSending = new StripedCounter();
+    private final StripedCounter timeoutsSending = new StripedCounter();
+    private final StripedCounter bytesSent = new StripedCounter();
+    private final AtomicLong minSizeSent = new AtomicLong();
+    private final AtomicLong maxSizeSent = new AtomicLong();
+    private final StripedCounter sizesSent = new StripedCounter();
+    private final StripedCounter totalSizeSent = new StripedCounter();
+    private final RollingHistogram sizeSentHistogram = new RollingHistogram();
+    private final ConcurrentMap<Integer, AtomicLong> sendingFaultTable =
+        new ConcurrentHashMap<Integer, AtomicLong>();
+
+    private final ConcurrentMap<Integer, AtomicLong> responseCodeTable =
+        new ConcurrentHashMap<Integer, AtomicLong>();
+
+    private final RollingHistogram latencyHistogram = new RollingHistogram();
+
+    private volatile long lastResetTime = System.currentTimeMillis();
 
     /**
      * Create a new MBean to manage the given endpoint
@@ -203,6 +216,22 @@ public class EndpointView
         }
     }
 
+    /**
+     * Return the number of requests this endpoint currently allows in flight
+     * @return the current concurrency limit, or -1 if the endpoint is not limited
+     */
+    public int getConcurrencyLimit() {
+        return endpoint.getConcurrencyLimit();
+    }
+
+    /**
+     * Return the number of requests sent through this endpoint awaiting a response
+     * @return the number of in flight requests
+     */
+    public int getInFlightCount() {
+        return endpoint.getInFlightCount();
+    }
+
     // --- endpoint metrics ---
     /**
      * Time when statistics was last reset for this leaf endpoint
@@ -232,10 +261,10 @@ public class EndpointView
                     addTableMaps(receivingFaultTable, e.getMetricsMBean().getReceivingFaultTable());
                 }
             }
-            addTableMaps(receivingFaultTable, this.receivingFaultTable);
+            addTableMaps(receivingFaultTable, toTable(this.receivingFaultTable));
             return receivingFaultTable;
         } else {
-            return receivingFaultTable;
+            return toTable(receivingFaultTable);
         }
     }
 
@@ -251,10 +280,10 @@ public class EndpointView
                     addTableMaps(sendingFaultTable, e.getMetricsMBean().getSendingFaultTable());
                 }
             }
-            addTableMaps(sendingFaultTable, this.sendingFaultTable);
+            addTableMaps(sendingFaultTable, toTable(this.sendingFaultTable));
             return sendingFaultTable;
         } else {
-            return sendingFaultTable;
+            return toTable(sendingFaultTable);
         }
     }
 
@@ -272,7 +301,7 @@ public class EndpointView
             }
             return responseCodeTable;
         } else {
-            return responseCodeTable;
+            return toTable(responseCodeTable);
         }
     }
 
@@ -290,7 +319,7 @@ public class EndpointView
             }
             return messagesReceived;
         } else {
-            return messagesReceived;
+            return messagesReceived.get();
         }
     }
 
@@ -308,7 +337,7 @@ public class EndpointView
             }
             return faultsReceiving;
         } else {
-            return faultsReceiving;
+            return faultsReceiving.get();
         }
     }
 
@@ -326,7 +355,7 @@ public class EndpointView
             }
             return timeoutsReceiving;
         } else {
-            return timeoutsReceiving;
+            return timeoutsReceiving.get();
         }
     }
 
@@ -344,7 +373,7 @@ public class EndpointView
             }
             return bytesReceived;
         } else {
-            return bytesReceived;
+            return bytesReceived.get();
         }
     }
 
@@ -362,7 +391,7 @@ public class EndpointView
             }
             return messagesSent;
         } else {
-            return messagesSent;
+            return messagesSent.get();
         }
     }
 
@@ -380,7 +409,7 @@ public class EndpointView
             }
             return faultsSending;
         } else {
-            return faultsSending;
+            return faultsSending.get();
         }
     }
 
@@ -398,7 +427,7 @@ public class EndpointView
             }
             return timeoutsSending;
         } else {
-            return timeoutsSending;
+            return timeoutsSending.get();
         }
     }
 
@@ -416,7 +445,7 @@ public class EndpointView
             }
             return bytesSent;
         } else {
-            return bytesSent;
+            return bytesSent.get();
         }
     }
 
@@ -434,7 +463,7 @@ public class EndpointView
             }
             return minSizeReceived;
         } else {
-            return minSizeReceived;
+            return minSizeReceived.get();
         }
     }
 
@@ -452,7 +481,7 @@ public class EndpointView
             }
             return maxSizeReceived;
         } else {
-            return maxSizeReceived;
+            return maxSizeReceived.get();
         }
     }
 
@@ -470,7 +499,7 @@ public class EndpointView
             }
             return minSizeSent;
         } else {
-            return minSizeSent;
+            return minSizeSent.get();
         }
     }
 
@@ -488,65 +517,218 @@ public class EndpointView
             }
             return maxSizeSent;
         } else {
-            return maxSizeSent;
+            return maxSizeSent.get();
         }
     }
 
     public double getAvgSizeReceived() {
+        long count = getSizesReceived();
+        return count == 0 ? 0 : (double) getTotalSizeReceived() / count;
+    }
+
+    public double getAvgSizeSent() {
+        long count = getSizesSent();
+        return count == 0 ? 0 : (double) getTotalSizeSent() / count;
+    }
+
+    /**
+     * The number of received message sizes reported to this leaf endpoint or to all the
+     * children of a group endpoint
+     * @return the number of sizes reported
+     */
+    long getSizesReceived() {
         if (endpoint.getChildren() != null) {
-            double avgSizeReceived = 0;
+            long count = 0;
             for (Endpoint e : endpoint.getChildren()) {
-                double epValue =
-                    e.getMetricsMBean() == null ? 0 : e.getMetricsMBean().getAvgSizeReceived();
-                if (epValue > 0) {
-                    avgSizeReceived =
-                        (avgSizeReceived == 0 ? epValue : (avgSizeReceived + epValue) / 2);
+                if (e.getMetricsMBean() != null) {
+                    count += e.getMetricsMBean().getSizesReceived();
                 }
             }
-            return avgSizeReceived;
+            return count;
         } else {
-            return avgSizeReceived;
+            return sizesReceived.get();
         }
     }
 
-    public double getAvgSizeSent() {
+    /**
+     * The sum of the received message sizes reported to this leaf endpoint or to all the
+     * children of a group endpoint
+     * @return the total size in bytes
+     */
+    long getTotalSizeReceived() {
+        if (endpoint.getChildren() != null) {
+            long total = 0;
+            for (Endpoint e : endpoint.getChildren()) {
+                if (e.getMetricsMBean() != null) {
+                    total += e.getMetricsMBean().getTotalSizeReceived();
+                }
+            }
+            return total;
+        } else {
+            return totalSizeReceived.get();
+        }
+    }
+
+    /**
+     * The number of sent message sizes reported to this leaf endpoint or to all the
+     * children of a group endpoint
+     * @return the number of sizes reported
+     */
+    long getSizesSent() {
+        if (endpoint.getChildren() != null) {
+            long count = 0;
+            for (Endpoint e : endpoint.getChildren()) {
+                if (e.getMetricsMBean() != null) {
+                    count += e.getMetricsMBean().getSizesSent();
+                }
+            }
+            return count;
+        } else {
+            return sizesSent.get();
+        }
+    }
+
+    /**
+     * The sum of the sent message sizes reported to this leaf endpoint or to all the
+     * children of a group endpoint
+     * @return the total size in bytes
+     */
+    long getTotalSizeSent() {
+        if (endpoint.getChildren() != null) {
+            long total = 0;
+            for (Endpoint e : endpoint.getChildren()) {
+                if (e.getMetricsMBean() != null) {
+                    total += e.getMetricsMBean().getTotalSizeSent();
+                }
+            }
+            return total;
+        } else {
+            return totalSizeSent.get();
+        }
+    }
+
+    /**
+     * The median latency of the last minute
+     * @return the latency in milliseconds
+     */
+    public long getLatencyP50() {
+        return getLatencySnapshot().getValueAtPercentile(50);
+    }
+
+    /**
+     * The 90th percentile latency of the last minute
+     * @return the latency in milliseconds
+     */
+    public long getLatencyP90() {
+        return getLatencySnapshot().getValueAtPercentile(90);
+    }
+
+    /**
+     * The 99th percentile latency of the last minute
+     * @return the latency in milliseconds
+     */
+    public long getLatencyP99() {
+        return getLatencySnapshot().getValueAtPercentile(99);
+    }
+
+    /**
+     * The 99.9th percentile latency of the last minute
+     * @return the latency in milliseconds
+     */
+    public long getLatencyP999() {
+        return getLatencySnapshot().getValueAtPercentile(99.9);
+    }
+
+    /**
+     * Percentiles of the sizes of the messages received during the last minute
+     * @return the p50, p90, p99 and p999 sizes in bytes
+     */
+    public Map<String, Long> getSizeReceivedPercentiles() {
+        return getSizeReceivedSnapshot().getPercentiles();
+    }
+
+    /**
+     * Percentiles of the sizes of the messages sent during the last minute
+     * @return the p50, p90, p99 and p999 sizes in bytes
+     */
+    public Map<String, Long> getSizeSentPercentiles() {
+        return getSizeSentSnapshot().getPercentiles();
+    }
+
+    /**
+     * The latencies of the last minute, of this leaf endpoint or of all the children of a
+     * group endpoint
+     * @return the latencies in milliseconds
+     */
+    public RollingHistogram.Snapshot getLatencySnapshot() {
+        if (endpoint.getChildren() != null) {
+            RollingHistogram.Snapshot snapshot = new RollingHistogram.Snapshot();
+            for (Endpoint e : endpoint.getChildren()) {
+                if (e.getMetricsMBean() != null) {
+                    snapshot.add(e.getMetricsMBean().getLatencySnapshot());
+                }
+            }
+            return snapshot;
+        } else {
+            return latencyHistogram.getSnapshot();
+        }
+    }
+
+    public RollingHistogram.Snapshot getSizeReceivedSnapshot() {
+        if (endpoint.getChildren() != null) {
+            RollingHistogram.Snapshot snapshot = new RollingHistogram.Snapshot();
+            for (Endpoint e : endpoint.getChildren()) {
+                if (e.getMetricsMBean() != null) {
+                    snapshot.add(e.getMetricsMBean().getSizeReceivedSnapshot());
+                }
+            }
+            return snapshot;
+        } else {
+            return sizeReceivedHistogram.getSnapshot();
+        }
+    }
+
+    public RollingHistogram.Snapshot getSizeSentSnapshot() {
         if (endpoint.getChildren() != null) {
-            double avgSizeSent = 0;
+            RollingHistogram.Snapshot snapshot = new RollingHistogram.Snapshot();
             for (Endpoint e : endpoint.getChildren()) {
-                double epValue =
-                    e.getMetricsMBean() == null ? 0 : e.getMetricsMBean().getAvgSizeSent();
-                if (epValue > 0) {
-                    avgSizeSent = (avgSizeSent == 0 ? epValue : (avgSizeSent + epValue) / 2);
+                if (e.getMetricsMBean() != null) {
+                    snapshot.add(e.getMetricsMBean().getSizeSentSnapshot());
                 }
             }
-            return avgSizeSent;
+            return snapshot;
         } else {
-            return avgSizeSent;
+            return sizeSentHistogram.getSnapshot();
         }
     }
 
     // --- MessageLevelMetricsCollector methods ---
     public void resetStatistics() {
 
-        messagesReceived  = 0;
-        faultsReceiving   = 0;
-        timeoutsReceiving = 0;
-        bytesReceived     = 0;
-        minSizeReceived   = 0;
-        maxSizeReceived   = 0;
-        avgSizeReceived   = 0;
+        messagesReceived.reset();
+        faultsReceiving.reset();
+        timeoutsReceiving.reset();
+        bytesReceived.reset();
+        minSizeReceived.set(0);
+        maxSizeReceived.set(0);
+        sizesReceived.reset();
+        totalSizeReceived.reset();
+        sizeReceivedHistogram.reset();
         receivingFaultTable.clear();
 
-        messagesSent      = 0;
-        faultsSending     = 0;
-        timeoutsSending   = 0;
-        bytesSent         = 0;
-        minSizeSent       = 0;
-        maxSizeSent       = 0;
-        avgSizeSent       = 0;
+        messagesSent.reset();
+        faultsSending.reset();
+        timeoutsSending.reset();
+        bytesSent.reset();
+        minSizeSent.set(0);
+        maxSizeSent.set(0);
+        sizesSent.reset();
+        totalSizeSent.reset();
+        sizeSentHistogram.reset();
         sendingFaultTable.clear();
 
         responseCodeTable.clear();
+        latencyHistogram.reset();
         lastResetTime = System.currentTimeMillis();
 
         if (endpoint.getChildren() != null) {
@@ -559,68 +741,63 @@ public class EndpointView
         log.info("Endpoint statistics reset for : " + endpointName + " (and/or its children)");
     }
 
-    public synchronized void incrementMessagesReceived() {
-        messagesReceived++;
+    public void incrementMessagesReceived() {
+        messagesReceived.increment();
     }
 
-    public synchronized void incrementFaultsReceiving(int errorCode) {
-        faultsReceiving++;
-        Object o = receivingFaultTable.get(errorCode);
-        if (o == null) {
-            receivingFaultTable.put(errorCode, ONE);
-        } else {
-            receivingFaultTable.put(errorCode, (Long) o + 1);
-        }
+    public void incrementFaultsReceiving(int errorCode) {
+        faultsReceiving.increment();
+        incrementCount(receivingFaultTable, errorCode);
     }
 
-    public synchronized void incrementTimeoutsReceiving() {
-        timeoutsReceiving++;
+    public void incrementTimeoutsReceiving() {
+        timeoutsReceiving.increment();
     }
 
-    public synchronized void incrementBytesReceived(long size) {
-        bytesReceived += size;
+    public void incrementBytesReceived(long size) {
+        bytesReceived.add(size);
     }
 
-    public synchronized void incrementMessagesSent() {
-        messagesSent++;
+    public void incrementMessagesSent() {
+        messagesSent.increment();
     }
 
-    public synchronized void incrementFaultsSending(int errorCode) {
-        faultsSending++;
-        Object o = sendingFaultTable.get(errorCode);
-        if (o == null) {
-            sendingFaultTable.put(errorCode, ONE);
-        } else {
-            sendingFaultTable.put(errorCode, (Long) o + 1);
-        }
+    public void incrementFaultsSending(int errorCode) {
+        faultsSending.increment();
+        incrementCount(sendingFaultTable, errorCode);
     }
 
-    public synchronized void incrementTimeoutsSending() {
-        timeoutsSending++;
+    public void incrementTimeoutsSending() {
+        timeoutsSending.increment();
     }
 
-    public synchronized void incrementBytesSent(long size) {
-        bytesSent += size;
+    public void incrementBytesSent(long size) {
+        bytesSent.add(size);
     }
 
-    public synchronized void notifyReceivedMessageSize(long size) {
-        if (minSizeReceived == 0 || size < minSizeReceived) {
-            minSizeReceived = size;
-        }
-        if (size > maxSizeReceived) {
-            maxSizeReceived = size;
-        }
-        avgSizeReceived = (avgSizeReceived == 0 ? size : (avgSizeReceived + size) / 2);
+    public void notifyReceivedMessageSize(long size) {
+        updateMin(minSizeReceived, size);
+        updateMax(maxSizeReceived, size);
+        sizesReceived.increment();
+        totalSizeReceived.add(size);
+        sizeReceivedHistogram.record(size);
     }
 
-    public synchronized void notifySentMessageSize(long size) {
-        if (minSizeSent == 0 || size < minSizeSent) {
-            minSizeSent = size;
-        }
-        if (size > maxSizeSent) {
-            maxSizeSent = size;
-        }
-        avgSizeSent = (avgSizeSent == 0 ? size : (avgSizeSent + size) / 2);
+    public void notifySentMessageSize(long size) {
+        updateMin(minSizeSent, size);
+        updateMax(maxSizeSent, size);
+        sizesSent.increment();
+        totalSizeSent.add(size);
+        sizeSentHistogram.record(size);
+    }
+
+    /**
+     * Report the time a request sent through this leaf endpoint took to get its response,
+     * fault or timeout
+     * @param millis the latency in milliseconds
+     */
+    public void notifyLatency(long millis) {
+        latencyHistogram.record(millis);
     }
 
     /**
@@ -629,14 +806,7 @@ public class EndpointView
      * @param errorCode the code to report
      */
     public void reportSendingFault(int errorCode) {
-        synchronized(sendingFaultTable) {
-            Object o = sendingFaultTable.get(errorCode);
-            if (o == null) {
-                sendingFaultTable.put(errorCode, ONE);
-            } else {
-                sendingFaultTable.put(errorCode, (Long) o + 1);
-            }
-        }
+        incrementCount(sendingFaultTable, errorCode);
     }
 
     /**
@@ -645,14 +815,7 @@ public class EndpointView
      * @param errorCode the code to report
      */
     public void reportReceivingFault(int errorCode) {
-        synchronized(receivingFaultTable) {
-            Object o = receivingFaultTable.get(errorCode);
-            if (o == null) {
-                receivingFaultTable.put(errorCode, ONE);
-            } else {
-                receivingFaultTable.put(errorCode, (Long) o + 1);
-            }
-        }
+        incrementCount(receivingFaultTable, errorCode);
     }
 
     /**
@@ -660,17 +823,90 @@ public class EndpointView
      * @param respCode response code
      */
     public void reportResponseCode(int respCode) {
-        synchronized(responseCodeTable) {
-            Object o = responseCodeTable.get(respCode);
-            if (o == null) {
-                responseCodeTable.put(respCode, ONE);
-            } else {
-                responseCodeTable.put(respCode, (Long) o + 1);
+        incrementCount(responseCodeTable, respCode);
+    }
+
+    // --- MetricsSource methods ---
+    /**
+     * Publish the metrics of a leaf endpoint. Group endpoints only add up the metrics of
+     * their children, which publish them on their own.
+     * @param writer the writer to publish to
+     */
+    public void collectMetrics(MetricsWriter writer) {
+        if (endpoint.getChildren() != null) {
+            return;
+        }
+        String[] labels = {"endpoint", endpointName};
+        writer.counter("synapse_endpoint_messages_sent", "Messages sent to the endpoint",
+                messagesSent.get(), labels);
+        writer.counter("synapse_endpoint_faults_sending", "Faults sending to the endpoint",
+                faultsSending.get(), labels);
+        writer.counter("synapse_endpoint_timeouts_sending", "Timeouts sending to the endpoint",
+                timeoutsSending.get(), labels);
+        writer.counter("synapse_endpoint_sent_bytes", "Bytes sent to the endpoint",
+                bytesSent.get(), labels);
+        writer.counter("synapse_endpoint_messages_received", "Replies received from the endpoint",
+                messagesReceived.get(), labels);
+        writer.counter("synapse_endpoint_faults_receiving",
+                "Faults receiving replies from the endpoint", faultsReceiving.get(), labels);
+        writer.counter("synapse_endpoint_timeouts_receiving",
+                "Timeouts receiving replies from the endpoint", timeoutsReceiving.get(), labels);
+        writer.counter("synapse_endpoint_received_bytes", "Bytes received from the endpoint",
+                bytesReceived.get(), labels);
+        writer.gauge("synapse_endpoint_in_flight", "Requests awaiting a response",
+                getInFlightCount(), labels);
+        writer.summary("synapse_endpoint_latency_milliseconds",
+                "Latency of the requests of the last minute", latencyHistogram.getSnapshot(),
+                labels);
+        writer.summary("synapse_endpoint_sent_size_bytes",
+                "Sizes of the messages sent in the last minute",
+                sizeSentHistogram.getSnapshot(), labels);
+        writer.summary("synapse_endpoint_received_size_bytes",
+                "Sizes of the replies received in the last minute",
+                sizeReceivedHistogram.getSnapshot(), labels);
+    }
+
+    //---------- utility methods ---------------
+    private static void incrementCount(ConcurrentMap<Integer, AtomicLong> table, int code) {
+        AtomicLong count = table.get(code);
+        if (count == null) {
+            AtomicLong created = new AtomicLong();
+            count = table.putIfAbsent(code, created);
+            if (count == null) {
+                count = created;
             }
         }
+        count.incrementAndGet();
+    }
+
+    private static Map<Integer, Long> toTable(ConcurrentMap<Integer, AtomicLong> counts) {
+        Map<Integer, Long> table = new HashMap<Integer, Long>();
+        for (Map.Entry<Integer, AtomicLong> e : counts.entrySet()) {
+            table.put(e.getKey(), e.getValue().get());
+        }
+        return table;
+    }
+
+    private static void updateMin(AtomicLong min, long size) {
+        long current;
+        do {
+            current = min.get();
+            if (current != 0 && current <= size) {
+                return;
+            }
+        } while (!min.compareAndSet(current, size));
+    }
+
+    private static void updateMax(AtomicLong max, long size) {
+        long current;
+        do {
+            current = max.get();
+            if (current >= size) {
+                return;
+            }
+        } while (!max.compareAndSet(current, size));
     }
 
-    //---------- utility methods ---------------
     private static void addTableMaps(Map<Integer, Long> t, Map<Integer, Long> s) {
         for (Map.Entry<Integer, Long> e : s.entrySet()) {
         	Integer skey = e.getKey();
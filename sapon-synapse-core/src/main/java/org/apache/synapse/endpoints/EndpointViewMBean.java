@@ -43,6 +43,13 @@ public interface EndpointViewMBean {
     public Map getSendingFaultTable();
     public Map getResponseCodeTable();
 
+    public long getLatencyP50();
+    public long getLatencyP90();
+    public long getLatencyP99();
+    public long getLatencyP999();
+    public Map getSizeReceivedPercentiles();
+    public Map getSizeSentPercentiles();
+
     // JMX Operations
     public void switchOn() throws Exception;
     public void switchOff() throws Exception;
@@ -55,6 +62,8 @@ public interface EndpointViewMBean {
     public int getTotalChildren() throws Exception;
     public int getActiveChildren() throws Exception;
     public int getReadyChildren() throws Exception;
+    public int getConcurrencyLimit();
+    public int getInFlightCount();
 
     public void resetStatistics();
     public long getLastResetTime();
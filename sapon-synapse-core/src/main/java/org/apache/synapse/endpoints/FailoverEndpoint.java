@@ -45,12 +45,14 @@ public class FailoverEndpoint extends AbstractEndpoint {
         boolean isARetry = false;
         if (synCtx.getProperty(SynapseConstants.LAST_ENDPOINT) == null) {
             if (log.isDebugEnabled()) {
-                log.debug(this + " Building the SoapEnvelope");
+                log.debug(this + " Buffering the SoapEnvelope");
             }
-            // If not yet a retry, we have to build the envelope since we need to support failover
-            synCtx.getEnvelope().build();
+            // If not yet a retry, we have to keep the envelope since we need to support failover
+            ReplayableEnvelope.retain(synCtx);
         } else {
             isARetry = true;
+            // the failed attempt may have consumed the envelope
+            ReplayableEnvelope.replay(synCtx);
         }
 
         if (getChildren().isEmpty()) {
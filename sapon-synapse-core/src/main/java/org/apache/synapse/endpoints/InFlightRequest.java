@@ -0,0 +1,71 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.synapse.SynapseMessageContext;
+
+/**
+ * A message sent through a leaf endpoint that has not been answered yet. It is kept on the
+ * message context, and completes when the response, the sending fault or the timeout of the
+ * message is received, at which point the endpoint updates its in flight count and its moving
+ * average response time. A request completes only once, however many times it is reported.
+ */
+public final class InFlightRequest {
+
+    /** The Synapse MC property holding the in flight request of the message */
+    private static final String IN_FLIGHT_REQUEST = "__IN_FLIGHT_REQUEST__";
+
+    private final AbstractEndpoint endpoint;
+    private final long startTime;
+    private final AtomicBoolean completed = new AtomicBoolean(false);
+
+    private InFlightRequest(AbstractEndpoint endpoint) {
+        this.endpoint = endpoint;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    static InFlightRequest begin(AbstractEndpoint endpoint, SynapseMessageContext synCtx) {
+        InFlightRequest request = new InFlightRequest(endpoint);
+        endpoint.requestStarted();
+        synCtx.setProperty(IN_FLIGHT_REQUEST, request);
+        return request;
+    }
+
+    /**
+     * Complete the last request sent for the given message, if any
+     *
+     * @param synCtx the message that was sent
+     * @param success true for a response, false for a fault or a timeout
+     */
+    public static void complete(SynapseMessageContext synCtx, boolean success) {
+        Object request = synCtx.getProperty(IN_FLIGHT_REQUEST);
+        if (request instanceof InFlightRequest) {
+            ((InFlightRequest) request).complete(success);
+        }
+    }
+
+    void complete(boolean success) {
+        if (completed.compareAndSet(false, true)) {
+            endpoint.requestCompleted(System.currentTimeMillis() - startTime, success);
+        }
+    }
+}
@@ -98,6 +98,16 @@ public class IndirectEndpoint extends AbstractEndpoint {
         return realEndpoint.getMetricsMBean();
     }
 
+    @Override
+    public int getInFlightCount() {
+        return realEndpoint != null ? realEndpoint.getInFlightCount() : 0;
+    }
+
+    @Override
+    public double getAverageResponseTime() {
+        return realEndpoint != null ? realEndpoint.getAverageResponseTime() : -1;
+    }
+
     @Override
     /**
      * Figure out the real endpoint we proxy for, and make sure its initialized
@@ -69,12 +69,14 @@ public class LoadbalanceEndpoint extends AbstractEndpoint {
         if (endpoint != null) {
             // if this is not a retry
             if (synCtx.getProperty(SynapseConstants.LAST_ENDPOINT) == null) {
-                // We have to build the envelop when we are supporting failover, as we
+                // We have to keep the envelope when we are supporting failover, as we
                 // may have to retry this message for failover support
                 if (failover) {
-                    synCtx.getEnvelope().build();
+                    ReplayableEnvelope.retain(synCtx);
                 }
             } else {
+                // the failed attempt may have consumed the envelope
+                ReplayableEnvelope.replay(synCtx);
                 if (metricsMBean != null) {
                     // this is a retry, where we are now failing over to an active node
                     metricsMBean.reportSendingFault(SynapseConstants.ENDPOINT_LB_FAIL_OVER);
@@ -33,6 +33,9 @@ public class MappingEndpoint extends AbstractEndpoint {
 	@Override
 	public void send(SynapseMessageContext synCtx)
 	{
+		if (rejectOverConcurrencyLimit(synCtx)) {
+			return;
+		}
 		final String clientSoapAction = synCtx.getSoapAction();
 		final String mappedSoapAction = mappings.get(clientSoapAction);
 		if(mappedSoapAction == null) {
@@ -58,7 +61,7 @@ public class MappingEndpoint extends AbstractEndpoint {
         ((Axis2SynapseMessageContext) synCtx).getAxis2MessageContext().setProperty(
             BaseConstants.METRICS_COLLECTOR, metricsMBean);
         // Send the message through this endpoint
-        synCtx.getEnvironment().send(endpointDef, synCtx);
+        dispatch(endpointDef, synCtx);
 	}
 
 	private EndpointDefinition prepEndpointDefinition(String soapAction) {
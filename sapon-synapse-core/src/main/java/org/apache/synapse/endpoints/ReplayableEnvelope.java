@@ -0,0 +1,188 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.axis2.AxisFault;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.SynapseMessageContext;
+import org.apache.synapse.commons.util.TemporaryData;
+import org.apache.synapse.util.MessageHelper;
+
+/**
+ * The serialized envelope of a message that failover and load balance endpoints may have to
+ * send more than once. Rather than building the whole envelope so that it survives being sent,
+ * the envelope is streamed once into a {@link TemporaryData} buffer - which overflows to a
+ * temporary file for large messages - and each attempt is given a fresh envelope that is built
+ * from the buffer on demand. A message that is never retried and never inspected is therefore
+ * never built into a tree.
+ * <p>
+ * The buffer is kept on the message context, and is released once the message will not be sent
+ * again: when a response is received, when the send times out, when the fault sequence takes
+ * over, or when an out-only message went out.
+ */
+public final class ReplayableEnvelope {
+
+    /** The Synapse MC property holding the replayable envelope of the message */
+    private static final String REPLAYABLE_ENVELOPE = "__REPLAYABLE_ENVELOPE__";
+
+    private final TemporaryData data;
+
+    /** The stream the latest envelope is built from */
+    private InputStream input;
+
+    ReplayableEnvelope(SOAPEnvelope envelope, TemporaryData data) {
+        this.data = data;
+        OutputStream out = data.getOutputStream();
+        try {
+            envelope.serializeAndConsume(out);
+            out.close();
+        } catch (XMLStreamException e) {
+            data.release();
+            throw new SynapseException("Error buffering the message for a resend", e);
+        } catch (IOException e) {
+            data.release();
+            throw new SynapseException("Error buffering the message for a resend", e);
+        }
+    }
+
+    /**
+     * Makes sure the envelope of the given message can be sent again if the first attempt
+     * fails. The envelope is buffered and replaced by a copy built from the buffer, unless it
+     * was buffered already. Messages with optimized binary content are built instead, as the
+     * buffer would inline that content.
+     *
+     * @param synCtx the message about to be sent
+     */
+    public static void retain(SynapseMessageContext synCtx) {
+        if (synCtx.getProperty(REPLAYABLE_ENVELOPE) != null) {
+            return;
+        }
+        if (!MessageHelper.isEnvelopeShareable(synCtx)) {
+            synCtx.getEnvelope().build();
+            return;
+        }
+        TemporaryData data = synCtx.getEnvironment().createTemporaryData();
+        // every path that ends the sends of the message releases the buffer
+        data.setDeleteOnExit(false);
+        ReplayableEnvelope envelope = new ReplayableEnvelope(synCtx.getEnvelope(), data);
+        synCtx.setProperty(REPLAYABLE_ENVELOPE, envelope);
+        envelope.replayInto(synCtx);
+    }
+
+    /**
+     * Gives the given message a fresh copy of its buffered envelope, in place of the one that
+     * a failed attempt may have consumed
+     *
+     * @param synCtx the message about to be sent again
+     * @return false if the envelope of the message was not buffered
+     */
+    public static boolean replay(SynapseMessageContext synCtx) {
+        Object envelope = synCtx.getProperty(REPLAYABLE_ENVELOPE);
+        if (envelope instanceof ReplayableEnvelope) {
+            ((ReplayableEnvelope) envelope).replayInto(synCtx);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Releases the buffered envelope of the given message, if any, once it will not be sent
+     * again
+     *
+     * @param synCtx the message that was sent
+     */
+    public static void release(SynapseMessageContext synCtx) {
+        Object envelope = synCtx.getProperty(REPLAYABLE_ENVELOPE);
+        if (envelope instanceof ReplayableEnvelope) {
+            synCtx.setProperty(REPLAYABLE_ENVELOPE, null);
+            ((ReplayableEnvelope) envelope).release();
+        }
+    }
+
+    /**
+     * Gives the given message a fully built copy of its buffered envelope, if any, and
+     * releases the buffer, as the message is handed to a fault sequence rather than sent again
+     *
+     * @param synCtx the message whose sends failed
+     */
+    public static void complete(SynapseMessageContext synCtx) {
+        Object envelope = synCtx.getProperty(REPLAYABLE_ENVELOPE);
+        if (envelope instanceof ReplayableEnvelope) {
+            ReplayableEnvelope replayable = (ReplayableEnvelope) envelope;
+            try {
+                replayable.replayInto(synCtx);
+                synCtx.getEnvelope().build();
+            } finally {
+                synCtx.setProperty(REPLAYABLE_ENVELOPE, null);
+                replayable.release();
+            }
+        }
+    }
+
+    void release() {
+        closeInput();
+        data.release();
+    }
+
+    private void replayInto(SynapseMessageContext synCtx) {
+        try {
+            synCtx.setEnvelope(newEnvelope());
+        } catch (AxisFault e) {
+            throw new SynapseException("Error setting the buffered envelope", e);
+        }
+    }
+
+    /**
+     * @return a new envelope built on demand from the buffer
+     */
+    SOAPEnvelope newEnvelope() {
+        // the previous envelope was consumed or is given up on
+        closeInput();
+        try {
+            input = data.getInputStream();
+            XMLStreamReader reader = StAXUtils.createXMLStreamReader(input);
+            return new StAXSOAPModelBuilder(reader).getSOAPEnvelope();
+        } catch (XMLStreamException e) {
+            throw new SynapseException("Error reading the buffered envelope", e);
+        } catch (IOException e) {
+            throw new SynapseException("Error reading the buffered envelope", e);
+        }
+    }
+
+    private void closeInput() {
+        if (input != null) {
+            try {
+                input.close();
+            } catch (IOException ignore) {
+            }
+            input = null;
+        }
+    }
+}
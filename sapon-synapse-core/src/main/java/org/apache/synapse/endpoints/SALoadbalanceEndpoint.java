@@ -269,8 +269,14 @@ public class SALoadbalanceEndpoint extends LoadbalanceEndpoint {
 
             // this is the first request. so an endpoint has not been bound to this session and we
             // are free to failover if the currently selected endpoint is not working. but for
-            // failover to work, we have to build the soap envelope.
-            synCtx.getEnvelope().build();
+            // failover to work, we have to keep the soap envelope - or get a fresh copy of it if
+            // this is already a retry.
+            if (Boolean.TRUE.equals(synCtx.getProperty(
+                    SynapseConstants.PROP_SAL_ENDPOINT_FIRST_MESSAGE_IN_SESSION))) {
+                ReplayableEnvelope.replay(synCtx);
+            } else {
+                ReplayableEnvelope.retain(synCtx);
+            }
 
             // we should also indicate that this is the first message in the session. so that
             // onFault(...) method can resend only the failed attempts for the first message.
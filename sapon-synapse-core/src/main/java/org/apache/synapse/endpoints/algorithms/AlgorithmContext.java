@@ -20,6 +20,7 @@ package org.apache.synapse.endpoints.algorithms;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.commons.logging.Log;
@@ -49,7 +50,7 @@ public class AlgorithmContext {
     private String PROPERTY_KEY_PREFIX;
 
     /* The pointer to current epr - The position of the current EPR */
-    private int currentEPR = 0;
+    private final AtomicInteger currentEPR = new AtomicInteger(0);
 
     /* The map of properties stored locally */
     private Map<String, Object> localProperties;
@@ -83,7 +84,7 @@ public class AlgorithmContext {
                 return ((Integer) value);
             }
         } else {
-            return currentEPR;
+            return currentEPR.get();
         }
         return 0;
     }
@@ -105,7 +106,40 @@ public class AlgorithmContext {
             if (log.isDebugEnabled()) {
                 log.debug("Setting the current EPR as : " + currentEPR);
             }
-            this.currentEPR = currentEPR;
+            this.currentEPR.set(currentEPR);
+        }
+    }
+
+    /**
+     * Moves the position of the current EPR one step forward, wrapping around after the last
+     * of the given number of EPRs, and returns the position it had before the move. Without
+     * clustering this is a single atomic step, so that concurrent messages never take a lock
+     * to be spread over the endpoints. In a cluster the replicated position is updated under
+     * the lock of this context.
+     *
+     * @param size the number of EPRs to rotate over
+     * @return the position of the EPR to use, between 0 and size - 1
+     */
+    public int nextEndpointIndex(int size) {
+
+        if (isClusteringEnabled) {
+            synchronized (this) {
+                int current = getCurrentEndpointIndex();
+                if (current >= size) {
+                    current = 0;
+                }
+                setCurrentEndpointIndex(current + 1 < size ? current + 1 : 0);
+                return current;
+            }
+        }
+
+        while (true) {
+            int stored = currentEPR.get();
+            int current = stored < size ? stored : 0;
+            int next = current + 1 < size ? current + 1 : 0;
+            if (currentEPR.compareAndSet(stored, next)) {
+                return current;
+            }
         }
     }
 
@@ -0,0 +1,75 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.algorithms;
+
+import java.util.List;
+
+import org.apache.synapse.SynapseMessageContext;
+import org.apache.synapse.endpoints.Endpoint;
+
+/**
+ * Load balancing algorithm that sends each message to the ready endpoint with the fewest
+ * messages still waiting for a response, as counted by the endpoints themselves. The scan starts
+ * at a round robin position, so that endpoints with the same number of outstanding requests
+ * share the messages evenly. Application members carry no such counts and are chosen by round
+ * robin.
+ */
+public class LeastOutstandingRequests extends RoundRobin {
+
+    public LeastOutstandingRequests() {
+
+    }
+
+    public LeastOutstandingRequests(List<Endpoint> endpoints) {
+        super(endpoints);
+    }
+
+    @Override
+    public Endpoint getNextEndpoint(SynapseMessageContext synCtx,
+        AlgorithmContext algorithmContext) {
+
+        List<Endpoint> endpoints = getEndpoints();
+        int size = endpoints.size();
+        int start = algorithmContext.nextEndpointIndex(size);
+
+        Endpoint nextEndpoint = null;
+        int leastOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get((start + i) % size);
+            if (!endpoint.readyToSend()) {
+                continue;
+            }
+            int outstanding = endpoint.getInFlightCount();
+            if (outstanding < leastOutstanding) {
+                nextEndpoint = endpoint;
+                leastOutstanding = outstanding;
+                if (outstanding == 0) {
+                    break;
+                }
+            }
+        }
+        return nextEndpoint;
+    }
+
+    @Override
+    public String getName() {
+        return "LeastOutstandingRequests";
+    }
+}
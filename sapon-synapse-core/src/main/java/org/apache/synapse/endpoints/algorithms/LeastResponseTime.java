@@ -0,0 +1,84 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.algorithms;
+
+import java.util.List;
+
+import org.apache.synapse.SynapseMessageContext;
+import org.apache.synapse.endpoints.Endpoint;
+
+/**
+ * Load balancing algorithm that sends each message to the ready endpoint expected to answer it
+ * first. The expected time is the moving average of the endpoint's response time multiplied by
+ * the number of messages it already has outstanding plus this one, so a fast endpoint is
+ * preferred only as long as it keeps up. Endpoints that have not answered yet get one message at
+ * a time, to learn their response time. As with {@link LeastOutstandingRequests} ties are broken by round
+ * robin, and application members are chosen by round robin.
+ */
+public class LeastResponseTime extends RoundRobin {
+
+    public LeastResponseTime() {
+
+    }
+
+    public LeastResponseTime(List<Endpoint> endpoints) {
+        super(endpoints);
+    }
+
+    @Override
+    public Endpoint getNextEndpoint(SynapseMessageContext synCtx,
+        AlgorithmContext algorithmContext) {
+
+        List<Endpoint> endpoints = getEndpoints();
+        int size = endpoints.size();
+        int start = algorithmContext.nextEndpointIndex(size);
+
+        Endpoint nextEndpoint = null;
+        Endpoint untried = null;
+        double leastCost = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = endpoints.get((start + i) % size);
+            if (!endpoint.readyToSend()) {
+                continue;
+            }
+            double responseTime = endpoint.getAverageResponseTime();
+            if (responseTime < 0) {
+                // never answered yet, use it to find out how fast it is
+                if (endpoint.getInFlightCount() == 0) {
+                    return endpoint;
+                } else if (untried == null) {
+                    untried = endpoint;
+                }
+                continue;
+            }
+            double cost = responseTime * (endpoint.getInFlightCount() + 1);
+            if (cost < leastCost) {
+                nextEndpoint = endpoint;
+                leastCost = cost;
+            }
+        }
+        return nextEndpoint != null ? nextEndpoint : untried;
+    }
+
+    @Override
+    public String getName() {
+        return "LeastResponseTime";
+    }
+}
@@ -60,7 +60,8 @@ public class RoundRobin implements LoadbalanceAlgorithm {
 
     /**
      * Choose an active endpoint using the round robin algorithm. If there are no active endpoints
-     * available, returns null.
+     * available, returns null. The position of the next endpoint is moved atomically, so that
+     * concurrent messages do not serialize on the algorithm context.
      *
      * @param synCtx MessageContext instance which holds all per-message properties
      * @param  algorithmContext The context in which holds run time states related to the algorithm
@@ -69,64 +70,41 @@ public class RoundRobin implements LoadbalanceAlgorithm {
     public Endpoint getNextEndpoint(SynapseMessageContext synCtx,
         AlgorithmContext algorithmContext) {
 
-        Endpoint nextEndpoint;
-        int attempts = 0;
-        synchronized (algorithmContext) {
-            int currentEPR = algorithmContext.getCurrentEndpointIndex();
-            do {
-                // two successive clients could get the same endpoint if not synchronized.
-                nextEndpoint = endpoints.get(currentEPR);
-
-                if (currentEPR == endpoints.size() - 1) {
-                    currentEPR = 0;
-                } else {
-                    currentEPR++;
-                }
-                algorithmContext.setCurrentEndpointIndex(currentEPR);
-
-                attempts++;
-                if (attempts > endpoints.size()) {
-                    return null;
-                }
-
-            } while (!nextEndpoint.readyToSend());
+        int size = endpoints.size();
+        for (int attempts = 0; attempts < size; attempts++) {
+            Endpoint nextEndpoint = endpoints.get(algorithmContext.nextEndpointIndex(size));
+            if (nextEndpoint.readyToSend()) {
+                return nextEndpoint;
+            }
         }
-
-        return nextEndpoint;
+        return null;
     }
 
     public Member getNextApplicationMember(AlgorithmContext algorithmContext) {
         if (members.size() == 0) {
             return null;
         }
-        Member current;
-        synchronized (algorithmContext) {
-            int currentMemberIndex = algorithmContext.getCurrentEndpointIndex();
-            if (currentMemberIndex >= members.size()) {
-                currentMemberIndex = 0;
-            }
-            current = members.get(currentMemberIndex);
-            if (currentMemberIndex == members.size() - 1) {
-                currentMemberIndex = 0;
-            } else {
-                currentMemberIndex++;
-            }
-            algorithmContext.setCurrentEndpointIndex(currentMemberIndex);
-            if (log.isDebugEnabled()) {
-                log.debug("Members       : " + members.size());
-                log.debug("Current member: " + current);
-            }
+        Member current = members.get(algorithmContext.nextEndpointIndex(members.size()));
+        if (log.isDebugEnabled()) {
+            log.debug("Members       : " + members.size());
+            log.debug("Current member: " + current);
         }
         return current;
     }
 
     public void reset(AlgorithmContext algorithmContext) {
         if (log.isDebugEnabled()) {
-            log.debug("Resetting the Round Robin loadbalancing algorithm ...");
-        }
-        synchronized (algorithmContext) {
-            algorithmContext.setCurrentEndpointIndex(0);
+            log.debug("Resetting the " + getName() + " loadbalancing algorithm ...");
         }
+        algorithmContext.setCurrentEndpointIndex(0);
+    }
+
+    /**
+     * Get the endpoints this algorithm chooses from
+     * @return the endpoints list
+     */
+    protected List<Endpoint> getEndpoints() {
+        return endpoints;
     }
 
     public String getName() {
@@ -0,0 +1,155 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.algorithms;
+
+import java.util.List;
+
+import org.apache.synapse.SynapseMessageContext;
+import org.apache.synapse.endpoints.Endpoint;
+
+/**
+ * Weighted round robin load balancing algorithm. Each endpoint gets a share of the messages
+ * proportional to its weight. The shares are interleaved rather than sent in bursts, i.e. with
+ * weights 2 and 1 the endpoints get the messages A B A A B A ..., and the endpoint to use is
+ * chosen by moving an atomic position over that precomputed order, so no lock is taken per
+ * message. Endpoints that are not ready to send are skipped.
+ */
+public class WeightedRoundRobin extends RoundRobin {
+
+    /** The weights of the endpoints, in the order of the endpoints list */
+    private int[] weights = null;
+
+    /** The indexes of the endpoints in the order they are used */
+    private volatile int[] schedule = new int[0];
+
+    public WeightedRoundRobin() {
+
+    }
+
+    public WeightedRoundRobin(List<Endpoint> endpoints) {
+        super(endpoints);
+        buildSchedule();
+    }
+
+    @Override
+    public void setEndpoints(List<Endpoint> endpoints) {
+        super.setEndpoints(endpoints);
+        buildSchedule();
+    }
+
+    /**
+     * Set the weights of the endpoints. Endpoints without a weight get a weight of 1.
+     *
+     * @param weights the weights in the order of the endpoints list, all of them positive
+     */
+    public void setWeights(int[] weights) {
+        if (weights != null) {
+            for (int weight : weights) {
+                if (weight < 1) {
+                    throw new IllegalArgumentException("Endpoint weights must be positive");
+                }
+            }
+        }
+        this.weights = weights;
+        buildSchedule();
+    }
+
+    /**
+     * Get the weight of the endpoint at the given position of the endpoints list
+     *
+     * @param index the position of the endpoint
+     * @return the weight of the endpoint
+     */
+    public int getWeight(int index) {
+        return weights != null && index < weights.length ? weights[index] : 1;
+    }
+
+    @Override
+    public Endpoint getNextEndpoint(SynapseMessageContext synCtx,
+        AlgorithmContext algorithmContext) {
+
+        List<Endpoint> endpoints = getEndpoints();
+        int[] order = schedule;
+        for (int attempts = 0; attempts < order.length; attempts++) {
+            Endpoint nextEndpoint =
+                    endpoints.get(order[algorithmContext.nextEndpointIndex(order.length)]);
+            if (nextEndpoint.readyToSend()) {
+                return nextEndpoint;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getName() {
+        return "WeightedRoundRobin";
+    }
+
+    /**
+     * Interleaves the endpoints by weight: each round adds every endpoint's weight to its
+     * credit, and the endpoint with the highest credit is used and pays the sum of the weights
+     */
+    private void buildSchedule() {
+
+        List<Endpoint> endpoints = getEndpoints();
+        if (endpoints == null) {
+            schedule = new int[0];
+            return;
+        }
+
+        int size = endpoints.size();
+        int[] effective = new int[size];
+        int divisor = 0;
+        for (int i = 0; i < size; i++) {
+            effective[i] = getWeight(i);
+            divisor = gcd(divisor, effective[i]);
+        }
+
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            effective[i] /= divisor;
+            total += effective[i];
+        }
+
+        int[] order = new int[total];
+        int[] credit = new int[size];
+        for (int n = 0; n < total; n++) {
+            int best = 0;
+            for (int i = 0; i < size; i++) {
+                credit[i] += effective[i];
+                if (credit[i] > credit[best]) {
+                    best = i;
+                }
+            }
+            credit[best] -= total;
+            order[n] = best;
+        }
+        schedule = order;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
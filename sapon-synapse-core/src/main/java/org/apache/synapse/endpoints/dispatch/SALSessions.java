@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.commons.logging.Log;
@@ -46,6 +47,9 @@ public class SALSessions {
 
     private final static String SESSION_IDS = "synapse.salep.sessionids.";
 
+    /* The number of shards of the local session store */
+    private final static int SESSION_STORE_CONCURRENCY = 32;
+
     private ConfigurationContext configCtx;
 
     /* Is this env. support clustering*/
@@ -55,11 +59,10 @@ public class SALSessions {
 
     /*Cache all path with its endpoint sequence. This is only need for a clustered environment */
     private final Map<List<String>, List<Endpoint>> namesToEndpointsMap =
-            new HashMap<List<String>, List<Endpoint>>();
+            new ConcurrentHashMap<List<String>, List<Endpoint>>();
 
     /* Non- clustered environment , all the established sessions*/
-    private final Map<String, SessionInformation> establishedSessions =
-            new HashMap<String, SessionInformation>();
+    private final SessionStore establishedSessions = new SessionStore(SESSION_STORE_CONCURRENCY);
     /* all child endpoints .  This is only need for a clustered environment*/
     private final Map<String, Map<String, Endpoint>> childEndpoints =
             new HashMap<String, Map<String, Endpoint>>();
@@ -199,7 +202,10 @@ public class SALSessions {
             if (isClustered) {
                 Replicator.setAndReplicateState(SESSION_IDS + sessionID, newInformation, configCtx);
             } else {
-                establishedSessions.put(sessionID, newInformation);
+                establishedSessions.setMaxSessions(synCtx.getConfiguration().getProperty(
+                        SynapseConstants.PROP_SAL_ENDPOINT_MAX_SESSIONS,
+                        SynapseConstants.SAL_ENDPOINTS_DEFAULT_MAX_SESSIONS));
+                establishedSessions.put(newInformation);
             }
         }
     }
@@ -305,7 +311,7 @@ public class SALSessions {
     /**
      * Clear all the expired sessions
      */
-    public synchronized void clearSessions() {
+    public void clearSessions() {
 
         if (!initialized) {
             return;
@@ -313,52 +319,46 @@ public class SALSessions {
 
         try {
             if (isClustered) {
+                clearReplicatedSessions();
+            } else {
+                int removed = establishedSessions.removeExpired(System.currentTimeMillis());
+                if (removed > 0) {
+                    log.info("Cleared " + removed + " expired sessions");
+                }
+            }
+        } catch (Throwable ignored) {
+            log.debug("Ignored error clearing sessions : Error " + ignored);
+        }
+    }
 
-                List<String> toBeRemoved = new ArrayList<String>();
-                for(final String name: configCtx.getPropertyNames()) {
-                    if (name.startsWith(SESSION_IDS)) {
-                        SessionInformation info = (SessionInformation) configCtx.getProperty(name);
+    /*
+     * The sessions of a clustered environment live in the replicated state, so they have to be
+     * found by scanning it
+     */
+    private synchronized void clearReplicatedSessions() {
 
-                        if (info != null && info.isExpired()) {
-                            if (log.isDebugEnabled()) {
-                                log.debug("Clustered Environment :" +
-                                        "Expired session with id :" + name);
-                            }
+        List<String> toBeRemoved = new ArrayList<String>();
+        for(final String name: configCtx.getPropertyNames()) {
+            if (name.startsWith(SESSION_IDS)) {
+                SessionInformation info = (SessionInformation) configCtx.getProperty(name);
 
-                            toBeRemoved.add(name);
-                        }
+                if (info != null && info.isExpired()) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Clustered Environment :" +
+                                "Expired session with id :" + name);
                     }
-                }
 
-                if (!toBeRemoved.isEmpty()) {
-                    log.info("Clearing expired sessions");
-
-                    for (String key : toBeRemoved) {
-                        Replicator.removeAndReplicateState(key, configCtx);
-                    }
+                    toBeRemoved.add(name);
                 }
+            }
+        }
 
-            } else {
-
-                List<String> toBeRemoved = new ArrayList<String>();
-                for (SessionInformation information : establishedSessions.values()) {
-
-                    if (information != null && information.isExpired()) {
-                        String id = information.getId();
-                        if (log.isDebugEnabled()) {
-                            log.debug("Expired session with id :" + id);
-                        }
-                        toBeRemoved.add(id);
-                    }
-                }
+        if (!toBeRemoved.isEmpty()) {
+            log.info("Clearing expired sessions");
 
-                if (!toBeRemoved.isEmpty()) {
-                    log.info("Clearing expired sessions");
-                    establishedSessions.keySet().removeAll(toBeRemoved);
-                }
+            for (String key : toBeRemoved) {
+                Replicator.removeAndReplicateState(key, configCtx);
             }
-        } catch (Throwable ignored) {
-            log.debug("Ignored error clearing sessions : Error " + ignored);
         }
     }
 
@@ -0,0 +1,205 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.dispatch;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Holds the sessions established on this node, spread over a number of independently locked
+ * shards so that dispatching threads seldom contend with each other or with the cleanup task.
+ * Each shard indexes its sessions by expiry time, so removing the expired sessions costs in
+ * proportion to their number rather than to the number of live sessions, and may bound its
+ * size by evicting the least recently used sessions.
+ */
+public class SessionStore {
+
+    private static final Comparator<SessionInformation> BY_EXPIRY_TIME =
+            new Comparator<SessionInformation>() {
+        public int compare(SessionInformation a, SessionInformation b) {
+            long x = a.getExpiryTime();
+            long y = b.getExpiryTime();
+            return x < y ? -1 : (x == y ? 0 : 1);
+        }
+    };
+
+    private final Shard[] shards;
+
+    /** The number of sessions a shard may hold before evicting - unbounded if not positive */
+    private volatile int maxSessionsPerShard = -1;
+
+    /**
+     * @param concurrency the expected number of threads updating the store concurrently, the
+     *                    number of shards is the smallest power of two not less than it
+     */
+    public SessionStore(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Invalid concurrency : " + concurrency);
+        }
+        int size = 1;
+        while (size < concurrency) {
+            size <<= 1;
+        }
+        shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /**
+     * Bounds the number of sessions held, evicting the least recently used ones beyond it. The
+     * bound is enforced per shard, so the store as a whole may hold slightly fewer sessions
+     *
+     * @param maxSessions the maximum number of sessions, or a non positive value for no limit
+     */
+    public void setMaxSessions(long maxSessions) {
+        if (maxSessions <= 0) {
+            maxSessionsPerShard = -1;
+        } else {
+            maxSessionsPerShard = (int) Math.min(Integer.MAX_VALUE,
+                    (maxSessions + shards.length - 1) / shards.length);
+        }
+    }
+
+    public long getMaxSessions() {
+        int perShard = maxSessionsPerShard;
+        return perShard <= 0 ? -1 : (long) perShard * shards.length;
+    }
+
+    public SessionInformation get(String id) {
+        Shard shard = shardFor(id);
+        synchronized (shard) {
+            return shard.sessions.get(id);
+        }
+    }
+
+    /**
+     * Adds a session, replacing any other session with the same id
+     *
+     * @param information the session to add
+     */
+    public void put(SessionInformation information) {
+        Shard shard = shardFor(information.getId());
+        synchronized (shard) {
+            shard.sessions.put(information.getId(), information);
+            shard.expiryQueue.add(information);
+            shard.compact();
+        }
+    }
+
+    public void remove(String id) {
+        Shard shard = shardFor(id);
+        synchronized (shard) {
+            // the expiry queue entry is left behind and discarded when it comes up
+            shard.sessions.remove(id);
+        }
+    }
+
+    /**
+     * Removes the sessions that expired by the given time
+     *
+     * @param now the current time in milliseconds
+     * @return the number of sessions removed
+     */
+    public int removeExpired(long now) {
+        int removed = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                removed += shard.removeExpired(now);
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.sessions.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.sessions.clear();
+                shard.expiryQueue.clear();
+            }
+        }
+    }
+
+    private Shard shardFor(String id) {
+        int h = id.hashCode();
+        // spread the higher bits, as String hash codes of similar ids differ in the lower ones
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return shards[h & (shards.length - 1)];
+    }
+
+    private final class Shard {
+
+        /** The sessions of this shard, in least recently used first order */
+        final Map<String, SessionInformation> sessions =
+                new LinkedHashMap<String, SessionInformation>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SessionInformation> eldest) {
+                int max = maxSessionsPerShard;
+                return max > 0 && size() > max;
+            }
+        };
+
+        /**
+         * The sessions of this shard by expiry time. Sessions replaced, removed or evicted are
+         * not taken out of it, but skipped once they come up
+         */
+        final PriorityQueue<SessionInformation> expiryQueue =
+                new PriorityQueue<SessionInformation>(16, BY_EXPIRY_TIME);
+
+        int removeExpired(long now) {
+            int removed = 0;
+            SessionInformation information;
+            while ((information = expiryQueue.peek()) != null
+                    && information.getExpiryTime() < now) {
+                expiryQueue.poll();
+                String id = information.getId();
+                if (sessions.get(id) == information) {
+                    sessions.remove(id);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        /**
+         * Drops the stale entries from the expiry queue once they outnumber the live sessions,
+         * so that a long session timeout cannot let it grow without bound
+         */
+        void compact() {
+            if (expiryQueue.size() > 2 * sessions.size() + 64) {
+                expiryQueue.clear();
+                expiryQueue.addAll(sessions.values());
+            }
+        }
+    }
+}
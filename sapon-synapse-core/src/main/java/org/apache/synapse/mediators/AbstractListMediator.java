@@ -26,6 +26,8 @@ import org.apache.synapse.ManagedLifecycle;
 import org.apache.synapse.Mediator;
 import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.util.xpath.SynapseXPath;
+import org.apache.synapse.util.xpath.XPathResultCache;
 
 /**
  * This is the base class for all List mediators
@@ -41,19 +43,53 @@ public abstract class AbstractListMediator
 
     protected boolean inited = false;
 
+    /**
+     * Runs the child mediators in order. The XPath expressions of consecutive
+     * {@link XPathSourceMediator}s are evaluated together before the first of them runs, and
+     * those results are dropped after any other mediator, as it may change the envelope.
+     */
     public boolean mediate(SynapseMessageContext synCtx) {
     	if (log.isDebugEnabled()) {
     		log.debug("Sequence <" + getType() + "> :: mediate()");
     	}
 
-    	for (Mediator mediator : mediators) {
-    		if (!mediator.mediate(synCtx)) {
+    	int evaluatedUpTo = 0;
+    	for (int i = 0; i < mediators.size(); i++) {
+    		Mediator mediator = mediators.get(i);
+    		boolean source = mediator instanceof XPathSourceMediator;
+    		if (source && i >= evaluatedUpTo) {
+    			evaluatedUpTo = evaluateSources(synCtx, i);
+    		}
+    		boolean proceed = mediator.mediate(synCtx);
+    		if (!source) {
+    			XPathResultCache.invalidate(synCtx);
+    		}
+    		if (!proceed) {
     			return false;
     		}
     	}
         return true;
     }
 
+    /**
+     * Evaluates the expressions of the {@link XPathSourceMediator}s starting at the given
+     * position in a single pass.
+     *
+     * @return the position of the first mediator after them
+     */
+    private int evaluateSources(SynapseMessageContext synCtx, int from) {
+    	List<SynapseXPath> sources = new ArrayList<SynapseXPath>();
+    	int end = from;
+    	while (end < mediators.size() && mediators.get(end) instanceof XPathSourceMediator) {
+    		sources.addAll(((XPathSourceMediator) mediators.get(end)).getXPathSources());
+    		end++;
+    	}
+    	if (sources.size() > 1) {
+    		XPathResultCache.evaluate(synCtx, sources);
+    	}
+    	return end;
+    }
+
     public List<Mediator> getList() {
         return mediators;
     }
@@ -27,6 +27,7 @@ import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.aspects.statistics.StatisticsReporter;
+import org.apache.synapse.endpoints.ReplayableEnvelope;
 import org.apache.synapse.mediators.base.SequenceMediator;
 
 /**
@@ -76,6 +77,9 @@ public class MediatorFaultHandler extends FaultHandler {
 
         StatisticsReporter.reportFaultForAll(synCtx);
 
+        // the message will not be sent again; keep a built copy of a buffered envelope
+        ReplayableEnvelope.complete(synCtx);
+
         if (log.isDebugEnabled()) {
             log.debug("Executing fault handler mediator : " + name);
         }
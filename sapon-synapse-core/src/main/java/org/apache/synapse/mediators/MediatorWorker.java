@@ -19,6 +19,7 @@
 
 package org.apache.synapse.mediators;
 
+import org.apache.axis2.transport.base.threads.AdmissionControl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.FaultHandler;
@@ -29,9 +30,10 @@ import org.apache.synapse.SynapseMessageContext;
 
 /**
  * This class will be used as the executer for the injectAsync method for the
- * sequence mediation
+ * sequence mediation. When the environment sheds it for having waited too long
+ * to run, the message goes to its fault handler instead.
  */
-public class MediatorWorker implements Runnable {
+public class MediatorWorker implements AdmissionControl.Task {
 
     private static final Log log = LogFactory.getLog(MediatorWorker.class);
     private static final Log trace = LogFactory.getLog(SynapseConstants.TRACE_LOGGER);
@@ -102,6 +104,26 @@ public class MediatorWorker implements Runnable {
         seq = null;
     }
 
+    /**
+     * Called instead of {@link #run()} when the executor is overloaded and this
+     * worker waited too long for a thread. Hands the message to its fault handler.
+     */
+    public void reject() {
+        String msg = "Asynchronous mediation rejected : the Synapse executor is overloaded";
+        if (synCtx.getServiceLog() != null) {
+            synCtx.getServiceLog().warn(msg);
+        }
+        if (!synCtx.getFaultStack().isEmpty()) {
+            warn(false, "Executing fault handler due to overload", synCtx);
+            ((FaultHandler) synCtx.getFaultStack().pop()).handleFault(
+                synCtx, new SynapseException(msg));
+        } else {
+            warn(false, msg + " - message dropped", synCtx);
+        }
+        synCtx = null;
+        seq = null;
+    }
+
     private void warn(boolean traceOn, String msg, SynapseMessageContext msgContext) {
         if (traceOn) {
             trace.warn(msg);
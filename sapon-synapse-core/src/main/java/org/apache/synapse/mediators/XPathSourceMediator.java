@@ -0,0 +1,46 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators;
+
+import java.util.List;
+
+import org.apache.synapse.Mediator;
+import org.apache.synapse.util.xpath.SynapseXPath;
+
+/**
+ * A mediator that reads the message through XPath expressions, and does not change the
+ * envelope itself. The child sequences it runs may change it, as list mediators drop the
+ * {@link org.apache.synapse.util.xpath.XPathResultCache cached results} after running any
+ * other mediator.
+ * <p/>
+ * A list mediator evaluates the expressions of consecutive such mediators together, in a
+ * single pass over the message, before running the first of them.
+ *
+ * @see AbstractListMediator#mediate(org.apache.synapse.SynapseMessageContext)
+ */
+public interface XPathSourceMediator extends Mediator {
+
+    /**
+     * Returns the expressions this mediator evaluates against the message.
+     *
+     * @return the expressions, which may be empty
+     */
+    public List<SynapseXPath> getXPathSources();
+}
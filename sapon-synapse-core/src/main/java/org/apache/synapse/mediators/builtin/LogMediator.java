@@ -27,6 +27,8 @@ import org.apache.axiom.soap.SOAPHeaderBlock;
 import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.mediators.AbstractMediator;
 import org.apache.synapse.mediators.MediatorProperty;
+import org.apache.synapse.mediators.XPathSourceMediator;
+import org.apache.synapse.util.xpath.SynapseXPath;
 
 
 /**
@@ -36,7 +38,7 @@ import org.apache.synapse.mediators.MediatorProperty;
  * could be specified for logging. The custom properties are printed into the log
  * using the defined separator (\n, "," etc)
  */
-public class LogMediator extends AbstractMediator {
+public class LogMediator extends AbstractMediator implements XPathSourceMediator {
 
     /** Only properties specified to the Log mediator */
     public static final int CUSTOM  = 0;
@@ -161,6 +163,17 @@ public class LogMediator extends AbstractMediator {
         }
     }
 
+    public List<SynapseXPath> getXPathSources() {
+        List<SynapseXPath> sources = new ArrayList<SynapseXPath>();
+        for (MediatorProperty property : properties) {
+            if (property != null && property.getValue() == null
+                    && property.getExpression() != null) {
+                sources.add(property.getExpression());
+            }
+        }
+        return sources;
+    }
+
     public int getLogLevel() {
         return logLevel;
     }
@@ -19,7 +19,9 @@
 
 package org.apache.synapse.mediators.builtin;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -30,6 +32,7 @@ import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.config.xml.XMLConfigConstants;
 import org.apache.synapse.core.axis2.Axis2SynapseMessageContext;
 import org.apache.synapse.mediators.AbstractMediator;
+import org.apache.synapse.mediators.XPathSourceMediator;
 import org.apache.synapse.util.xpath.SynapseXPath;
 
 /**
@@ -40,7 +43,7 @@ import org.apache.synapse.util.xpath.SynapseXPath;
  * "synapse:get-property(scope,prop-name)"
  */
 
-public class PropertyMediator extends AbstractMediator {
+public class PropertyMediator extends AbstractMediator implements XPathSourceMediator {
 
     /** The Name of the property  */
     private String name = null;
@@ -171,6 +174,13 @@ public class PropertyMediator extends AbstractMediator {
         return true;
     }
 
+    public List<SynapseXPath> getXPathSources() {
+        if (action == ACTION_SET && value == null && valueElement == null && expression != null) {
+            return Collections.singletonList(expression);
+        }
+        return Collections.emptyList();
+    }
+
     public String getName() {
         return name;
     }
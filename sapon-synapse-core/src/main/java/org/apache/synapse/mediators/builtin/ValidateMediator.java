@@ -19,9 +19,13 @@
 
 package org.apache.synapse.mediators.builtin;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
@@ -31,6 +35,7 @@ import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 
 import org.apache.axiom.om.OMNode;
+import org.apache.commons.io.IOUtils;
 import org.apache.synapse.FaultHandler;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseMessageContext;
@@ -39,6 +44,8 @@ import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.mediators.AbstractListMediator;
 import org.apache.synapse.mediators.MediatorProperty;
 import org.apache.synapse.util.AXIOMUtils;
+import org.apache.synapse.util.jaxp.CompilationCache;
+import org.apache.synapse.util.jaxp.CompilationCache.PooledSchema;
 import org.apache.synapse.util.xpath.SourceXPathSupport;
 import org.apache.synapse.util.xpath.SynapseXPath;
 import org.xml.sax.SAXException;
@@ -49,9 +56,8 @@ import org.xml.sax.helpers.DefaultHandler;
  * Validate a message or an element against a schema
  * <p/>
  * This internally uses the Xerces2-j parser, which cautions a lot about thread-safety and
- * memory leaks. Hence this initial implementation will create a single parser instance
- * for each unique mediator instance, and re-use it to validate multiple messages - even
- * concurrently - by synchronizing access
+ * memory leaks. Compiled schemas are shared between mediator instances through the
+ * {@link CompilationCache}, and each thread re-uses its own Validator instance.
  */
 public class ValidateMediator extends AbstractListMediator {
 
@@ -73,16 +79,22 @@ public class ValidateMediator extends AbstractListMediator {
     private final List<MediatorProperty> explicityFeatures = new ArrayList<MediatorProperty>();
 
     /**
-     * This is the actual schema instance used to create a new schema
-     * This is a thred-safe instance.
+     * This is the actual schema instance used to create validators, taken from the
+     * shared {@link CompilationCache}. This is a thread-safe instance.
      */
-    private Schema cachedSchema;
+    private volatile PooledSchema cachedSchema;
 
     /**
-     * Lock used to ensure thread-safe creation and use of the above Validator
+     * Lock used to ensure that only one thread creates the first schema
      */
     private final Object validatorLock = new Object();
 
+    /**
+     * Set while a thread recompiles expired schemas; the other threads keep
+     * validating against the previous version in the meantime.
+     */
+    private final AtomicBoolean recompiling = new AtomicBoolean();
+
     /**
      * The SchemaFactory used to create new schema instances.
      */
@@ -116,38 +128,26 @@ public class ValidateMediator extends AbstractListMediator {
         MyErrorHandler errorHandler = new MyErrorHandler();
 
         // do not re-initialize schema unless required
-        synchronized (validatorLock) {
-            if (reCreate || cachedSchema == null) {
-
-                factory.setErrorHandler(errorHandler);
-                StreamSource[] sources = new StreamSource[schemaKeys.size()];
-                int i = 0;
-                for (String propName : schemaKeys) {
-                    sources[i++] = SynapseConfigUtils.getStreamSource(synCtx.getEntry(propName));
-                }
-
-                try {
-                    cachedSchema = factory.newSchema(sources);
-                } catch (SAXException e) {
-                    handleException("Error creating a new schema objects for " +
-                        "schemas : " + schemaKeys.toString(), e, synCtx);
-                }
-
-                if (errorHandler.isValidationError()) {
-                    //reset the errorhandler state
-                    errorHandler.setValidationError(false);
-
-                    if (log.isDebugEnabled()) {
-                        log.debug("Error creating a new schema objects for " +
-                            "schemas : " + schemaKeys.toString());
-                    }
+        if (cachedSchema == null) {
+            synchronized (validatorLock) {
+                if (cachedSchema == null) {
+                    createSchema(synCtx);
                 }
             }
+        } else if (reCreate && recompiling.compareAndSet(false, true)) {
+            // only one thread recompiles, the others go on with the current schema
+            try {
+                createSchema(synCtx);
+            } finally {
+                recompiling.set(false);
+            }
         }
 
-        // no need to synchronize, schema instances are thread-safe
+        // no need to synchronize, schema instances are thread-safe and
+        // validators are not shared between threads
+        PooledSchema schema = cachedSchema;
+        Validator validator = schema.acquire();
         try {
-            Validator validator = cachedSchema.newValidator();
             validator.setErrorHandler(errorHandler);
 
             // perform actual validation
@@ -185,6 +185,8 @@ public class ValidateMediator extends AbstractListMediator {
             handleException("Error validating " + source + " element", e, synCtx);
         } catch (IOException e) {
             handleException("Error validating " + source + " element", e, synCtx);
+        } finally {
+            schema.release(validator);
         }
 
         log.debug("Validation of element returned by the XPath expression : "
@@ -194,6 +196,63 @@ public class ValidateMediator extends AbstractListMediator {
         return true;
     }
 
+    /**
+     * Get the schema from the shared cache, compiling it if this set of schemas
+     * has not been seen before, and assign it to the cachedSchema variable
+     *
+     * @param synCtx the current message
+     */
+    private void createSchema(SynapseMessageContext synCtx) {
+        try {
+            final List<byte[]> schemas = new ArrayList<byte[]>(schemaKeys.size());
+            CompilationCache.KeyBuilder key = new CompilationCache.KeyBuilder();
+            for (MediatorProperty mp : explicityFeatures) {
+                key.add(mp.getName()).add(mp.getValue());
+            }
+            for (String propName : schemaKeys) {
+                InputStream in = SynapseConfigUtils.getInputStream(synCtx.getEntry(propName));
+                try {
+                    byte[] bytes = IOUtils.toByteArray(in);
+                    schemas.add(bytes);
+                    key.add(bytes);
+                } finally {
+                    in.close();
+                }
+            }
+
+            cachedSchema = CompilationCache.SCHEMAS.get(key.build(),
+                    new Callable<PooledSchema>() {
+                public PooledSchema call() throws Exception {
+                    return compileSchema(schemas);
+                }
+            });
+        } catch (Exception e) {
+            handleException("Error creating a new schema objects for " +
+                "schemas : " + schemaKeys.toString(), e, synCtx);
+        }
+    }
+
+    private PooledSchema compileSchema(List<byte[]> schemas) throws SAXException {
+        StreamSource[] sources = new StreamSource[schemas.size()];
+        int i = 0;
+        for (byte[] bytes : schemas) {
+            sources[i++] = new StreamSource(new ByteArrayInputStream(bytes));
+        }
+
+        MyErrorHandler errorHandler = new MyErrorHandler();
+        Schema schema;
+        synchronized (factory) {
+            factory.setErrorHandler(errorHandler);
+            schema = factory.newSchema(sources);
+        }
+
+        if (errorHandler.isValidationError() && log.isDebugEnabled()) {
+            log.debug("Error creating a new schema objects for " +
+                "schemas : " + schemaKeys.toString());
+        }
+        return new PooledSchema(schema);
+    }
+
     /**
      * Get the validation Source for the message context
      *
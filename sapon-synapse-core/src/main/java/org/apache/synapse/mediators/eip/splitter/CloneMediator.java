@@ -35,6 +35,7 @@ import org.apache.synapse.mediators.AbstractMediator;
 import org.apache.synapse.mediators.eip.EIPConstants;
 import org.apache.synapse.mediators.eip.Target;
 import org.apache.synapse.util.MessageHelper;
+import org.apache.synapse.util.SharedEnvelope;
 
 /**
  * This mediator will clone the message into multiple messages and mediate as specified in the
@@ -74,6 +75,13 @@ public class CloneMediator extends AbstractMediator
             }
         }
 
+        // the clones are built on demand from a single snapshot of the envelope rather than
+        // each getting a deep copy of it
+        SharedEnvelope sharedEnvelope = null;
+        if (targets.size() > 1 && MessageHelper.isEnvelopeShareable(synCtx)) {
+            sharedEnvelope = new SharedEnvelope(synCtx.getEnvelope());
+        }
+
         // get the targets list, clone the message for the number of targets and then
         // mediate the cloned messages using the targets
         Iterator<Target> iter = targets.iterator();
@@ -84,7 +92,8 @@ public class CloneMediator extends AbstractMediator
                     " messages for processing in parallel");
             }
 
-            iter.next().mediate(getClonedMessageContext(synCtx, i++, targets.size()));
+            iter.next().mediate(
+                getClonedMessageContext(synCtx, sharedEnvelope, i++, targets.size()));
         }
 
         // if the continuation of the parent message is stopped from here set the RESPONSE_WRITTEN
@@ -108,16 +117,18 @@ public class CloneMediator extends AbstractMediator
      * message context of a total of messageCount messages
      *
      * @param synCtx          - MessageContext which is subjected to the cloning
+     * @param sharedEnvelope  - the snapshot of the envelope to copy, or null for a deep copy
      * @param messageSequence - the position of this message of the cloned set
      * @param messageCount    - total of cloned copies
      * @return MessageContext the cloned message context
      */
-    private SynapseMessageContext getClonedMessageContext(SynapseMessageContext synCtx, int messageSequence,
-        int messageCount) {
+    private SynapseMessageContext getClonedMessageContext(SynapseMessageContext synCtx,
+        SharedEnvelope sharedEnvelope, int messageSequence, int messageCount) {
 
         SynapseMessageContext newCtx = null;
         try {
-            newCtx = MessageHelper.cloneMessageContext(synCtx);
+            newCtx = MessageHelper.cloneMessageContext(synCtx,
+                sharedEnvelope != null ? sharedEnvelope.newEnvelope() : null);
 
             // set the property MESSAGE_SEQUENCE to the MC for aggregation purposes
             newCtx.setProperty(EIPConstants.MESSAGE_SEQUENCE,
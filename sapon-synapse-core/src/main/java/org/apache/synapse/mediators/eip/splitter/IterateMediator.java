@@ -37,6 +37,7 @@ import org.apache.synapse.mediators.eip.EIPConstants;
 import org.apache.synapse.mediators.eip.EIPUtils;
 import org.apache.synapse.mediators.eip.Target;
 import org.apache.synapse.util.MessageHelper;
+import org.apache.synapse.util.SharedEnvelope;
 import org.apache.synapse.util.xpath.SynapseXPath;
 import org.jaxen.JaxenException;
 
@@ -112,6 +113,13 @@ public class IterateMediator extends AbstractMediator implements ManagedLifecycl
             int msgCount = splitElements.size();
             int msgNumber = 0;
 
+            // the iterated messages are built on demand from a single snapshot of what is
+            // left of the envelope rather than each getting a deep copy of it
+            SharedEnvelope sharedEnvelope = null;
+            if (msgCount > 1 && MessageHelper.isEnvelopeShareable(synCtx)) {
+                sharedEnvelope = new SharedEnvelope(envelope);
+            }
+
             // iterate through the list
             for (Object o : splitElements) {
 
@@ -127,7 +135,8 @@ public class IterateMediator extends AbstractMediator implements ManagedLifecycl
                 }
 
                 target.mediate(
-                    getIteratedMessage(synCtx, msgNumber++, msgCount, envelope, (OMNode) o));
+                    getIteratedMessage(synCtx, msgNumber++, msgCount, envelope, sharedEnvelope,
+                        (OMNode) o));
             }
 
         } catch (JaxenException e) {
@@ -158,25 +167,29 @@ public class IterateMediator extends AbstractMediator implements ManagedLifecycl
      * @param msgNumber - message number in the iteration
      * @param msgCount  - total number of messages in the split
      * @param envelope  - envelope to be used in the iteration
+     * @param sharedEnvelope - snapshot of the envelope to copy, or null for a deep copy
      * @param o         - element which participates in the iteration replacement
      * @return newCtx created by the iteration
      * @throws AxisFault if there is a message creation failure
      * @throws JaxenException if the expression evauation failure
      */
     private SynapseMessageContext getIteratedMessage(SynapseMessageContext synCtx, int msgNumber, int msgCount,
-        SOAPEnvelope envelope, OMNode o) throws AxisFault, JaxenException {
+        SOAPEnvelope envelope, SharedEnvelope sharedEnvelope, OMNode o)
+        throws AxisFault, JaxenException {
+
+        // get a copy of the envelope to be attached
+        SOAPEnvelope newEnvelope = sharedEnvelope != null ?
+            sharedEnvelope.newEnvelope() : MessageHelper.cloneSOAPEnvelope(envelope);
 
-        // clone the message for the mediation in iteration
-        SynapseMessageContext newCtx = MessageHelper.cloneMessageContext(synCtx);
+        // clone the message for the mediation in iteration, with the new envelope in place of
+        // a copy of the original one
+        SynapseMessageContext newCtx = MessageHelper.cloneMessageContext(synCtx, newEnvelope);
 
         // set the messageSequence property for possibal aggreagtions
         newCtx.setProperty(
             EIPConstants.MESSAGE_SEQUENCE,
             msgNumber + EIPConstants.MESSAGE_SEQUENCE_DELEMITER + msgCount);
 
-        // get a clone of the envelope to be attached
-        SOAPEnvelope newEnvelope = MessageHelper.cloneSOAPEnvelope(envelope);
-
         // if payload should be preserved then attach the iteration element to the
         // node specified by the attachPath
         if (preservePayload) {
@@ -189,6 +202,9 @@ public class IterateMediator extends AbstractMediator implements ManagedLifecycl
 
             // for the moment attaching element should be an OMElement
             if (attachElem != null && attachElem instanceof OMElement) {
+                // a copy taken from the shared envelope is built on demand, so the element
+                // must be complete before a child can be appended to it
+                ((OMElement) attachElem).build();
                 ((OMElement) attachElem).addChild(o);
             } else {
                 handleException("Error in attaching the splitted elements :: " +
@@ -198,12 +214,10 @@ public class IterateMediator extends AbstractMediator implements ManagedLifecycl
 
         } else if (newEnvelope.getBody() != null) {
             // if not preserve payload then attach the iteration element to the body
+            newEnvelope.getBody().build();
             newEnvelope.getBody().addChild(o);
         }
 
-        // set the envelope and mediate as specified in the target
-        newCtx.setEnvelope(newEnvelope);
-
         return newCtx;
     }
 
@@ -0,0 +1,179 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.filters;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.synapse.config.xml.SwitchCase;
+
+/**
+ * Selects the first of a list of switch case patterns that matches a value, without trying the
+ * patterns one after the other. Patterns without any meta character are looked up in a hash
+ * map, and the others are combined into a single alternation, where each case is a capturing
+ * group, so that one match finds the first matching case. Patterns that can not be combined
+ * (flags, back references, named groups or inline modifiers, which would leak into the
+ * following cases) are still matched on their own.
+ */
+final class SwitchCaseMatcher {
+
+    private final Pattern[] patterns;
+    /** First case index of each literal pattern */
+    private final Map<String, Integer> literals = new HashMap<String, Integer>();
+    /** The alternation of the other patterns, or null if there are none */
+    private final Pattern combined;
+    /** Case index of each capturing group of the combined pattern, or -1 */
+    private final int[] caseOfGroup;
+    /** Indexes of the cases that have to be matched on their own */
+    private final int[] separate;
+
+    SwitchCaseMatcher(List<Pattern> patterns) {
+        this.patterns = patterns.toArray(new Pattern[patterns.size()]);
+
+        StringBuilder alternation = new StringBuilder();
+        List<Integer> groups = new ArrayList<Integer>();
+        groups.add(-1);
+        List<Integer> others = new ArrayList<Integer>();
+
+        for (int i = 0; i < this.patterns.length; i++) {
+            Pattern pattern = this.patterns[i];
+            if (pattern == null) {
+                continue;
+            }
+            String regex = pattern.pattern();
+            if (pattern.flags() == 0 && isLiteral(regex)) {
+                if (!literals.containsKey(regex)) {
+                    literals.put(regex, i);
+                }
+            } else if (pattern.flags() == 0 && isCombinable(regex)) {
+                if (alternation.length() > 0) {
+                    alternation.append('|');
+                }
+                alternation.append('(').append(regex).append(')');
+                groups.add(i);
+                for (int g = pattern.matcher("").groupCount(); g > 0; g--) {
+                    groups.add(-1);
+                }
+            } else {
+                others.add(i);
+            }
+        }
+
+        combined = alternation.length() == 0 ? null : Pattern.compile(alternation.toString());
+        caseOfGroup = new int[groups.size()];
+        for (int g = 0; g < caseOfGroup.length; g++) {
+            caseOfGroup[g] = groups.get(g);
+        }
+        separate = new int[others.size()];
+        for (int i = 0; i < separate.length; i++) {
+            separate[i] = others.get(i);
+        }
+    }
+
+    /**
+     * Returns the index of the first pattern that matches the whole value.
+     *
+     * @param value the value to match
+     * @return the index of the matching case, or -1 if no case matches
+     */
+    int match(CharSequence value) {
+        int best = Integer.MAX_VALUE;
+
+        Integer literal = literals.get(value.toString());
+        if (literal != null) {
+            best = literal;
+        }
+
+        if (combined != null) {
+            Matcher matcher = combined.matcher(value);
+            if (matcher.matches()) {
+                for (int g = 1; g < caseOfGroup.length; g++) {
+                    if (caseOfGroup[g] >= 0 && matcher.start(g) >= 0) {
+                        best = Math.min(best, caseOfGroup[g]);
+                        break;
+                    }
+                }
+            }
+        }
+
+        for (int i : separate) {
+            if (i >= best) {
+                break;
+            }
+            if (patterns[i].matcher(value).matches()) {
+                best = i;
+                break;
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Checks whether this matcher was built for the current patterns of the given cases, so
+     * that the owner can rebuild it when the cases are changed.
+     */
+    boolean isFor(List<SwitchCase> cases) {
+        if (cases.size() != patterns.length) {
+            return false;
+        }
+        for (int i = 0; i < patterns.length; i++) {
+            SwitchCase swCase = cases.get(i);
+            if ((swCase == null ? null : swCase.getRegex()) != patterns[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLiteral(String regex) {
+        for (int i = 0; i < regex.length(); i++) {
+            if ("\\^$.|?*+()[]{}".indexOf(regex.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCombinable(String regex) {
+        for (int i = 0; i < regex.length() - 1; i++) {
+            char c = regex.charAt(i);
+            char next = regex.charAt(i + 1);
+            if (c == '\\') {
+                // Numbered or named back references would point at the wrong group
+                if (Character.isDigit(next) || next == 'k') {
+                    return false;
+                }
+                i++;
+            } else if (c == '(' && next == '?') {
+                String construct = regex.substring(i + 2);
+                if (!(construct.startsWith(":") || construct.startsWith("=")
+                        || construct.startsWith("!") || construct.startsWith("<=")
+                        || construct.startsWith("<!") || construct.startsWith(">"))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
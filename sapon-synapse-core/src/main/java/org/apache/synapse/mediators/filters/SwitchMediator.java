@@ -20,13 +20,16 @@
 package org.apache.synapse.mediators.filters;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.apache.synapse.ManagedLifecycle;
 import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.config.xml.SwitchCase;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.mediators.AbstractMediator;
+import org.apache.synapse.mediators.XPathSourceMediator;
 import org.apache.synapse.util.xpath.SynapseXPath;
 
 /**
@@ -35,7 +38,8 @@ import org.apache.synapse.util.xpath.SynapseXPath;
  * the given list of cases. This is actually a list of sequences, and depending on the
  * selected case, the selected sequence gets executed.
  */
-public class SwitchMediator extends AbstractMediator implements ManagedLifecycle {
+public class SwitchMediator extends AbstractMediator
+    implements ManagedLifecycle, XPathSourceMediator {
 
     /** The XPath expression specifying the source element to apply the switch case expressions against   */
     private SynapseXPath source = null;
@@ -44,6 +48,9 @@ public class SwitchMediator extends AbstractMediator implements ManagedLifecycle
     /** The default switch case, if any */
     private SwitchCase defaultCase = null;
 
+    /** All the case patterns compiled together, rebuilt when the cases change */
+    private volatile SwitchCaseMatcher caseMatcher = null;
+
     private boolean initialized = false;
 
     public void init(SynapseEnvironment se) {
@@ -97,16 +104,14 @@ public class SwitchMediator extends AbstractMediator implements ManagedLifecycle
 
             return defaultCase.mediate(synCtx);
 
-        } else {
-            for (SwitchCase swCase : cases) {
-                if (swCase != null) {
-                    if (swCase.matches(sourceText)) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Matching case found : " + swCase.getRegex());
-                        }
-                        return swCase.mediate(synCtx);
-                    }
+        } else if (sourceText != null) {
+            int index = getCaseMatcher().match(sourceText);
+            if (index >= 0) {
+                SwitchCase swCase = cases.get(index);
+                if (log.isDebugEnabled()) {
+                    log.debug("Matching case found : " + swCase.getRegex());
                 }
+                return swCase.mediate(synCtx);
             }
 
             if (defaultCase != null) {
@@ -116,12 +121,32 @@ public class SwitchMediator extends AbstractMediator implements ManagedLifecycle
             } else {
                 log.debug("None of the switch cases matched - no default case");
             }
+        } else {
+            log.warn("Source XPath evaluated to 'null'. Switch cases will not be executed.");
         }
 
         log.debug("End : Switch mediator");
         return true;
     }
 
+    private SwitchCaseMatcher getCaseMatcher() {
+        SwitchCaseMatcher matcher = caseMatcher;
+        if (matcher == null || !matcher.isFor(cases)) {
+            List<Pattern> patterns = new ArrayList<Pattern>(cases.size());
+            for (SwitchCase swCase : cases) {
+                patterns.add(swCase == null ? null : swCase.getRegex());
+            }
+            matcher = new SwitchCaseMatcher(patterns);
+            caseMatcher = matcher;
+        }
+        return matcher;
+    }
+
+    public List<SynapseXPath> getXPathSources() {
+        return source == null
+            ? Collections.<SynapseXPath>emptyList() : Collections.singletonList(source);
+    }
+
     /**
      * Adds the given mediator (Should be a SwitchCaseMediator) to the list of cases
      * of this Switch mediator
@@ -19,6 +19,8 @@
 
 package org.apache.synapse.mediators.filters;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,6 +30,7 @@ import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.mediators.AbstractListMediator;
 import org.apache.synapse.mediators.FilterMediator;
 import org.apache.synapse.mediators.ListMediator;
+import org.apache.synapse.mediators.XPathSourceMediator;
 import org.apache.synapse.util.xpath.SynapseXPath;
 import org.jaxen.JaxenException;
 
@@ -36,7 +39,7 @@ import org.jaxen.JaxenException;
  * is set, it is evaluated; else the given regex is evaluated against the source xpath.
  */
 public class XPathOrRegexFilterMediator extends AbstractListMediator
-	implements FilterMediator
+	implements FilterMediator, XPathSourceMediator
 {
     private SynapseXPath source = null;
     private Pattern regex = null;
@@ -201,6 +204,14 @@ public class XPathOrRegexFilterMediator extends AbstractListMediator
         return false; // never executes
     }
 
+    public List<SynapseXPath> getXPathSources() {
+        if (xpath != null) {
+            return Collections.singletonList(xpath);
+        } else if (source != null && regex != null) {
+            return Collections.singletonList(source);
+        }
+        return Collections.emptyList();
+    }
 
     public SynapseXPath getSource() {
         return source;
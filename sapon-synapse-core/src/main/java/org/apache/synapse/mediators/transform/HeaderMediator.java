@@ -23,7 +23,6 @@ import java.util.List;
 
 import javax.xml.namespace.QName;
 
-import org.apache.axiom.om.OMElement;
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axiom.soap.SOAPHeader;
@@ -34,6 +33,7 @@ import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.mediators.AbstractMediator;
 import org.apache.synapse.util.xpath.SynapseXPath;
+import org.apache.synapse.util.xpath.XPathResultCache;
 
 /**
  * The header mediator is able to set a given value as a SOAP header, or remove a given
@@ -131,8 +131,7 @@ public class HeaderMediator extends AbstractMediator {
                     if (envelope != null) {
                         SOAPHeader header = envelope.getHeader();
                         if (header != null) {
-                            removeFromHeaderList(header.
-                                getHeaderBlocksWithNSURI(""));
+                            removeFromHeaderList(header.getHeaderBlocks(qName));
                         }
                     }
                 }
@@ -142,13 +141,14 @@ public class HeaderMediator extends AbstractMediator {
                 if (envelope != null) {
                     SOAPHeader header = envelope.getHeader();
                     if (header != null) {
-                        removeFromHeaderList(header.
-                            getHeaderBlocksWithNSURI(qName.getNamespaceURI()));
+                        removeFromHeaderList(header.getHeaderBlocks(qName));
                     }
                 }
             }
         }
 
+        XPathResultCache.invalidate(synCtx);
+
         log.debug("End : Header mediator");
         return true;
     }
@@ -168,22 +168,9 @@ public class HeaderMediator extends AbstractMediator {
         hb.setText(value);
     }
 
-    private void removeFromHeaderList(List headersList) {
-        if (headersList == null || headersList.isEmpty()) {
-            return;
-        }
-        for (Object o : headersList) {
-            if (o instanceof SOAPHeaderBlock) {
-                SOAPHeaderBlock header = (SOAPHeaderBlock) o;
-                if (header.getLocalName().equals(qName.getLocalPart())) {
-                    header.detach();
-                }
-            } else if (o instanceof OMElement) {
-                OMElement omElem = (OMElement) o;
-                if (omElem.getLocalName().equals(qName.getLocalPart())) {
-                    omElem.detach();
-                }
-            }
+    private void removeFromHeaderList(List<SOAPHeaderBlock> headersList) {
+        for (SOAPHeaderBlock header : headersList) {
+            header.detach();
         }
     }
 
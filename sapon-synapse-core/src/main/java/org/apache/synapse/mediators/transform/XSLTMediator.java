@@ -19,9 +19,15 @@
 
 package org.apache.synapse.mediators.transform;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.xml.transform.ErrorListener;
 import javax.xml.transform.OutputKeys;
@@ -30,11 +36,13 @@ import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
 
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMNode;
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axis2.AxisFault;
+import org.apache.commons.io.IOUtils;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.config.Entry;
@@ -42,18 +50,23 @@ import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.mediators.AbstractMediator;
 import org.apache.synapse.mediators.MediatorProperty;
+import org.apache.synapse.util.jaxp.CompilationCache;
+import org.apache.synapse.util.jaxp.CompilationCache.PooledTemplates;
 import org.apache.synapse.util.jaxp.DOOMResultBuilderFactory;
 import org.apache.synapse.util.jaxp.DOOMSourceBuilderFactory;
 import org.apache.synapse.util.jaxp.ResultBuilder;
 import org.apache.synapse.util.jaxp.ResultBuilderFactory;
 import org.apache.synapse.util.jaxp.SourceBuilder;
 import org.apache.synapse.util.jaxp.SourceBuilderFactory;
+import org.apache.synapse.util.jaxp.StAXResultBuilderFactory;
+import org.apache.synapse.util.jaxp.StAXSourceBuilderFactory;
 import org.apache.synapse.util.jaxp.StreamResultBuilderFactory;
 import org.apache.synapse.util.jaxp.StreamSourceBuilderFactory;
 import org.apache.synapse.util.resolver.CustomJAXPURIResolver;
 import org.apache.synapse.util.resolver.ResourceMap;
 import org.apache.synapse.util.xpath.SourceXPathSupport;
 import org.apache.synapse.util.xpath.SynapseXPath;
+import org.apache.synapse.util.xpath.XPathResultCache;
 
 /**
  * The XSLT mediator performs an XSLT transformation requested, using
@@ -66,7 +79,10 @@ import org.apache.synapse.util.xpath.SynapseXPath;
  * except for "http://ws.apache.org/ns/synapse/transform/feature/dom" for the
  * Transformer Factory, which is used to decide between using DOM and Streams
  * during the transformation process. By default this is turned on as an
- * optimization, but should be set to false if issues are detected
+ * optimization, but should be set to false if issues are detected.
+ * Likewise "http://ws.apache.org/ns/synapse/transform/feature/stax" feeds the
+ * transformer from the AXIOM pull parser and returns the result as an element
+ * that is only parsed when accessed.
  *
  *  Note: Set the TransformerFactory system property to generate and use
  *  translets
@@ -105,6 +121,12 @@ public class XSLTMediator extends AbstractMediator {
     public static final String USE_DOM_SOURCE_AND_RESULTS =
         "http://ws.apache.org/ns/synapse/transform/feature/dom";
 
+    /**
+     * The feature that switches the transformation to StAX sources and results
+     */
+    public static final String USE_STAX_SOURCE_AND_RESULTS =
+        "http://ws.apache.org/ns/synapse/transform/feature/stax";
+
     /**
      * The attribute that allows specifying the {@link SourceBuilderFactory}.
      */
@@ -154,11 +176,18 @@ public class XSLTMediator extends AbstractMediator {
     private ResourceMap resourceMap;
 
     /**
-     * The Template instance used to create a Transformer object. This is  thread-safe
+     * The compiled stylesheet used to create Transformer objects. It comes from the
+     * shared {@link CompilationCache} and is replaced when the stylesheet changes.
      *
      * @see javax.xml.transform.Templates
      */
-    private Templates cachedTemplates = null;
+    private volatile PooledTemplates cachedTemplates = null;
+
+    /**
+     * Set while a thread recompiles an expired stylesheet; the other threads
+     * keep using the previous version in the meantime.
+     */
+    private final AtomicBoolean recompiling = new AtomicBoolean();
 
     /**
      * The TransformerFactory instance which use to create Templates...This is not thread-safe.
@@ -167,7 +196,7 @@ public class XSLTMediator extends AbstractMediator {
     private final TransformerFactory transFact = TransformerFactory.newInstance();
 
     /**
-     * Lock used to ensure thread-safe creation and use of the above Transformer
+     * Lock used to ensure that only one thread creates the first Templates
      */
     private final Object transformerLock = new Object();
 
@@ -200,6 +229,9 @@ public class XSLTMediator extends AbstractMediator {
         } catch (Exception e) {
             handleException("Unable to perform XSLT transformation using : " + xsltKey +
                 " against source XPath : " + source, e, synCtx);
+        } finally {
+            // The result replaces the source in place
+            XPathResultCache.invalidate(synCtx);
         }
 
         log.debug("End : XSLT mediator");
@@ -227,18 +259,29 @@ public class XSLTMediator extends AbstractMediator {
 
         // determine if it is needed to create or create the template
         if (isCreationOrRecreationRequired(synCtx)) {
-            // many threads can see this and come here for acquiring the lock
-            synchronized (transformerLock) {
-                // only first thread should create the template
-                if (isCreationOrRecreationRequired(synCtx)) {
+            if (cachedTemplates == null) {
+                // many threads can see this and come here for acquiring the lock
+                synchronized (transformerLock) {
+                    // only first thread should create the template
+                    if (cachedTemplates == null) {
+                        createTemplate(synCtx);
+                    }
+                }
+            } else if (recompiling.compareAndSet(false, true)) {
+                // only one thread recompiles, the others go on with the current template
+                try {
                     createTemplate(synCtx);
+                } finally {
+                    recompiling.set(false);
                 }
             }
         }
 
+        PooledTemplates templates = cachedTemplates;
+        Transformer transformer = null;
         try {
             // perform transformation
-            Transformer transformer = cachedTemplates.newTransformer();
+            transformer = templates.acquire();
             if (!properties.isEmpty()) {
                 // set the parameters which will pass to the Transformation
                 applyProperties(transformer, synCtx);
@@ -329,31 +372,78 @@ public class XSLTMediator extends AbstractMediator {
 
         } catch (TransformerException e) {
             handleException("Error performing XSLT transformation using : " + xsltKey, e, synCtx);
+        } finally {
+            if (transformer != null) {
+                templates.release(transformer);
+            }
         }
     }
 
     /**
-     * Create a XSLT template object and assing it to the cachedTemplates variable
+     * Get the XSLT template object from the shared cache, compiling it if the
+     * stylesheet has not been seen before, and assign it to the cachedTemplates variable
      * @param synCtx current message
-     * @param synLog logger to use
      */
-    private void createTemplate(SynapseMessageContext synCtx) {
-        // Set an error listener (SYNAPSE-307).
-        transFact.setErrorListener(new ErrorListenerImpl("stylesheet parsing"));
-        // Allow xsl:import and xsl:include resolution
-        transFact.setURIResolver(new CustomJAXPURIResolver(resourceMap,
-                synCtx.getConfiguration()));
+    private void createTemplate(final SynapseMessageContext synCtx) {
         try {
-            cachedTemplates = transFact.newTemplates(
-                    SynapseConfigUtils.getStreamSource(synCtx.getEntry(xsltKey)));
-            if (cachedTemplates == null) {
-                handleException("Error compiling the XSLT with key : " + xsltKey, synCtx);
+            final byte[] xslt = getBytes(synCtx.getEntry(xsltKey));
+
+            // the key covers everything that influences the compiled stylesheet
+            CompilationCache.KeyBuilder key = new CompilationCache.KeyBuilder();
+            key.add(transFact.getClass().getName()).add(xslt);
+            for (MediatorProperty mp : transformerFactoryFeatures) {
+                key.add(mp.getName()).add(mp.getValue());
+            }
+            for (MediatorProperty mp : transformerFactoryAttributes) {
+                key.add(mp.getName()).add(mp.getValue());
+            }
+            if (resourceMap != null) {
+                for (Map.Entry<String, String> resource : resourceMap.getResources().entrySet()) {
+                    key.add(resource.getKey()).add(getBytes(synCtx.getEntry(resource.getValue())));
+                }
             }
+
+            cachedTemplates = CompilationCache.TEMPLATES.get(key.build(),
+                    new Callable<PooledTemplates>() {
+                public PooledTemplates call() throws Exception {
+                    return compileTemplate(synCtx, xslt);
+                }
+            });
         } catch (Exception e) {
             handleException("Error creating XSLT transformer using : " + xsltKey, e, synCtx);
         }
     }
 
+    private PooledTemplates compileTemplate(SynapseMessageContext synCtx, byte[] xslt)
+            throws TransformerConfigurationException {
+        if (log.isDebugEnabled()) {
+            log.debug("Compiling the XSLT with key : " + xsltKey);
+        }
+        Templates templates;
+        synchronized (transFact) {
+            // Set an error listener (SYNAPSE-307).
+            transFact.setErrorListener(new ErrorListenerImpl("stylesheet parsing"));
+            // Allow xsl:import and xsl:include resolution
+            transFact.setURIResolver(new CustomJAXPURIResolver(resourceMap,
+                    synCtx.getConfiguration()));
+            templates = transFact.newTemplates(
+                    new StreamSource(new ByteArrayInputStream(xslt)));
+        }
+        if (templates == null) {
+            handleException("Error compiling the XSLT with key : " + xsltKey, synCtx);
+        }
+        return new PooledTemplates(templates);
+    }
+
+    private static byte[] getBytes(Object entry) throws IOException {
+        InputStream in = SynapseConfigUtils.getInputStream(entry);
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            in.close();
+        }
+    }
+
     /**
      * Utility method to determine weather it is needed to create a XSLT template
      * @param synCtx current message
@@ -451,6 +541,11 @@ public class XSLTMediator extends AbstractMediator {
                 sourceBuilderFactory = new DOOMSourceBuilderFactory();
                 resultBuilderFactory = new DOOMResultBuilderFactory();
             }
+        } else if (USE_STAX_SOURCE_AND_RESULTS.equals(featureName)) {
+            if (isFeatureEnable) {
+                sourceBuilderFactory = new StAXSourceBuilderFactory();
+                resultBuilderFactory = new StAXResultBuilderFactory();
+            }
         } else {
             try {
                 transFact.setFeature(featureName, isFeatureEnable);
@@ -18,20 +18,32 @@
  */
 
 package org.apache.synapse.metrics;
+
+import org.apache.axis2.transport.base.StripedCounter;
+
 /*
  * This is the basic unit to get Global, Proxy Service or
- * Proxy Opertaion Level hit count. 
+ * Proxy Opertaion Level hit count. It is striped, so that
+ * request threads do not contend on it.
  */
 
 public class Counter {
 
-    private long count = 0;
+    private final StripedCounter count;
+
+    public Counter() {
+        this(new StripedCounter());
+    }
+
+    public Counter(StripedCounter count) {
+        this.count = count;
+    }
 
-    public synchronized void increment(){
-        count++;
+    public void increment(){
+        count.increment();
     }
 
     public long getCount() {
-        return count;
+        return count.get();
     }
 }
@@ -26,6 +26,7 @@ import org.apache.axis2.description.Parameter;
 import org.apache.axis2.description.hierarchy.AxisDescription;
 import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.axis2.modules.Module;
+import org.apache.axis2.transport.base.MetricsRegistry;
 import org.apache.neethi.Assertion;
 import org.apache.neethi.Policy;
 
@@ -34,7 +35,8 @@ public class MetricsAggregatorModule implements Module {
     public void init(ConfigurationContext configContext, AxisModule module) throws AxisFault {
         AxisConfiguration axiConfiguration = configContext.getAxisConfiguration();
 
-        Counter globalRequestCounter = new Counter();
+        Counter globalRequestCounter = new Counter(MetricsRegistry.getInstance().getCounter(
+                "synapse_requests", "Requests received"));
         Parameter globalRequestCounterParameter
         	= new Parameter(MetricsConstants.GLOBAL_REQUEST_COUNTER,
         					globalRequestCounter);
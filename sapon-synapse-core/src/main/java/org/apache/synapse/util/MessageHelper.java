@@ -39,6 +39,7 @@ import org.apache.synapse.SynapseException;
 import org.apache.synapse.SynapseMessageContext;
 import org.apache.synapse.core.axis2.Axis2SynapseMessageContext;
 import org.apache.synapse.mediators.eip.EIPConstants;
+import org.apache.synapse.util.xpath.XPathResultCache;
 
 /**
  *
@@ -63,6 +64,24 @@ public class MessageHelper {
      * @see MessageHelper#cloneAxis2MessageContext
      */
     public static SynapseMessageContext cloneMessageContext(SynapseMessageContext synCtx) throws AxisFault {
+        return cloneMessageContext(synCtx, null);
+    }
+
+    /**
+     * Clones the message context as {@link #cloneMessageContext(SynapseMessageContext)} does,
+     * but gives the clone the provided envelope instead of a copy of the envelope of the
+     * original message
+     *
+     * @param synCtx - this will be cloned
+     * @param envelope - the envelope of the clone, or null to copy that of the original
+     * @return cloned Synapse MessageContext
+     * @throws AxisFault if there is a failure in creating the new Synapse MC or in a failure in
+     *          clonning the underlying axis2 MessageContext
+     *
+     * @see SharedEnvelope
+     */
+    public static SynapseMessageContext cloneMessageContext(SynapseMessageContext synCtx,
+            SOAPEnvelope envelope) throws AxisFault {
 
         // creates the new MessageContext and clone the internal axis2 MessageContext
         // inside the synapse message context and place that in the new one
@@ -74,7 +93,7 @@ public class MessageHelper {
         	Axis2SynapseMessageContext a2SMC = (Axis2SynapseMessageContext) synCtx;
         	Axis2SynapseMessageContext newA2SMC = (Axis2SynapseMessageContext) newCtx;
         	newA2SMC.setAxis2MessageContext(
-        			cloneAxis2MessageContext(a2SMC.getAxis2MessageContext()));
+        			cloneAxis2MessageContext(a2SMC.getAxis2MessageContext(), envelope));
         }
 
         newCtx.setContextEntries(synCtx.getContextEntries());
@@ -90,9 +109,12 @@ public class MessageHelper {
         newCtx.setWSAAction(synCtx.getWSAAction());
         newCtx.setResponse(synCtx.isResponse());
 
-        // copy all the synapse level properties to the newCtx
+        // copy all the synapse level properties to the newCtx, except for the XPath results
+        // which belong to the original message
         for (String s: synCtx.getPropertyKeySet()) {
-        	newCtx.setProperty(s, synCtx.getProperty(s));
+        	if (!XPathResultCache.PROPERTY.equals(s)) {
+        		newCtx.setProperty(s, synCtx.getProperty(s));
+        	}
         }
 
         // Make deep copy of fault stack so that parent will not be lost it's fault stack
@@ -133,9 +155,26 @@ public class MessageHelper {
      */
     public static MessageContext cloneAxis2MessageContext(MessageContext mc)
     	throws AxisFault
+    {
+        return cloneAxis2MessageContext(mc, null);
+    }
+
+    /**
+     * Clones the message context as {@link #cloneAxis2MessageContext(MessageContext)} does,
+     * but gives the clone the provided envelope instead of a copy of the envelope of the
+     * original message
+     *
+     * @param mc - this will be cloned
+     * @param envelope - the envelope of the clone, or null to copy that of the original
+     * @return cloned MessageContext from the given mc
+     * @throws AxisFault if there is a failure in copying the certain attributes of the
+     *          provided message context
+     */
+    public static MessageContext cloneAxis2MessageContext(MessageContext mc,
+            SOAPEnvelope envelope) throws AxisFault
     {
         MessageContext newMC = clonePartially(mc);
-        newMC.setEnvelope(cloneSOAPEnvelope(mc.getEnvelope()));
+        newMC.setEnvelope(envelope != null ? envelope : cloneSOAPEnvelope(mc.getEnvelope()));
         newMC.setOptions(cloneOptions(mc.getOptions()));
 
         newMC.setServiceContext(mc.getServiceContext());
@@ -199,9 +238,11 @@ public class MessageHelper {
         newMC.setDoingSwA(ori.isDoingSwA());
 
         // if the original request carries any attachments, copy them to the clone
-        // as well, except for the soap part if any
+        // as well, except for the soap part if any. The clone may still read them
+        // after the original is done, so the transport must not release them.
         Attachments attachments = ori.getAttachments();
         if (attachments != null && attachments.getAllContentIDs().length > 0) {
+            ori.setProperty(Axis2Constants.Configuration.KEEP_ATTACHMENTS, Boolean.TRUE);
             String[] cIDs = attachments.getAllContentIDs();
             String soapPart = attachments.getSOAPPartContentID();
             for (String cID : cIDs) {
@@ -225,6 +266,20 @@ public class MessageHelper {
         return newMC;
     }
 
+    /**
+     * Can copies of the envelope of the given message be handed out through a
+     * {@link SharedEnvelope}? They cannot if the message carries optimized binary content,
+     * which the shared envelope would inline
+     *
+     * @param synCtx the message to be copied
+     * @return false if copies of its envelope should be made with
+     *          {@link #cloneSOAPEnvelope(SOAPEnvelope)}
+     */
+    public static boolean isEnvelopeShareable(SynapseMessageContext synCtx) {
+        return !(synCtx instanceof Axis2SynapseMessageContext)
+                || !((Axis2SynapseMessageContext) synCtx).getAxis2MessageContext().isDoingMTOM();
+    }
+
     /**
      * This method will clone the provided SOAPEnvelope and returns the cloned envelope
      * as an exact copy of the provided envelope
@@ -0,0 +1,85 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.synapse.SynapseException;
+
+/**
+ * An immutable snapshot of a SOAP envelope from which any number of copies can be handed out,
+ * for mediators that fan a message out to several targets. The snapshot keeps the serialized
+ * envelope rather than a tree, and each copy is built from it on demand : a copy only parses
+ * the part of the envelope that its target navigates to or changes, and whatever is left is
+ * streamed straight from the shared bytes when the copy is written out. Copies never share any
+ * node, so a target may change its copy freely.
+ * <p>
+ * Optimized binary content would be inlined by the snapshot, so envelopes of MTOM messages
+ * should still be copied with {@link MessageHelper#cloneSOAPEnvelope(SOAPEnvelope)}.
+ */
+public class SharedEnvelope {
+
+    private final byte[] content;
+
+    /**
+     * Takes a snapshot of the given envelope, building it completely if it is not yet
+     *
+     * @param envelope the envelope to share, which is not changed
+     */
+    public SharedEnvelope(SOAPEnvelope envelope) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            envelope.serialize(out);
+        } catch (XMLStreamException e) {
+            throw new SynapseException("Error taking a snapshot of the envelope", e);
+        }
+        content = out.toByteArray();
+    }
+
+    /**
+     * Returns a new copy of the shared envelope, of which nothing but the envelope element
+     * has been built yet
+     *
+     * @return a private copy of the envelope
+     */
+    public SOAPEnvelope newEnvelope() {
+        try {
+            XMLStreamReader reader =
+                    StAXUtils.createXMLStreamReader(new ByteArrayInputStream(content));
+            return new StAXSOAPModelBuilder(reader).getSOAPEnvelope();
+        } catch (XMLStreamException e) {
+            throw new SynapseException("Error copying the shared envelope", e);
+        }
+    }
+
+    /**
+     * @return the size of the serialized envelope in bytes
+     */
+    public int getSize() {
+        return content.length;
+    }
+}
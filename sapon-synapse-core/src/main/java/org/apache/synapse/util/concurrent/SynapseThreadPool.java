@@ -44,6 +44,14 @@ public class SynapseThreadPool extends ThreadPoolExecutor {
     public static final String SYN_THREAD_QLEN     = "synapse.threads.qlen";
     public static final String SYN_THREAD_GROUP    = "synapse.threads.group";
     public static final String SYN_THREAD_IDPREFIX = "synapse.threads.idprefix";
+    public static final String SYN_THREAD_TYPE     = "synapse.threads.type";
+    public static final String SYN_THREAD_MAX_QUEUED     = "synapse.threads.maxqueued";
+    public static final String SYN_THREAD_MAX_QUEUE_TIME = "synapse.threads.maxqueuetime";
+
+    // executor types, see WorkerPoolFactory
+    public static final String SYNAPSE_THREAD_TYPE_POOL     = "pool";
+    public static final String SYNAPSE_THREAD_TYPE_VIRTUAL  = "virtual";
+    public static final String SYNAPSE_THREAD_TYPE_FORKJOIN = "forkjoin";
 
     /**
      * Constructor for the Synapse thread poll
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.synapse.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hierarchical timing wheel.  Items are scheduled against an absolute
+ * deadline and handed back by {@link #expire(long)} once the deadline has
+ * passed, at the resolution of the tick duration.
+ *
+ * <p>Each of the {@link #LEVELS} wheels has {@link #SLOTS} slots; a slot of a
+ * level spans a whole turn of the level below.  An item is kept in the lowest
+ * level whose turn still contains its deadline, and is moved down a level when
+ * the wheels turn past its slot, so that advancing the wheel only touches
+ * items that expire or move, never all scheduled items.</p>
+ *
+ * <p>{@link #schedule} and {@link Timeout#cancel()} may be called from any
+ * thread and never block.  {@link #expire(long)} must only be called by one
+ * thread at a time.</p>
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    public static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    public static final int LEVELS = 4;
+
+    private static final int ACTIVE = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickDuration;
+
+    /** Sentinels of the circular lists of the slots, by level and slot */
+    private final Timeout<T>[][] wheels;
+
+    /** The last tick processed; only used by the expiring thread */
+    private long currentTick;
+
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<Timeout<T>>();
+    private final Queue<Timeout<T>> cancelled = new ConcurrentLinkedQueue<Timeout<T>>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param tickDuration the resolution of the wheel in milliseconds
+     * @param startTime the current time in milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickDuration, long startTime) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        this.tickDuration = tickDuration;
+        this.currentTick = startTime / tickDuration;
+        wheels = new Timeout[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timeout<T> sentinel = new Timeout<T>(this, null, 0);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheels[level][slot] = sentinel;
+            }
+        }
+    }
+
+    /**
+     * Schedules an item to expire at the given time.
+     *
+     * @param item the item handed back on expiry
+     * @param deadline the absolute expiry time in milliseconds
+     * @return a handle to cancel the expiry with
+     */
+    public Timeout<T> schedule(T item, long deadline) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item may not be null");
+        }
+        // Round up, so that nothing expires before its deadline
+        long tick = deadline / tickDuration;
+        if (deadline % tickDuration != 0) {
+            tick++;
+        }
+        Timeout<T> timeout = new Timeout<T>(this, item, tick);
+        size.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Returns the number of items scheduled, and neither expired nor cancelled.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Advances the wheel to the given time and returns the items that expired
+     * on the way, in no particular order.
+     *
+     * @param now the current time in milliseconds
+     * @return the expired items
+     */
+    public List<T> expire(long now) {
+        List<T> expired = new ArrayList<T>();
+
+        Timeout<T> timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            unlink(timeout);
+        }
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state.get() == ACTIVE) {
+                place(timeout, expired);
+            }
+        }
+
+        long targetTick = now / tickDuration;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Higher levels first, so that what they hand down to a level that
+            // is turning as well moves on in the same tick
+            for (int level = LEVELS - 1; level > 0; level--) {
+                long mask = (1L << (SLOT_BITS * level)) - 1;
+                if ((currentTick & mask) == 0) {
+                    int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                    cascade(wheels[level][slot], expired);
+                }
+            }
+            cascade(wheels[0][(int) (currentTick & SLOT_MASK)], expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Puts a timeout in the slot of the lowest level whose current turn
+     * contains its deadline, or hands it to the expired list if it is due.
+     */
+    private void place(Timeout<T> timeout, List<T> expired) {
+        if (timeout.tick <= currentTick) {
+            expire(timeout, expired);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1
+                && (timeout.tick >>> (SLOT_BITS * (level + 1)))
+                        != (currentTick >>> (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((timeout.tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        Timeout<T> sentinel = wheels[level][slot];
+        timeout.prev = sentinel.prev;
+        timeout.next = sentinel;
+        sentinel.prev.next = timeout;
+        sentinel.prev = timeout;
+        timeout.linked = true;
+    }
+
+    /**
+     * Empties a slot, placing each of its timeouts again relative to the
+     * current tick.
+     */
+    private void cascade(Timeout<T> sentinel, List<T> expired) {
+        Timeout<T> timeout = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        while (timeout != sentinel) {
+            Timeout<T> next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.linked = false;
+            if (timeout.state.get() == ACTIVE) {
+                place(timeout, expired);
+            }
+            timeout = next;
+        }
+    }
+
+    private void expire(Timeout<T> timeout, List<T> expired) {
+        if (timeout.state.compareAndSet(ACTIVE, EXPIRED)) {
+            size.decrementAndGet();
+            expired.add(timeout.item);
+        }
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.linked) {
+            timeout.prev.next = timeout.next;
+            timeout.next.prev = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.linked = false;
+        }
+    }
+
+    /**
+     * The handle of a scheduled item.
+     */
+    public static final class Timeout<T> {
+
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long tick;
+        private final AtomicInteger state = new AtomicInteger(ACTIVE);
+
+        // Only used by the expiring thread
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private boolean linked;
+
+        private Timeout(TimingWheel<T> wheel, T item, long tick) {
+            this.wheel = wheel;
+            this.item = item;
+            this.tick = tick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Cancels the expiry of the item.
+         *
+         * @return <code>false</code> if the item had already expired or been
+         *         cancelled
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(ACTIVE, CANCELLED)) {
+                wheel.size.decrementAndGet();
+                wheel.cancelled.add(this);
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.jaxp;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.apache.synapse.SynapseException;
+
+/**
+ * Cache of compiled XML artifacts (stylesheets, schemas) shared by all mediator
+ * instances. Entries are keyed by a digest of the source documents and of the
+ * settings used to compile them, so mediators referring to the same content
+ * share a single compiled object.
+ * <p>
+ * Compilation is single-flight: if several threads ask for the same key, only
+ * one of them compiles and the others wait for its result. The cache holds at
+ * most {@link #MAX_ENTRIES} entries and evicts the least recently used one.
+ *
+ * @param <T> the type of the compiled objects
+ */
+public final class CompilationCache<T> {
+
+    public static final int MAX_ENTRIES = 256;
+
+    /** Shared cache of compiled XSLT stylesheets */
+    public static final CompilationCache<PooledTemplates> TEMPLATES =
+        new CompilationCache<PooledTemplates>();
+
+    /** Shared cache of compiled XML schemas */
+    public static final CompilationCache<PooledSchema> SCHEMAS =
+        new CompilationCache<PooledSchema>();
+
+    private final Map<String, FutureTask<T>> entries =
+        new LinkedHashMap<String, FutureTask<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FutureTask<T>> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    /**
+     * Get the compiled object for the given key, compiling it if necessary.
+     *
+     * @param key the key, usually built with {@link KeyBuilder}
+     * @param compiler compiles the object if it is not in the cache
+     * @return the compiled object
+     * @throws Exception any exception thrown by the compiler
+     */
+    public T get(String key, Callable<T> compiler) throws Exception {
+        FutureTask<T> task;
+        boolean owner = false;
+        synchronized (entries) {
+            task = entries.get(key);
+            if (task == null) {
+                task = new FutureTask<T>(compiler);
+                entries.put(key, task);
+                owner = true;
+            }
+        }
+        if (owner) {
+            task.run();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SynapseException("Interrupted while waiting for compilation of " + key, e);
+        } catch (ExecutionException e) {
+            // Failures are not cached, the next request compiles again
+            synchronized (entries) {
+                if (entries.get(key) == task) {
+                    entries.remove(key);
+                }
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new SynapseException("Error compiling " + key, cause);
+        }
+    }
+
+    /**
+     * Remove all the entries from the cache.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the number of entries in the cache
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Builds cache keys from the content of the source documents and the
+     * compilation settings.
+     */
+    public static class KeyBuilder {
+        private final MessageDigest digest;
+
+        public KeyBuilder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new SynapseException("SHA-1 message digest not available", e);
+            }
+        }
+
+        public KeyBuilder add(byte[] bytes) {
+            update(bytes.length);
+            digest.update(bytes);
+            return this;
+        }
+
+        public KeyBuilder add(String s) {
+            if (s == null) {
+                update(-1);
+            } else {
+                try {
+                    add(s.getBytes("UTF-8"));
+                } catch (UnsupportedEncodingException e) {
+                    throw new SynapseException(e);
+                }
+            }
+            return this;
+        }
+
+        private void update(int i) {
+            digest.update((byte) (i >>> 24));
+            digest.update((byte) (i >>> 16));
+            digest.update((byte) (i >>> 8));
+            digest.update((byte) i);
+        }
+
+        /**
+         * @return the key; the builder can't be used afterwards
+         */
+        public String build() {
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+                sb.append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Compiled stylesheet with a {@link Transformer} kept per thread.
+     */
+    public static class PooledTemplates {
+        private final Templates templates;
+        private final ThreadLocal<Transformer> transformers = new ThreadLocal<Transformer>();
+
+        public PooledTemplates(Templates templates) {
+            this.templates = templates;
+        }
+
+        public Templates getTemplates() {
+            return templates;
+        }
+
+        /**
+         * Get a transformer for the current thread. The transformer must be given
+         * back with {@link #release(Transformer)} once the transformation is done.
+         */
+        public Transformer acquire() throws TransformerConfigurationException {
+            Transformer transformer = transformers.get();
+            if (transformer == null) {
+                return templates.newTransformer();
+            }
+            // Nested transformations on this thread get their own instance
+            transformers.set(null);
+            transformer.reset();
+            return transformer;
+        }
+
+        public void release(Transformer transformer) {
+            transformers.set(transformer);
+        }
+    }
+
+    /**
+     * Compiled schema with a {@link Validator} kept per thread.
+     */
+    public static class PooledSchema {
+        private final Schema schema;
+        private final ThreadLocal<Validator> validators = new ThreadLocal<Validator>();
+
+        public PooledSchema(Schema schema) {
+            this.schema = schema;
+        }
+
+        public Schema getSchema() {
+            return schema;
+        }
+
+        /**
+         * Get a validator for the current thread. The validator must be given
+         * back with {@link #release(Validator)} once the validation is done.
+         */
+        public Validator acquire() {
+            Validator validator = validators.get();
+            if (validator == null) {
+                return schema.newValidator();
+            }
+            validators.set(null);
+            validator.reset();
+            return validator;
+        }
+
+        public void release(Validator validator) {
+            validators.set(validator);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.jaxp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Result;
+import javax.xml.transform.stax.StAXResult;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.ds.ByteArrayDataSource;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.SynapseException;
+
+/**
+ * {@link ResultBuilder} implementation that produces a {@link StAXResult} writing
+ * to an in-memory buffer. For {@link ResultBuilderFactory.Output#ELEMENT}, the
+ * buffer is returned as an {@link org.apache.axiom.om.OMSourcedElement} that is
+ * only parsed if its content is accessed; when it is just serialized, the
+ * buffered bytes are written as is.
+ */
+public class StAXResultBuilder implements ResultBuilder {
+    private static final Log log = LogFactory.getLog(StAXResultBuilder.class);
+
+    private static final String ENCODING = "UTF-8";
+
+    private final ResultBuilderFactory.Output expectedOutput;
+    private ByteArrayOutputStream out;
+    private XMLStreamWriter writer;
+
+    public StAXResultBuilder(ResultBuilderFactory.Output expectedOutput) {
+        this.expectedOutput = expectedOutput;
+    }
+
+    public Result getResult() {
+        out = new ByteArrayOutputStream();
+        try {
+            writer = StAXUtils.createXMLStreamWriter(out, ENCODING);
+        } catch (XMLStreamException e) {
+            handleException("Unable to create XML stream writer", e);
+        }
+        return new StAXResult(writer);
+    }
+
+    public OMElement getNode(Charset charset) {
+        try {
+            writer.flush();
+            StAXUtils.releaseXMLStreamWriter(writer);
+        } catch (XMLStreamException e) {
+            handleException("Error while closing XML stream writer", e);
+        }
+        byte[] bytes = stripXMLDeclaration(out.toByteArray());
+        out = null;
+        writer = null;
+        try {
+            XMLStreamReader reader =
+                StAXUtils.createXMLStreamReader(new ByteArrayInputStream(bytes), ENCODING);
+            if (expectedOutput == ResultBuilderFactory.Output.SOAP_ENVELOPE) {
+                return new StAXSOAPModelBuilder(reader).getSOAPEnvelope();
+            }
+            // Only look at the root element to name the sourced element
+            reader.nextTag();
+            OMFactory factory = OMAbstractFactory.getOMFactory();
+            String namespaceURI = reader.getNamespaceURI();
+            OMNamespace ns = null;
+            if (namespaceURI != null && namespaceURI.length() > 0) {
+                String prefix = reader.getPrefix();
+                ns = factory.createOMNamespace(namespaceURI, prefix == null ? "" : prefix);
+            }
+            String localName = reader.getLocalName();
+            StAXUtils.releaseXMLStreamReader(reader);
+            return factory.createOMElement(
+                    new ByteArrayDataSource(bytes, ENCODING), localName, ns);
+        } catch (XMLStreamException e) {
+            handleException("Unable to parse the XML output", e);
+            return null;
+        }
+    }
+
+    public void release() {
+        out = null;
+        writer = null;
+    }
+
+    /**
+     * The transformer starts the document on the writer, which emits an XML
+     * declaration. It has to go as the bytes may be copied into another document.
+     */
+    private static byte[] stripXMLDeclaration(byte[] bytes) {
+        if (bytes.length < 5 || bytes[0] != '<' || bytes[1] != '?'
+                || bytes[2] != 'x' || bytes[3] != 'm' || bytes[4] != 'l') {
+            return bytes;
+        }
+        for (int i = 5; i < bytes.length - 1; i++) {
+            if (bytes[i] == '?' && bytes[i + 1] == '>') {
+                int start = i + 2;
+                byte[] stripped = new byte[bytes.length - start];
+                System.arraycopy(bytes, start, stripped, 0, stripped.length);
+                return stripped;
+            }
+        }
+        return bytes;
+    }
+
+    private static void handleException(String message, Throwable ex) {
+        log.error(message, ex);
+        throw new SynapseException(message, ex);
+    }
+}
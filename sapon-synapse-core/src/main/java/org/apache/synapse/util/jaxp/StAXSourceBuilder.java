@@ -0,0 +1,43 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.jaxp;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stax.StAXSource;
+
+import org.apache.axiom.om.OMElement;
+
+/**
+ * {@link SourceBuilder} implementation that feeds the transformer directly from
+ * the AXIOM pull parser using a {@link StAXSource}. Parts of the tree that are
+ * not yet built are read from the underlying parser and built as they are
+ * consumed, so that the source node is neither serialized nor reparsed.
+ * <p>
+ * The caching reader is used on purpose: the source node may still be needed
+ * after the transformation, e.g. if the result is stored in a property.
+ */
+public class StAXSourceBuilder implements SourceBuilder {
+    public Source getSource(OMElement node) {
+        return new StAXSource(node.getXMLStreamReader());
+    }
+
+    public void release() {
+    }
+}
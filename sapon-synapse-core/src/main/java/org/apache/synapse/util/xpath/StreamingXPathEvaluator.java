@@ -0,0 +1,541 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.xpath;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMText;
+import org.jaxen.Context;
+import org.jaxen.ContextSupport;
+import org.jaxen.JaxenException;
+import org.jaxen.UnresolvableException;
+import org.jaxen.expr.AllNodeStep;
+import org.jaxen.expr.Expr;
+import org.jaxen.expr.FilterExpr;
+import org.jaxen.expr.LocationPath;
+import org.jaxen.expr.NameStep;
+import org.jaxen.expr.PathExpr;
+import org.jaxen.expr.Step;
+import org.jaxen.expr.TextNodeStep;
+import org.jaxen.expr.VariableReferenceExpr;
+import org.jaxen.saxpath.Axis;
+
+/**
+ * Evaluates the forward only subset of XPath that most mediator expressions use, without going
+ * through the Jaxen navigator. The supported expressions are location paths without predicates,
+ * made of child and descendant element steps, optionally ending with an attribute or a
+ * <code>text()</code> step, e.g. <code>//ns:Header/ns:CorrelationId</code> or
+ * <code>$body/ns:Order/@type</code>. The path may be absolute, relative to the context node,
+ * or start with an unprefixed variable whose value is a node, such as <tt>$body</tt> or
+ * <tt>$header</tt>.
+ * <p/>
+ * The path is compiled into a small automaton and evaluated in a single pass over the tree in
+ * document order. Only the parts of the tree that can still match are visited, and the pass
+ * stops as soon as enough matches have been found, so that a deferred message is only built as
+ * far as the expression needs it. Several expressions can also share a pass, see
+ * {@link #evaluateAll(List, List)}.
+ */
+final class StreamingXPathEvaluator {
+
+    private static final int ROOT_CONTEXT = 0;
+    private static final int ROOT_DOCUMENT = 1;
+    private static final int ROOT_VARIABLE = 2;
+
+    private static final int SELECT_ELEMENT = 0;
+    private static final int SELECT_ATTRIBUTE = 1;
+    private static final int SELECT_TEXT = 2;
+
+    // The matching states are kept in a long, one bit per step
+    private static final int MAX_STEPS = 62;
+
+    /** An element name test on the child or descendant axis */
+    private static final class PathStep {
+        final boolean descendant;
+        final String prefix;
+        final String localName;
+
+        PathStep(boolean descendant, String prefix, String localName) {
+            this.descendant = descendant;
+            this.prefix = prefix;
+            this.localName = localName;
+        }
+    }
+
+    private final int root;
+    private final String variablePrefix;
+    private final String variableName;
+    private final PathStep[] steps;
+    private final int select;
+    private final String attributePrefix;
+    private final String attributeName;
+    private final long finalState;
+
+    private StreamingXPathEvaluator(int root, String variablePrefix, String variableName,
+                                    List<PathStep> steps, int select,
+                                    String attributePrefix, String attributeName) {
+        this.root = root;
+        this.variablePrefix = variablePrefix;
+        this.variableName = variableName;
+        this.steps = steps.toArray(new PathStep[steps.size()]);
+        this.select = select;
+        this.attributePrefix = attributePrefix;
+        this.attributeName = attributeName;
+        this.finalState = 1L << this.steps.length;
+    }
+
+    /**
+     * Compile the given expression.
+     *
+     * @param expr the root expression of the XPath
+     * @return the evaluator, or null if the expression is not in the supported subset
+     */
+    static StreamingXPathEvaluator compile(Expr expr) {
+        int root;
+        String variablePrefix = null;
+        String variableName = null;
+        LocationPath path;
+
+        if (expr instanceof LocationPath) {
+            path = (LocationPath) expr;
+            root = path.isAbsolute() ? ROOT_DOCUMENT : ROOT_CONTEXT;
+        } else if (expr instanceof PathExpr) {
+            Expr filter = ((PathExpr) expr).getFilterExpr();
+            if (filter instanceof FilterExpr) {
+                if (!((FilterExpr) filter).getPredicates().isEmpty()) {
+                    return null;
+                }
+                filter = ((FilterExpr) filter).getExpr();
+            }
+            if (!(filter instanceof VariableReferenceExpr)) {
+                return null;
+            }
+            VariableReferenceExpr variable = (VariableReferenceExpr) filter;
+            if (variable.getPrefix() != null && variable.getPrefix().length() > 0) {
+                return null;
+            }
+            variablePrefix = variable.getPrefix();
+            variableName = variable.getVariableName();
+            path = ((PathExpr) expr).getLocationPath();
+            if (path == null || path.isAbsolute()) {
+                return null;
+            }
+            root = ROOT_VARIABLE;
+        } else {
+            return null;
+        }
+
+        List<?> pathSteps = path.getSteps();
+        List<PathStep> steps = new ArrayList<PathStep>();
+        int select = SELECT_ELEMENT;
+        String attributePrefix = null;
+        String attributeName = null;
+        boolean descendant = false;
+
+        for (int i = 0; i < pathSteps.size(); i++) {
+            Step step = (Step) pathSteps.get(i);
+            if (!step.getPredicates().isEmpty() || select != SELECT_ELEMENT) {
+                return null;
+            }
+            int axis = step.getAxis();
+            if (step instanceof AllNodeStep && axis == Axis.DESCENDANT_OR_SELF && !descendant) {
+                // The abbreviated '//' step, which must be followed by an element step
+                descendant = true;
+            } else if (step instanceof NameStep && (axis == Axis.CHILD || axis == Axis.DESCENDANT)) {
+                NameStep nameStep = (NameStep) step;
+                steps.add(new PathStep(descendant || axis == Axis.DESCENDANT,
+                        nameStep.getPrefix(), localNameOf(nameStep)));
+                descendant = false;
+            } else if (step instanceof NameStep && axis == Axis.ATTRIBUTE && !descendant) {
+                NameStep nameStep = (NameStep) step;
+                select = SELECT_ATTRIBUTE;
+                attributePrefix = nameStep.getPrefix();
+                attributeName = localNameOf(nameStep);
+            } else if (step instanceof TextNodeStep && axis == Axis.CHILD && !descendant) {
+                select = SELECT_TEXT;
+            } else {
+                return null;
+            }
+        }
+
+        if (descendant || steps.size() > MAX_STEPS
+                || (steps.isEmpty() && select == SELECT_ELEMENT)) {
+            return null;
+        }
+        return new StreamingXPathEvaluator(root, variablePrefix, variableName, steps, select,
+                attributePrefix, attributeName);
+    }
+
+    private static String localNameOf(NameStep step) {
+        return "*".equals(step.getLocalName()) ? null : step.getLocalName();
+    }
+
+    /** The start node and the resolved namespaces of one evaluation */
+    private static final class Run {
+        final OMContainer start;
+        final String[] namespaces;
+        final String attributeNamespace;
+        final List<Object> result = new ArrayList<Object>();
+
+        Run(OMContainer start, String[] namespaces, String attributeNamespace) {
+            this.start = start;
+            this.namespaces = namespaces;
+            this.attributeNamespace = attributeNamespace;
+        }
+    }
+
+    /** A pass over the message shared by several expressions */
+    private static final class SharedPass {
+        final StreamingXPathEvaluator[] evaluators;
+        final Run[] runs;
+        /** The start nodes and their ancestors, which the pass has to go through */
+        final Map<Object, Object> path = new IdentityHashMap<Object, Object>();
+        /** The number of expressions whose start node has not been reached yet */
+        int unstarted;
+
+        SharedPass(int count) {
+            evaluators = new StreamingXPathEvaluator[count];
+            runs = new Run[count];
+        }
+
+        /**
+         * Visit the children of the given container, where <code>states</code> has the states
+         * of each expression for the children.
+         */
+        void visit(OMContainer parent, long[] states) {
+            boolean idle = true;
+            for (int k = 0; k < runs.length; k++) {
+                if (runs[k] != null && runs[k].start == parent) {
+                    states[k] |= 1L;
+                    unstarted--;
+                }
+                idle &= states[k] == 0;
+            }
+            for (OMNode child = parent.getFirstOMChild(); child != null;
+                 child = child.getNextOMSibling()) {
+                if (child instanceof OMElement) {
+                    OMElement element = (OMElement) child;
+                    long[] descend = null;
+                    for (int k = 0; k < evaluators.length; k++) {
+                        if (states[k] == 0) {
+                            continue;
+                        }
+                        StreamingXPathEvaluator evaluator = evaluators[k];
+                        long next = evaluator.advance(element, states[k], runs[k].namespaces);
+                        if ((next & evaluator.finalState) != 0) {
+                            evaluator.select(element, runs[k], 0);
+                        }
+                        if (evaluator.select != SELECT_TEXT) {
+                            next &= ~evaluator.finalState;
+                        }
+                        if (next != 0) {
+                            if (descend == null) {
+                                descend = new long[states.length];
+                            }
+                            descend[k] = next;
+                        }
+                    }
+                    if (descend != null) {
+                        visit(element, descend);
+                    } else if (path.containsKey(element)) {
+                        visit(element, new long[states.length]);
+                    }
+                    if (idle && unstarted == 0) {
+                        // Only came here to reach start nodes, which are all behind now.
+                        // Moving to the next sibling would build this element completely.
+                        return;
+                    }
+                } else if (child instanceof OMText) {
+                    for (int k = 0; k < evaluators.length; k++) {
+                        if (states[k] != 0 && evaluators[k].select == SELECT_TEXT
+                                && (states[k] & evaluators[k].finalState) != 0) {
+                            runs[k].result.add(child);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluate the expression.
+     *
+     * @param context the Jaxen context to evaluate against
+     * @param limit the number of matches after which the evaluation stops, or 0 for all
+     * @return the matching nodes in document order, or null if the expression has to be
+     *         evaluated by Jaxen in this context
+     * @throws JaxenException if the variable can not be read
+     */
+    List<Object> evaluate(Context context, int limit) throws JaxenException {
+        Run run = prepare(context);
+        if (run == null) {
+            return null;
+        }
+        if (steps.length == 0) {
+            // Attributes of the start node itself
+            if (run.start instanceof OMElement) {
+                addAttributes((OMElement) run.start, run.attributeNamespace, run.result, limit);
+            }
+        } else {
+            visit(run.start, 1L, run, limit);
+        }
+        return run.result;
+    }
+
+    /**
+     * Evaluate several expressions over the same message in a single pass. The pass starts at
+     * the document node, and each expression joins it when the pass reaches its start node, so
+     * that every node is visited once for all of them. All the matches of each expression are
+     * collected.
+     *
+     * @param evaluators the evaluators
+     * @param contexts the Jaxen context of each evaluator
+     * @return the matching nodes of each expression, with a null entry for the expressions that
+     *         have to be evaluated by Jaxen in their context
+     * @throws JaxenException if a variable can not be read
+     */
+    static List<List<Object>> evaluateAll(List<StreamingXPathEvaluator> evaluators,
+                                          List<Context> contexts) throws JaxenException {
+        int count = evaluators.size();
+        List<List<Object>> results = new ArrayList<List<Object>>(count);
+        SharedPass pass = new SharedPass(count);
+        OMContainer document = null;
+
+        for (int i = 0; i < count; i++) {
+            StreamingXPathEvaluator evaluator = evaluators.get(i);
+            Run run = evaluator.prepare(contexts.get(i));
+            if (run == null) {
+                results.add(null);
+                continue;
+            }
+            results.add(run.result);
+            if (evaluator.steps.length == 0) {
+                if (run.start instanceof OMElement) {
+                    evaluator.addAttributes((OMElement) run.start, run.attributeNamespace,
+                            run.result, 0);
+                }
+                continue;
+            }
+            List<OMContainer> ancestors = new ArrayList<OMContainer>();
+            OMContainer top = run.start;
+            while (true) {
+                ancestors.add(top);
+                if (!(top instanceof OMNode) || ((OMNode) top).getParent() == null) {
+                    break;
+                }
+                top = ((OMNode) top).getParent();
+            }
+            if (document == null) {
+                document = top;
+            } else if (document != top) {
+                // Not in the same tree, Jaxen will do it
+                results.set(i, null);
+                continue;
+            }
+            for (OMContainer ancestor : ancestors) {
+                pass.path.put(ancestor, ancestor);
+            }
+            pass.evaluators[i] = evaluator;
+            pass.runs[i] = run;
+            pass.unstarted++;
+        }
+
+        if (document != null) {
+            pass.visit(document, new long[count]);
+        }
+        return results;
+    }
+
+    /**
+     * Gets the start node of the expression in the given context and resolves the namespaces
+     * of the name tests.
+     *
+     * @return the run, or null if the expression has to be evaluated by Jaxen in this context
+     */
+    private Run prepare(Context context) throws JaxenException {
+        List<?> nodeSet = context.getNodeSet();
+        if (nodeSet.size() != 1) {
+            return null;
+        }
+        ContextSupport support = context.getContextSupport();
+
+        Object start;
+        switch (root) {
+            case ROOT_DOCUMENT:
+                start = support.getNavigator().getDocumentNode(nodeSet.get(0));
+                break;
+            case ROOT_VARIABLE:
+                try {
+                    start = support.getVariableValue(null, variablePrefix, variableName);
+                } catch (UnresolvableException e) {
+                    // Let Jaxen report it
+                    return null;
+                }
+                break;
+            default:
+                start = nodeSet.get(0);
+        }
+        if (!(start instanceof OMContainer)) {
+            return null;
+        }
+
+        String[] namespaces = new String[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            namespaces[i] = resolve(support, steps[i].prefix, steps[i].localName == null);
+            if (namespaces[i] == null && isPrefixed(steps[i].prefix)) {
+                return null;
+            }
+        }
+        String attributeNamespace = null;
+        if (select == SELECT_ATTRIBUTE) {
+            attributeNamespace = resolve(support, attributePrefix, attributeName == null);
+            if (attributeNamespace == null && isPrefixed(attributePrefix)) {
+                return null;
+            }
+        }
+        return new Run((OMContainer) start, namespaces, attributeNamespace);
+    }
+
+    /**
+     * Whether a name test has a prefix, so that a null namespace URI means the prefix is not
+     * bound rather than that any namespace matches, even for a wildcard such as
+     * <code>ns:*</code>
+     */
+    private static boolean isPrefixed(String prefix) {
+        return prefix != null && prefix.length() > 0;
+    }
+
+    /**
+     * Returns the namespace URI a name test has to match: the empty string for an unprefixed
+     * name, and null for an unprefixed wildcard or for a prefix that is not bound (in which case
+     * Jaxen reports the error).
+     */
+    private static String resolve(ContextSupport support, String prefix, boolean wildcard) {
+        if (prefix == null || prefix.length() == 0) {
+            return wildcard ? null : "";
+        }
+        return support.translateNamespacePrefixToUri(prefix);
+    }
+
+    /**
+     * Visit the children of the given container, where <code>states</code> has a bit set for
+     * each step that the children may match next.
+     *
+     * @return true if the limit is reached and the evaluation must stop
+     */
+    private boolean visit(OMContainer parent, long states, Run run, int limit) {
+
+        boolean selectText = select == SELECT_TEXT && (states & finalState) != 0;
+        // Not using the children iterator, as it looks ahead to the next sibling, which would
+        // build the current element completely even when the evaluation stops inside it
+        for (OMNode child = parent.getFirstOMChild(); child != null;
+             child = child.getNextOMSibling()) {
+            if (child instanceof OMElement) {
+                OMElement element = (OMElement) child;
+                long next = advance(element, states, run.namespaces);
+                if (next == 0) {
+                    continue;
+                }
+                if ((next & finalState) != 0 && select(element, run, limit)) {
+                    return true;
+                }
+                long descend = select == SELECT_TEXT ? next : next & ~finalState;
+                if (descend != 0 && visit(element, descend, run, limit)) {
+                    return true;
+                }
+            } else if (selectText && child instanceof OMText) {
+                if (add(child, run.result, limit)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds an element that matched all the steps, or its attributes, to the result.
+     *
+     * @return true if the limit is reached
+     */
+    private boolean select(OMElement element, Run run, int limit) {
+        if (select == SELECT_ELEMENT) {
+            return add(element, run.result, limit);
+        } else if (select == SELECT_ATTRIBUTE) {
+            return addAttributes(element, run.attributeNamespace, run.result, limit);
+        }
+        return false;
+    }
+
+    /** Computes the states of the children of <code>element</code> */
+    private long advance(OMElement element, long states, String[] namespaces) {
+        long next = 0;
+        for (int i = 0; i < steps.length; i++) {
+            if ((states & (1L << i)) == 0) {
+                continue;
+            }
+            PathStep step = steps[i];
+            if (step.descendant) {
+                next |= 1L << i;
+            }
+            if ((step.localName == null || step.localName.equals(element.getLocalName()))
+                    && matchesNamespace(namespaces[i], element.getNamespace())) {
+                next |= 1L << (i + 1);
+            }
+        }
+        return next;
+    }
+
+    private boolean addAttributes(OMElement element, String namespace,
+                                  List<Object> result, int limit) {
+        if (attributeName != null) {
+            OMAttribute attribute = element.getAttribute(new QName(namespace, attributeName));
+            return attribute != null && add(attribute, result, limit);
+        }
+        for (OMAttribute attribute : element.getAllAttributes()) {
+            if (matchesNamespace(namespace, attribute.getNamespace())
+                    && add(attribute, result, limit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesNamespace(String expected, OMNamespace actual) {
+        if (expected == null) {
+            return true;
+        }
+        String uri = actual == null ? null : actual.getNamespaceURI();
+        return expected.equals(uri == null ? "" : uri);
+    }
+
+    private static boolean add(Object node, List<Object> result, int limit) {
+        result.add(node);
+        return limit > 0 && result.size() >= limit;
+    }
+}
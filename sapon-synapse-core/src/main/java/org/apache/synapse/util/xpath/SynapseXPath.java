@@ -40,6 +40,7 @@ import org.jaxen.BaseXPath;
 import org.jaxen.Context;
 import org.jaxen.ContextSupport;
 import org.jaxen.JaxenException;
+import org.jaxen.function.BooleanFunction;
 import org.jaxen.util.SingletonList;
 
 /**
@@ -77,6 +78,12 @@ import org.jaxen.util.SingletonList;
  * <code>MessageContext</code> and <code>SOAPEnvelope</code> as well as a method to retrieve
  * string values of the evaluated XPaths</p>
  *
+ * <p>Simple location paths, such as <code>//ns:Header/ns:CorrelationId</code> or
+ * <code>$body/ns:Order/@type</code>, are evaluated in a single forward pass over the message
+ * that only builds it as far as needed (see {@link StreamingXPathEvaluator}). All other
+ * expressions are evaluated by Jaxen. The node sets of simple paths may also come from the
+ * {@link XPathResultCache} of the message.</p>
+ *
  * @see org.apache.axiom.om.xpath.AXIOMXPath
  * @see #getContext(Object)
  * @see org.apache.synapse.util.xpath.SynapseXPathFunctionContext
@@ -87,6 +94,9 @@ public class SynapseXPath extends AXIOMXPath {
 
     private static final Log log = LogFactory.getLog(SynapseXPath.class);
 
+    /** Evaluator for the simple paths, or null if Jaxen must evaluate this expression */
+    private final transient StreamingXPathEvaluator streamingEvaluator;
+
     /**
      * <p>Initializes the <code>SynapseXPath</code> with the given <code>xpathString</code> as the
      * XPath</p>
@@ -96,6 +106,7 @@ public class SynapseXPath extends AXIOMXPath {
      */
     public SynapseXPath(String xpathString) throws JaxenException {
         super(xpathString);
+        streamingEvaluator = StreamingXPathEvaluator.compile(getRootExpr());
     }
 
     /**
@@ -111,6 +122,7 @@ public class SynapseXPath extends AXIOMXPath {
      */
     public SynapseXPath(OMElement element, String xpathExpr) throws JaxenException {
         super(element, xpathExpr);
+        streamingEvaluator = StreamingXPathEvaluator.compile(getRootExpr());
     }
 
     /**
@@ -125,6 +137,7 @@ public class SynapseXPath extends AXIOMXPath {
      */
     public SynapseXPath(OMAttribute attribute) throws JaxenException {
         super(attribute);
+        streamingEvaluator = StreamingXPathEvaluator.compile(getRootExpr());
     }
 
     public static SynapseXPath parseXPathString(String xPathStr) throws JaxenException {
@@ -176,7 +189,10 @@ public class SynapseXPath extends AXIOMXPath {
 
         try {
 
-            Object result = evaluate(synCtx);
+            Object result = XPathResultCache.lookup(synCtx, this);
+            if (result == null) {
+                result = evaluate(synCtx);
+            }
 
             if (result == null) {
                 return null;
@@ -284,6 +300,51 @@ public class SynapseXPath extends AXIOMXPath {
         }
     }
 
+    @Override
+    protected List selectNodesForContext(Context context) throws JaxenException {
+        if (streamingEvaluator != null) {
+            List<Object> result = streamingEvaluator.evaluate(context, 0);
+            if (result != null) {
+                return result;
+            }
+        }
+        return super.selectNodesForContext(context);
+    }
+
+    @Override
+    protected Object selectSingleNodeForContext(Context context) throws JaxenException {
+        if (streamingEvaluator != null) {
+            List<Object> result = streamingEvaluator.evaluate(context, 1);
+            if (result != null) {
+                return result.isEmpty() ? null : result.get(0);
+            }
+        }
+        return super.selectSingleNodeForContext(context);
+    }
+
+    @Override
+    public boolean booleanValueOf(Object node) throws JaxenException {
+        if (streamingEvaluator != null) {
+            if (node instanceof SynapseMessageContext) {
+                List<Object> cached = XPathResultCache.lookup((SynapseMessageContext) node, this);
+                if (cached != null) {
+                    return !cached.isEmpty();
+                }
+            }
+            Context context = getContext(node);
+            List<Object> result = streamingEvaluator.evaluate(context, 1);
+            if (result == null) {
+                result = super.selectNodesForContext(context);
+            }
+            return BooleanFunction.evaluate(result, context.getNavigator()).booleanValue();
+        }
+        return super.booleanValueOf(node);
+    }
+
+    StreamingXPathEvaluator getStreamingEvaluator() {
+        return streamingEvaluator;
+    }
+
     private void handleException(String msg, Throwable e) {
         log.error(msg, e);
         throw new SynapseException(msg, e);
@@ -0,0 +1,175 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.xpath;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.SynapseMessageContext;
+import org.jaxen.Context;
+import org.jaxen.JaxenException;
+
+/**
+ * Node sets of XPath expressions evaluated together in a single pass over the message, kept in
+ * the message context so that the mediators that own the expressions do not evaluate them
+ * again. Only the expressions that {@link StreamingXPathEvaluator} supports are cached, as
+ * their value depends on the envelope alone.
+ * <p/>
+ * The results are only used for the message context and the envelope they were computed on, so
+ * a cache copied to a clone of the message, or left behind after the envelope was replaced, is
+ * ignored. Mediators that change the envelope in place must
+ * {@link #invalidate(SynapseMessageContext) invalidate} them, which list mediators do after
+ * running any mediator that is not an {@link org.apache.synapse.mediators.XPathSourceMediator}.
+ * <p/>
+ * A cache is never changed once it has been set on the message; evaluating more expressions
+ * sets a new one. Message contexts running on different threads, such as clones that share the
+ * properties of their parent, therefore never see each other's results half way through.
+ */
+public final class XPathResultCache {
+
+    private static final Log log = LogFactory.getLog(XPathResultCache.class);
+
+    /** The message context property holding the cache */
+    public static final String PROPERTY = "synapse.xpath.results";
+
+    /** Set on the message to drop the results, as properties cannot be removed */
+    private static final XPathResultCache EMPTY = new XPathResultCache(null, null,
+            new IdentityHashMap<SynapseXPath, List<Object>>());
+
+    private final SynapseMessageContext owner;
+    private final SOAPEnvelope envelope;
+    private final Map<SynapseXPath, List<Object>> results;
+
+    private XPathResultCache(SynapseMessageContext owner, SOAPEnvelope envelope,
+            Map<SynapseXPath, List<Object>> results) {
+        this.owner = owner;
+        this.envelope = envelope;
+        this.results = results;
+    }
+
+    /**
+     * Evaluates the given expressions over the current message in a single pass, and caches
+     * their results. Expressions that are not supported, or already cached, are skipped; a
+     * single remaining expression is left to be evaluated on its own, as that evaluation can
+     * stop at the first match.
+     *
+     * @param synCtx the message
+     * @param xpaths the expressions that are about to be evaluated
+     */
+    public static void evaluate(SynapseMessageContext synCtx, List<SynapseXPath> xpaths) {
+        SOAPEnvelope env = synCtx.getEnvelope();
+        if (env == null) {
+            return;
+        }
+        XPathResultCache cache = get(synCtx);
+
+        Map<SynapseXPath, SynapseXPath> pending = new IdentityHashMap<SynapseXPath, SynapseXPath>();
+        List<StreamingXPathEvaluator> evaluators = new ArrayList<StreamingXPathEvaluator>();
+        List<Context> contexts = new ArrayList<Context>();
+        List<SynapseXPath> evaluated = new ArrayList<SynapseXPath>();
+        for (SynapseXPath xpath : xpaths) {
+            StreamingXPathEvaluator evaluator = xpath.getStreamingEvaluator();
+            if (evaluator == null || pending.containsKey(xpath)
+                    || (cache != null && cache.results.containsKey(xpath))) {
+                continue;
+            }
+            pending.put(xpath, xpath);
+            evaluators.add(evaluator);
+            contexts.add(xpath.getContext(synCtx));
+            evaluated.add(xpath);
+        }
+        if (evaluated.size() < 2) {
+            return;
+        }
+
+        List<List<Object>> nodeSets;
+        try {
+            nodeSets = StreamingXPathEvaluator.evaluateAll(evaluators, contexts);
+        } catch (JaxenException e) {
+            // Each mediator will get the error when evaluating its own expression
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to evaluate the expressions " + evaluated + " together", e);
+            }
+            return;
+        }
+
+        Map<SynapseXPath, List<Object>> results = new IdentityHashMap<SynapseXPath, List<Object>>();
+        if (cache != null) {
+            results.putAll(cache.results);
+        }
+        for (int i = 0; i < evaluated.size(); i++) {
+            if (nodeSets.get(i) != null) {
+                results.put(evaluated.get(i), nodeSets.get(i));
+            }
+        }
+        synCtx.setProperty(PROPERTY, new XPathResultCache(synCtx, env, results));
+    }
+
+    /**
+     * Returns the cached node set of the given expression for the current message.
+     *
+     * @return the node set, or null if it is not cached
+     */
+    static List<Object> lookup(SynapseMessageContext synCtx, SynapseXPath xpath) {
+        XPathResultCache cache = get(synCtx);
+        return cache == null ? null : cache.results.get(xpath);
+    }
+
+    /**
+     * Drops the cached results, after the envelope of the message has been changed in place.
+     *
+     * @param synCtx the message
+     */
+    public static void invalidate(SynapseMessageContext synCtx) {
+        if (get(synCtx) != null) {
+            synCtx.setProperty(PROPERTY, EMPTY);
+        }
+    }
+
+    /**
+     * @return the cache of the message, or null if there is none that holds results for this
+     *         message context and its current envelope
+     */
+    private static XPathResultCache get(SynapseMessageContext synCtx) {
+        // Checking the key first, as the Axis2 message context is searched for missing ones
+        if (!synCtx.getPropertyKeySet().contains(PROPERTY)) {
+            return null;
+        }
+        Object value = synCtx.getProperty(PROPERTY);
+        if (!(value instanceof XPathResultCache)) {
+            return null;
+        }
+        XPathResultCache cache = (XPathResultCache) value;
+        if (cache.owner != synCtx || cache.envelope != synCtx.getEnvelope()) {
+            return null;
+        }
+        return cache;
+    }
+
+    @Override
+    public String toString() {
+        return "XPathResultCache" + results.keySet();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.aspects.statistics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import org.apache.synapse.Identifiable;
+import org.apache.synapse.aspects.ComponentType;
+import org.apache.synapse.aspects.statistics.view.InOutStatisticsView;
+import org.apache.synapse.aspects.statistics.view.Statistics;
+
+public class StatisticsCollectorTest extends TestCase {
+
+    public void testRingBufferOrder() {
+        StatisticsRingBuffer<Integer> buffer = new StatisticsRingBuffer<Integer>(3);
+        assertEquals(4, buffer.capacity());
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(buffer.offer(i));
+            }
+            assertFalse(buffer.offer(4));
+            assertEquals(4, buffer.size());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Integer.valueOf(i), buffer.poll());
+            }
+            assertNull(buffer.poll());
+            assertEquals(0, buffer.size());
+        }
+    }
+
+    public void testRingBufferConcurrentProducers() throws Exception {
+        final int producers = 4;
+        final int perProducer = 10000;
+        final StatisticsRingBuffer<Integer> buffer = new StatisticsRingBuffer<Integer>(64);
+        final CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield();
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        int received = 0;
+        while (received < producers * perProducer) {
+            Integer value = buffer.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = value / perProducer;
+            // Elements of one producer come out in the order they were added
+            assertEquals(last[producer] + 1, value % perProducer);
+            last[producer] = value % perProducer;
+            received++;
+        }
+        done.await();
+        assertNull(buffer.poll());
+    }
+
+    public void testCollectOnce() {
+        StatisticsCollector collector = new StatisticsCollector(2, 0, 0);
+        StatisticsRecord record = createRecord("seq");
+        assertFalse(collector.contains(record));
+        collector.collect(record);
+        collector.collect(record);
+        assertTrue(collector.contains(record));
+
+        collector.aggregate(System.currentTimeMillis());
+        InOutStatisticsView view = getSequenceView(collector, "seq");
+        assertNotNull(view);
+        assertEquals(1, view.getInStatistics().getCount());
+    }
+
+    public void testDroppedRecords() {
+        StatisticsCollector collector = new StatisticsCollector(2, 0, 0);
+        for (int i = 0; i < 3; i++) {
+            collector.collect(createRecord("seq"));
+        }
+        assertEquals(1, collector.getDroppedRecordCount());
+
+        collector.aggregate(System.currentTimeMillis());
+        assertEquals(2, getSequenceView(collector, "seq").getInStatistics().getCount());
+    }
+
+    public void testIdleTime() {
+        StatisticsCollector collector = new StatisticsCollector(16, 0, 60000);
+        StatisticsRecord record = createRecord("seq");
+        collector.collect(record);
+
+        collector.aggregate(record.getLastUpdated());
+        assertNull(getSequenceView(collector, "seq"));
+        collector.aggregate(record.getLastUpdated() + 60000);
+        assertNotNull(getSequenceView(collector, "seq"));
+
+        collector.clearStatistics();
+        collector.aggregate(record.getLastUpdated() + 60000);
+        assertNull(getSequenceView(collector, "seq"));
+    }
+
+    private static StatisticsRecord createRecord(final String id) {
+        StatisticsRecord record = new StatisticsRecord("msg", "127.0.0.1", "localhost");
+        Identifiable identifiable = new Identifiable() {
+            public String getId() {
+                return id;
+            }
+        };
+        // A sequence is logged when it starts and when it ends
+        record.collect(identifiable, ComponentType.SEQUENCE, false);
+        record.collect(identifiable, ComponentType.SEQUENCE, false);
+        return record;
+    }
+
+    private static InOutStatisticsView getSequenceView(StatisticsCollector collector,
+                                                       String id) {
+        Map<String, InOutStatisticsView> views =
+                collector.getView(ComponentType.SEQUENCE).get(Statistics.ALL);
+        return views == null ? null : views.get(id);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.core.axis2;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.SynapseMessageContext;
+import org.apache.synapse.endpoints.ReplayableEnvelope;
+import org.apache.synapse.mediators.MediatorUtils;
+
+public class TimeoutHandlerTest extends TestCase {
+
+    private final String prefix = "timeout-test-" + System.nanoTime() + "-";
+
+    public void testDiscardReleasesTheBufferedEnvelope() throws Exception {
+        SynapseMessageContext synCtx = createBufferedMessage();
+        assertEquals(1, countTemporaryFiles());
+
+        expire(synCtx, SynapseConstants.DISCARD);
+        assertEquals(0, countTemporaryFiles());
+    }
+
+    public void testFaultWithoutHandlerReleasesTheBufferedEnvelope() throws Exception {
+        SynapseMessageContext synCtx = createBufferedMessage();
+        assertEquals(1, countTemporaryFiles());
+
+        expire(synCtx, SynapseConstants.DISCARD_AND_FAULT);
+        assertEquals(0, countTemporaryFiles());
+    }
+
+    private SynapseMessageContext createBufferedMessage() throws Exception {
+        StringBuilder body = new StringBuilder("<order xmlns='urn:test'>");
+        for (int i = 0; i < 100; i++) {
+            body.append("<item>item").append(i).append("</item>");
+        }
+        body.append("</order>");
+        SynapseMessageContext synCtx = MediatorUtils.getTestContext(body.toString());
+
+        // a buffer of 64 bytes in memory, so that the message overflows to a file
+        Properties props = synCtx.getConfiguration().getProperties();
+        props.setProperty(SynapseConstants.THRESHOLD_CHUNKS, "1");
+        props.setProperty(SynapseConstants.CHUNK_SIZE, "64");
+        props.setProperty(SynapseConstants.TEMP_FILE_PREFIX, prefix);
+        ReplayableEnvelope.retain(synCtx);
+        return synCtx;
+    }
+
+    private void expire(SynapseMessageContext synCtx, int timeOutAction) {
+        CallbackStore callbacks = new CallbackStore(10, 60000);
+        AsyncCallback callback = new AsyncCallback(synCtx);
+        callback.setTimeOutAction(timeOutAction);
+        callback.setTimeOutOn(System.currentTimeMillis() - 1000);
+        callbacks.put("urn:uuid:1", callback);
+
+        new TimeoutHandler(callbacks).run();
+        assertEquals(0, callbacks.size());
+    }
+
+    private int countTemporaryFiles() {
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        return dir.list(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith(prefix);
+            }
+        }).length;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+import junit.framework.TestCase;
+
+public class ConcurrencyLimiterTest extends TestCase {
+
+    public void testGrowsWhileHealthy() {
+        for (String algorithm : new String[] {ConcurrencyLimiter.GRADIENT, ConcurrencyLimiter.AIMD}) {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(algorithm, 10, 1, 100);
+            for (int i = 0; i < 500; i++) {
+                limiter.onSample(50, limiter.getLimit(), true);
+            }
+            assertTrue(algorithm + " : " + limiter.getLimit(), limiter.getLimit() > 10);
+            assertTrue(limiter.getLimit() <= 100);
+        }
+    }
+
+    public void testShrinksWhenSlow() {
+        for (String algorithm : new String[] {ConcurrencyLimiter.GRADIENT, ConcurrencyLimiter.AIMD}) {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(algorithm, 50, 5, 100);
+            for (int i = 0; i < 20; i++) {
+                limiter.onSample(50, limiter.getLimit(), true);
+            }
+            int healthy = limiter.getLimit();
+            for (int i = 0; i < 10; i++) {
+                limiter.onSample(1000, limiter.getLimit(), true);
+            }
+            assertTrue(algorithm + " : " + limiter.getLimit(), limiter.getLimit() < healthy);
+            assertTrue(limiter.getLimit() >= 5);
+        }
+    }
+
+    public void testShrinksOnFailureDownToMinimum() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimiter.GRADIENT, 20, 2, 40);
+        limiter.onSample(30000, 20, false);
+        assertTrue(limiter.getLimit() < 20);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(30000, 20, false);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    public void testIgnoresSamplesFarFromLimit() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(ConcurrencyLimiter.AIMD, 20, 1, 40);
+        limiter.onSample(50, 1, true);
+        limiter.onSample(5000, 1, true);
+        assertEquals(20, limiter.getLimit());
+    }
+
+    public void testInvalidSettings() {
+        try {
+            new ConcurrencyLimiter("vegas", 10, 1, 100);
+            fail("unknown algorithm accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            new ConcurrencyLimiter(ConcurrencyLimiter.AIMD, 200, 1, 100);
+            fail("initial limit above the maximum accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.synapse.commons.util.TemporaryData;
+
+public class ReplayableEnvelopeTest extends TestCase {
+
+    private SOAPEnvelope createEnvelope(int items) {
+        SOAPFactory fac = OMAbstractFactory.getSOAP12Factory();
+        SOAPEnvelope envelope = fac.getDefaultEnvelope();
+        OMElement order = fac.createOMElement("order", fac.createOMNamespace("urn:test", "t"));
+        for (int i = 0; i < items; i++) {
+            OMElement item = fac.createOMElement("item", order.getNamespace(), order);
+            item.setText("item" + i);
+        }
+        envelope.getBody().addChild(order);
+        return envelope;
+    }
+
+    public void testReplayAfterConsumingCopy() throws Exception {
+        String expected = createEnvelope(10).toString();
+        ReplayableEnvelope replayable = new ReplayableEnvelope(createEnvelope(10),
+                new TemporaryData(16, 1024, "test", ".dat"));
+
+        // sending the first copy consumes it
+        SOAPEnvelope first = replayable.newEnvelope();
+        first.serializeAndConsume(new ByteArrayOutputStream());
+
+        SOAPEnvelope second = replayable.newEnvelope();
+        assertEquals(expected, second.toString());
+    }
+
+    public void testReplayFromTemporaryFile() throws Exception {
+        String expected = createEnvelope(500).toString();
+        // a buffer of 256 bytes in memory, so that the message overflows to a file
+        TemporaryData data = new TemporaryData(4, 64, "test", ".dat");
+        ReplayableEnvelope replayable = new ReplayableEnvelope(createEnvelope(500), data);
+
+        assertTrue(data.getLength() > 256);
+        assertEquals(expected, replayable.newEnvelope().toString());
+        assertEquals(expected, replayable.newEnvelope().toString());
+        data.release();
+    }
+
+    public void testReplayClosesThePreviousStream() throws Exception {
+        final int[] opened = new int[1];
+        final int[] closed = new int[1];
+        TemporaryData data = new TemporaryData(4, 64, "test", ".dat") {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                opened[0]++;
+                return new FilterInputStream(super.getInputStream()) {
+                    @Override
+                    public void close() throws IOException {
+                        closed[0]++;
+                        super.close();
+                    }
+                };
+            }
+        };
+        ReplayableEnvelope replayable = new ReplayableEnvelope(createEnvelope(500), data);
+
+        replayable.newEnvelope();
+        replayable.newEnvelope();
+        assertEquals(2, opened[0]);
+        assertEquals(1, closed[0]);
+
+        replayable.release();
+        assertEquals(2, closed[0]);
+    }
+}
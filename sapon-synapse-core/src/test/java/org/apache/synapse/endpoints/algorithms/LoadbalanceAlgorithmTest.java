@@ -0,0 +1,188 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.synapse.SynapseMessageContext;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.endpoints.Endpoint;
+import org.apache.synapse.endpoints.EndpointContext;
+import org.apache.synapse.endpoints.EndpointView;
+
+public class LoadbalanceAlgorithmTest extends TestCase {
+
+    private List<Endpoint> endpoints(TestEndpoint... endpoints) {
+        List<Endpoint> list = new ArrayList<Endpoint>();
+        for (TestEndpoint endpoint : endpoints) {
+            list.add(endpoint);
+        }
+        return list;
+    }
+
+    public void testRoundRobinSkipsEndpointsNotReady() {
+        TestEndpoint a = new TestEndpoint("a");
+        TestEndpoint b = new TestEndpoint("b");
+        TestEndpoint c = new TestEndpoint("c");
+        RoundRobin algorithm = new RoundRobin(endpoints(a, b, c));
+        AlgorithmContext context = new AlgorithmContext(false, null, "lb");
+
+        assertSame(a, algorithm.getNextEndpoint(null, context));
+        assertSame(b, algorithm.getNextEndpoint(null, context));
+        b.ready = false;
+        assertSame(c, algorithm.getNextEndpoint(null, context));
+        assertSame(a, algorithm.getNextEndpoint(null, context));
+        assertSame(c, algorithm.getNextEndpoint(null, context));
+
+        a.ready = false;
+        c.ready = false;
+        assertNull(algorithm.getNextEndpoint(null, context));
+    }
+
+    public void testWeightedRoundRobinInterleavesByWeight() {
+        TestEndpoint a = new TestEndpoint("a");
+        TestEndpoint b = new TestEndpoint("b");
+        WeightedRoundRobin algorithm = new WeightedRoundRobin(endpoints(a, b));
+        algorithm.setWeights(new int[] {4, 2});
+        AlgorithmContext context = new AlgorithmContext(false, null, "lb");
+
+        StringBuilder sequence = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            sequence.append(algorithm.getNextEndpoint(null, context).getName());
+        }
+        assertEquals("abaaba", sequence.toString());
+        assertEquals(4, algorithm.getWeight(0));
+        assertEquals(1, algorithm.getWeight(2));
+
+        b.ready = false;
+        for (int i = 0; i < 3; i++) {
+            assertSame(a, algorithm.getNextEndpoint(null, context));
+        }
+    }
+
+    public void testLeastOutstandingRequests() {
+        TestEndpoint a = new TestEndpoint("a");
+        TestEndpoint b = new TestEndpoint("b");
+        TestEndpoint c = new TestEndpoint("c");
+        LeastOutstandingRequests algorithm = new LeastOutstandingRequests(endpoints(a, b, c));
+        AlgorithmContext context = new AlgorithmContext(false, null, "lb");
+
+        a.inFlight = 3;
+        b.inFlight = 1;
+        c.inFlight = 2;
+        assertSame(b, algorithm.getNextEndpoint(null, context));
+        b.ready = false;
+        assertSame(c, algorithm.getNextEndpoint(null, context));
+    }
+
+    public void testLeastResponseTime() {
+        TestEndpoint a = new TestEndpoint("a");
+        TestEndpoint b = new TestEndpoint("b");
+        LeastResponseTime algorithm = new LeastResponseTime(endpoints(a, b));
+        AlgorithmContext context = new AlgorithmContext(false, null, "lb");
+
+        // an endpoint not heard of yet gets a message, unless it already has one
+        a.responseTime = 10;
+        assertSame(b, algorithm.getNextEndpoint(null, context));
+        b.inFlight = 1;
+        assertSame(a, algorithm.getNextEndpoint(null, context));
+
+        // the fast endpoint is used as long as it keeps up
+        b.responseTime = 50;
+        b.inFlight = 0;
+        a.inFlight = 2;
+        assertSame(a, algorithm.getNextEndpoint(null, context));
+        a.inFlight = 5;
+        assertSame(b, algorithm.getNextEndpoint(null, context));
+    }
+
+    private static class TestEndpoint implements Endpoint {
+
+        private String name;
+        boolean ready = true;
+        int inFlight = 0;
+        double responseTime = -1;
+
+        TestEndpoint(String name) {
+            this.name = name;
+        }
+
+        public void send(SynapseMessageContext synMessageContext) {
+        }
+
+        public void setParentEndpoint(Endpoint parentEndpoint) {
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public void onSuccess() {
+        }
+
+        public boolean readyToSend() {
+            return ready;
+        }
+
+        public EndpointContext getContext() {
+            return null;
+        }
+
+        public EndpointView getMetricsMBean() {
+            return null;
+        }
+
+        public int getInFlightCount() {
+            return inFlight;
+        }
+
+        public int getConcurrencyLimit() {
+            return -1;
+        }
+
+        public double getAverageResponseTime() {
+            return responseTime;
+        }
+
+        public List<Endpoint> getChildren() {
+            return null;
+        }
+
+        public void onChildEndpointFail(Endpoint endpoint, SynapseMessageContext synCtx) {
+        }
+
+        public void init(SynapseEnvironment se) {
+        }
+
+        public boolean isInitialized() {
+            return true;
+        }
+
+        public void destroy() {
+        }
+    }
+}
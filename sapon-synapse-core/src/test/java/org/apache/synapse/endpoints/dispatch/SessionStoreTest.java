@@ -0,0 +1,77 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.endpoints.dispatch;
+
+import junit.framework.TestCase;
+
+public class SessionStoreTest extends TestCase {
+
+    public void testPutGetRemove() {
+        SessionStore store = new SessionStore(4);
+        SessionInformation a = new SessionInformation("a", null, 1000);
+        store.put(a);
+        assertSame(a, store.get("a"));
+        assertNull(store.get("b"));
+
+        SessionInformation renewed = new SessionInformation("a", null, 2000);
+        store.put(renewed);
+        assertSame(renewed, store.get("a"));
+        assertEquals(1, store.size());
+
+        store.remove("a");
+        assertNull(store.get("a"));
+        assertEquals(0, store.size());
+    }
+
+    public void testRemoveExpired() {
+        SessionStore store = new SessionStore(4);
+        for (int i = 0; i < 100; i++) {
+            store.put(new SessionInformation("s" + i, null, i * 10));
+        }
+        // renewing a session must keep it alive past its first expiry time
+        store.put(new SessionInformation("s0", null, 5000));
+
+        assertEquals(49, store.removeExpired(500));
+        assertEquals(51, store.size());
+        assertNotNull(store.get("s0"));
+        assertNull(store.get("s1"));
+        assertNotNull(store.get("s51"));
+
+        assertEquals(50, store.removeExpired(1000));
+        assertEquals(1, store.size());
+        assertEquals(1, store.removeExpired(6000));
+        assertEquals(0, store.size());
+    }
+
+    public void testLeastRecentlyUsedEviction() {
+        SessionStore store = new SessionStore(1);
+        store.setMaxSessions(3);
+        store.put(new SessionInformation("a", null, 1000));
+        store.put(new SessionInformation("b", null, 1000));
+        store.put(new SessionInformation("c", null, 1000));
+        store.get("a");
+        store.put(new SessionInformation("d", null, 1000));
+
+        assertEquals(3, store.size());
+        assertNotNull(store.get("a"));
+        assertNull(store.get("b"));
+        assertEquals(3, store.removeExpired(2000));
+    }
+}
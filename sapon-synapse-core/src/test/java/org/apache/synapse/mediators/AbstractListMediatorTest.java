@@ -0,0 +1,136 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.synapse.SynapseMessageContext;
+import org.apache.synapse.util.xpath.SynapseXPath;
+import org.apache.synapse.util.xpath.XPathResultCache;
+
+public class AbstractListMediatorTest extends TestCase {
+
+    private static final String ORDER =
+        "<n:Order xmlns:n='urn:n' type='big'><n:Item>i1</n:Item></n:Order>";
+
+    private final List<Boolean> seen = new ArrayList<Boolean>();
+
+    public void testConsecutiveSourcesShareOnePass() throws Exception {
+        SynapseMessageContext synCtx = MediatorUtils.getTestContext(ORDER);
+        AbstractListMediator list = new TestListMediator();
+        list.addChild(new SourceMediator("$body/n:Order/@type", false));
+        // Removes the item after the results were computed; a source mediator should not do
+        // this, but it shows that the next one is served from the cache
+        list.addChild(new SourceMediator("//n:Item", true));
+        list.addChild(new SourceMediator("//n:Item", false));
+
+        assertTrue(list.mediate(synCtx));
+        assertEquals("[true, true, true]", seen.toString());
+    }
+
+    public void testOtherMediatorsInvalidateTheResults() throws Exception {
+        SynapseMessageContext synCtx = MediatorUtils.getTestContext(ORDER);
+        AbstractListMediator list = new TestListMediator();
+        list.addChild(new SourceMediator("$body/n:Order/@type", false));
+        list.addChild(new SourceMediator("//n:Item", false));
+        list.addChild(new DetachItemMediator());
+        list.addChild(new SourceMediator("//n:Item", false));
+
+        assertTrue(list.mediate(synCtx));
+        assertEquals("[true, true, false]", seen.toString());
+    }
+
+    public void testResultsAreNotUsedByOtherMessages() throws Exception {
+        SynapseMessageContext synCtx = MediatorUtils.getTestContext(ORDER);
+        SynapseXPath item = getXPath("//n:Item");
+        XPathResultCache.evaluate(synCtx, Arrays.asList(
+                getXPath("$body/n:Order/@type"), item));
+        synCtx.getEnvelope().getBody().getFirstElement().getFirstElement().detach();
+        assertTrue(item.booleanValueOf(synCtx));
+
+        // A message carrying the cache of another one, over the same envelope, ignores it
+        SynapseMessageContext other = MediatorUtils.getTestContext(ORDER);
+        other.setEnvelope(synCtx.getEnvelope());
+        other.setProperty(XPathResultCache.PROPERTY, synCtx.getProperty(XPathResultCache.PROPERTY));
+        assertFalse(item.booleanValueOf(other));
+    }
+
+    private static SynapseXPath getXPath(String expr) throws Exception {
+        SynapseXPath xpath = new SynapseXPath(expr);
+        xpath.addNamespace("n", "urn:n");
+        return xpath;
+    }
+
+    private static void detachItem(SynapseMessageContext synCtx) {
+        OMElement item = synCtx.getEnvelope().getBody().getFirstElement().getFirstElement();
+        if (item != null) {
+            item.detach();
+        }
+    }
+
+    private static class TestListMediator extends AbstractListMediator {
+        public String getType() {
+            return "TestListMediator";
+        }
+    }
+
+    private class SourceMediator extends AbstractMediator implements XPathSourceMediator {
+        private final SynapseXPath xpath;
+        private final boolean detach;
+
+        SourceMediator(String expr, boolean detach) throws Exception {
+            this.xpath = getXPath(expr);
+            this.detach = detach;
+        }
+
+        public boolean mediate(SynapseMessageContext synCtx) {
+            if (detach) {
+                detachItem(synCtx);
+            }
+            seen.add(xpath.booleanValueOf(synCtx));
+            return true;
+        }
+
+        public List<SynapseXPath> getXPathSources() {
+            return Collections.singletonList(xpath);
+        }
+
+        public String getType() {
+            return "SourceMediator";
+        }
+    }
+
+    private static class DetachItemMediator extends AbstractMediator {
+        public boolean mediate(SynapseMessageContext synCtx) {
+            detachItem(synCtx);
+            return true;
+        }
+
+        public String getType() {
+            return "DetachItemMediator";
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.filters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+public class SwitchCaseMatcherTest extends TestCase {
+
+    private static SwitchCaseMatcher matcher(String... regexes) {
+        List<Pattern> patterns = new ArrayList<Pattern>();
+        for (String regex : regexes) {
+            patterns.add(regex == null ? null : Pattern.compile(regex));
+        }
+        return new SwitchCaseMatcher(patterns);
+    }
+
+    public void testLiterals() {
+        SwitchCaseMatcher matcher = matcher("IBM", "MSFT", "IBM");
+        assertEquals(0, matcher.match("IBM"));
+        assertEquals(1, matcher.match("MSFT"));
+        assertEquals(-1, matcher.match("SUN"));
+        assertEquals(-1, matcher.match("IB"));
+    }
+
+    public void testFirstMatchingCaseWins() {
+        SwitchCaseMatcher matcher = matcher("I.*", "IBM", "(a)(b)?c", "abc", ".*");
+        assertEquals(0, matcher.match("IBM"));
+        assertEquals(2, matcher.match("abc"));
+        assertEquals(2, matcher.match("ac"));
+        assertEquals(4, matcher.match("MSFT"));
+        assertEquals(4, matcher.match(""));
+    }
+
+    public void testLiteralBeforeRegex() {
+        SwitchCaseMatcher matcher = matcher("IBM", "I.*", "(x|y)z");
+        assertEquals(0, matcher.match("IBM"));
+        assertEquals(1, matcher.match("IBX"));
+        assertEquals(2, matcher.match("yz"));
+        assertEquals(-1, matcher.match("xyz"));
+    }
+
+    public void testSeparateCases() {
+        SwitchCaseMatcher matcher = matcher("(a)\\1", "(?i)ibm", "a+", "IBM",
+                "(?<sym>[A-Z]+)");
+        assertEquals(0, matcher.match("aa"));
+        assertEquals(1, matcher.match("IBM"));
+        assertEquals(2, matcher.match("a"));
+        assertEquals(4, matcher.match("SUN"));
+        assertEquals(-1, matcher.match("Sun"));
+    }
+
+    public void testAlternationDoesNotLeak() {
+        SwitchCaseMatcher matcher = matcher("a|b", "c");
+        assertEquals(0, matcher.match("b"));
+        assertEquals(1, matcher.match("c"));
+        assertEquals(-1, matcher.match("bc"));
+    }
+
+    public void testNullCases() {
+        SwitchCaseMatcher matcher = matcher(null, "IBM", null, "M.*");
+        assertEquals(1, matcher.match("IBM"));
+        assertEquals(3, matcher.match("MSFT"));
+        assertEquals(-1, matcher.match("SUN"));
+    }
+}
@@ -39,6 +39,8 @@ import org.apache.synapse.util.jaxp.AXIOMResultBuilderFactory;
 import org.apache.synapse.util.jaxp.AXIOMSourceBuilderFactory;
 import org.apache.synapse.util.jaxp.DOOMResultBuilderFactory;
 import org.apache.synapse.util.jaxp.DOOMSourceBuilderFactory;
+import org.apache.synapse.util.jaxp.StAXResultBuilderFactory;
+import org.apache.synapse.util.jaxp.StAXSourceBuilderFactory;
 import org.apache.synapse.util.jaxp.StreamResultBuilderFactory;
 import org.apache.synapse.util.jaxp.StreamSourceBuilderFactory;
 import org.apache.synapse.util.xpath.SourceXPathSupport;
@@ -50,12 +52,14 @@ public class XSLTMediatorTest extends TestCase {
     private static final Class<?>[] sourceBuilderFactories = {
         DOOMSourceBuilderFactory.class,
         StreamSourceBuilderFactory.class,
-        AXIOMSourceBuilderFactory.class };
+        AXIOMSourceBuilderFactory.class,
+        StAXSourceBuilderFactory.class };
 
     private static final Class<?>[] resultBuilderFactories = {
         DOOMResultBuilderFactory.class,
         StreamResultBuilderFactory.class,
-        AXIOMResultBuilderFactory.class };
+        AXIOMResultBuilderFactory.class,
+        StAXResultBuilderFactory.class };
 
     private static final String SOURCE =
         "<m0:CheckPriceRequest xmlns:m0=\"http://services.samples/xsd\">\n" +
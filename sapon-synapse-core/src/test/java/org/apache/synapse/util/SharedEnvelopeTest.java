@@ -0,0 +1,83 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+
+public class SharedEnvelopeTest extends TestCase {
+
+    private SOAPEnvelope createEnvelope() {
+        SOAPFactory fac = OMAbstractFactory.getSOAP11Factory();
+        SOAPEnvelope envelope = fac.getDefaultEnvelope();
+        OMElement order = fac.createOMElement("order", fac.createOMNamespace("urn:test", "t"));
+        for (int i = 0; i < 3; i++) {
+            OMElement item = fac.createOMElement("item", order.getNamespace(), order);
+            item.setText("item" + i);
+        }
+        envelope.getBody().addChild(order);
+        return envelope;
+    }
+
+    public void testCopiesAreEqualToOriginal() throws Exception {
+        SOAPEnvelope original = createEnvelope();
+        SharedEnvelope shared = new SharedEnvelope(original);
+        assertTrue(shared.getSize() > 0);
+
+        SOAPEnvelope copy = shared.newEnvelope();
+        assertEquals(original.toString(), copy.toString());
+        assertEquals("order", copy.getBody().getFirstElement().getLocalName());
+    }
+
+    public void testCopiesAreIndependent() throws Exception {
+        SOAPEnvelope original = createEnvelope();
+        String before = original.toString();
+        SharedEnvelope shared = new SharedEnvelope(original);
+
+        SOAPEnvelope first = shared.newEnvelope();
+        SOAPEnvelope second = shared.newEnvelope();
+        first.getBody().getFirstElement().getFirstElement().detach();
+
+        assertEquals(before, original.toString());
+        assertEquals(before, second.toString());
+        assertFalse(before.equals(first.toString()));
+    }
+
+    public void testAppendToCopy() throws Exception {
+        SharedEnvelope shared = new SharedEnvelope(createEnvelope());
+        SOAPEnvelope copy = shared.newEnvelope();
+
+        OMElement order = copy.getBody().getFirstElement();
+        order.build();
+        OMElement item = copy.getOMFactory().createOMElement("item", order.getNamespace());
+        item.setText("item3");
+        order.addChild(item);
+
+        int count = 0;
+        for (OMElement e : order.getChildElements()) {
+            assertEquals("item" + count++, e.getText());
+        }
+        assertEquals(4, count);
+    }
+}
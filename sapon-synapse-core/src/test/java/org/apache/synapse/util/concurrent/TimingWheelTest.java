@@ -0,0 +1,89 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class TimingWheelTest extends TestCase {
+
+    public void testExpiresAtDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 40);
+        assertEquals(2, wheel.size());
+
+        assertTrue(wheel.expire(20).isEmpty());
+        assertEquals(Collections.singletonList("a"), wheel.expire(30));
+        assertTrue(wheel.expire(39).isEmpty());
+        assertEquals(Collections.singletonList("b"), wheel.expire(40));
+        assertEquals(0, wheel.size());
+    }
+
+    public void testPastDeadlineExpiresAtOnce() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 1000);
+        wheel.schedule("a", 500);
+        assertEquals(Collections.singletonList("a"), wheel.expire(1000));
+    }
+
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<String>(10, 0);
+        TimingWheel.Timeout<String> a = wheel.schedule("a", 100);
+        TimingWheel.Timeout<String> b = wheel.schedule("b", 100);
+        wheel.expire(50);
+        assertTrue(a.cancel());
+        assertFalse(a.cancel());
+        assertEquals(1, wheel.size());
+        assertEquals(Collections.singletonList("b"), wheel.expire(100));
+        assertTrue(b.isExpired());
+        assertFalse(b.cancel());
+    }
+
+    public void testCascadesAcrossLevels() {
+        long tick = 1;
+        TimingWheel<Long> wheel = new TimingWheel<Long>(tick, 7);
+        List<Long> deadlines = new ArrayList<Long>();
+        long span = TimingWheel.SLOTS;
+        for (int level = 0; level < 3; level++) {
+            deadlines.add(7 + span - 1);
+            deadlines.add(7 + span);
+            deadlines.add(7 + span + 1);
+            span *= TimingWheel.SLOTS;
+        }
+        for (Long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        List<Long> expired = new ArrayList<Long>();
+        for (long now = 7; now <= 7 + span; now += 13) {
+            for (Long deadline : wheel.expire(now)) {
+                assertTrue("expired early: " + deadline, deadline <= now);
+                assertTrue("expired late: " + deadline, now - deadline < 13);
+                expired.add(deadline);
+            }
+        }
+        Collections.sort(expired);
+        assertEquals(deadlines.size(), expired.size());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.jaxp;
+
+import java.io.StringReader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+
+import junit.framework.TestCase;
+
+import org.apache.synapse.util.jaxp.CompilationCache.PooledTemplates;
+
+public class CompilationCacheTest extends TestCase {
+
+    private static final String XSLT =
+        "<xsl:stylesheet version='1.0' xmlns:xsl='http://www.w3.org/1999/XSL/Transform'>" +
+        "<xsl:template match='/'><out/></xsl:template></xsl:stylesheet>";
+
+    public void testKeyDependsOnContent() {
+        String k1 = new CompilationCache.KeyBuilder().add("a").add("bc").build();
+        String k2 = new CompilationCache.KeyBuilder().add("ab").add("c").build();
+        String k3 = new CompilationCache.KeyBuilder().add("a").add("bc").build();
+        assertFalse(k1.equals(k2));
+        assertEquals(k1, k3);
+    }
+
+    public void testSingleFlight() throws Exception {
+        final CompilationCache<PooledTemplates> cache = new CompilationCache<PooledTemplates>();
+        final AtomicInteger compilations = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Callable<PooledTemplates> compiler = new Callable<PooledTemplates>() {
+            public PooledTemplates call() throws Exception {
+                compilations.incrementAndGet();
+                Thread.sleep(100);
+                Templates templates = TransformerFactory.newInstance().newTemplates(
+                        new StreamSource(new StringReader(XSLT)));
+                return new PooledTemplates(templates);
+            }
+        };
+        final PooledTemplates[] results = new PooledTemplates[8];
+        Thread[] threads = new Thread[results.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        results[index] = cache.get("key", compiler);
+                    } catch (Exception e) {
+                        // results[index] stays null
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, compilations.get());
+        for (PooledTemplates result : results) {
+            assertSame(results[0], result);
+        }
+    }
+
+    public void testFailureNotCached() throws Exception {
+        CompilationCache<PooledTemplates> cache = new CompilationCache<PooledTemplates>();
+        try {
+            cache.get("key", new Callable<PooledTemplates>() {
+                public PooledTemplates call() throws Exception {
+                    throw new IllegalStateException("compilation failed");
+                }
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        assertEquals(0, cache.size());
+    }
+
+    public void testTransformerReuse() throws Exception {
+        PooledTemplates templates = new PooledTemplates(TransformerFactory.newInstance()
+                .newTemplates(new StreamSource(new StringReader(XSLT))));
+        Transformer t1 = templates.acquire();
+        Transformer t2 = templates.acquire();
+        assertNotSame(t1, t2);
+        templates.release(t1);
+        assertSame(t1, templates.acquire());
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.xpath;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMAttribute;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.om.xpath.AXIOMXPath;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
+import org.apache.synapse.SynapseMessageContext;
+import org.apache.synapse.mediators.MediatorUtils;
+import org.jaxen.Context;
+import org.jaxen.UnresolvableException;
+
+public class StreamingXPathEvaluatorTest extends TestCase {
+
+    private static final String SOAP_NS = "http://schemas.xmlsoap.org/soap/envelope/";
+
+    private static final String MESSAGE =
+        "<s:Envelope xmlns:s='" + SOAP_NS + "' xmlns:n='urn:n'>" +
+        "<s:Header><n:CorrelationId>c1</n:CorrelationId><n:Other a='1'/></s:Header>" +
+        "<s:Body><n:Order type='big'><n:Item>i1</n:Item><n:Item>i2<n:Item>i3</n:Item></n:Item>" +
+        "<plain>p</plain></n:Order><n:Tail/></s:Body>" +
+        "</s:Envelope>";
+
+    private static SOAPEnvelope getEnvelope() throws Exception {
+        return new StAXSOAPModelBuilder(StAXUtils.createXMLStreamReader(
+                new ByteArrayInputStream(MESSAGE.getBytes("UTF-8"))), null).getSOAPEnvelope();
+    }
+
+    private static SynapseXPath getXPath(String expr) throws Exception {
+        SynapseXPath xpath = new SynapseXPath(expr);
+        xpath.addNamespace("n", "urn:n");
+        xpath.addNamespace("s", SOAP_NS);
+        return xpath;
+    }
+
+    private void assertSameAsJaxen(String expr) throws Exception {
+        SynapseXPath xpath = getXPath(expr);
+        assertNotNull(expr, StreamingXPathEvaluator.compile(xpath.getRootExpr()));
+
+        AXIOMXPath jaxen = new AXIOMXPath(expr);
+        jaxen.addNamespace("n", "urn:n");
+        jaxen.addNamespace("s", SOAP_NS);
+
+        List<?> expected = jaxen.selectNodes(getEnvelope());
+        List<?> actual = xpath.selectNodes(getEnvelope());
+        assertEquals(expr, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i) instanceof OMAttribute) {
+                // Jaxen wraps the attributes it returns
+                assertEquals(expr, ((OMAttribute) expected.get(i)).getAttributeValue(),
+                        ((OMAttribute) actual.get(i)).getAttributeValue());
+            } else {
+                assertSame(expr, expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    public void testSameResultsAsJaxen() throws Exception {
+        assertSameAsJaxen("//n:CorrelationId");
+        assertSameAsJaxen("//n:Item");
+        assertSameAsJaxen("//n:Item//n:Item");
+        assertSameAsJaxen("//n:Order/n:Item/text()");
+        assertSameAsJaxen("//n:Order/@type");
+        assertSameAsJaxen("//n:Order/@*");
+        assertSameAsJaxen("//plain");
+        assertSameAsJaxen("//Item");
+        assertSameAsJaxen("/s:Envelope/s:Header/n:*");
+        assertSameAsJaxen("s:Body/n:Order/plain");
+        assertSameAsJaxen("descendant::n:Item");
+        assertSameAsJaxen("//*");
+    }
+
+    public void testVariables() throws Exception {
+        assertEquals("big", getXPath("$body/n:Order/@type").stringValueOf(getEnvelope()));
+        assertEquals(2, getXPath("$header/*").selectNodes(getEnvelope()).size());
+        assertEquals("1", getXPath("$header/n:Other/@a").stringValueOf(getEnvelope()));
+    }
+
+    public void testUnsupportedExpressions() throws Exception {
+        String[] exprs = { "//n:Item[2]", "//@type", "count(//n:Item)", "$body",
+                           "//n:Item | //n:Tail", "$ctx:test/n:Item", "//n:Item/.." };
+        for (String expr : exprs) {
+            assertNull(expr, StreamingXPathEvaluator.compile(getXPath(expr).getRootExpr()));
+        }
+        assertEquals(3, getXPath("count(//n:Item)").numberValueOf(getEnvelope()).intValue());
+        assertEquals("i2i3", getXPath("//n:Item[2]").stringValueOf(getEnvelope()));
+    }
+
+    public void testUnboundPrefix() throws Exception {
+        String[] exprs = { "//x:Item", "//x:*", "//n:Order/@x:*" };
+        for (String expr : exprs) {
+            SynapseXPath xpath = getXPath(expr);
+            assertNotNull(expr, StreamingXPathEvaluator.compile(xpath.getRootExpr()));
+            try {
+                xpath.selectNodes(getEnvelope());
+                fail(expr + " : expected UnresolvableException");
+            } catch (UnresolvableException e) {
+                // Expected, as reported by Jaxen
+            }
+        }
+    }
+
+    public void testStopsAtFirstMatch() throws Exception {
+        SOAPEnvelope envelope = getEnvelope();
+        assertTrue(getXPath("//n:CorrelationId").booleanValueOf(envelope));
+        assertEquals("c1", getXPath("//n:CorrelationId").stringValueOf(envelope));
+        assertFalse(envelope.getBody().isComplete());
+
+        envelope = getEnvelope();
+        assertEquals("c1", getXPath("$header/n:CorrelationId").stringValueOf(envelope));
+        assertFalse(envelope.getBody().isComplete());
+
+        envelope = getEnvelope();
+        assertFalse(getXPath("//n:Missing").booleanValueOf(envelope));
+        assertTrue(envelope.getBody().isComplete());
+    }
+
+    public void testSharedPass() throws Exception {
+        String[] exprs = { "$header/n:CorrelationId", "$body/n:Order/@type", "//n:Item",
+                           "//n:Order/n:Item/text()", "s:Body/n:Order/plain", "$header/n:*/@*" };
+        SOAPEnvelope envelope = getEnvelope();
+        List<StreamingXPathEvaluator> evaluators = new ArrayList<StreamingXPathEvaluator>();
+        List<Context> contexts = new ArrayList<Context>();
+        for (String expr : exprs) {
+            SynapseXPath xpath = getXPath(expr);
+            evaluators.add(xpath.getStreamingEvaluator());
+            contexts.add(xpath.getContext(envelope));
+        }
+
+        List<List<Object>> results = StreamingXPathEvaluator.evaluateAll(evaluators, contexts);
+        assertEquals(exprs.length, results.size());
+        for (int i = 0; i < exprs.length; i++) {
+            List<?> expected = getXPath(exprs[i]).selectNodes(envelope);
+            assertEquals(exprs[i], expected.size(), results.get(i).size());
+            for (int j = 0; j < expected.size(); j++) {
+                assertSame(exprs[i], expected.get(j), results.get(i).get(j));
+            }
+        }
+    }
+
+    public void testSharedPassStaysInHeader() throws Exception {
+        SOAPEnvelope envelope = getEnvelope();
+        SynapseXPath correlation = getXPath("$header/n:CorrelationId");
+        SynapseXPath other = getXPath("$header/n:Other/@a");
+        List<List<Object>> results = StreamingXPathEvaluator.evaluateAll(
+                Arrays.asList(correlation.getStreamingEvaluator(), other.getStreamingEvaluator()),
+                Arrays.asList(correlation.getContext(envelope), other.getContext(envelope)));
+        assertEquals(1, results.get(0).size());
+        assertEquals(1, results.get(1).size());
+        assertFalse(envelope.getBody().isComplete());
+    }
+
+    public void testResultCache() throws Exception {
+        SynapseMessageContext synCtx = MediatorUtils.getTestContext(
+                "<n:Order xmlns:n='urn:n' type='big'><n:Item>i1</n:Item></n:Order>");
+        SynapseXPath type = getXPath("$body/n:Order/@type");
+        SynapseXPath item = getXPath("//n:Item");
+        SynapseXPath count = getXPath("count(//n:Item)");
+
+        XPathResultCache.evaluate(synCtx, Arrays.asList(type, item, count));
+        assertNotNull(XPathResultCache.lookup(synCtx, type));
+        assertNotNull(XPathResultCache.lookup(synCtx, item));
+        assertNull(XPathResultCache.lookup(synCtx, count));
+        assertEquals("big", type.stringValueOf(synCtx));
+        assertTrue(item.booleanValueOf(synCtx));
+
+        // Changing the message in place goes unnoticed until the cache is invalidated
+        synCtx.getEnvelope().getBody().getFirstElement().getFirstElement().detach();
+        assertTrue(item.booleanValueOf(synCtx));
+        XPathResultCache.invalidate(synCtx);
+        assertNull(XPathResultCache.lookup(synCtx, item));
+        assertFalse(item.booleanValueOf(synCtx));
+
+        // A new envelope is noticed
+        XPathResultCache.evaluate(synCtx, Arrays.asList(type, item));
+        assertNotNull(XPathResultCache.lookup(synCtx, type));
+        synCtx.setEnvelope(getEnvelope());
+        assertNull(XPathResultCache.lookup(synCtx, type));
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.apache.axis2.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import org.apache.axiom.om.OMDataSourceExt;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.ds.OMDataSourceExtBase;
+import org.apache.axiom.om.impl.MTOMXMLStreamWriter;
+import org.apache.axiom.om.impl.builder.StAXOMBuilder;
+import org.apache.axiom.om.util.StAXUtils;
+
+/**
+ * {@link org.apache.axiom.om.OMDataSource} implementation that represents a SOAP body payload
+ * as the raw bytes it was received with.
+ * <p>
+ * The bytes are only parsed when the element is expanded. As long as it is not, serializing the
+ * element to an {@link MTOMXMLStreamWriter} (which is what the SOAP message formatters use)
+ * copies the bytes to the underlying output stream unchanged. Since the payload was cut out of
+ * an envelope, it may use prefixes declared on the envelope or on the body element. These
+ * bindings are passed to the constructor; they are redeclared when the bytes are parsed, and
+ * the raw copy is only done if the writer still has the same bindings in scope.
+ */
+public class PassThroughOMDataSource extends OMDataSourceExtBase<byte[]> {
+    private static final String WRAPPER_NAME = "passThroughWrapper";
+
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+    private final String encoding;
+    private final Map<String,String> namespaces;
+
+    /**
+     * Constructor.
+     *
+     * @param data the buffer containing the payload
+     * @param offset the offset of the start tag of the payload element in the buffer
+     * @param length the length of the payload element in bytes
+     * @param encoding the character encoding of the buffer
+     * @param namespaces the namespace bindings in scope for the payload, mapping prefixes to
+     *                   namespace URIs (the empty prefix stands for the default namespace)
+     */
+    public PassThroughOMDataSource(byte[] data, int offset, int length, String encoding,
+            Map<String,String> namespaces) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.encoding = encoding;
+        this.namespaces = namespaces;
+    }
+
+    @Override
+    public void serialize(OutputStream out, OMOutputFormat format) throws XMLStreamException {
+        String outputEncoding = format.getCharSetEncoding();
+        try {
+            if (outputEncoding == null || outputEncoding.equalsIgnoreCase(encoding)) {
+                out.write(data, offset, length);
+            } else {
+                out.write(getXMLBytes(outputEncoding));
+            }
+        } catch (IOException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    @Override
+    public void serialize(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        if (xmlWriter instanceof MTOMXMLStreamWriter
+                && hasSameBindings(xmlWriter.getNamespaceContext())) {
+            super.serialize(xmlWriter);
+        } else {
+            // Let the object model take care of the namespace declarations that are missing
+            StAXOMBuilder builder = new StAXOMBuilder(getReader());
+            builder.releaseParserOnClose(true);
+            try {
+                builder.getDocumentElement().serializeAndConsume(xmlWriter);
+            } finally {
+                builder.close();
+            }
+        }
+    }
+
+    private boolean hasSameBindings(NamespaceContext context) {
+        if (context == null) {
+            return false;
+        }
+        for (Map.Entry<String,String> entry : namespaces.entrySet()) {
+            if (!entry.getValue().equals(context.getNamespaceURI(entry.getKey()))) {
+                return false;
+            }
+        }
+        if (!namespaces.containsKey("")) {
+            // Unprefixed elements in the payload must not end up in a default namespace
+            String defaultNamespace = context.getNamespaceURI("");
+            if (defaultNamespace != null && defaultNamespace.length() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public XMLStreamReader getReader() throws XMLStreamException {
+        try {
+            StringBuilder tag = new StringBuilder("<").append(WRAPPER_NAME);
+            for (Map.Entry<String,String> entry : namespaces.entrySet()) {
+                tag.append(" xmlns");
+                if (entry.getKey().length() > 0) {
+                    tag.append(':').append(entry.getKey());
+                }
+                tag.append("=\"");
+                appendEscaped(tag, entry.getValue());
+                tag.append('"');
+            }
+            tag.append('>');
+            byte[] startTag = tag.toString().getBytes(encoding);
+            byte[] endTag = ("</" + WRAPPER_NAME + ">").getBytes(encoding);
+            InputStream in = new SequenceInputStream(
+                    new SequenceInputStream(new ByteArrayInputStream(startTag),
+                            new ByteArrayInputStream(data, offset, length)),
+                    new ByteArrayInputStream(endTag));
+            return new UnwrappingStreamReader(StAXUtils.createXMLStreamReader(in, encoding));
+        } catch (UnsupportedEncodingException ex) {
+            throw new XMLStreamException(ex);
+        }
+    }
+
+    private static void appendEscaped(StringBuilder buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&': buffer.append("&amp;"); break;
+                case '<': buffer.append("&lt;"); break;
+                case '"': buffer.append("&quot;"); break;
+                default: buffer.append(c);
+            }
+        }
+    }
+
+    public byte[] getObject() {
+        return Arrays.copyOfRange(data, offset, offset + length);
+    }
+
+    public boolean isDestructiveRead() {
+        return false;
+    }
+
+    public boolean isDestructiveWrite() {
+        return false;
+    }
+
+    public byte[] getXMLBytes(String encoding) throws UnsupportedEncodingException {
+        if (encoding == null || encoding.equalsIgnoreCase(this.encoding)) {
+            return getObject();
+        }
+        return new String(data, offset, length, this.encoding).getBytes(encoding);
+    }
+
+    public void close() {
+    }
+
+    public OMDataSourceExt<byte[]> copy() {
+        return new PassThroughOMDataSource(data, offset, length, encoding, namespaces);
+    }
+
+    /**
+     * Stream reader that hides the wrapper element used to redeclare the inherited namespaces.
+     * The end of the wrapper element is reported as the end of the document.
+     */
+    private static class UnwrappingStreamReader extends StreamReaderDelegate {
+        private int depth;
+        private boolean done;
+
+        public UnwrappingStreamReader(XMLStreamReader parent) {
+            super(parent);
+        }
+
+        @Override
+        public int next() throws XMLStreamException {
+            if (done) {
+                throw new IllegalStateException("End of document reached");
+            }
+            int event = super.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (depth++ == 0) {
+                    return next();
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (--depth == 0) {
+                    done = true;
+                    return XMLStreamConstants.END_DOCUMENT;
+                }
+            }
+            return event;
+        }
+
+        @Override
+        public int nextTag() throws XMLStreamException {
+            int event = next();
+            while ((event == XMLStreamConstants.CHARACTERS && isWhiteSpace())
+                    || event == XMLStreamConstants.SPACE
+                    || event == XMLStreamConstants.COMMENT
+                    || event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+                event = next();
+            }
+            if (event != XMLStreamConstants.START_ELEMENT
+                    && event != XMLStreamConstants.END_ELEMENT) {
+                throw new XMLStreamException("Expected start or end tag");
+            }
+            return event;
+        }
+
+        @Override
+        public boolean hasNext() throws XMLStreamException {
+            return !done && super.hasNext();
+        }
+
+        @Override
+        public int getEventType() {
+            return done ? XMLStreamConstants.END_DOCUMENT : super.getEventType();
+        }
+    }
+}
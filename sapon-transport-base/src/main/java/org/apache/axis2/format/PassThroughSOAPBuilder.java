@@ -0,0 +1,171 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.apache.axis2.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.axiom.om.OMContainer;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.soap.SOAPBody;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.Axis2Constants;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.builder.Builder;
+import org.apache.axis2.builder.BuilderUtil;
+import org.apache.axis2.builder.SOAPBuilder;
+import org.apache.axis2.context.MessageContext;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Message builder for SOAP messages that are mostly passed through unchanged.
+ * <p>
+ * Only the envelope and the SOAP header are parsed, so that addressing and other header based
+ * processing work as usual. The body payload is kept as the raw bytes it was received with, in
+ * an {@link org.apache.axiom.om.OMSourcedElement} backed by a {@link PassThroughOMDataSource}.
+ * If nothing looks into the payload, the SOAP message formatter writes these bytes to the
+ * outgoing message as they are. As soon as something accesses the content of the payload
+ * (e.g. an XPath expression, an XSLT transformation or a mediator changing the body), the
+ * element is expanded and the message behaves like one built by {@link SOAPBuilder}.
+ * <p>
+ * Messages the payload of which cannot be located cheaply (see {@link SOAPBodyLocator}),
+ * messages in encodings other than UTF-8 or the ISO-8859 family and SOAP faults are handed over
+ * to {@link SOAPBuilder}. Since the payload of the remaining messages is an
+ * {@link org.apache.axiom.om.OMSourcedElement} rather than a plain element, this builder should
+ * only be configured (instead of {@link SOAPBuilder}, in the <tt>messageBuilders</tt> section of
+ * <tt>axis2.xml</tt>) if the services deployed don't depend on the concrete type of the body
+ * children.
+ */
+public class PassThroughSOAPBuilder implements Builder {
+    private static final Log log = LogFactory.getLog(PassThroughSOAPBuilder.class);
+
+    private final SOAPBuilder soapBuilder = new SOAPBuilder();
+
+    public OMElement getDocumentElement(InputStream inputStream, String contentType,
+            MessageContext messageContext) throws AxisFault {
+        byte[] message;
+        String encoding;
+        try {
+            message = IOUtils.toByteArray(inputStream);
+            PushbackInputStream pis = BuilderUtil.getPushbackInputStream(
+                    new ByteArrayInputStream(message));
+            encoding = BuilderUtil.getCharSetEncoding(pis, (String)messageContext.getProperty(
+                    Axis2Constants.Configuration.CHARACTER_SET_ENCODING));
+        } catch (IOException ex) {
+            throw new AxisFault("Unable to read message payload", ex);
+        }
+        if (encoding == null) {
+            encoding = "UTF-8";
+        }
+
+        SOAPBodyLocator locator = isSupportedEncoding(encoding)
+                ? SOAPBodyLocator.locate(message, 0, message.length) : null;
+        if (locator == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Payload of message with encoding " + encoding
+                        + " can't be passed through; building it completely");
+            }
+            return soapBuilder.getDocumentElement(new ByteArrayInputStream(message),
+                    contentType, messageContext);
+        }
+
+        // Build the envelope from everything up to the start of the body content
+        byte[] closingTags = locator.getClosingTags();
+        int skeletonLength = locator.getBodyContentStart();
+        byte[] skeleton = new byte[skeletonLength + closingTags.length];
+        System.arraycopy(message, 0, skeleton, 0, skeletonLength);
+        System.arraycopy(closingTags, 0, skeleton, skeletonLength, closingTags.length);
+        SOAPEnvelope envelope = (SOAPEnvelope)soapBuilder.getDocumentElement(
+                new ByteArrayInputStream(skeleton), contentType, messageContext);
+        envelope.build();
+        SOAPBody body = envelope.getBody();
+
+        PassThroughOMDataSource dataSource = new PassThroughOMDataSource(message,
+                locator.getPayloadStart(), locator.getPayloadEnd() - locator.getPayloadStart(),
+                encoding, getNamespaceBindings(body));
+        QName payloadName = getPayloadName(dataSource);
+        OMFactory factory = envelope.getOMFactory();
+        OMNamespace ns = payloadName.getNamespaceURI().length() == 0 ? null
+                : factory.createOMNamespace(payloadName.getNamespaceURI(),
+                        payloadName.getPrefix());
+        body.addChild(factory.createOMElement(dataSource, payloadName.getLocalPart(), ns));
+        return envelope;
+    }
+
+    private static boolean isSupportedEncoding(String encoding) {
+        String name = encoding.toUpperCase();
+        return name.equals("UTF-8") || name.equals("UTF8") || name.equals("US-ASCII")
+                || name.startsWith("ISO-8859-");
+    }
+
+    /**
+     * Collect the namespace bindings in scope for the children of the given element.
+     */
+    private static Map<String,String> getNamespaceBindings(OMElement element) {
+        Map<String,String> bindings = new HashMap<String,String>();
+        OMContainer current = element;
+        while (current instanceof OMElement) {
+            for (OMNamespace ns : ((OMElement)current).getAllDeclaredNamespaces()) {
+                String prefix = ns.getPrefix() == null ? "" : ns.getPrefix();
+                if (!bindings.containsKey(prefix)) {
+                    bindings.put(prefix, ns.getNamespaceURI());
+                }
+            }
+            current = ((OMElement)current).getParent();
+        }
+        return bindings;
+    }
+
+    /**
+     * Get the name of the payload element. This only parses the start tag of the element.
+     */
+    private static QName getPayloadName(PassThroughOMDataSource dataSource) throws AxisFault {
+        try {
+            XMLStreamReader reader = dataSource.getReader();
+            try {
+                while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    // Skip to the payload element
+                }
+                String namespaceURI = reader.getNamespaceURI();
+                String prefix = reader.getPrefix();
+                return new QName(namespaceURI == null ? "" : namespaceURI,
+                        reader.getLocalName(), prefix == null ? "" : prefix);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            throw AxisFault.makeFault(ex);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.apache.axis2.format;
+
+/**
+ * Locates the payload of a SOAP message without parsing it.
+ * <p>
+ * The message is scanned at the byte level, recognizing only as much of the XML syntax as is
+ * needed to track the element depth: start and end tags (including quoted attribute values),
+ * comments, processing instructions and CDATA sections. This only works for encodings in which
+ * these markup characters are always encoded as single ASCII bytes that never occur inside
+ * multi-byte sequences, i.e. UTF-8 and the ASCII based single byte encodings.
+ * <p>
+ * Only messages with exactly one element in the SOAP body (not counting whitespace, comments
+ * and processing instructions) are located. Anything else, including SOAP faults and messages
+ * with a DTD, is left to the regular builders.
+ */
+final class SOAPBodyLocator {
+    private static final byte[] BODY = { 'B', 'o', 'd', 'y' };
+    private static final byte[] FAULT = { 'F', 'a', 'u', 'l', 't' };
+
+    private final byte[] data;
+
+    private int envelopeNameStart, envelopeNameEnd;
+    private int bodyNameStart, bodyNameEnd;
+    private int bodyContentStart = -1;
+    private int payloadStart = -1;
+    private int payloadEnd = -1;
+
+    private SOAPBodyLocator(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Locate the payload in the given message.
+     *
+     * @param data the message
+     * @param offset the offset of the message in the array
+     * @param length the length of the message
+     * @return the locator, or <code>null</code> if the message doesn't have exactly one element
+     *         in its body or isn't well formed
+     */
+    public static SOAPBodyLocator locate(byte[] data, int offset, int length) {
+        SOAPBodyLocator locator = new SOAPBodyLocator(data);
+        return locator.scan(offset, offset + length) ? locator : null;
+    }
+
+    private boolean scan(int pos, int end) {
+        int depth = 0;
+        while (pos < end) {
+            byte b = data[pos];
+            boolean inBody = bodyContentStart >= 0 && depth == 2;
+            if (b != '<') {
+                if (inBody && !isWhitespace(b)) {
+                    return false;
+                }
+                pos++;
+            } else if (startsWith(pos, end, "<?")) {
+                pos = skipPast(pos + 2, end, "?>");
+            } else if (startsWith(pos, end, "<!--")) {
+                pos = skipPast(pos + 4, end, "-->");
+            } else if (startsWith(pos, end, "<![CDATA[")) {
+                if (inBody) {
+                    return false;
+                }
+                pos = skipPast(pos + 9, end, "]]>");
+            } else if (startsWith(pos, end, "<!")) {
+                // DTDs are not allowed in SOAP messages
+                return false;
+            } else if (startsWith(pos, end, "</")) {
+                int close = indexOf(pos + 2, end, (byte)'>');
+                if (close < 0 || depth == 0) {
+                    return false;
+                }
+                depth--;
+                if (bodyContentStart >= 0) {
+                    if (depth == 1) {
+                        return payloadEnd >= 0;
+                    } else if (depth == 2) {
+                        payloadEnd = close + 1;
+                    }
+                }
+                pos = close + 1;
+            } else {
+                int nameStart = pos + 1;
+                int nameEnd = nameEnd(nameStart, end);
+                int close = tagEnd(nameEnd, end);
+                if (close < 0) {
+                    return false;
+                }
+                boolean empty = data[close - 1] == '/';
+                if (depth == 0) {
+                    envelopeNameStart = nameStart;
+                    envelopeNameEnd = nameEnd;
+                } else if (depth == 1 && bodyContentStart < 0
+                        && hasLocalName(nameStart, nameEnd, BODY)) {
+                    if (empty) {
+                        return false;
+                    }
+                    bodyNameStart = nameStart;
+                    bodyNameEnd = nameEnd;
+                    bodyContentStart = close + 1;
+                } else if (inBody) {
+                    if (payloadStart >= 0 || hasLocalName(nameStart, nameEnd, FAULT)) {
+                        return false;
+                    }
+                    payloadStart = pos;
+                    if (empty) {
+                        payloadEnd = close + 1;
+                    }
+                }
+                if (!empty) {
+                    depth++;
+                }
+                pos = close + 1;
+            }
+            if (pos < 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean startsWith(int pos, int end, String prefix) {
+        if (end - pos < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (data[pos + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int skipPast(int pos, int end, String terminator) {
+        for (; pos < end; pos++) {
+            if (startsWith(pos, end, terminator)) {
+                return pos + terminator.length();
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(int pos, int end, byte b) {
+        for (; pos < end; pos++) {
+            if (data[pos] == b) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private int nameEnd(int pos, int end) {
+        while (pos < end && !isWhitespace(data[pos]) && data[pos] != '/' && data[pos] != '>') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int tagEnd(int pos, int end) {
+        while (pos < end) {
+            byte b = data[pos];
+            if (b == '>') {
+                return pos;
+            } else if (b == '"' || b == '\'') {
+                pos = indexOf(pos + 1, end, b);
+                if (pos < 0) {
+                    return -1;
+                }
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private boolean hasLocalName(int nameStart, int nameEnd, byte[] localName) {
+        int start = nameEnd - localName.length;
+        if (start < nameStart || (start > nameStart && data[start - 1] != ':')) {
+            return false;
+        }
+        for (int i = 0; i < localName.length; i++) {
+            if (data[start + i] != localName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    /**
+     * Get the offset of the first byte following the start tag of the SOAP body.
+     */
+    public int getBodyContentStart() {
+        return bodyContentStart;
+    }
+
+    /**
+     * Get the offset of the start tag of the payload element.
+     */
+    public int getPayloadStart() {
+        return payloadStart;
+    }
+
+    /**
+     * Get the offset of the first byte following the end tag of the payload element.
+     */
+    public int getPayloadEnd() {
+        return payloadEnd;
+    }
+
+    /**
+     * Get the end tags that close the SOAP body and the envelope, using the same qualified names
+     * as the corresponding start tags.
+     *
+     * @return the end tags, in the encoding of the message
+     */
+    public byte[] getClosingTags() {
+        int bodyNameLength = bodyNameEnd - bodyNameStart;
+        int envelopeNameLength = envelopeNameEnd - envelopeNameStart;
+        byte[] tags = new byte[bodyNameLength + envelopeNameLength + 6];
+        int pos = 0;
+        tags[pos++] = '<';
+        tags[pos++] = '/';
+        System.arraycopy(data, bodyNameStart, tags, pos, bodyNameLength);
+        pos += bodyNameLength;
+        tags[pos++] = '>';
+        tags[pos++] = '<';
+        tags[pos++] = '/';
+        System.arraycopy(data, envelopeNameStart, tags, pos, envelopeNameLength);
+        pos += envelopeNameLength;
+        tags[pos] = '>';
+        return tags;
+    }
+}
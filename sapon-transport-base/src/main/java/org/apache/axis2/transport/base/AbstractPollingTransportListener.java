@@ -28,6 +28,7 @@ import org.apache.axis2.AxisFault;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.TimerTask;
 import java.util.Timer;
 
@@ -88,7 +89,7 @@ public abstract class AbstractPollingTransportListener<T extends AbstractPollTab
         TimerTask timerTask = new TimerTask() {
             @Override
             public void run() {
-                workerPool.execute(new Runnable() {
+                Runnable pollTask = new Runnable() {
                     public void run() {
                         if (state == BaseConstants.PAUSED) {
                             if (log.isDebugEnabled()) {
@@ -99,7 +100,15 @@ public abstract class AbstractPollingTransportListener<T extends AbstractPollTab
                             poll(entry);
                         }
                     }
-                });
+                };
+                try {
+                    workerPool.execute(pollTask);
+                } catch (RejectedExecutionException e) {
+                    // the worker pool is overloaded, skip this poll
+                    log.warn("Transport " + getTransportName() +
+                            " poll trigger : " + e.getMessage() + ", poll skipped");
+                    onPollCompletion(entry);
+                }
             }
         };
         entry.timerTask = timerTask;
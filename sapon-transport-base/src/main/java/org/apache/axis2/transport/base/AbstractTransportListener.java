@@ -38,6 +38,7 @@ import org.apache.axis2.description.TransportInDescription;
 import org.apache.axis2.description.TransportOutDescription;
 import org.apache.axis2.engine.AxisEngine;
 import org.apache.axis2.transport.TransportListener;
+import org.apache.axis2.transport.base.threads.AdmissionControl;
 import org.apache.axis2.transport.base.threads.WorkerPool;
 import org.apache.axis2.transport.base.threads.WorkerPoolFactory;
 import org.apache.axis2.transport.base.tracker.AxisServiceFilter;
@@ -103,8 +104,18 @@ public abstract class AbstractTransportListener implements TransportListener {
             //this.workerPool = cfgCtx.getThreadPool(); not yet implemented
             throw new AxisFault("Unsupported thread pool for task execution - Axis2 thread pool");
         } else {
+            int maxQueued = ParamUtils.getOptionalParamInt(
+                    transportIn, BaseConstants.TRANSPORT_WORKER_MAX_QUEUED, 0);
+            int maxQueueTime = ParamUtils.getOptionalParamInt(
+                    transportIn, BaseConstants.TRANSPORT_WORKER_MAX_QUEUE_TIME, 0);
+            AdmissionControl admission = null;
+            if (maxQueued > 0 || maxQueueTime > 0) {
+                admission = new AdmissionControl(maxQueued, maxQueueTime);
+            }
             this.workerPool = WorkerPoolFactory.getWorkerPool(
-            10, 20, 5, -1, getTransportName() + "Server Worker thread group", getTransportName() + "-Worker");
+                System.getProperty(WorkerPoolFactory.WORKER_POOL_TYPE, WorkerPoolFactory.NATIVE),
+                10, 20, 5, -1, getTransportName() + "Server Worker thread group",
+                getTransportName() + "-Worker", admission);
         }
 
         // register to receive updates on services for lifetime management
@@ -281,7 +292,8 @@ public abstract class AbstractTransportListener implements TransportListener {
     }
 
     /**
-     * Process a new incoming message through the axis engine
+     * Process a new incoming message through the axis engine, and report the time the engine
+     * took to the latency statistics of this listener
      * @param msgCtx the axis MessageContext
      * @param trpHeaders the map containing transport level message headers
      * @param soapAction the optional soap action or null
@@ -300,6 +312,7 @@ public abstract class AbstractTransportListener implements TransportListener {
         msgCtx.setProperty(MessageContext.TRANSPORT_HEADERS, trpHeaders);
 
         // send the message context through the axis engine
+        long start = System.currentTimeMillis();
         try {
             // check if an Axis2 callback has been registered for this message
             Map callBackMap = (Map) msgCtx.getConfigurationContext().
@@ -327,6 +340,10 @@ public abstract class AbstractTransportListener implements TransportListener {
             if (msgCtx.isServerSide()) {
                 AxisEngine.sendFault(MessageContextBuilder.createFaultMessageContext(msgCtx, e));
             }
+        } finally {
+            if (metrics != null) {
+                metrics.notifyLatency(System.currentTimeMillis() - start);
+            }
         }
     }
 
@@ -490,6 +507,27 @@ public abstract class AbstractTransportListener implements TransportListener {
         return null;
     }
 
+    public Map<String, Long> getLatencyPercentiles() {
+        if (metrics != null) {
+            return metrics.getLatencyPercentiles();
+        }
+        return null;
+    }
+
+    public Map<String, Long> getSizeReceivedPercentiles() {
+        if (metrics != null) {
+            return metrics.getSizeReceivedPercentiles();
+        }
+        return null;
+    }
+
+    public Map<String, Long> getSizeSentPercentiles() {
+        if (metrics != null) {
+            return metrics.getSizeSentPercentiles();
+        }
+        return null;
+    }
+
     public void resetStatistics() {
         if (metrics != null) {
             metrics.reset();
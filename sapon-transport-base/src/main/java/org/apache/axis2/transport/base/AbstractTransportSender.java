@@ -108,25 +108,42 @@ public abstract class AbstractTransportSender extends AbstractHandler implements
             Axis2Constants.Configuration.TRANSPORT_URL);
 
         if (targetAddress != null) {
-            sendMessage(msgContext, targetAddress, null);
+            sendAndRecordLatency(msgContext, targetAddress, null);
         } else if (msgContext.getTo() != null && !msgContext.getTo().hasAnonymousAddress()) {
             targetAddress = msgContext.getTo().getAddress();
 
             if (!msgContext.getTo().hasNoneAddress()) {
-                sendMessage(msgContext, targetAddress, null);
+                sendAndRecordLatency(msgContext, targetAddress, null);
             } else {
                 //Don't send the message.
                 return InvocationResponse.CONTINUE;
             }
         } else if (msgContext.isServerSide()) {
             // get the out transport info for server side when target EPR is unknown
-            sendMessage(msgContext, null,
+            sendAndRecordLatency(msgContext, null,
                 (OutTransportInfo) msgContext.getProperty(Axis2Constants.OUT_TRANSPORT_INFO));
         }
 
         return InvocationResponse.CONTINUE;
     }
 
+    /**
+     * Send the message and report the time taken, until it is written out or answered, to
+     * the latency statistics of this sender
+     */
+    private void sendAndRecordLatency(MessageContext msgContext, String targetAddress,
+        OutTransportInfo outTransportInfo) throws AxisFault {
+
+        long start = System.currentTimeMillis();
+        try {
+            sendMessage(msgContext, targetAddress, outTransportInfo);
+        } finally {
+            if (metrics != null) {
+                metrics.notifyLatency(System.currentTimeMillis() - start);
+            }
+        }
+    }
+
     /**
      * Process a new incoming message (Response) through the axis engine
      * @param msgCtx the axis MessageContext
@@ -389,6 +406,27 @@ public abstract class AbstractTransportSender extends AbstractHandler implements
         return null;
     }
 
+    public Map<String, Long> getLatencyPercentiles() {
+        if (metrics != null) {
+            return metrics.getLatencyPercentiles();
+        }
+        return null;
+    }
+
+    public Map<String, Long> getSizeReceivedPercentiles() {
+        if (metrics != null) {
+            return metrics.getSizeReceivedPercentiles();
+        }
+        return null;
+    }
+
+    public Map<String, Long> getSizeSentPercentiles() {
+        if (metrics != null) {
+            return metrics.getSizeSentPercentiles();
+        }
+        return null;
+    }
+
     public void resetStatistics() {
         if (metrics != null) {
             metrics.reset();
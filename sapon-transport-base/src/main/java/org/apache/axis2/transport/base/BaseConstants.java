@@ -98,6 +98,14 @@ public class BaseConstants {
      * The default poll interval in milliseconds.
      */
     public static final int DEFAULT_POLL_INTERVAL = 5 * 60 * 1000; // 5 mins by default
+    /**
+     * The maximum number of tasks waiting for a worker thread before new ones are refused
+     */
+    public static final String TRANSPORT_WORKER_MAX_QUEUED = "transport.worker.MaxQueued";
+    /**
+     * The maximum time in milliseconds a task may wait for a worker thread before it is shed
+     */
+    public static final String TRANSPORT_WORKER_MAX_QUEUE_TIME = "transport.worker.MaxQueueTime";
 
     public static final String CALLBACK_TABLE = "callbackTable";
     public static final String HEADER_IN_REPLY_TO = "In-Reply-To";
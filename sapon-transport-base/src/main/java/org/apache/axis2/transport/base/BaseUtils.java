@@ -124,6 +124,9 @@ public class BaseUtils {
         format.setSOAP11(msgContext.isSOAP11());
         format.setDoOptimize(msgContext.isDoingMTOM());
         format.setDoingSWA(msgContext.isDoingSwA());
+        if (msgContext.isDoingMTOM() && TransportUtils.doStreamMTOM(msgContext)) {
+            format.setProperty(OMOutputFormat.STREAM_OPTIMIZED_SOAP_PART, Boolean.TRUE);
+        }
 
         format.setCharSetEncoding(TransportUtils.getCharSetEncoding(msgContext));
         Object mimeBoundaryProperty = msgContext.getProperty(Axis2Constants.Configuration.MIME_BOUNDARY);
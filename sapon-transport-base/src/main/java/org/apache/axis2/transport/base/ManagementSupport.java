@@ -44,6 +44,9 @@ public interface ManagementSupport {
     public long getMaxSizeSent();
     public double getAvgSizeSent();
     public Map<Integer, Long> getResponseCodeTable();
+    public Map<String, Long> getLatencyPercentiles();
+    public Map<String, Long> getSizeReceivedPercentiles();
+    public Map<String, Long> getSizeSentPercentiles();
 
     public void resetStatistics();
     public long getLastResetTime();
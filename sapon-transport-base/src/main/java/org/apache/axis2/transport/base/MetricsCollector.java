@@ -20,61 +20,75 @@
 package org.apache.axis2.transport.base;
 import org.apache.axis2.context.MessageContext;
 
-import java.util.Map;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Collects metrics related to a transport that has metrics support enabled
+ * Collects metrics related to a transport that has metrics support enabled. Counters are
+ * striped so that worker threads do not contend on them, and the latencies and message sizes
+ * of the last minute are kept in histograms to report their percentiles.
  */
 public class MetricsCollector {
 
     public static final int LEVEL_NONE = 0;
     public static final int LEVEL_TRANSPORT = 1;
     public static final int LEVEL_FULL = 2;
-    private static final Long ONE = (long) 1;
 
     /** By default, full metrics collection is enabled */
     private int level = LEVEL_FULL;
 
-    private long messagesReceived;
-    private long faultsReceiving;
-    private long timeoutsReceiving;
-    private long bytesReceived;
-    private long minSizeReceived;
-    private long maxSizeReceived;
-    private double avgSizeReceived;
-
-    private long messagesSent;
-    private long faultsSending;
-    private long timeoutsSending;
-    private long bytesSent;
-    private long minSizeSent;
-    private long maxSizeSent;
-    private double avgSizeSent;
-
-    private final Map<Integer, Long> responseCodeTable =
-        Collections.synchronizedMap(new HashMap<Integer, Long>());
-
-    private long lastResetTime = System.currentTimeMillis();
+    private final StripedCounter messagesReceived = new StripedCounter();
+    private final StripedCounter faultsReceiving = new StripedCounter();
+    private final StripedCounter timeoutsReceiving = new StripedCounter();
+    private final StripedCounter bytesReceived = new StripedCounter();
+    private final AtomicLong minSizeReceived = new AtomicLong();
+    private final AtomicLong maxSizeReceived = new AtomicLong();
+    private final StripedCounter sizesReceived = new StripedCounter();
+    private final StripedCounter totalSizeReceived = new StripedCounter();
+    private final RollingHistogram sizeReceivedHistogram = new RollingHistogram();
+
+    private final StripedCounter messagesSent = new StripedCounter();
+    private final StripedCounter faultsSending = new StripedCounter();
+    private final StripedCounter timeoutsSending = new StripedCounter();
+    private final StripedCounter bytesSent = new StripedCounter();
+    private final AtomicLong minSizeSent = new AtomicLong();
+    private final AtomicLong maxSizeSent = new AtomicLong();
+    private final StripedCounter sizesSent = new StripedCounter();
+    private final StripedCounter totalSizeSent = new StripedCounter();
+    private final RollingHistogram sizeSentHistogram = new RollingHistogram();
+
+    private final RollingHistogram latencyHistogram = new RollingHistogram();
+
+    private final ConcurrentMap<Integer, AtomicLong> responseCodeTable =
+        new ConcurrentHashMap<Integer, AtomicLong>();
+
+    private volatile long lastResetTime = System.currentTimeMillis();
 
     public void reset() {
-        messagesReceived  = 0;
-        faultsReceiving   = 0;
-        timeoutsReceiving = 0;
-        bytesReceived     = 0;
-        minSizeReceived   = 0;
-        maxSizeReceived   = 0;
-        avgSizeReceived   = 0;
-
-        messagesSent      = 0;
-        faultsSending     = 0;
-        timeoutsSending   = 0;
-        bytesSent         = 0;
-        minSizeSent       = 0;
-        maxSizeSent       = 0;
-        avgSizeSent       = 0;
-
+        messagesReceived.reset();
+        faultsReceiving.reset();
+        timeoutsReceiving.reset();
+        bytesReceived.reset();
+        minSizeReceived.set(0);
+        maxSizeReceived.set(0);
+        sizesReceived.reset();
+        totalSizeReceived.reset();
+        sizeReceivedHistogram.reset();
+
+        messagesSent.reset();
+        faultsSending.reset();
+        timeoutsSending.reset();
+        bytesSent.reset();
+        minSizeSent.set(0);
+        maxSizeSent.set(0);
+        sizesSent.reset();
+        totalSizeSent.reset();
+        sizeSentHistogram.reset();
+
+        latencyHistogram.reset();
         responseCodeTable.clear();
         lastResetTime = System.currentTimeMillis();
     }
@@ -92,126 +106,182 @@ public class MetricsCollector {
     }
 
     public long getMessagesReceived() {
-        return messagesReceived;
+        return messagesReceived.get();
     }
 
     public long getFaultsReceiving() {
-        return faultsReceiving;
+        return faultsReceiving.get();
     }
 
     public long getTimeoutsReceiving() {
-        return timeoutsReceiving;
+        return timeoutsReceiving.get();
     }
 
     public long getBytesReceived() {
-        return bytesReceived;
+        return bytesReceived.get();
     }
 
     public long getMessagesSent() {
-        return messagesSent;
+        return messagesSent.get();
     }
 
     public long getFaultsSending() {
-        return faultsSending;
+        return faultsSending.get();
     }
 
     public long getTimeoutsSending() {
-        return timeoutsSending;
+        return timeoutsSending.get();
     }
 
     public long getBytesSent() {
-        return bytesSent;
+        return bytesSent.get();
     }
 
     public long getMinSizeReceived() {
-        return minSizeReceived;
+        return minSizeReceived.get();
     }
 
     public long getMaxSizeReceived() {
-        return maxSizeReceived;
+        return maxSizeReceived.get();
     }
 
     public long getMinSizeSent() {
-        return minSizeSent;
+        return minSizeSent.get();
     }
 
     public long getMaxSizeSent() {
-        return maxSizeSent;
+        return maxSizeSent.get();
     }
 
     public double getAvgSizeReceived() {
-        return avgSizeReceived;
+        long count = sizesReceived.get();
+        return count == 0 ? 0 : (double) totalSizeReceived.get() / count;
     }
 
     public double getAvgSizeSent() {
-        return avgSizeSent;
+        long count = sizesSent.get();
+        return count == 0 ? 0 : (double) totalSizeSent.get() / count;
+    }
+
+    /**
+     * Percentiles of the sizes of the messages received during the last minute
+     * @return the p50, p90, p99 and p999 sizes in bytes
+     */
+    public Map<String, Long> getSizeReceivedPercentiles() {
+        return sizeReceivedHistogram.getSnapshot().getPercentiles();
+    }
+
+    /**
+     * Percentiles of the sizes of the messages sent during the last minute
+     * @return the p50, p90, p99 and p999 sizes in bytes
+     */
+    public Map<String, Long> getSizeSentPercentiles() {
+        return sizeSentHistogram.getSnapshot().getPercentiles();
+    }
+
+    /**
+     * Percentiles of the latencies reported during the last minute
+     * @return the p50, p90, p99 and p999 latencies in milliseconds
+     */
+    public Map<String, Long> getLatencyPercentiles() {
+        return latencyHistogram.getSnapshot().getPercentiles();
     }
 
     public Map<Integer, Long> getResponseCodeTable() {
-        return responseCodeTable;
+        Map<Integer, Long> table = new HashMap<Integer, Long>();
+        for (Map.Entry<Integer, AtomicLong> e : responseCodeTable.entrySet()) {
+            table.put(e.getKey(), e.getValue().get());
+        }
+        return table;
     }
 
-    public synchronized void incrementMessagesReceived() {
-        messagesReceived++;
+    public void incrementMessagesReceived() {
+        messagesReceived.increment();
     }
 
-    public synchronized void incrementFaultsReceiving() {
-        faultsReceiving++;
+    public void incrementFaultsReceiving() {
+        faultsReceiving.increment();
     }
 
-    public synchronized void incrementTimeoutsReceiving() {
-        timeoutsReceiving++;
+    public void incrementTimeoutsReceiving() {
+        timeoutsReceiving.increment();
     }
 
-    public synchronized void incrementBytesReceived(long size) {
-        bytesReceived += size;
+    public void incrementBytesReceived(long size) {
+        bytesReceived.add(size);
     }
 
-    public synchronized void incrementMessagesSent() {
-        messagesSent++;
+    public void incrementMessagesSent() {
+        messagesSent.increment();
     }
 
-    public synchronized void incrementFaultsSending() {
-        faultsSending++;
+    public void incrementFaultsSending() {
+        faultsSending.increment();
     }
 
-    public synchronized void incrementTimeoutsSending() {
-        timeoutsSending++;
+    public void incrementTimeoutsSending() {
+        timeoutsSending.increment();
     }
 
-    public synchronized void incrementBytesSent(long size) {
-        bytesSent += size;
+    public void incrementBytesSent(long size) {
+        bytesSent.add(size);
     }
     
-    public synchronized void notifyReceivedMessageSize(long size) {
-        if (minSizeReceived == 0 || size < minSizeReceived) {
-            minSizeReceived = size;
-        }
-        if (size > maxSizeReceived) {
-            maxSizeReceived = size;
-        }
-        avgSizeReceived = (avgSizeReceived == 0 ? size : (avgSizeReceived + size) / 2);
+    public void notifyReceivedMessageSize(long size) {
+        updateMin(minSizeReceived, size);
+        updateMax(maxSizeReceived, size);
+        sizesReceived.increment();
+        totalSizeReceived.add(size);
+        sizeReceivedHistogram.record(size);
     }
 
-    public synchronized void notifySentMessageSize(long size) {
-        if (minSizeSent == 0 || size < minSizeSent) {
-            minSizeSent = size;
-        }
-        if (size > maxSizeSent) {
-            maxSizeSent = size;
-        }
-        avgSizeSent = (avgSizeSent == 0 ? size : (avgSizeSent + size) / 2);
+    public void notifySentMessageSize(long size) {
+        updateMin(minSizeSent, size);
+        updateMax(maxSizeSent, size);
+        sizesSent.increment();
+        totalSizeSent.add(size);
+        sizeSentHistogram.record(size);
+    }
+
+    /**
+     * Report the time taken to process a message: for a listener, from its receipt until the
+     * engine is done with it, and for a sender, until it is written out or answered.
+     * @param millis the latency in milliseconds
+     */
+    public void notifyLatency(long millis) {
+        latencyHistogram.record(millis);
     }
 
     public void reportResponseCode(int respCode) {
-        synchronized(responseCodeTable) {
-            Object o = responseCodeTable.get(respCode);
-            if (o == null) {
-                responseCodeTable.put(respCode, ONE);
-            } else {
-                responseCodeTable.put(respCode, (Long) o + 1);
+        AtomicLong count = responseCodeTable.get(respCode);
+        if (count == null) {
+            AtomicLong created = new AtomicLong();
+            count = responseCodeTable.putIfAbsent(respCode, created);
+            if (count == null) {
+                count = created;
             }
         }
+        count.incrementAndGet();
+    }
+
+    private static void updateMin(AtomicLong min, long size) {
+        long current;
+        do {
+            current = min.get();
+            if (current != 0 && current <= size) {
+                return;
+            }
+        } while (!min.compareAndSet(current, size));
+    }
+
+    private static void updateMax(AtomicLong max, long size) {
+        long current;
+        do {
+            current = max.get();
+            if (current >= size) {
+                return;
+            }
+        } while (!max.compareAndSet(current, size));
     }
 
     // --- enhanced methods ---
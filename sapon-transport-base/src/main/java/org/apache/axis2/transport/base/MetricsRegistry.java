@@ -0,0 +1,132 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.axis2.transport.base;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The in-process registry of the metrics of this node. The views that are registered as
+ * MBeans also publish their values here, so that they can be scraped in one request in the
+ * OpenMetrics text format, without going through JMX.
+ */
+public final class MetricsRegistry {
+
+    private static final Log log = LogFactory.getLog(MetricsRegistry.class);
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private final ConcurrentMap<String, MetricsSource> sources =
+        new ConcurrentSkipListMap<String, MetricsSource>();
+
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Register a source of metrics, replacing any source registered with the same id
+     * @param id the unique id of the source, such as its MBean name
+     * @param source the source
+     */
+    public void register(String id, MetricsSource source) {
+        if (id == null || source == null) {
+            throw new IllegalArgumentException("A metrics source needs an id");
+        }
+        sources.put(id, source);
+    }
+
+    public void unregister(String id) {
+        if (id != null) {
+            sources.remove(id);
+        }
+    }
+
+    /**
+     * Unregister a source, unless another source has replaced it in the meantime
+     * @param id the id the source was registered with
+     * @param source the source
+     * @return true if the source was registered with the id
+     */
+    public boolean unregister(String id, MetricsSource source) {
+        return id != null && source != null && sources.remove(id, source);
+    }
+
+    /**
+     * Get the counter of the given name, registering it the first time
+     * @param name the name of the metric, without the _total suffix
+     * @param help the description of the metric
+     * @return the counter
+     */
+    public StripedCounter getCounter(String name, String help) {
+        String id = "Counter:" + name;
+        MetricsSource source = sources.get(id);
+        if (source == null) {
+            MetricsSource created = new CounterSource(name, help);
+            source = sources.putIfAbsent(id, created);
+            if (source == null) {
+                source = created;
+            }
+        }
+        if (!(source instanceof CounterSource)) {
+            throw new IllegalStateException("The metrics source " + id + " is not a counter");
+        }
+        return ((CounterSource) source).counter;
+    }
+
+    /**
+     * Write the current metrics of all the sources in the OpenMetrics text format
+     * @param out the writer to write to
+     * @throws IOException if the metrics cannot be written
+     */
+    public void writeMetrics(Writer out) throws IOException {
+        MetricsWriter writer = new MetricsWriter();
+        for (Map.Entry<String, MetricsSource> e : sources.entrySet()) {
+            try {
+                e.getValue().collectMetrics(writer);
+            } catch (RuntimeException ex) {
+                log.warn("Error collecting the metrics of " + e.getKey(), ex);
+            }
+        }
+        writer.writeTo(out);
+    }
+
+    private static final class CounterSource implements MetricsSource {
+        private final String name;
+        private final String help;
+        private final StripedCounter counter = new StripedCounter();
+
+        CounterSource(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        public void collectMetrics(MetricsWriter writer) {
+            writer.counter(name, help, counter.get());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.axis2.transport.base;
+
+/**
+ * Something that publishes metrics, such as a transport or endpoint view, registered with the
+ * {@link MetricsRegistry}. Sources are asked for their current values on each scrape, so they
+ * only have to read the counters they already maintain.
+ */
+public interface MetricsSource {
+
+    /**
+     * Write the current values of the metrics of this source
+     * @param writer the writer collecting the metrics of all sources
+     */
+    void collectMetrics(MetricsWriter writer);
+}
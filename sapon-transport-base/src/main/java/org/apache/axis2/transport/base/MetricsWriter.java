@@ -0,0 +1,217 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.axis2.transport.base;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the samples written by the {@link MetricsSource}s and renders them in the
+ * OpenMetrics text format. Samples of the same metric are grouped under a single family
+ * whatever the order in which the sources write them.
+ */
+public final class MetricsWriter {
+
+    public static final String CONTENT_TYPE =
+        "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    /** The quantiles of the percentiles reported by {@link RollingHistogram.Snapshot} */
+    private static final Map<String, String> QUANTILES = new LinkedHashMap<String, String>();
+
+    static {
+        QUANTILES.put("p50", "0.5");
+        QUANTILES.put("p90", "0.9");
+        QUANTILES.put("p99", "0.99");
+        QUANTILES.put("p999", "0.999");
+    }
+
+    private final Map<String, Family> families = new LinkedHashMap<String, Family>();
+
+    private static final class Family {
+        final String type;
+        final String help;
+        final StringBuilder samples = new StringBuilder();
+
+        Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+    /**
+     * Write the value of a counter
+     * @param name the name of the metric, without the _total suffix
+     * @param help the description of the metric
+     * @param value the value
+     * @param labels the label names and values, alternately
+     */
+    public void counter(String name, String help, long value, String... labels) {
+        sample(family(name, "counter", help), name + "_total", labels, null,
+                Long.toString(value));
+    }
+
+    /**
+     * Write the value of a gauge
+     * @param name the name of the metric
+     * @param help the description of the metric
+     * @param value the value
+     * @param labels the label names and values, alternately
+     */
+    public void gauge(String name, String help, double value, String... labels) {
+        sample(family(name, "gauge", help), name, labels, null, format(value));
+    }
+
+    /**
+     * Write the median, 90th, 99th and 99.9th percentiles of a histogram as a summary
+     * @param name the name of the metric
+     * @param help the description of the metric
+     * @param snapshot the values of the histogram
+     * @param labels the label names and values, alternately
+     */
+    public void summary(String name, String help, RollingHistogram.Snapshot snapshot,
+                        String... labels) {
+        summary(name, help, snapshot.getPercentiles(), labels);
+    }
+
+    /**
+     * Write percentiles as a summary
+     * @param name the name of the metric
+     * @param help the description of the metric
+     * @param percentiles the percentiles keyed as p50, p90, p99 and p999, as given by
+     *                    {@link RollingHistogram.Snapshot#getPercentiles()}
+     * @param labels the label names and values, alternately
+     */
+    public void summary(String name, String help, Map<String, Long> percentiles,
+                        String... labels) {
+        if (percentiles == null) {
+            return;
+        }
+        Family family = family(name, "summary", help);
+        for (Map.Entry<String, Long> e : percentiles.entrySet()) {
+            String quantile = QUANTILES.get(e.getKey());
+            if (quantile != null && e.getValue() != null) {
+                sample(family, name, labels, quantile, Long.toString(e.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Write which of a set of states is the current one
+     * @param name the name of the metric
+     * @param help the description of the metric
+     * @param current the current state
+     * @param states all the states
+     */
+    public void stateSet(String name, String help, String current, String[] states) {
+        Family family = family(name, "stateset", help);
+        for (String state : states) {
+            sample(family, name, new String[] {name, state}, null,
+                    state.equals(current) ? "1" : "0");
+        }
+    }
+
+    public void writeTo(Writer out) throws IOException {
+        for (Map.Entry<String, Family> e : families.entrySet()) {
+            Family family = e.getValue();
+            out.write("# TYPE " + e.getKey() + " " + family.type + "\n");
+            if (family.help != null) {
+                out.write("# HELP " + e.getKey() + " " + escape(family.help, false) + "\n");
+            }
+            out.write(family.samples.toString());
+        }
+        out.write("# EOF\n");
+    }
+
+    private Family family(String name, String type, String help) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = new Family(type, help);
+            families.put(name, family);
+        } else if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type
+                    + ", not a " + type);
+        }
+        return family;
+    }
+
+    private static void sample(Family family, String name, String[] labels, String quantile,
+                               String value) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs");
+        }
+        StringBuilder sb = family.samples;
+        sb.append(name);
+        if (labels.length > 0 || quantile != null) {
+            sb.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(labels[i]).append("=\"")
+                        .append(escape(labels[i + 1] == null ? "" : labels[i + 1], true))
+                        .append('"');
+            }
+            if (quantile != null) {
+                if (labels.length > 0) {
+                    sb.append(',');
+                }
+                sb.append("quantile=\"").append(quantile).append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        } else if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String escape(String s, boolean quotes) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String replacement = null;
+            if (c == '\\') {
+                replacement = "\\\\";
+            } else if (c == '\n') {
+                replacement = "\\n";
+            } else if (c == '"' && quotes) {
+                replacement = "\\\"";
+            }
+            if (replacement != null) {
+                if (sb == null) {
+                    sb = new StringBuilder(s.substring(0, i));
+                }
+                sb.append(replacement);
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? s : sb.toString();
+    }
+}
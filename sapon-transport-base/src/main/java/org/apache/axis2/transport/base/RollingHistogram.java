@@ -0,0 +1,218 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.axis2.transport.base;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Counts the distribution of values, such as latencies or message sizes, recorded over a
+ * rolling time window, to report percentiles of the recent values.
+ * <p>
+ * Values are counted in log-linear buckets: values below 32 have a bucket of their own, and
+ * each following power of two is split into 16 buckets, so a reported percentile is never
+ * more than 1/16th above the actual value. Values above 2^40 are counted as 2^40.
+ * <p>
+ * The window is divided into slots, each counting the values recorded during one interval.
+ * Once the window has passed a slot, the slot is replaced by the first value recorded in a
+ * new interval. Recording a value is a single atomic increment, and threads never block.
+ */
+public final class RollingHistogram {
+
+    public static final long DEFAULT_WINDOW = 60 * 1000;
+    public static final int DEFAULT_SLOTS = 6;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKETS = bucketIndex(MAX_VALUE) + 1;
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    private final long slotMillis;
+    private final AtomicReferenceArray<Slot> slots;
+
+    /**
+     * The values recorded during one interval
+     */
+    private static final class Slot {
+        final long interval;
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        Slot(long interval) {
+            this.interval = interval;
+        }
+    }
+
+    public RollingHistogram() {
+        this(DEFAULT_WINDOW, DEFAULT_SLOTS);
+    }
+
+    /**
+     * @param window the length of the window in milliseconds
+     * @param slotCount the number of intervals the window is divided into
+     */
+    public RollingHistogram(long window, int slotCount) {
+        if (slotCount < 1 || window < slotCount) {
+            throw new IllegalArgumentException("Invalid window of " + window + " ms with "
+                    + slotCount + " slots");
+        }
+        this.slotMillis = window / slotCount;
+        this.slots = new AtomicReferenceArray<Slot>(slotCount);
+    }
+
+    public void record(long value) {
+        record(value, System.currentTimeMillis());
+    }
+
+    void record(long value, long now) {
+        long interval = now / slotMillis;
+        int index = (int) (interval % slots.length());
+        Slot slot = slots.get(index);
+        while (slot == null || slot.interval < interval) {
+            Slot fresh = new Slot(interval);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                slot = fresh;
+            } else {
+                slot = slots.get(index);
+            }
+        }
+        slot.counts.incrementAndGet(bucketIndex(value));
+    }
+
+    /**
+     * Returns the values recorded during the current window.
+     *
+     * @return a snapshot, which is not affected by later updates
+     */
+    public Snapshot getSnapshot() {
+        return getSnapshot(System.currentTimeMillis());
+    }
+
+    Snapshot getSnapshot(long now) {
+        long current = now / slotMillis;
+        Snapshot snapshot = new Snapshot();
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.interval > current - slots.length()
+                    && slot.interval <= current) {
+                for (int b = 0; b < BUCKETS; b++) {
+                    long count = slot.counts.get(b);
+                    snapshot.counts[b] += count;
+                    snapshot.count += count;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    public void reset() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value <= 0) {
+            return 0;
+        }
+        long v = Math.min(value, MAX_VALUE);
+        int exponent = 63 - Long.numberOfLeadingZeros(v);
+        if (exponent <= SUB_BUCKET_BITS) {
+            return (int) v;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((v >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long highestValue(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * The distribution of the values of a window, which can be merged with the snapshots of
+     * other histograms, e.g. to report on a group of endpoints.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts = new long[BUCKETS];
+        private long count;
+
+        /**
+         * Adds the values of another snapshot to this one
+         *
+         * @param other the snapshot to add
+         */
+        public void add(Snapshot other) {
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] += other.counts[b];
+            }
+            count += other.count;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the value that the given percentage of the values do not exceed, rounded
+         * up to the highest value of its bucket.
+         *
+         * @param percentile the percentage, between 0 and 100
+         * @return the value, or 0 if there are no values
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += counts[b];
+                if (seen >= rank) {
+                    return highestValue(b);
+                }
+            }
+            return highestValue(BUCKETS - 1);
+        }
+
+        /**
+         * Returns the usual percentiles of the values, i.e. the median, the 90th, 99th and
+         * 99.9th percentiles, keyed as p50, p90, p99 and p999.
+         *
+         * @return the percentiles, in increasing order
+         */
+        public Map<String, Long> getPercentiles() {
+            Map<String, Long> percentiles = new LinkedHashMap<String, Long>();
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                percentiles.put(PERCENTILE_NAMES[i], getValueAtPercentile(PERCENTILES[i]));
+            }
+            return percentiles;
+        }
+    }
+}
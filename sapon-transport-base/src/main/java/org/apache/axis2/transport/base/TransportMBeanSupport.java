@@ -46,8 +46,10 @@ public class TransportMBeanSupport {
     private MBeanServer mbs;
     private ObjectName mbeanName;
     private TransportView mbeanInstance;
+    private String metricsId;
     
     private TransportMBeanSupport(String connectorName, TransportView mbeanInstance) {
+        metricsId = "Transport:" + connectorName;
         try {
             mbs = ManagementFactory.getPlatformMBeanServer();
         } catch (SecurityException ex) {
@@ -71,11 +73,11 @@ public class TransportMBeanSupport {
     }
     
     public TransportMBeanSupport(TransportListener listener, String name) {
-        this(name + "-listener", new TransportView(listener, null));
+        this(name + "-listener", new TransportView(listener, null, name + "-listener"));
     }
     
     public TransportMBeanSupport(TransportSender sender, String name) {
-        this(name + "-sender", new TransportView(null, sender));
+        this(name + "-sender", new TransportView(null, sender, name + "-sender"));
     }
     
     public ObjectName getMBeanName() {
@@ -83,9 +85,11 @@ public class TransportMBeanSupport {
     }
     
     /**
-     * Register the {@link TransportView} MBean.
+     * Register the {@link TransportView} MBean, and publish its metrics to the
+     * {@link MetricsRegistry}.
      */
     public void register() {
+        MetricsRegistry.getInstance().register(metricsId, mbeanInstance);
         if (enabled && !registered) {
             try {
                 mbs.registerMBean(mbeanInstance, mbeanName);
@@ -102,6 +106,7 @@ public class TransportMBeanSupport {
      * Unregister the {@link TransportView} MBean.
      */
     public void unregister() {
+        MetricsRegistry.getInstance().unregister(metricsId);
         if (enabled && registered) {
             try {
                 mbs.unregisterMBean(mbeanName);
@@ -26,7 +26,7 @@ import org.apache.axis2.transport.TransportSender;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-public class TransportView implements TransportViewMBean {
+public class TransportView implements TransportViewMBean, MetricsSource {
 
     @SuppressWarnings("unused")
 	private static final Log log = LogFactory.getLog(TransportView.class);
@@ -38,10 +38,21 @@ public class TransportView implements TransportViewMBean {
 
     private TransportListener listener = null;
     private TransportSender sender = null;
-
-    public TransportView(TransportListener listener, TransportSender sender) {
+    private String connectorName = null;
+
+    /**
+     * @param listener the listener to manage, or null
+     * @param sender the sender to manage, or null
+     * @param connectorName the name labelling the metrics of the transport
+     */
+    public TransportView(TransportListener listener, TransportSender sender,
+                         String connectorName) {
+        if (connectorName == null) {
+            throw new IllegalArgumentException("A transport view needs a connector name");
+        }
         this.listener = listener;
         this.sender = sender;
+        this.connectorName = connectorName;
     }
 
     // JMX Attributes
@@ -180,6 +191,40 @@ public class TransportView implements TransportViewMBean {
         return null;
     }
 
+    public long getLatencyP50() {
+        return getLatencyPercentile("p50");
+    }
+
+    public long getLatencyP90() {
+        return getLatencyPercentile("p90");
+    }
+
+    public long getLatencyP99() {
+        return getLatencyPercentile("p99");
+    }
+
+    public long getLatencyP999() {
+        return getLatencyPercentile("p999");
+    }
+
+    public Map<String, Long> getSizeReceivedPercentiles() {
+        if (listener != null && listener instanceof ManagementSupport) {
+            return ((ManagementSupport) listener).getSizeReceivedPercentiles();
+        } else if (sender != null && sender instanceof ManagementSupport) {
+            return ((ManagementSupport) sender).getSizeReceivedPercentiles();
+        }
+        return null;
+    }
+
+    public Map<String, Long> getSizeSentPercentiles() {
+        if (listener != null && listener instanceof ManagementSupport) {
+            return ((ManagementSupport) listener).getSizeSentPercentiles();
+        } else if (sender != null && sender instanceof ManagementSupport) {
+            return ((ManagementSupport) sender).getSizeSentPercentiles();
+        }
+        return null;
+    }
+
     public int getActiveThreadCount() {
         if (listener != null && listener instanceof ManagementSupport) {
             return ((ManagementSupport) listener).getActiveThreadCount();
@@ -262,4 +307,56 @@ public class TransportView implements TransportViewMBean {
         }
         return -1;
     }
+
+    // Metrics registry
+    public void collectMetrics(MetricsWriter writer) {
+        ManagementSupport transport = null;
+        if (listener instanceof ManagementSupport) {
+            transport = (ManagementSupport) listener;
+        } else if (sender instanceof ManagementSupport) {
+            transport = (ManagementSupport) sender;
+        }
+        if (transport == null) {
+            return;
+        }
+        String[] labels = {"connector", connectorName};
+        writer.counter("axis2_transport_messages_received", "Messages received",
+                transport.getMessagesReceived(), labels);
+        writer.counter("axis2_transport_faults_receiving", "Faults receiving messages",
+                transport.getFaultsReceiving(), labels);
+        writer.counter("axis2_transport_timeouts_receiving", "Timeouts receiving messages",
+                transport.getTimeoutsReceiving(), labels);
+        writer.counter("axis2_transport_received_bytes", "Bytes received",
+                transport.getBytesReceived(), labels);
+        writer.counter("axis2_transport_messages_sent", "Messages sent",
+                transport.getMessagesSent(), labels);
+        writer.counter("axis2_transport_faults_sending", "Faults sending messages",
+                transport.getFaultsSending(), labels);
+        writer.counter("axis2_transport_timeouts_sending", "Timeouts sending messages",
+                transport.getTimeoutsSending(), labels);
+        writer.counter("axis2_transport_sent_bytes", "Bytes sent",
+                transport.getBytesSent(), labels);
+        writer.gauge("axis2_transport_active_threads", "Worker threads busy",
+                transport.getActiveThreadCount(), labels);
+        writer.gauge("axis2_transport_queue_size", "Messages waiting for a worker thread",
+                transport.getQueueSize(), labels);
+        writer.summary("axis2_transport_latency_milliseconds", "Latency of the last minute",
+                transport.getLatencyPercentiles(), labels);
+        writer.summary("axis2_transport_received_size_bytes",
+                "Sizes of the messages received in the last minute",
+                transport.getSizeReceivedPercentiles(), labels);
+        writer.summary("axis2_transport_sent_size_bytes",
+                "Sizes of the messages sent in the last minute",
+                transport.getSizeSentPercentiles(), labels);
+    }
+
+    private long getLatencyPercentile(String percentile) {
+        Map<String, Long> percentiles = null;
+        if (listener != null && listener instanceof ManagementSupport) {
+            percentiles = ((ManagementSupport) listener).getLatencyPercentiles();
+        } else if (sender != null && sender instanceof ManagementSupport) {
+            percentiles = ((ManagementSupport) sender).getLatencyPercentiles();
+        }
+        return percentiles == null ? -1 : percentiles.get(percentile);
+    }
 }
@@ -40,6 +40,12 @@ public interface TransportViewMBean {
     public int  getActiveThreadCount();
     public int getQueueSize();
     public Map<Integer, Long> getResponseCodeTable();
+    public long getLatencyP50();
+    public long getLatencyP90();
+    public long getLatencyP99();
+    public long getLatencyP999();
+    public Map<String, Long> getSizeReceivedPercentiles();
+    public Map<String, Long> getSizeSentPercentiles();
 
     // JMX Operations
     public void start() throws Exception;
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.net.SocketException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.addressing.EndpointReference;
@@ -45,7 +46,12 @@ public abstract class AbstractDatagramTransportListener<E extends DatagramEndpoi
         super.init(cfgCtx, transportIn);
         DatagramDispatcherCallback callback = new DatagramDispatcherCallback() {
             public void receive(DatagramEndpoint endpoint, byte[] data, int length) {
-                workerPool.execute(new ProcessPacketTask(endpoint, data, length));
+                try {
+                    workerPool.execute(new ProcessPacketTask(endpoint, data, length));
+                } catch (RejectedExecutionException e) {
+                    endpoint.getMetrics().incrementFaultsReceiving();
+                    log.warn("Datagram dropped : " + e.getMessage());
+                }
             }
         };
         try {
@@ -28,13 +28,14 @@ import org.apache.axis2.transport.TransportUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.axis2.transport.base.MetricsCollector;
+import org.apache.axis2.transport.base.threads.AdmissionControl;
 
 /**
  * Task encapsulating the processing of a datagram.
  * Instances of this class will be dispatched to worker threads for
  * execution.
  */
-public class ProcessPacketTask implements Runnable {
+public class ProcessPacketTask implements AdmissionControl.Task {
     private static final Log log = LogFactory.getLog(ProcessPacketTask.class);
     
     private final DatagramEndpoint endpoint;
@@ -49,6 +50,7 @@ public class ProcessPacketTask implements Runnable {
     
     public void run() {
         MetricsCollector metrics = endpoint.getMetrics();
+        long start = System.currentTimeMillis();
         try {
             InputStream inputStream = new ByteArrayInputStream(data, 0, length);
             MessageContext msgContext = endpoint.getListener().createMessageContext();
@@ -58,6 +60,8 @@ public class ProcessPacketTask implements Runnable {
             AxisEngine.receive(msgContext);
             metrics.incrementMessagesReceived();
             metrics.incrementBytesReceived(length);
+            metrics.notifyReceivedMessageSize(length);
+            metrics.notifyLatency(System.currentTimeMillis() - start);
         } catch (Exception ex) {
             metrics.incrementFaultsReceiving();
             StringBuilder buffer = new StringBuilder("Error during processing of datagram:\n");
@@ -65,4 +69,14 @@ public class ProcessPacketTask implements Runnable {
             log.error(buffer.toString(), ex);
         }
     }
+
+    /**
+     * Drop the datagram, which waited too long for a worker thread.
+     */
+    public void reject() {
+        endpoint.getMetrics().incrementFaultsReceiving();
+        if (log.isDebugEnabled()) {
+            log.debug("Datagram of " + length + " bytes dropped : the worker pool is overloaded");
+        }
+    }
 }
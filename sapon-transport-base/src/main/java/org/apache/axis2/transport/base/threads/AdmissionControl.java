@@ -0,0 +1,158 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.axis2.transport.base.threads;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control in front of a worker pool.  Work is admitted only while
+ * fewer than maxQueued admitted items are still waiting to start, and work
+ * that waited longer than maxQueueTime by the time a thread picks it up is
+ * shed instead of being processed, since its client has most likely given
+ * up already.  Either limit is disabled when 0 or less.
+ * <p>
+ * The usage pattern is:
+ * <pre>
+ * if (!control.admit()) { reject; }
+ * long admitted = System.currentTimeMillis();
+ * ... hand over to the pool ...
+ * // in the worker thread
+ * if (!control.start(admitted)) { shed; } else { process; }
+ * </pre>
+ * and {@link #cancel()} when admitted work could not be handed over.
+ */
+public class AdmissionControl {
+
+    /**
+     * A task that knows how to refuse its work when it is shed, for example
+     * by answering its client with a fault.
+     */
+    public interface Task extends Runnable {
+
+        /**
+         * Called instead of {@link #run()} when the task waited too long
+         */
+        void reject();
+    }
+
+    private final int maxQueued;
+    private final long maxQueueTime;
+
+    private final AtomicInteger queued = new AtomicInteger(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+    private final AtomicLong expiredCount = new AtomicLong(0);
+
+    /**
+     * @param maxQueued    the maximum number of admitted items waiting to start
+     * @param maxQueueTime the maximum time in milliseconds an item may wait
+     */
+    public AdmissionControl(int maxQueued, long maxQueueTime) {
+        this.maxQueued = maxQueued;
+        this.maxQueueTime = maxQueueTime;
+    }
+
+    /**
+     * Reserve a place in the queue.
+     *
+     * @return true if the work is admitted, false if the queue is full
+     */
+    public boolean admit() {
+        if (maxQueued <= 0) {
+            queued.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int current = queued.get();
+            if (current >= maxQueued) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Leave the queue as the admitted work is about to start.
+     *
+     * @param admitted the time in milliseconds at which the work was admitted
+     * @return true if the work should be processed, false if it waited
+     *         too long and should be shed
+     */
+    public boolean start(long admitted) {
+        queued.decrementAndGet();
+        if (maxQueueTime > 0 && System.currentTimeMillis() - admitted > maxQueueTime) {
+            expiredCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Leave the queue as admitted work that cannot be shed is about to start.
+     */
+    public void leave() {
+        queued.decrementAndGet();
+    }
+
+    /**
+     * Leave the queue without starting, when the admitted work could not be
+     * handed over to the pool.
+     */
+    public void cancel() {
+        queued.decrementAndGet();
+        rejectedCount.incrementAndGet();
+    }
+
+    /**
+     * @return true if the queue is full, so that new work would be refused
+     */
+    public boolean isSaturated() {
+        return maxQueued > 0 && queued.get() >= maxQueued;
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public long getMaxQueueTime() {
+        return maxQueueTime;
+    }
+
+    /**
+     * @return the number of items refused because the queue was full
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return the number of items shed because they waited too long
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+}
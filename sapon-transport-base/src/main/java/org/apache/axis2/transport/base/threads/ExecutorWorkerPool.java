@@ -0,0 +1,202 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.axis2.transport.base.threads;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Worker pool running its tasks on any ExecutorService, such as a virtual
+ * thread per task executor or a work stealing ForkJoinPool.  The number of
+ * tasks running at the same time may be bounded by a semaphore: tasks over
+ * the limit are handed to the executor right away, but wait for a permit
+ * before they run, which costs little when the executor starts a virtual
+ * thread per task.
+ * <p>
+ * An optional {@link AdmissionControl} refuses tasks with a
+ * RejectedExecutionException once too many are waiting, and sheds
+ * {@link AdmissionControl.Task}s that waited too long to run.
+ * <p>
+ * This is also an ExecutorService itself, so that it can serve as the
+ * executor of the Synapse environment.
+ */
+public class ExecutorWorkerPool extends AbstractExecutorService implements WorkerPool {
+
+    private static final Log log = LogFactory.getLog(ExecutorWorkerPool.class);
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final AdmissionControl admission;
+
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+    private final AtomicInteger waitingCount = new AtomicInteger(0);
+
+    /**
+     * @param executor       the executor to run the tasks on
+     * @param maxConcurrency the maximum number of tasks running at the same
+     *                       time, or 0 or less to leave it to the executor
+     */
+    public ExecutorWorkerPool(ExecutorService executor, int maxConcurrency) {
+        this(executor, maxConcurrency, null);
+    }
+
+    /**
+     * @param executor       the executor to run the tasks on
+     * @param maxConcurrency the maximum number of tasks running at the same
+     *                       time, or 0 or less to leave it to the executor
+     * @param admission      the admission control for the tasks, or null
+     */
+    public ExecutorWorkerPool(ExecutorService executor, int maxConcurrency,
+                              AdmissionControl admission) {
+        if (executor == null) {
+            throw new IllegalArgumentException("An executor is required");
+        }
+        this.executor = executor;
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+        this.admission = admission;
+    }
+
+    public void execute(final Runnable task) {
+        if (admission != null && !admission.admit()) {
+            throw new RejectedExecutionException("Worker pool overloaded : "
+                    + admission.getQueued() + " tasks waiting");
+        }
+        final long admitted = admission != null ? System.currentTimeMillis() : 0;
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    if (permits != null) {
+                        waitingCount.incrementAndGet();
+                        try {
+                            permits.acquire();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            if (admission != null) {
+                                admission.cancel();
+                            }
+                            log.warn("Interrupted while waiting to run a task, the task is dropped");
+                            return;
+                        } finally {
+                            waitingCount.decrementAndGet();
+                        }
+                    }
+                    try {
+                        if (admission != null && !startAdmitted(task, admitted)) {
+                            return;
+                        }
+                        activeCount.incrementAndGet();
+                        try {
+                            task.run();
+                        } catch (Throwable t) {
+                            log.error("Uncaught exception", t);
+                        } finally {
+                            activeCount.decrementAndGet();
+                        }
+                    } finally {
+                        if (permits != null) {
+                            permits.release();
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (admission != null) {
+                admission.cancel();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Take an admitted task off the queue, rejecting it if it waited too long.
+     * Only tasks that can refuse their work are ever shed.
+     */
+    private boolean startAdmitted(Runnable task, long admitted) {
+        if (!(task instanceof AdmissionControl.Task)) {
+            admission.leave();
+            return true;
+        }
+        if (admission.start(admitted)) {
+            return true;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Task waited more than " + admission.getMaxQueueTime()
+                    + "ms to run, rejecting it");
+        }
+        try {
+            ((AdmissionControl.Task) task).reject();
+        } catch (Throwable t) {
+            log.error("Uncaught exception rejecting a task", t);
+        }
+        return false;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * @return the number of admitted tasks not started yet, or without
+     *         admission control the number of tasks waiting for a permit
+     */
+    public int getQueueSize() {
+        return admission != null ? admission.getQueued() : waitingCount.get();
+    }
+
+    /**
+     * @return the admission control of this pool, or null
+     */
+    public AdmissionControl getAdmissionControl() {
+        return admission;
+    }
+
+    public void shutdown(int timeout) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public List<Runnable> shutdownNow() {
+        return executor.shutdownNow();
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+}
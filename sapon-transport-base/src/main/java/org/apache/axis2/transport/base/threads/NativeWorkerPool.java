@@ -53,6 +53,9 @@ public class NativeWorkerPool implements WorkerPool {
     }
 
     public void execute(final Runnable task) {
+        // failures are caught on the task path, so that a failing task does not
+        // cost the pool its worker thread: ThreadPoolExecutor rethrows a task's
+        // exception after afterExecute, which ends the worker and starts another
         executor.execute(new Runnable() {
             public void run() {
                 try {
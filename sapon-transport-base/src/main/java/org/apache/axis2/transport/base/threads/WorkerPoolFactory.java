@@ -19,16 +19,139 @@
 
 package org.apache.axis2.transport.base.threads;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 /**
  * Worker pool factory.
- * For the moment this always creates {@link NativeWorkerPool} instances since
- * we assume that we are running on Java 1.5 or above.
+ * Creates {@link NativeWorkerPool} instances by default.  The
+ * {@link #WORKER_POOL_TYPE} system property, or an explicit type, selects
+ * a virtual thread per task executor bounded to the maximum pool size, or a
+ * work stealing ForkJoinPool for CPU bound work.  Both are looked up
+ * reflectively, and the factory falls back to a native pool on a JVM
+ * without them.
  */
 public class WorkerPoolFactory {
 
+    private static final Log log = LogFactory.getLog(WorkerPoolFactory.class);
+
+    /** System property selecting the default worker pool type */
+    public static final String WORKER_POOL_TYPE = "transport.worker.pool.type";
+
+    /** A ThreadPoolExecutor with core and max threads and a blocking queue */
+    public static final String NATIVE = "native";
+    /** A new virtual thread per task, at most max tasks running at once */
+    public static final String VIRTUAL = "virtual";
+    /** A work stealing ForkJoinPool with one thread per processor */
+    public static final String FORK_JOIN = "forkjoin";
+
     public static WorkerPool getWorkerPool(int core, int max, int keepAlive,
         int queueLength, String threadGroupName, String threadGroupId) {
-            return new NativeWorkerPool(
+            return getWorkerPool(System.getProperty(WORKER_POOL_TYPE, NATIVE),
                 core, max, keepAlive, queueLength, threadGroupName, threadGroupId);
     }
+
+    public static WorkerPool getWorkerPool(String type, int core, int max, int keepAlive,
+        int queueLength, String threadGroupName, String threadGroupId) {
+            return getWorkerPool(type, core, max, keepAlive, queueLength,
+                threadGroupName, threadGroupId, null);
+    }
+
+    /**
+     * Create a worker pool of the given type with admission control, so that
+     * tasks are refused once too many of them are waiting to run.
+     *
+     * @param admission the admission control, or null for none
+     */
+    public static WorkerPool getWorkerPool(String type, int core, int max, int keepAlive,
+        int queueLength, String threadGroupName, String threadGroupId,
+        AdmissionControl admission) {
+
+        if (VIRTUAL.equals(type)) {
+            ExecutorService executor = newVirtualThreadExecutor(threadGroupId);
+            if (executor != null) {
+                return new ExecutorWorkerPool(executor, max, admission);
+            }
+            log.warn("Virtual threads are not available, using a native worker pool");
+        } else if (FORK_JOIN.equals(type)) {
+            ExecutorService executor = newForkJoinPool(
+                    Runtime.getRuntime().availableProcessors());
+            if (executor != null) {
+                return new ExecutorWorkerPool(executor, 0, admission);
+            }
+            log.warn("ForkJoinPool is not available, using a native worker pool");
+        } else if (type != null && !NATIVE.equals(type)) {
+            log.warn("Unknown worker pool type : " + type + ", using a native worker pool");
+        }
+
+        if (admission != null) {
+            // the admission control bounds the queue
+            return new ExecutorWorkerPool(new ThreadPoolExecutor(
+                core, max, keepAlive, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new NativeThreadFactory(new ThreadGroup(threadGroupName), threadGroupId)),
+                0, admission);
+        }
+        return new NativeWorkerPool(
+            core, max, keepAlive, queueLength, threadGroupName, threadGroupId);
+    }
+
+    /**
+     * Create an executor starting a new virtual thread for each task.
+     *
+     * @param namePrefix prefix of the thread names
+     * @return the executor, or null if the JVM has no virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor(String namePrefix) {
+        try {
+            // Thread.ofVirtual().name(namePrefix, 0).factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, namePrefix, 0L);
+            ThreadFactory factory =
+                    (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method newExecutor = java.util.concurrent.Executors.class.getMethod(
+                    "newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newExecutor.invoke(null, factory);
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot create a virtual thread executor", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Create a work stealing ForkJoinPool in asynchronous (FIFO) mode, suited
+     * to tasks that are never joined.
+     *
+     * @param parallelism the number of worker threads
+     * @return the pool, or null if the JVM has no ForkJoinPool
+     */
+    public static ExecutorService newForkJoinPool(int parallelism) {
+        try {
+            Class<?> poolClass = Class.forName("java.util.concurrent.ForkJoinPool");
+            Class<?> factoryClass = Class.forName(
+                    "java.util.concurrent.ForkJoinPool$ForkJoinWorkerThreadFactory");
+            Object factory = poolClass.getField("defaultForkJoinWorkerThreadFactory").get(null);
+            Constructor<?> constructor = poolClass.getConstructor(int.class, factoryClass,
+                    Thread.UncaughtExceptionHandler.class, boolean.class);
+            return (ExecutorService) constructor.newInstance(
+                    parallelism, factory, null, Boolean.TRUE);
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot create a ForkJoinPool", e);
+            }
+            return null;
+        }
+    }
 }
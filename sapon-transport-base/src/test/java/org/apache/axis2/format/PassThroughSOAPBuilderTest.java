@@ -0,0 +1,105 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package org.apache.axis2.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.xml.namespace.QName;
+
+import junit.framework.TestCase;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.OMSourcedElement;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.Axis2Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.context.OldMessageContext;
+
+public class PassThroughSOAPBuilderTest extends TestCase {
+    private static final String PAYLOAD =
+            "<ns:echo attr=\"a&gt;b\" other='/>'><ns:value>\u00e9t\u00e9</ns:value>"
+            + "<!-- <ns:ignored/> --><![CDATA[<ns:notAnElement>]]></ns:echo>";
+
+    private static final String MESSAGE =
+            "<?xml version='1.0' encoding='UTF-8'?>"
+            + "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\""
+            + " xmlns:ns=\"urn:test\">"
+            + "<soapenv:Header><wsa:To xmlns:wsa=\"http://www.w3.org/2005/08/addressing\">"
+            + "http://localhost/echo</wsa:To></soapenv:Header>"
+            + "<soapenv:Body>\n  " + PAYLOAD + "\n</soapenv:Body></soapenv:Envelope>";
+
+    private SOAPEnvelope build(String message) throws Exception {
+        MessageContext messageContext = new OldMessageContext();
+        messageContext.setProperty(Axis2Constants.Configuration.CHARACTER_SET_ENCODING, "UTF-8");
+        return (SOAPEnvelope)new PassThroughSOAPBuilder().getDocumentElement(
+                new ByteArrayInputStream(message.getBytes("UTF-8")), "text/xml", messageContext);
+    }
+
+    public void testPayloadPassedThrough() throws Exception {
+        SOAPEnvelope envelope = build(MESSAGE);
+        OMElement to = envelope.getHeader().getFirstElement();
+        assertEquals("To", to.getLocalName());
+        assertEquals("http://localhost/echo", to.getText());
+
+        OMSourcedElement payload = (OMSourcedElement)envelope.getBody().getFirstElement();
+        assertEquals("echo", payload.getLocalName());
+        assertEquals("urn:test", payload.getNamespace().getNamespaceURI());
+
+        // This is how SOAPMessageFormatter serializes the message
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        envelope.serializeAndConsume(out, new OMOutputFormat());
+        assertTrue(new String(out.toByteArray(), "UTF-8").indexOf(PAYLOAD) != -1);
+        assertFalse(payload.isExpanded());
+    }
+
+    public void testPayloadExpandedOnAccess() throws Exception {
+        SOAPEnvelope envelope = build(MESSAGE);
+        OMElement payload = envelope.getBody().getFirstElement();
+        OMElement value = payload.getFirstElement();
+        assertEquals("urn:test", value.getNamespace().getNamespaceURI());
+        assertEquals("\u00e9t\u00e9", value.getText());
+        assertEquals("a>b", payload.getAttributeValue(new QName("attr")));
+    }
+
+    public void testFaultBuiltCompletely() throws Exception {
+        SOAPEnvelope envelope = build(
+                "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                + "<soapenv:Body><soapenv:Fault><faultcode>soapenv:Server</faultcode>"
+                + "<faultstring>failed</faultstring></soapenv:Fault></soapenv:Body>"
+                + "</soapenv:Envelope>");
+        assertTrue(envelope.getBody().hasFault());
+    }
+
+    public void testLocator() throws Exception {
+        byte[] message = MESSAGE.getBytes("UTF-8");
+        SOAPBodyLocator locator = SOAPBodyLocator.locate(message, 0, message.length);
+        assertEquals(PAYLOAD, new String(message, locator.getPayloadStart(),
+                locator.getPayloadEnd() - locator.getPayloadStart(), "UTF-8"));
+        assertEquals("</soapenv:Body></soapenv:Envelope>",
+                new String(locator.getClosingTags(), "UTF-8"));
+
+        byte[] twoChildren = ("<s:Envelope xmlns:s=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                + "<s:Body><a/><b/></s:Body></s:Envelope>").getBytes("UTF-8");
+        assertNull(SOAPBodyLocator.locate(twoChildren, 0, twoChildren.length));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.axis2.transport.base;
+
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+public class MetricsWriterTest extends TestCase {
+
+    public void testFamiliesAreGrouped() throws Exception {
+        MetricsWriter writer = new MetricsWriter();
+        writer.counter("requests", "Requests received", 3, "endpoint", "a");
+        writer.gauge("in_flight", null, 1.5, "endpoint", "a");
+        writer.counter("requests", "Requests received", 4, "endpoint", "b");
+
+        assertEquals(
+                "# TYPE requests counter\n" +
+                "# HELP requests Requests received\n" +
+                "requests_total{endpoint=\"a\"} 3\n" +
+                "requests_total{endpoint=\"b\"} 4\n" +
+                "# TYPE in_flight gauge\n" +
+                "in_flight{endpoint=\"a\"} 1.5\n" +
+                "# EOF\n", render(writer));
+    }
+
+    public void testSummaryAndStateSet() throws Exception {
+        RollingHistogram histogram = new RollingHistogram();
+        histogram.record(7);
+        MetricsWriter writer = new MetricsWriter();
+        writer.summary("latency", "Latency", histogram.getSnapshot(), "endpoint", "a");
+        writer.stateSet("state", "State", "UP", new String[] {"UP", "DOWN"});
+
+        assertEquals(
+                "# TYPE latency summary\n" +
+                "# HELP latency Latency\n" +
+                "latency{endpoint=\"a\",quantile=\"0.5\"} 7\n" +
+                "latency{endpoint=\"a\",quantile=\"0.9\"} 7\n" +
+                "latency{endpoint=\"a\",quantile=\"0.99\"} 7\n" +
+                "latency{endpoint=\"a\",quantile=\"0.999\"} 7\n" +
+                "# TYPE state stateset\n" +
+                "# HELP state State\n" +
+                "state{state=\"UP\"} 1\n" +
+                "state{state=\"DOWN\"} 0\n" +
+                "# EOF\n", render(writer));
+    }
+
+    public void testEscaping() throws Exception {
+        MetricsWriter writer = new MetricsWriter();
+        writer.gauge("size", "Line\none \\ \"two\"", Double.NaN, "name", "a\"b\\c\nd");
+        assertEquals(
+                "# TYPE size gauge\n" +
+                "# HELP size Line\\none \\\\ \"two\"\n" +
+                "size{name=\"a\\\"b\\\\c\\nd\"} NaN\n" +
+                "# EOF\n", render(writer));
+    }
+
+    public void testTypeMismatch() {
+        MetricsWriter writer = new MetricsWriter();
+        writer.counter("requests", null, 1);
+        try {
+            writer.gauge("requests", null, 1);
+            fail("A counter can not be written as a gauge");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testRegistry() throws Exception {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        StripedCounter counter = registry.getCounter("test_registry_hits", "Hits");
+        assertSame(counter, registry.getCounter("test_registry_hits", "Hits"));
+        counter.add(2);
+        registry.register("Broken", new MetricsSource() {
+            public void collectMetrics(MetricsWriter writer) {
+                throw new IllegalStateException("broken");
+            }
+        });
+        try {
+            StringWriter out = new StringWriter();
+            registry.writeMetrics(out);
+            assertTrue(out.toString().contains("test_registry_hits_total 2\n"));
+            assertTrue(out.toString().endsWith("# EOF\n"));
+        } finally {
+            registry.unregister("Broken");
+            registry.unregister("Counter:test_registry_hits");
+        }
+    }
+
+    public void testUnregisterLeavesAReplacingSource() throws Exception {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        MetricsSource first = new MetricsSource() {
+            public void collectMetrics(MetricsWriter writer) {
+                writer.gauge("test_source", null, 1);
+            }
+        };
+        MetricsSource second = new MetricsSource() {
+            public void collectMetrics(MetricsWriter writer) {
+                writer.gauge("test_source", null, 2);
+            }
+        };
+        registry.register("Replaced", first);
+        registry.register("Replaced", second);
+        try {
+            assertFalse(registry.unregister("Replaced", first));
+            StringWriter out = new StringWriter();
+            registry.writeMetrics(out);
+            assertTrue(out.toString().contains("test_source 2"));
+
+            assertTrue(registry.unregister("Replaced", second));
+            out = new StringWriter();
+            registry.writeMetrics(out);
+            assertFalse(out.toString().contains("test_source"));
+        } finally {
+            registry.unregister("Replaced");
+        }
+    }
+
+    private static String render(MetricsWriter writer) throws Exception {
+        StringWriter out = new StringWriter();
+        writer.writeTo(out);
+        return out.toString();
+    }
+}
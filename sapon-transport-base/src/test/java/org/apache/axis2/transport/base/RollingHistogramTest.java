@@ -0,0 +1,129 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.axis2.transport.base;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class RollingHistogramTest extends TestCase {
+
+    public void testBuckets() {
+        long previous = -1;
+        for (int index = 0; index < 200; index++) {
+            long highest = RollingHistogram.highestValue(index);
+            assertTrue(highest > previous);
+            // every value of the bucket maps back to it
+            assertEquals(index, RollingHistogram.bucketIndex(previous + 1));
+            assertEquals(index, RollingHistogram.bucketIndex(highest));
+            // and is within 1/16th of its highest value
+            assertTrue(highest - (previous + 1) <= highest / 16);
+            previous = highest;
+        }
+        assertEquals(0, RollingHistogram.bucketIndex(-5));
+        assertEquals(RollingHistogram.bucketIndex(1L << 40),
+                RollingHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    public void testPercentiles() {
+        RollingHistogram histogram = new RollingHistogram(60000, 6);
+        long now = 1000000;
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, now);
+        }
+        RollingHistogram.Snapshot snapshot = histogram.getSnapshot(now);
+        assertEquals(1000, snapshot.getCount());
+        assertWithin(500, snapshot.getValueAtPercentile(50));
+        assertWithin(900, snapshot.getValueAtPercentile(90));
+        assertWithin(990, snapshot.getValueAtPercentile(99));
+        assertWithin(999, snapshot.getValueAtPercentile(99.9));
+        assertEquals(1, snapshot.getValueAtPercentile(0));
+
+        Map<String, Long> percentiles = snapshot.getPercentiles();
+        assertEquals(4, percentiles.size());
+        assertEquals(snapshot.getValueAtPercentile(99), (long) percentiles.get("p99"));
+    }
+
+    public void testRollingWindow() {
+        RollingHistogram histogram = new RollingHistogram(60000, 6);
+        long now = 1000000;
+        histogram.record(5, now);
+        histogram.record(500, now + 30000);
+        assertEquals(2, histogram.getSnapshot(now + 30000).getCount());
+
+        // the first slot has left the window
+        RollingHistogram.Snapshot snapshot = histogram.getSnapshot(now + 60000);
+        assertEquals(1, snapshot.getCount());
+        assertWithin(500, snapshot.getValueAtPercentile(50));
+
+        // and is reused for a new interval
+        histogram.record(7, now + 120000);
+        snapshot = histogram.getSnapshot(now + 120000);
+        assertEquals(1, snapshot.getCount());
+        assertEquals(7, snapshot.getValueAtPercentile(50));
+
+        histogram.reset();
+        assertEquals(0, histogram.getSnapshot(now + 120000).getCount());
+        assertEquals(0, histogram.getSnapshot(now + 120000).getValueAtPercentile(99));
+    }
+
+    public void testMergedSnapshots() {
+        RollingHistogram fast = new RollingHistogram(60000, 6);
+        RollingHistogram slow = new RollingHistogram(60000, 6);
+        long now = 1000000;
+        for (int i = 0; i < 99; i++) {
+            fast.record(10, now);
+        }
+        slow.record(5000, now);
+
+        RollingHistogram.Snapshot merged = new RollingHistogram.Snapshot();
+        merged.add(fast.getSnapshot(now));
+        merged.add(slow.getSnapshot(now));
+        assertEquals(100, merged.getCount());
+        assertEquals(10, merged.getValueAtPercentile(99));
+        assertWithin(5000, merged.getValueAtPercentile(99.9));
+    }
+
+    public void testStripedCounter() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        counter.increment();
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, counter.get());
+        counter.reset();
+        assertEquals(0, counter.get());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 16);
+    }
+}
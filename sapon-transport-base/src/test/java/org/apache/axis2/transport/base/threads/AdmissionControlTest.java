@@ -0,0 +1,114 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.axis2.transport.base.threads;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+public class AdmissionControlTest extends TestCase {
+
+    public void testQueueLimit() {
+        AdmissionControl control = new AdmissionControl(2, 0);
+        assertTrue(control.admit());
+        assertTrue(control.admit());
+        assertTrue(control.isSaturated());
+        assertFalse(control.admit());
+        assertEquals(1, control.getRejectedCount());
+
+        assertTrue(control.start(System.currentTimeMillis()));
+        assertFalse(control.isSaturated());
+        assertTrue(control.admit());
+        control.cancel();
+        assertEquals(1, control.getQueued());
+        assertEquals(2, control.getRejectedCount());
+    }
+
+    public void testQueueTimeDeadline() {
+        AdmissionControl control = new AdmissionControl(0, 100);
+        assertTrue(control.admit());
+        assertTrue(control.admit());
+        assertTrue(control.start(System.currentTimeMillis() - 50));
+        assertFalse(control.start(System.currentTimeMillis() - 500));
+        assertEquals(1, control.getExpiredCount());
+        assertEquals(0, control.getQueued());
+        assertFalse(control.isSaturated());
+    }
+
+    public void testPoolRejectsAndSheds() throws Exception {
+        AdmissionControl control = new AdmissionControl(2, 100);
+        ExecutorWorkerPool pool = new ExecutorWorkerPool(
+                Executors.newSingleThreadExecutor(), 0, control);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        pool.execute(new Runnable() {
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignore) {
+                }
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        final AtomicBoolean ran = new AtomicBoolean();
+        final CountDownLatch rejected = new CountDownLatch(1);
+        pool.execute(new AdmissionControl.Task() {
+            public void run() {
+                ran.set(true);
+            }
+
+            public void reject() {
+                rejected.countDown();
+            }
+        });
+        final CountDownLatch plainRan = new CountDownLatch(1);
+        pool.execute(new Runnable() {
+            public void run() {
+                plainRan.countDown();
+            }
+        });
+        assertEquals(2, pool.getQueueSize());
+
+        try {
+            pool.execute(new Runnable() {
+                public void run() {
+                }
+            });
+            fail("The third waiting task should have been refused");
+        } catch (RejectedExecutionException expected) {
+        }
+
+        Thread.sleep(200);
+        release.countDown();
+        assertTrue(rejected.await(5, TimeUnit.SECONDS));
+        assertTrue(plainRan.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertEquals(1, control.getExpiredCount());
+        assertEquals(1, control.getRejectedCount());
+        pool.shutdown(1000);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.axis2.transport.base.threads;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class ExecutorWorkerPoolTest extends TestCase {
+
+    public void testConcurrencyIsBounded() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        ExecutorWorkerPool pool = new ExecutorWorkerPool(executor, 2);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(6);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 6; i++) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    int now = running.incrementAndGet();
+                    while (true) {
+                        int max = maxRunning.get();
+                        if (now <= max || maxRunning.compareAndSet(max, now)) {
+                            break;
+                        }
+                    }
+                    try {
+                        release.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((pool.getActiveCount() < 2 || pool.getQueueSize() < 4)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, pool.getActiveCount());
+        assertEquals(4, pool.getQueueSize());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, maxRunning.get());
+        pool.shutdown(1000);
+        assertTrue(pool.isShutdown());
+    }
+
+    public void testFailedTaskDoesNotLeakPermit() throws Exception {
+        ExecutorWorkerPool pool = new ExecutorWorkerPool(Executors.newSingleThreadExecutor(), 1);
+        pool.execute(new Runnable() {
+            public void run() {
+                throw new RuntimeException("expected");
+            }
+        });
+        final CountDownLatch ran = new CountDownLatch(1);
+        pool.execute(new Runnable() {
+            public void run() {
+                ran.countDown();
+            }
+        });
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        pool.shutdown(1000);
+    }
+
+    public void testNativePoolKeepsWorkerAfterFailedTask() throws Exception {
+        NativeWorkerPool pool = new NativeWorkerPool(1, 1, 5, -1, "test", "test");
+        final Thread[] workers = new Thread[2];
+        final CountDownLatch ran = new CountDownLatch(2);
+        pool.execute(new Runnable() {
+            public void run() {
+                workers[0] = Thread.currentThread();
+                ran.countDown();
+                throw new RuntimeException("expected");
+            }
+        });
+        pool.execute(new Runnable() {
+            public void run() {
+                workers[1] = Thread.currentThread();
+                ran.countDown();
+            }
+        });
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertSame(workers[0], workers[1]);
+        pool.shutdown(1000);
+    }
+
+    public void testUnknownTypeFallsBackToNativePool() throws Exception {
+        WorkerPool pool = WorkerPoolFactory.getWorkerPool("unknown", 1, 2, 5, -1, "test", "test");
+        assertTrue(pool instanceof NativeWorkerPool);
+        pool.shutdown(1000);
+    }
+}